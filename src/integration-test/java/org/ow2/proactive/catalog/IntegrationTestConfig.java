@@ -39,6 +39,8 @@ import org.ow2.proactive.catalog.graphql.handler.catalogobject.*;
 import org.ow2.proactive.catalog.mocks.BucketGrantServiceMock;
 import org.ow2.proactive.catalog.mocks.CatalogObjectGrantServiceMock;
 import org.ow2.proactive.catalog.mocks.RestApiAccessServiceMock;
+import org.ow2.proactive.catalog.repository.CatalogObjectRepository;
+import org.ow2.proactive.catalog.repository.CatalogObjectRevisionRepository;
 import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
 import org.ow2.proactive.catalog.service.*;
 import org.ow2.proactive.catalog.util.ArchiveManagerHelper;
@@ -121,6 +123,27 @@ public class IntegrationTestConfig {
         return new GrantRightsService();
     }
 
+    @Bean
+    public UserRightsCache userRightsCache() {
+        return new UserRightsCache(1000, 60);
+    }
+
+    @Bean
+    public CatalogObjectDependencyIndex catalogObjectDependencyIndex(CatalogObjectRepository catalogObjectRepository,
+            CatalogObjectRevisionRepository catalogObjectRevisionRepository) {
+        return new CatalogObjectDependencyIndex(catalogObjectRepository,
+                                                catalogObjectRevisionRepository,
+                                                separatorUtility());
+    }
+
+    @Bean
+    public CatalogObjectFacetIndex catalogObjectFacetIndex(CatalogObjectRepository catalogObjectRepository,
+            CatalogObjectRevisionRepository catalogObjectRevisionRepository) {
+        return new CatalogObjectFacetIndex(catalogObjectRepository,
+                                           catalogObjectRevisionRepository,
+                                           separatorUtility());
+    }
+
     @Bean
     public BucketService bucketService() {
         return new BucketService();
@@ -131,6 +154,11 @@ public class IntegrationTestConfig {
         return new CatalogObjectService();
     }
 
+    @Bean
+    public CatalogObjectContentStore catalogObjectContentStore() {
+        return new CatalogObjectContentStore();
+    }
+
     @Bean
     public GraphqlService graphqlService() {
         return new GraphqlService();
@@ -0,0 +1,181 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.repository.specification.catalogobject;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.ow2.proactive.catalog.IntegrationTestConfig;
+import org.ow2.proactive.catalog.repository.BucketRepository;
+import org.ow2.proactive.catalog.repository.CatalogObjectRevisionRepository;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
+import org.ow2.proactive.catalog.service.BucketService;
+import org.ow2.proactive.catalog.service.CatalogObjectService;
+import org.ow2.proactive.catalog.service.model.CatalogObjectAccessFilter;
+import org.ow2.proactive.catalog.service.model.UserCatalogObjectsAccess;
+import org.ow2.proactive.catalog.util.IntegrationTestUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specifications;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+
+/**
+ * Runs the grant specification against the database for the buckets owned by the user's group, the public buckets and
+ * the buckets with grants on some of their objects.
+ *
+ * @author ActiveEon Team
+ */
+@ActiveProfiles("test")
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = IntegrationTestConfig.class)
+public class CatalogObjectGrantSpecificationIntegrationTest {
+
+    private static final String USER_GROUP_OWNER = "GROUP:users";
+
+    private static final String OTHER_GROUP_OWNER = "GROUP:others";
+
+    @Autowired
+    private BucketService bucketService;
+
+    @Autowired
+    private CatalogObjectService catalogObjectService;
+
+    @Autowired
+    private BucketRepository bucketRepository;
+
+    @Autowired
+    private CatalogObjectRevisionRepository catalogObjectRevisionRepository;
+
+    private final Map<Long, String> bucketNamesById = new HashMap<>();
+
+    @Before
+    public void setup() throws IOException {
+        createBucketWithObjects("group-bucket", USER_GROUP_OWNER);
+        createBucketWithObjects("public-bucket", BucketService.DEFAULT_BUCKET_OWNER);
+        createBucketWithObjects("granted-bucket", OTHER_GROUP_OWNER);
+        createBucketWithObjects("private-bucket", OTHER_GROUP_OWNER);
+    }
+
+    @After
+    public void cleanup() {
+        bucketService.cleanAll();
+    }
+
+    @Test
+    public void testUnrestrictedAccessReturnsAllObjects() {
+        assertThat(findAccessibleObjects(UserCatalogObjectsAccess.UNRESTRICTED)).hasSize(8);
+    }
+
+    @Test
+    public void testObjectsOfTheBucketsOwnedByTheUserGroupsAreAccessible() {
+        UserCatalogObjectsAccess access = UserCatalogObjectsAccess.restricted(ImmutableSet.of(USER_GROUP_OWNER),
+                                                                              Collections.emptyMap());
+
+        assertThat(findAccessibleObjects(access)).containsExactly("group-bucket/object1", "group-bucket/object2");
+    }
+
+    @Test
+    public void testObjectsWithNoAccessGrantInPublicBucketAreHidden() {
+        UserCatalogObjectsAccess access = UserCatalogObjectsAccess.restricted(ImmutableSet.of(BucketService.DEFAULT_BUCKET_OWNER),
+                                                                              ImmutableMap.of("public-bucket",
+                                                                                              CatalogObjectAccessFilter.excluding(ImmutableSet.of("object2"))));
+
+        assertThat(findAccessibleObjects(access)).containsExactly("public-bucket/object1");
+    }
+
+    @Test
+    public void testOnlyGrantedObjectsOfBucketWithPartialGrantsAreAccessible() {
+        UserCatalogObjectsAccess access = UserCatalogObjectsAccess.restricted(ImmutableSet.of(BucketService.DEFAULT_BUCKET_OWNER,
+                                                                                              USER_GROUP_OWNER),
+                                                                              ImmutableMap.of("granted-bucket",
+                                                                                              CatalogObjectAccessFilter.restrictedTo(ImmutableSet.of("object1")),
+                                                                                              "group-bucket",
+                                                                                              CatalogObjectAccessFilter.excluding(ImmutableSet.of("object1"))));
+
+        assertThat(findAccessibleObjects(access)).containsExactly("group-bucket/object2",
+                                                                  "public-bucket/object1",
+                                                                  "public-bucket/object2",
+                                                                  "granted-bucket/object1");
+    }
+
+    @Test
+    public void testNoObjectIsAccessibleWithoutOwnersNorGrants() {
+        UserCatalogObjectsAccess access = UserCatalogObjectsAccess.restricted(Collections.emptySet(),
+                                                                              ImmutableMap.of("granted-bucket",
+                                                                                              CatalogObjectAccessFilter.restrictedTo(Collections.emptySet())));
+
+        assertThat(findAccessibleObjects(access)).isEmpty();
+    }
+
+    private List<String> findAccessibleObjects(UserCatalogObjectsAccess access) {
+        Page<CatalogObjectRevisionEntity> page = catalogObjectRevisionRepository.findAll(Specifications.where(new DefaultSpecification())
+                                                                                                       .and(CatalogObjectGrantSpecification.builder()
+                                                                                                                                           .value(access)
+                                                                                                                                           .build()),
+                                                                                         new PageRequest(0, 50));
+        assertThat(page.getTotalElements()).isEqualTo(page.getContent().size());
+        return page.getContent()
+                   .stream()
+                   .map(revision -> revision.getCatalogObject().getId())
+                   .map(id -> bucketNamesById.get(id.getBucketId()) + "/" + id.getName())
+                   .collect(Collectors.toList());
+    }
+
+    private void createBucketWithObjects(String bucketName, String owner) throws IOException {
+        bucketService.createBucket(bucketName, owner, null);
+        bucketNamesById.put(bucketRepository.findOneByBucketName(bucketName).getId(), bucketName);
+        for (String objectName : new String[] { "object1", "object2" }) {
+            catalogObjectService.createCatalogObject(bucketName,
+                                                     objectName,
+                                                     "projectName",
+                                                     "",
+                                                     "workflow",
+                                                     "commit message",
+                                                     "username",
+                                                     "application/xml",
+                                                     Collections.emptyList(),
+                                                     IntegrationTestUtil.getWorkflowAsByteArray("workflow.xml"),
+                                                     null);
+        }
+    }
+}
@@ -500,6 +500,78 @@ public class BucketControllerIntegrationTest extends AbstractRestAssuredTest {
 
     }
 
+    @Test
+    public void testListBucketsObjectCountAfterCreateAndDelete() {
+        final String bucketName = "counted-bucket";
+        final String owner = "count-owner";
+        IntegrationTestUtil.createBucket(bucketName, owner);
+        assertEquals(0, getObjectCountOfOnlyBucketOf(owner));
+
+        IntegrationTestUtil.postObjectToBucket(bucketName,
+                                               "workflow",
+                                               "object1",
+                                               MediaType.APPLICATION_XML_VALUE,
+                                               "first commit",
+                                               IntegrationTestUtil.getWorkflowFile("workflow.xml"));
+        IntegrationTestUtil.postObjectToBucket(bucketName,
+                                               "workflow",
+                                               "object2",
+                                               MediaType.APPLICATION_XML_VALUE,
+                                               "first commit",
+                                               IntegrationTestUtil.getWorkflowFile("workflow.xml"));
+        assertEquals(2, getObjectCountOfOnlyBucketOf(owner));
+
+        given().header("sessionID", "12345")
+               .pathParam("bucketName", bucketName)
+               .pathParam("name", "object1")
+               .when()
+               .delete(CATALOG_OBJECT_RESOURCE)
+               .then()
+               .assertThat()
+               .statusCode(HttpStatus.SC_OK);
+        assertEquals(1, getObjectCountOfOnlyBucketOf(owner));
+
+        given().header("sessionID", "12345")
+               .pathParam("bucketName", bucketName)
+               .pathParam("name", "object2")
+               .when()
+               .delete(CATALOG_OBJECT_RESOURCE);
+        assertEquals(0, getObjectCountOfOnlyBucketOf(owner));
+    }
+
+    @Test
+    public void testListAllBucketsFilteredByNameMatchesUnderscoreLiterally() {
+        IntegrationTestUtil.createBucket("like-filter-bucket", "owner");
+
+        given().param("allBuckets", "true")
+               .param("bucketName", "like-filter")
+               .get(BUCKETS_RESOURCE)
+               .then()
+               .assertThat()
+               .statusCode(HttpStatus.SC_OK)
+               .body("", hasSize(1));
+
+        given().param("allBuckets", "true")
+               .param("bucketName", "like_filter")
+               .get(BUCKETS_RESOURCE)
+               .then()
+               .assertThat()
+               .statusCode(HttpStatus.SC_OK)
+               .body("", hasSize(0));
+    }
+
+    private int getObjectCountOfOnlyBucketOf(String owner) {
+        List<HashMap<String, Object>> buckets = given().param("owner", owner)
+                                                       .get(BUCKETS_RESOURCE)
+                                                       .then()
+                                                       .assertThat()
+                                                       .statusCode(HttpStatus.SC_OK)
+                                                       .body("", hasSize(1))
+                                                       .extract()
+                                                       .path("");
+        return (Integer) buckets.get(0).get("objectCount");
+    }
+
     private int sumContentCount(List<HashMap<String, Object>> bucketEntityWithContentCountList) {
 
         return bucketEntityWithContentCountList.stream().mapToInt(map -> (Integer) map.get("objectCount")).sum();
@@ -1034,6 +1034,29 @@ public class CatalogObjectControllerIntegrationTest extends AbstractRestAssuredT
                                                                 "object-name").getLocalizedMessage()));
     }
 
+    @Test
+    public void testGetWorkflowPayloadShouldReturnNotModifiedIfETagMatches() {
+        String eTag = given().pathParam("bucketName", bucket.getName())
+                             .pathParam("name", "workflowname")
+                             .when()
+                             .get(CATALOG_OBJECT_RESOURCE + "/raw")
+                             .then()
+                             .assertThat()
+                             .statusCode(HttpStatus.SC_OK)
+                             .extract()
+                             .header(HttpHeaders.ETAG);
+
+        given().header(HttpHeaders.IF_NONE_MATCH, eTag)
+               .pathParam("bucketName", bucket.getName())
+               .pathParam("name", "workflowname")
+               .when()
+               .get(CATALOG_OBJECT_RESOURCE + "/raw")
+               .then()
+               .assertThat()
+               .statusCode(HttpStatus.SC_NOT_MODIFIED)
+               .header(HttpHeaders.ETAG, eTag);
+    }
+
     @Test
     public void testGetWorkflowPayloadShouldReturnNotFoundIfNonExistingbucketName() {
         given().pathParam("bucketName", "non-existing-bucket")
@@ -55,7 +55,9 @@ import org.ow2.proactive.catalog.service.exception.BucketNotFoundException;
 import org.ow2.proactive.catalog.service.exception.ParsingObjectException;
 import org.ow2.proactive.catalog.service.exception.RevisionNotFoundException;
 import org.ow2.proactive.catalog.util.IntegrationTestUtil;
+import org.ow2.proactive.catalog.util.RawObjectResponseCreator;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
@@ -322,6 +324,54 @@ public class CatalogObjectRevisionControllerIntegrationTest extends AbstractCata
         response.then().assertThat().statusCode(HttpStatus.SC_OK);
     }
 
+    @Test
+    public void testGetWorkflowRevisionPayloadShouldReturnNotModifiedIfETagMatches() {
+        String eTag = given().pathParam("bucketName", bucket.getName())
+                             .pathParam("name", "WF_1_Rev_1.xml")
+                             .pathParam("commitTimeRaw", secondCatalogObjectRevision.get("commit_time_raw"))
+                             .when()
+                             .get(CATALOG_OBJECT_REVISION_RESOURCE_WITH_TIME + "/raw")
+                             .then()
+                             .assertThat()
+                             .statusCode(HttpStatus.SC_OK)
+                             .header(HttpHeaders.CACHE_CONTROL, RawObjectResponseCreator.REVISION_CACHE_CONTROL)
+                             .extract()
+                             .header(HttpHeaders.ETAG);
+
+        given().header(HttpHeaders.IF_NONE_MATCH, eTag)
+               .pathParam("bucketName", bucket.getName())
+               .pathParam("name", "WF_1_Rev_1.xml")
+               .pathParam("commitTimeRaw", secondCatalogObjectRevision.get("commit_time_raw"))
+               .when()
+               .get(CATALOG_OBJECT_REVISION_RESOURCE_WITH_TIME + "/raw")
+               .then()
+               .assertThat()
+               .statusCode(HttpStatus.SC_NOT_MODIFIED)
+               .header(HttpHeaders.ETAG, eTag);
+
+        // the Content-Type of the revision can be modified without a new revision, the client copy is then outdated
+        given().header("sessionID", "12345")
+               .pathParam("bucketName", bucket.getName())
+               .pathParam("name", "WF_1_Rev_1.xml")
+               .queryParam("contentType", MediaType.TEXT_XML_VALUE)
+               .when()
+               .put(CATALOG_OBJECT_RESOURCE)
+               .then()
+               .assertThat()
+               .statusCode(HttpStatus.SC_OK);
+
+        given().header(HttpHeaders.IF_NONE_MATCH, eTag)
+               .pathParam("bucketName", bucket.getName())
+               .pathParam("name", "WF_1_Rev_1.xml")
+               .pathParam("commitTimeRaw", secondCatalogObjectRevision.get("commit_time_raw"))
+               .when()
+               .get(CATALOG_OBJECT_REVISION_RESOURCE_WITH_TIME + "/raw")
+               .then()
+               .assertThat()
+               .statusCode(HttpStatus.SC_OK)
+               .header(HttpHeaders.CONTENT_TYPE, containsString(MediaType.TEXT_XML_VALUE));
+    }
+
     @Test
     public void testGetWorkflowShouldReturnNotFoundIfNonExistingBucketName() {
         given().pathParam("bucketName", "non-existing")
@@ -36,12 +36,17 @@ import java.time.ZoneId;
 import java.util.*;
 import java.util.stream.Collectors;
 
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.ow2.proactive.catalog.IntegrationTestConfig;
 import org.ow2.proactive.catalog.dto.BucketMetadata;
+import org.ow2.proactive.catalog.dto.CatalogObjectCursor;
 import org.ow2.proactive.catalog.dto.CatalogObjectDependencies;
 import org.ow2.proactive.catalog.dto.CatalogObjectMetadata;
 import org.ow2.proactive.catalog.dto.CatalogObjectNameReference;
@@ -50,6 +55,7 @@ import org.ow2.proactive.catalog.dto.DependsOnCatalogObject;
 import org.ow2.proactive.catalog.dto.Metadata;
 import org.ow2.proactive.catalog.service.exception.CatalogObjectNotFoundException;
 import org.ow2.proactive.catalog.service.exception.KindOrContentTypeIsNotValidException;
+import org.ow2.proactive.catalog.service.model.CatalogObjectAccessFilter;
 import org.ow2.proactive.catalog.util.IntegrationTestUtil;
 import org.ow2.proactive.catalog.util.SeparatorUtility;
 import org.ow2.proactive.catalog.util.parser.WorkflowParser;
@@ -81,6 +87,9 @@ public class CatalogObjectServiceIntegrationTest {
     @Autowired
     private SeparatorUtility separatorUtility;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private BucketMetadata bucket;
 
     private List<Metadata> keyValues;
@@ -1320,6 +1329,54 @@ public class CatalogObjectServiceIntegrationTest {
         assertThat(catalogObjects).hasSize(3);
     }
 
+    @Test
+    public void testListCatalogObjectsInBucketUsesABoundedNumberOfQueries() {
+        for (int i = 0; i < 30; i++) {
+            catalogObjectService.createCatalogObject(bucket.getName(),
+                                                     "listed-object-" + i,
+                                                     PROJECT_NAME,
+                                                     TAGS,
+                                                     "object",
+                                                     "commit message",
+                                                     "username",
+                                                     "application/xml",
+                                                     keyValues,
+                                                     null,
+                                                     null);
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<CatalogObjectMetadata> catalogObjects = catalogObjectService.listCatalogObjects(Arrays.asList(bucket.getName()),
+                                                                                             0,
+                                                                                             Integer.MAX_VALUE);
+
+        // one query to check the bucket, one for the listed columns and one for the key/values of all the objects
+        assertThat(statistics.getPrepareStatementCount()).isAtMost(3L);
+        assertThat(catalogObjects).hasSize(33);
+        catalogObjects.stream()
+                      .filter(catalogObject -> catalogObject.getName().startsWith("listed-object-"))
+                      .forEach(catalogObject -> assertThat(catalogObject.getMetadataList()).contains(new Metadata("key",
+                                                                                                                  "value",
+                                                                                                                  "type")));
+
+        statistics.clear();
+        catalogObjects = catalogObjectService.listCatalogObjectsByKindListAndContentTypeAndObjectNameAndObjectTag(Arrays.asList(bucket.getName()),
+                                                                                                                  "object",
+                                                                                                                  "",
+                                                                                                                  "listed-object",
+                                                                                                                  "",
+                                                                                                                  "",
+                                                                                                                  "",
+                                                                                                                  "",
+                                                                                                                  0L,
+                                                                                                                  0L,
+                                                                                                                  0,
+                                                                                                                  Integer.MAX_VALUE);
+        assertThat(statistics.getPrepareStatementCount()).isAtMost(3L);
+        assertThat(catalogObjects).hasSize(30);
+    }
+
     @Test
     public void testGetAllKinds() {
         Set<String> listKinds = catalogObjectService.getKinds();
@@ -1646,6 +1703,114 @@ public class CatalogObjectServiceIntegrationTest {
 
     }
 
+    @Test
+    public void testAccessFilterIsAppliedBeforePaging() {
+        List<CatalogObjectMetadata> catalogObjects = catalogObjectService.listCatalogObjects(Arrays.asList(bucket.getName()),
+                                                                                             Optional.empty(),
+                                                                                             Optional.empty(),
+                                                                                             Optional.empty(),
+                                                                                             Optional.empty(),
+                                                                                             Optional.empty(),
+                                                                                             Optional.empty(),
+                                                                                             Optional.empty(),
+                                                                                             Optional.empty(),
+                                                                                             Optional.empty(),
+                                                                                             CatalogObjectAccessFilter.excluding(Collections.singleton("object-name-1")),
+                                                                                             0,
+                                                                                             2);
+        assertThat(catalogObjects.stream().map(CatalogObjectMetadata::getName).collect(Collectors.toList())).containsExactly("object-name-2",
+                                                                                                                               "object-name-3");
+
+        catalogObjects = catalogObjectService.listCatalogObjects(Arrays.asList(bucket.getName()),
+                                                                 Optional.empty(),
+                                                                 Optional.empty(),
+                                                                 Optional.empty(),
+                                                                 Optional.empty(),
+                                                                 Optional.empty(),
+                                                                 Optional.empty(),
+                                                                 Optional.empty(),
+                                                                 Optional.empty(),
+                                                                 Optional.empty(),
+                                                                 CatalogObjectAccessFilter.restrictedTo(Collections.singleton("object-name-3")),
+                                                                 0,
+                                                                 2);
+        assertThat(catalogObjects).hasSize(1);
+        assertThat(catalogObjects.get(0).getName()).isEqualTo("object-name-3");
+
+        catalogObjects = catalogObjectService.listCatalogObjectsAfterCursor(Arrays.asList(bucket.getName()),
+                                                                            Optional.empty(),
+                                                                            Optional.empty(),
+                                                                            Optional.empty(),
+                                                                            Optional.empty(),
+                                                                            Optional.empty(),
+                                                                            Optional.empty(),
+                                                                            Optional.empty(),
+                                                                            Optional.empty(),
+                                                                            Optional.empty(),
+                                                                            CatalogObjectAccessFilter.restrictedTo(Collections.emptySet()),
+                                                                            Optional.empty(),
+                                                                            10);
+        assertThat(catalogObjects).isEmpty();
+    }
+
+    @Test
+    public void testCatalogObjectsInBucketAfterCursor() {
+        List<CatalogObjectMetadata> allCatalogObjects = catalogObjectService.listCatalogObjects(Arrays.asList(bucket.getName()),
+                                                                                                0,
+                                                                                                Integer.MAX_VALUE);
+        List<String> expectedNames = allCatalogObjects.stream()
+                                                      .sorted(Comparator.comparing((CatalogObjectMetadata metadata) -> Long.parseLong(metadata.getCommitTimeRaw()))
+                                                                        .thenComparing(CatalogObjectMetadata::getName))
+                                                      .map(CatalogObjectMetadata::getName)
+                                                      .collect(Collectors.toList());
+
+        List<String> pagedNames = new ArrayList<>();
+        Optional<CatalogObjectCursor> cursor = Optional.empty();
+        List<CatalogObjectMetadata> page;
+        do {
+            page = catalogObjectService.listCatalogObjectsAfterCursor(Arrays.asList(bucket.getName()),
+                                                                      Optional.empty(),
+                                                                      Optional.empty(),
+                                                                      Optional.empty(),
+                                                                      Optional.empty(),
+                                                                      Optional.empty(),
+                                                                      Optional.empty(),
+                                                                      Optional.empty(),
+                                                                      Optional.empty(),
+                                                                      Optional.empty(),
+                                                                      CatalogObjectAccessFilter.ALL,
+                                                                      cursor,
+                                                                      2);
+            assertThat(page.size()).isAtMost(2);
+            page.forEach(metadata -> pagedNames.add(metadata.getName()));
+            if (!page.isEmpty()) {
+                cursor = Optional.of(CatalogObjectCursor.of(page.get(page.size() - 1)));
+            }
+        } while (page.size() == 2);
+
+        assertThat(pagedNames).containsExactlyElementsIn(expectedNames).inOrder();
+    }
+
+    @Test
+    public void testCatalogObjectsByTagAfterCursorAreNotDuplicated() {
+        List<CatalogObjectMetadata> page = catalogObjectService.listCatalogObjectsAfterCursor(Arrays.asList(bucket.getName()),
+                                                                                              Optional.empty(),
+                                                                                              Optional.empty(),
+                                                                                              Optional.empty(),
+                                                                                              Optional.of("tag"),
+                                                                                              Optional.empty(),
+                                                                                              Optional.empty(),
+                                                                                              Optional.empty(),
+                                                                                              Optional.empty(),
+                                                                                              Optional.empty(),
+                                                                                              CatalogObjectAccessFilter.ALL,
+                                                                                              Optional.empty(),
+                                                                                              10);
+        List<String> names = page.stream().map(CatalogObjectMetadata::getName).collect(Collectors.toList());
+        assertThat(names).containsNoDuplicates();
+        assertThat(names).isNotEmpty();
+    }
+
     @Test
     public void testPageableCatalogObjectsInBucketByEmptyFilters() {
         List<CatalogObjectMetadata> catalogObjects = catalogObjectService.listCatalogObjectsByKindListAndContentTypeAndObjectNameAndObjectTag(Arrays.asList(bucket.getName()),
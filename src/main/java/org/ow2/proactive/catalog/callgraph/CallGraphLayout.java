@@ -0,0 +1,221 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.callgraph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+
+import lombok.Data;
+
+
+/**
+ * Hierarchical layout of the call graph of a root catalog object.
+ *
+ * The catalog objects are placed in layers by their distance from the root (breadth first search), then every layer
+ * is ordered by the mean position of the callers of its catalog objects in the previous layer, which keeps most of
+ * the edges short and uncrossed. The layers are columns from left to right for a horizontal layout, and rows from
+ * top to bottom otherwise. The computation is linear in the size of the call graph.
+ *
+ * Coordinates are expressed from the top left corner of the layout, the y axis going down.
+ *
+ * @author ActiveEon Team
+ */
+class CallGraphLayout {
+
+    static final float LAYER_SPACING = 30f;
+
+    static final float NODE_SPACING = 10f;
+
+    private final Map<GraphNode, NodeBox> nodeBoxes;
+
+    private final float width;
+
+    private final float height;
+
+    private final boolean horizontal;
+
+    private CallGraphLayout(Map<GraphNode, NodeBox> nodeBoxes, float width, float height, boolean horizontal) {
+        this.nodeBoxes = nodeBoxes;
+        this.width = width;
+        this.height = height;
+        this.horizontal = horizontal;
+    }
+
+    /**
+     * @param callGraph the call graph, all its catalog objects being reachable from the root
+     * @param root the root catalog object
+     * @param nodeWidths the width of the box of every catalog object
+     * @param nodeHeight the height of the boxes
+     * @param horizontal whether the layers are columns (true) or rows (false)
+     * @return the layout of the call graph
+     */
+    static CallGraphLayout compute(Graph<GraphNode, DefaultEdge> callGraph, GraphNode root,
+            Map<GraphNode, Float> nodeWidths, float nodeHeight, boolean horizontal) {
+
+        List<List<GraphNode>> layers = orderedLayers(callGraph, root);
+
+        // size of every layer along and across the layer axis
+        float[] layerThicknesses = new float[layers.size()];
+        float[] layerLengths = new float[layers.size()];
+        for (int layer = 0; layer < layers.size(); layer++) {
+            for (GraphNode graphNode : layers.get(layer)) {
+                float along = horizontal ? nodeHeight : nodeWidths.get(graphNode);
+                float across = horizontal ? nodeWidths.get(graphNode) : nodeHeight;
+                layerLengths[layer] += (layerLengths[layer] > 0 ? NODE_SPACING : 0) + along;
+                layerThicknesses[layer] = Math.max(layerThicknesses[layer], across);
+            }
+        }
+        float length = 0;
+        float thickness = 0;
+        for (int layer = 0; layer < layers.size(); layer++) {
+            length = Math.max(length, layerLengths[layer]);
+            thickness += (layer > 0 ? LAYER_SPACING : 0) + layerThicknesses[layer];
+        }
+
+        // every layer is centered along the layer axis, every box is centered in its layer
+        Map<GraphNode, NodeBox> nodeBoxes = new LinkedHashMap<>();
+        float layerStart = 0;
+        for (int layer = 0; layer < layers.size(); layer++) {
+            float position = (length - layerLengths[layer]) / 2;
+            for (GraphNode graphNode : layers.get(layer)) {
+                float nodeWidth = nodeWidths.get(graphNode);
+                if (horizontal) {
+                    nodeBoxes.put(graphNode,
+                                  new NodeBox(layerStart + (layerThicknesses[layer] - nodeWidth) / 2,
+                                              position,
+                                              nodeWidth,
+                                              nodeHeight,
+                                              layer));
+                    position += nodeHeight + NODE_SPACING;
+                } else {
+                    nodeBoxes.put(graphNode,
+                                  new NodeBox(position,
+                                              layerStart + (layerThicknesses[layer] - nodeHeight) / 2,
+                                              nodeWidth,
+                                              nodeHeight,
+                                              layer));
+                    position += nodeWidth + NODE_SPACING;
+                }
+            }
+            layerStart += layerThicknesses[layer] + LAYER_SPACING;
+        }
+
+        return horizontal ? new CallGraphLayout(nodeBoxes, thickness, length, true)
+                          : new CallGraphLayout(nodeBoxes, length, thickness, false);
+    }
+
+    private static List<List<GraphNode>> orderedLayers(Graph<GraphNode, DefaultEdge> callGraph, GraphNode root) {
+        Map<GraphNode, Integer> layerOfNode = new HashMap<>();
+        List<List<GraphNode>> layers = new ArrayList<>();
+        Deque<GraphNode> toVisit = new ArrayDeque<>();
+        layerOfNode.put(root, 0);
+        toVisit.add(root);
+        while (!toVisit.isEmpty()) {
+            GraphNode graphNode = toVisit.poll();
+            int layer = layerOfNode.get(graphNode);
+            if (layers.size() == layer) {
+                layers.add(new ArrayList<>());
+            }
+            layers.get(layer).add(graphNode);
+            for (DefaultEdge edge : callGraph.outgoingEdgesOf(graphNode)) {
+                GraphNode calledNode = callGraph.getEdgeTarget(edge);
+                if (!layerOfNode.containsKey(calledNode)) {
+                    layerOfNode.put(calledNode, layer + 1);
+                    toVisit.add(calledNode);
+                }
+            }
+        }
+
+        Map<GraphNode, Integer> positionInLayer = new HashMap<>();
+        positionInLayer.put(root, 0);
+        for (int layer = 1; layer < layers.size(); layer++) {
+            Map<GraphNode, Double> meanCallerPositions = new HashMap<>();
+            for (GraphNode graphNode : layers.get(layer)) {
+                int previousLayer = layer - 1;
+                meanCallerPositions.put(graphNode,
+                                        callGraph.incomingEdgesOf(graphNode)
+                                                 .stream()
+                                                 .map(callGraph::getEdgeSource)
+                                                 .filter(caller -> layerOfNode.get(caller) == previousLayer)
+                                                 .mapToInt(positionInLayer::get)
+                                                 .average()
+                                                 .orElse(0));
+            }
+            layers.get(layer)
+                  .sort(Comparator.<GraphNode, Double> comparing(meanCallerPositions::get)
+                                  .thenComparing(TableCallGraphsBuilder.GRAPH_NODE_COMPARATOR));
+            for (int position = 0; position < layers.get(layer).size(); position++) {
+                positionInLayer.put(layers.get(layer).get(position), position);
+            }
+        }
+        return layers;
+    }
+
+    /**
+     * @return the box of every catalog object of the call graph
+     */
+    Map<GraphNode, NodeBox> getNodeBoxes() {
+        return nodeBoxes;
+    }
+
+    float getWidth() {
+        return width;
+    }
+
+    float getHeight() {
+        return height;
+    }
+
+    boolean isHorizontal() {
+        return horizontal;
+    }
+
+    /**
+     * The box of a catalog object: its top left corner, its size and its layer
+     */
+    @Data
+    static class NodeBox {
+
+        private final float x;
+
+        private final float y;
+
+        private final float width;
+
+        private final float height;
+
+        private final int layer;
+    }
+}
@@ -96,10 +96,8 @@ public class CatalogObjectCallGraphPDFGenerator {
                                             kind,
                                             contentType);
 
-            //Create call graphs table
-            tableCallGraphsBuilder.buildCallGraphsTable(callGraphHolder, table);
-
-            table.draw();
+            //Draw the headers and the call graphs
+            tableCallGraphsBuilder.drawCallGraphs(doc, callGraphHolder, table, MARGIN);
 
             doc.save(byteArrayOutputStream);
 
@@ -107,6 +105,8 @@ public class CatalogObjectCallGraphPDFGenerator {
 
         } catch (Exception e) {
             throw new PDFGenerationException(e);
+        } finally {
+            reportGeneratorHelper.releaseFontToUse();
         }
     }
 }
@@ -25,52 +25,38 @@
  */
 package org.ow2.proactive.catalog.callgraph;
 
-import java.awt.*;
-import java.awt.image.BufferedImage;
-import java.io.File;
+import java.awt.Color;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
-import java.util.stream.Collectors;
-
-import javax.imageio.ImageIO;
-import javax.swing.*;
 
+import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
 import org.jgrapht.Graph;
-import org.jgrapht.GraphPath;
-import org.jgrapht.alg.connectivity.ConnectivityInspector;
-import org.jgrapht.alg.cycle.CycleDetector;
-import org.jgrapht.alg.cycle.Cycles;
-import org.jgrapht.alg.shortestpath.AllDirectedPaths;
-import org.jgrapht.ext.JGraphXAdapter;
+import org.jgrapht.alg.connectivity.KosarajuStrongConnectivityInspector;
 import org.jgrapht.graph.AsSubgraph;
 import org.jgrapht.graph.DefaultEdge;
 import org.jgrapht.traverse.BreadthFirstIterator;
 import org.ow2.proactive.catalog.report.CellFactory;
-import org.ow2.proactive.catalog.report.TableDataBuilder;
+import org.ow2.proactive.catalog.util.ReportGeneratorHelper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import com.mxgraph.layout.hierarchical.mxHierarchicalLayout;
-import com.mxgraph.model.mxICell;
-import com.mxgraph.swing.handler.mxGraphHandler;
-import com.mxgraph.swing.mxGraphComponent;
-import com.mxgraph.util.mxCellRenderer;
-import com.mxgraph.util.mxConstants;
-import com.mxgraph.util.mxUtils;
-import com.mxgraph.view.mxGraph;
-
 import be.quodlibet.boxable.BaseTable;
 import be.quodlibet.boxable.Row;
-import be.quodlibet.boxable.image.Image;
+import lombok.Data;
 import lombok.extern.log4j.Log4j2;
 
 
@@ -83,192 +69,217 @@ import lombok.extern.log4j.Log4j2;
 @Log4j2
 public class TableCallGraphsBuilder {
 
-    private static final String MISSING_CATALOG_OBJECT_STYLE = "fillColor=#C0C0C0;strokeColor=#FF0000;fontSize=8";
-
     private static final int MAX_DIAMETER = 3;
 
+    private static final float FONT_SIZE = 8f;
+
+    private static final float LINE_SPACING = 2f;
+
+    private static final float NODE_PADDING = 4f;
+
+    private static final float NODE_HEIGHT = 2 * FONT_SIZE + LINE_SPACING + 2 * NODE_PADDING;
+
+    private static final float NODE_LINE_WIDTH = 1.5f;
+
+    private static final float EDGE_LINE_WIDTH = 0.75f;
+
+    private static final float ARROW_SIZE = 4f;
+
+    private static final float CALL_GRAPH_SPACING = 10f;
+
+    private static final Color EDGE_COLOR = new Color(0, 0, 255);
+
+    private static final Color NODE_FILL_COLOR = Color.WHITE;
+
+    private static final Color MISSING_CATALOG_OBJECT_FILL_COLOR = Color.decode("#C0C0C0");
+
+    private static final Color MISSING_CATALOG_OBJECT_STROKE_COLOR = Color.decode("#FF0000");
+
+    static final Comparator<GraphNode> GRAPH_NODE_COMPARATOR = Comparator.comparing(GraphNode::getBucketName)
+                                                                         .thenComparing(GraphNode::getObjectName);
+
     @Autowired
     private CellFactory cellFactory;
 
+    @Autowired
+    private ReportGeneratorHelper reportGeneratorHelper;
+
     /**
-     * This method builds a table of call Graphs which are ordered and grouped by bucket name. The build is composed of three steps
-     * 1. Compute all graph paths of the callGraphHolder. A graph path is a chain of dependencies starting from a root until a leaf
-     * 2. Grouping all graph paths having the same root in a single graph
-     * 3. Compute call graphs for all roots
+     * This method draws the table, followed by the call graphs which are ordered and grouped by bucket name. The
+     * build is composed of two steps
+     * 1. Compute the call graph of every root. A call graph contains all the catalog objects reachable from its root
+     * 2. Sort the call graphs per bucket then object name and draw them, below the name of their bucket
+     * The call graphs are laid out hierarchically and drawn as vector graphics, a new page being added when a call
+     * graph does not fit in the remaining space of the current one.
      * In case the oder of the callGraphHolder is zero, an appropriate message is displayed.
      *
+     * @param doc
      * @param callGraphHolder
-     * @param table
+     * @param table the table of the headers, drawn before the call graphs
+     * @param margin the margin of the pages
+     * @throws IOException
      */
-    public void buildCallGraphsTable(CallGraphHolder callGraphHolder, BaseTable table) {
+    public void drawCallGraphs(PDDocument doc, CallGraphHolder callGraphHolder, BaseTable table, float margin)
+            throws IOException {
 
         if (callGraphHolder.order() == 0) {
             Row<PDPage> dataRow = table.createRow(10f);
             cellFactory.createDataHeaderCell(dataRow,
                                              100,
                                              "No identified Dependencies in the Catalog or among the selected Catalog Objects");
+            ReportGeneratorHelper.drawTable(table);
         } else {
 
-            // We first compute all graph paths of the callGraphHolder. A graph path is a chain of dependencies starting from a root until a leaf
-            List<GraphPath<GraphNode, DefaultEdge>> graphPathList = computeAllGraphPaths(callGraphHolder);
+            float yPosition = ReportGeneratorHelper.drawTable(table);
+            PDPage page = table.getCurrentPage();
 
-            //Grouping all graph paths having the same root in a single graph
-            Map<GraphNode, List<GraphPath<GraphNode, DefaultEdge>>> groupedGraphPathsHavingSameRoot = graphPathList.stream()
-                                                                                                                   .collect(Collectors.groupingBy(GraphPath::getStartVertex,
-                                                                                                                                                  Collectors.toList()));
             // Compute call graphs for all roots
-            Map<GraphNode, Graph<GraphNode, DefaultEdge>> callGraphHashMap = computeCallGraphForAllRoots(groupedGraphPathsHavingSameRoot,
-                                                                                                         callGraphHolder);
-            Map<GraphNode, Integer> callGraphDiameterHashMap = computeCallGraphsDiameter(groupedGraphPathsHavingSameRoot);
-            TreeMap<GraphNode, Graph<GraphNode, DefaultEdge>> orderedCallGraphsPerBucket = sortCallGraphsPerBucket(callGraphHashMap);
+            Map<GraphNode, RootCallGraph> rootCallGraphs = computeCallGraphForAllRoots(callGraphHolder);
+            TreeMap<GraphNode, RootCallGraph> orderedCallGraphsPerBucket = sortCallGraphsPerBucket(rootCallGraphs);
             String currentBucketName = "";
 
-            for (Map.Entry<GraphNode, Graph<GraphNode, DefaultEdge>> mapEntry : orderedCallGraphsPerBucket.entrySet()) {
+            PDFont font = ReportGeneratorHelper.getDocumentFont("font", PDType1Font.HELVETICA);
+            PDFont boldFont = ReportGeneratorHelper.getDocumentFont("fontBold", PDType1Font.HELVETICA_BOLD);
+
+            for (Map.Entry<GraphNode, RootCallGraph> mapEntry : orderedCallGraphsPerBucket.entrySet()) {
 
                 if (!currentBucketName.equals(mapEntry.getKey().getBucketName())) {
                     currentBucketName = mapEntry.getKey().getBucketName();
-                    Row<PDPage> dataRow = table.createRow(10f);
+                    BaseTable bucketTable = reportGeneratorHelper.initializeTable(doc, margin, page, yPosition);
+                    Row<PDPage> dataRow = bucketTable.createRow(10f);
                     cellFactory.createDataCellBucketName(dataRow, 100, currentBucketName);
+                    yPosition = ReportGeneratorHelper.drawTable(bucketTable);
+                    page = bucketTable.getCurrentPage();
                 }
-                Row<PDPage> callGraphRow = table.createRow(10f);
-                Image image;
-                try {
-                    image = new Image(generateBufferedImage(orderedCallGraphsPerBucket.get(mapEntry.getKey()),
-                                                            callGraphDiameterHashMap.get((mapEntry.getKey())))).scale(350,
-                                                                                                                      250);
-                } catch (Throwable e) {
-                    image = new Image(createBufferedImageFromString("Graph generation is not supported by OpenJDK"));
-                    log.warn("Unable to generate graph. Usually this issue is due to the usage of OpenJDK instead of OracleJDK",
-                             e);
+
+                Graph<GraphNode, DefaultEdge> callGraph = mapEntry.getValue().getCallGraph();
+                Map<GraphNode, NodeLabel> nodeLabels = new HashMap<>();
+                Map<GraphNode, Float> nodeWidths = new HashMap<>();
+                for (GraphNode graphNode : callGraph.vertexSet()) {
+                    NodeLabel nodeLabel = new NodeLabel(printableText(font,
+                                                                      graphNode.getBucketName() + "/" +
+                                                                            graphNode.getObjectName()),
+                                                        printableText(boldFont, "[" + graphNode.getObjectKind() + "]"));
+                    nodeLabels.put(graphNode, nodeLabel);
+                    nodeWidths.put(graphNode,
+                                   Math.max(textWidth(font, nodeLabel.getName()),
+                                            textWidth(boldFont, nodeLabel.getKind())) +
+                                              2 * NODE_PADDING);
                 }
-                callGraphRow.createImageCell(100, image).scaleToFit();
+                CallGraphLayout layout = CallGraphLayout.compute(callGraph,
+                                                                 mapEntry.getKey(),
+                                                                 nodeWidths,
+                                                                 NODE_HEIGHT,
+                                                                 mapEntry.getValue().getDiameter() < MAX_DIAMETER);
+
+                // large call graphs are scaled down to fit in a page, vector graphics staying sharp at any scale
+                float availableWidth = page.getMediaBox().getWidth() - 2 * margin;
+                float availableHeight = reportGeneratorHelper.getYStartNewPage(margin, page) -
+                                        ReportGeneratorHelper.BOTTOM_MARGIN - 2 * CALL_GRAPH_SPACING;
+                float scale = Math.min(1f,
+                                       Math.min(availableWidth / layout.getWidth(),
+                                                availableHeight / layout.getHeight()));
+                float callGraphHeight = layout.getHeight() * scale + 2 * CALL_GRAPH_SPACING;
+                if (yPosition - callGraphHeight < ReportGeneratorHelper.BOTTOM_MARGIN) {
+                    page = reportGeneratorHelper.addNewPage(doc);
+                    yPosition = reportGeneratorHelper.getYStartNewPage(margin, page);
+                }
+                drawCallGraph(doc,
+                              page,
+                              callGraph,
+                              layout,
+                              nodeLabels,
+                              font,
+                              boldFont,
+                              margin + (availableWidth - layout.getWidth() * scale) / 2,
+                              yPosition - CALL_GRAPH_SPACING,
+                              scale);
+                yPosition -= callGraphHeight;
             }
         }
 
     }
 
     /**
-     * Generate an image containing a String
-     * @param s the string that will be displayed
-     * @return a Buffered image containing the string
-     */
-    private BufferedImage createBufferedImageFromString(String s) {
-        int width = 400;
-        int height = 100;
-
-        // Constructs a BufferedImage of one of the predefined image types.
-        BufferedImage bufferedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-        try {
-            // Create a graphics which can be used to draw into the buffered image
-            Graphics2D g2d = bufferedImage.createGraphics();
-
-            // fill all the image with white
-            g2d.setColor(Color.white);
-            g2d.fillRect(0, 0, width, height);
-
-            // create a string with black
-            g2d.setColor(Color.black);
-            g2d.drawString(s, 10, 50);
-
-            // Disposes of this graphics context and releases any system resources that it is using.
-            g2d.dispose();
-        } catch (Throwable t) {
-            log.warn("The server do not have a Graphical context, therefore it cannot generate image.", t);
-        }
-        return bufferedImage;
-    }
-
-    /**
-     * This method computes the diameter of all call graphs. A diameter is the longest shortest path" (i.e., the longest graph geodesic) between any two graph vertices.
-     *
-     * @param groupedGraphPathsHavingSameRoot
-     * @return
-     */
-    private Map<GraphNode, Integer> computeCallGraphsDiameter(
-            Map<GraphNode, List<GraphPath<GraphNode, DefaultEdge>>> groupedGraphPathsHavingSameRoot) {
-        Map<GraphNode, Integer> callGraphDiameterHashMap = new HashMap<>();
-        groupedGraphPathsHavingSameRoot.entrySet().stream().forEach(entry -> {
-            GraphNode rootNode = entry.getKey();
-            int diameter = Collections.max(entry.getValue(), Comparator.comparingInt(GraphPath::getLength)).getLength();
-            callGraphDiameterHashMap.put(rootNode, diameter);
-        });
-
-        return callGraphDiameterHashMap;
-    }
-
-    /**
-     * This methods computes the call graph for all node roots
+     * This method computes the call graph of all roots. A root is a catalog object which is not called by another
+     * one, its call graph is the subgraph of all the catalog objects reachable from it (breadth first search), and
+     * its diameter is the length of the longest chain of dependencies starting from it.
      *
-     * @param groupedGraphPathsHavingSameRoot
-     * @param callGraphHolder
-     * @return
-     */
-    private Map<GraphNode, Graph<GraphNode, DefaultEdge>> computeCallGraphForAllRoots(
-            Map<GraphNode, List<GraphPath<GraphNode, DefaultEdge>>> groupedGraphPathsHavingSameRoot,
-            CallGraphHolder callGraphHolder) {
-
-        Map<GraphNode, Graph<GraphNode, DefaultEdge>> callGraphsHashMap = new HashMap<>();
-        groupedGraphPathsHavingSameRoot.entrySet().stream().forEach(entry -> {
-            GraphNode rootNode = entry.getKey();
-            Set<GraphNode> callGraphNodes = new HashSet<>();
-            Set<DefaultEdge> callGraphEdges = new HashSet<>();
-            entry.getValue().forEach(graphPath -> {
-                callGraphNodes.addAll(graphPath.getVertexList());
-                callGraphEdges.addAll(graphPath.getEdgeList());
-            });
-            callGraphsHashMap.put(rootNode,
-                                  new AsSubgraph(callGraphHolder.getCallGraph(), callGraphNodes, callGraphEdges));
-        });
-        return callGraphsHashMap;
-    }
-
-    /**
-     * This methods computes all graph paths of the callGraphHolder. A graph path is a chain of dependencies starting from a root until a leaf
+     * The computation works on the strongly connected components of the call graph, so that it stays linear on
+     * diamond-shaped graphs (whose number of paths is exponential) and handles cycles: a component which is not
+     * called from outside (e.g. catalog objects calling each other) is rooted at its first catalog object.
      *
      * @param callGraphHolder
-     * @return
+     * @return the call graph of every root
      */
-    private List<GraphPath<GraphNode, DefaultEdge>> computeAllGraphPaths(CallGraphHolder callGraphHolder) {
+    Map<GraphNode, RootCallGraph> computeCallGraphForAllRoots(CallGraphHolder callGraphHolder) {
 
         Graph<GraphNode, DefaultEdge> callGraph = callGraphHolder.getCallGraph();
-        List<GraphPath<GraphNode, DefaultEdge>> graphPathList = new ArrayList<>();
-        ConnectivityInspector<GraphNode, DefaultEdge> inspector = new ConnectivityInspector(new AsSubgraph(callGraph,
-                                                                                                           callGraphHolder.nodeSet(),
-                                                                                                           callGraphHolder.dependencySet()));
-        Set<GraphNode> rootNodes = new HashSet<>();
-        Set<GraphNode> leafNodes = new HashSet<>();
-        inspector.connectedSets().forEach(connectedComponent -> {
-            BreadthFirstIterator breadthFirstIterator = new BreadthFirstIterator(new AsSubgraph(callGraph,
-                                                                                                connectedComponent,
-                                                                                                callGraphHolder.dependencySet()));
-
-            GraphNode graphNode;
-            while (breadthFirstIterator.hasNext()) {
-                graphNode = ((GraphNode) breadthFirstIterator.next());
-                if (callGraph.inDegreeOf(graphNode) == 0) {
-                    rootNodes.add(graphNode);
-                }
-                if (callGraph.outDegreeOf(graphNode) == 0) {
-                    leafNodes.add(graphNode);
-                }
+        List<Set<GraphNode>> components = new KosarajuStrongConnectivityInspector<>(callGraph).stronglyConnectedSets();
+        Map<GraphNode, Integer> componentOfNode = new HashMap<>();
+        for (int component = 0; component < components.size(); component++) {
+            for (GraphNode graphNode : components.get(component)) {
+                componentOfNode.put(graphNode, component);
             }
-        });
-
-        AllDirectedPaths allDirectedPaths = new AllDirectedPaths(callGraph);
-        graphPathList.addAll(allDirectedPaths.getAllPaths(rootNodes, leafNodes, true, null));
+        }
 
-        //Detect simple cycles and add them to the graph paths list
-        CycleDetector<GraphNode, DefaultEdge> cycleDetector = new CycleDetector(callGraph);
+        // condensation of the call graph: a DAG whose vertices are the strongly connected components
+        List<Set<Integer>> successors = new ArrayList<>(components.size());
+        components.forEach(component -> successors.add(new HashSet<>()));
+        int[] inDegrees = new int[components.size()];
+        for (DefaultEdge edge : callGraph.edgeSet()) {
+            int source = componentOfNode.get(callGraph.getEdgeSource(edge));
+            int target = componentOfNode.get(callGraph.getEdgeTarget(edge));
+            if (source != target && successors.get(source).add(target)) {
+                inDegrees[target]++;
+            }
+        }
 
-        if (cycleDetector.detectCycles()) {
-            Set<GraphNode> cycleVertices = cycleDetector.findCycles();
-            Graph<GraphNode, DefaultEdge> subGraphWithCycles = new AsSubgraph(callGraph, cycleVertices);
-            graphPathList.add(Cycles.simpleCycleToGraphPath(subGraphWithCycles,
-                                                            new ArrayList(subGraphWithCycles.edgeSet())));
+        // longest chain of dependencies from every component, computed once in reverse topological order
+        int[] diameters = new int[components.size()];
+        List<Integer> reverseTopologicalOrder = topologicalOrder(successors, inDegrees.clone());
+        Collections.reverse(reverseTopologicalOrder);
+        for (int component : reverseTopologicalOrder) {
+            int longestSuccessorChain = successors.get(component)
+                                                  .stream()
+                                                  .mapToInt(successor -> diameters[successor] + 1)
+                                                  .max()
+                                                  .orElse(0);
+            diameters[component] = components.get(component).size() - 1 + longestSuccessorChain;
+        }
 
+        Map<GraphNode, RootCallGraph> callGraphsHashMap = new HashMap<>();
+        for (int component = 0; component < components.size(); component++) {
+            if (inDegrees[component] == 0) {
+                GraphNode rootNode = Collections.min(components.get(component), GRAPH_NODE_COMPARATOR);
+                Set<GraphNode> reachableNodes = new HashSet<>();
+                new BreadthFirstIterator<>(callGraph, rootNode).forEachRemaining(reachableNodes::add);
+                callGraphsHashMap.put(rootNode,
+                                      new RootCallGraph(new AsSubgraph<>(callGraph, reachableNodes),
+                                                        diameters[component]));
+            }
         }
+        return callGraphsHashMap;
+    }
 
-        return graphPathList;
+    private List<Integer> topologicalOrder(List<Set<Integer>> successors, int[] inDegrees) {
+        List<Integer> order = new ArrayList<>(successors.size());
+        Deque<Integer> ready = new ArrayDeque<>();
+        for (int component = 0; component < inDegrees.length; component++) {
+            if (inDegrees[component] == 0) {
+                ready.add(component);
+            }
+        }
+        while (!ready.isEmpty()) {
+            int component = ready.poll();
+            order.add(component);
+            for (int successor : successors.get(component)) {
+                if (--inDegrees[successor] == 0) {
+                    ready.add(successor);
+                }
+            }
+        }
+        return order;
     }
 
     /**
@@ -277,145 +288,154 @@ public class TableCallGraphsBuilder {
      * @param callGraphsHashMap
      * @return
      */
-    private TreeMap<GraphNode, Graph<GraphNode, DefaultEdge>>
-            sortCallGraphsPerBucket(Map<GraphNode, Graph<GraphNode, DefaultEdge>> callGraphsHashMap) {
-        Comparator<GraphNode> sortBasedOnName = Comparator.comparing(GraphNode::getBucketName);
-        sortBasedOnName = sortBasedOnName.thenComparing(GraphNode::getObjectName);
-
-        TreeMap<GraphNode, Graph<GraphNode, DefaultEdge>> sortedObjects = new TreeMap(sortBasedOnName);
+    private TreeMap<GraphNode, RootCallGraph> sortCallGraphsPerBucket(Map<GraphNode, RootCallGraph> callGraphsHashMap) {
+        TreeMap<GraphNode, RootCallGraph> sortedObjects = new TreeMap(GRAPH_NODE_COMPARATOR);
         sortedObjects.putAll(callGraphsHashMap);
         return sortedObjects;
 
     }
 
-    private void editCallGraphStyle(JGraphXAdapter<GraphNode, DefaultEdge> callGraphAdapter) {
-        callGraphAdapter.setAutoSizeCells(true);
-        callGraphAdapter.setCellsResizable(true);
-        callGraphAdapter.setAllowLoops(true);
-        callGraphAdapter.setHtmlLabels(true);
-
-        //Edit and personalize Vertex style
-        editVertexStyle(callGraphAdapter);
-        //Edit and personalize Edge style
-        editEdgeStyle(callGraphAdapter);
-
-        TableCallGraphsBuilder.mxGraphComponentWithoutDragAndDrop graphComponent = new TableCallGraphsBuilder.mxGraphComponentWithoutDragAndDrop(callGraphAdapter);
-        graphComponent.setWheelScrollingEnabled(false);
-    }
-
-    private void editVertexStyle(JGraphXAdapter<GraphNode, DefaultEdge> callGraphAdapter) {
-        callGraphAdapter.getStylesheet().getDefaultVertexStyle().put(mxConstants.STYLE_SHAPE,
-                                                                     mxConstants.SHAPE_RECTANGLE);
-        callGraphAdapter.getStylesheet().getDefaultVertexStyle().put(mxConstants.STYLE_FONTCOLOR,
-                                                                     mxUtils.getHexColorString(new Color(0, 0, 0)));
-        callGraphAdapter.getStylesheet().getDefaultVertexStyle().put(mxConstants.STYLE_FONTSIZE, 10);
-        callGraphAdapter.getStylesheet().getDefaultVertexStyle().put(mxConstants.STYLE_ROUNDED, true);
-        callGraphAdapter.getStylesheet().getDefaultVertexStyle().put(mxConstants.STYLE_OPACITY, 70);
-        callGraphAdapter.getStylesheet().getDefaultVertexStyle().put(mxConstants.STYLE_WHITE_SPACE, "wrap");
-        callGraphAdapter.getStylesheet()
-                        .getDefaultVertexStyle()
-                        .put(mxConstants.STYLE_FILLCOLOR, mxUtils.getHexColorString(new Color(255, 255, 255)));
-        callGraphAdapter.getStylesheet().getDefaultVertexStyle().put(mxConstants.STYLE_STROKEWIDTH, 1.5);
-
-        //personalize the style of missing catalog objects
-        List<mxICell> missingCatalogObjects = callGraphAdapter.getVertexToCellMap()
-                                                              .entrySet()
-                                                              .stream()
-                                                              .filter(map -> !map.getKey().isInCatalog())
-                                                              .map(Map.Entry::getValue)
-                                                              .collect(Collectors.toList());
-        callGraphAdapter.setCellStyle(MISSING_CATALOG_OBJECT_STYLE, missingCatalogObjects.toArray());
-
-        //Apply a hashcode color-based on all nodes kind to distinguish them visually
-        callGraphAdapter.getModel().beginUpdate();
-        try {
-            callGraphAdapter.getVertexToCellMap().entrySet().forEach(entry -> {
-                entry.getValue()
-                     .setStyle("strokeColor=" + intToARGB(entry.getKey().getObjectKind().hashCode()) +
-                               (entry.getValue().getStyle() != null ? ";" + entry.getValue().getStyle()
-                                                                    : "" + ";fontSize=8"));
-                callGraphAdapter.getModel()
-                                .setValue(entry.getValue(),
-                                          new StringBuilder(entry.getKey().getBucketName()).append("/")
-                                                                                           .append(entry.getKey()
-                                                                                                        .getObjectName())
-                                                                                           .append("<br><b><i>")
-                                                                                           .append("&#91;")
-                                                                                           .append(entry.getKey()
-                                                                                                        .getObjectKind())
-                                                                                           .append("&#93;")
-                                                                                           .append("</i></b>"));
-                callGraphAdapter.updateCellSize(entry.getValue(), true);
+    private void drawCallGraph(PDDocument doc, PDPage page, Graph<GraphNode, DefaultEdge> callGraph,
+            CallGraphLayout layout, Map<GraphNode, NodeLabel> nodeLabels, PDFont font, PDFont boldFont, float left,
+            float top, float scale) throws IOException {
+
+        try (PDPageContentStream contentStream = new PDPageContentStream(doc,
+                                                                         page,
+                                                                         PDPageContentStream.AppendMode.APPEND,
+                                                                         true,
+                                                                         true)) {
+            Map<GraphNode, CallGraphLayout.NodeBox> nodeBoxes = layout.getNodeBoxes();
+
+            // edges first, so that the boxes are drawn over their ends
+            contentStream.setStrokingColor(EDGE_COLOR);
+            contentStream.setNonStrokingColor(EDGE_COLOR);
+            contentStream.setLineWidth(EDGE_LINE_WIDTH * scale);
+            for (DefaultEdge edge : callGraph.edgeSet()) {
+                CallGraphLayout.NodeBox source = nodeBoxes.get(callGraph.getEdgeSource(edge));
+                CallGraphLayout.NodeBox target = nodeBoxes.get(callGraph.getEdgeTarget(edge));
+                if (source == target) {
+                    // a catalog object depending on itself is not drawn as a loop
+                    continue;
+                }
+                // an edge to a previous layer (cycle) leaves and reaches the boxes on their other side
+                boolean forward = target.getLayer() > source.getLayer();
+                float startX, startY, endX, endY;
+                if (layout.isHorizontal()) {
+                    startX = forward ? source.getX() + source.getWidth() : source.getX();
+                    startY = source.getY() + source.getHeight() / 2;
+                    endX = forward ? target.getX() : target.getX() + target.getWidth();
+                    endY = target.getY() + target.getHeight() / 2;
+                } else {
+                    startX = source.getX() + source.getWidth() / 2;
+                    startY = forward ? source.getY() + source.getHeight() : source.getY();
+                    endX = target.getX() + target.getWidth() / 2;
+                    endY = forward ? target.getY() : target.getY() + target.getHeight();
+                }
+                float x1 = left + startX * scale;
+                float y1 = top - startY * scale;
+                float x2 = left + endX * scale;
+                float y2 = top - endY * scale;
+                contentStream.moveTo(x1, y1);
+                contentStream.lineTo(x2, y2);
+                contentStream.stroke();
+                drawArrowHead(contentStream, x1, y1, x2, y2, ARROW_SIZE * scale);
+            }
 
-            });
-        } finally {
-            callGraphAdapter.getModel().endUpdate();
+            contentStream.setLineWidth(NODE_LINE_WIDTH * scale);
+            for (Map.Entry<GraphNode, CallGraphLayout.NodeBox> nodeBox : nodeBoxes.entrySet()) {
+                GraphNode graphNode = nodeBox.getKey();
+                CallGraphLayout.NodeBox box = nodeBox.getValue();
+                float x = left + box.getX() * scale;
+                float y = top - box.getY() * scale;
+                contentStream.setNonStrokingColor(graphNode.isInCatalog() ? NODE_FILL_COLOR
+                                                                          : MISSING_CATALOG_OBJECT_FILL_COLOR);
+                contentStream.setStrokingColor(graphNode.isInCatalog() ? kindColor(graphNode.getObjectKind())
+                                                                       : MISSING_CATALOG_OBJECT_STROKE_COLOR);
+                contentStream.addRect(x, y - box.getHeight() * scale, box.getWidth() * scale, box.getHeight() * scale);
+                contentStream.fillAndStroke();
+
+                NodeLabel nodeLabel = nodeLabels.get(graphNode);
+                contentStream.setNonStrokingColor(Color.BLACK);
+                contentStream.beginText();
+                contentStream.setFont(font, FONT_SIZE * scale);
+                contentStream.newLineAtOffset(x + NODE_PADDING * scale, y - (NODE_PADDING + FONT_SIZE) * scale);
+                contentStream.showText(nodeLabel.getName());
+                contentStream.setFont(boldFont, FONT_SIZE * scale);
+                contentStream.newLineAtOffset(0, -(FONT_SIZE + LINE_SPACING) * scale);
+                contentStream.showText(nodeLabel.getKind());
+                contentStream.endText();
+            }
         }
-
     }
 
-    private void editEdgeStyle(JGraphXAdapter<GraphNode, DefaultEdge> callGraphAdapter) {
-        callGraphAdapter.getStylesheet().getDefaultEdgeStyle().put(mxConstants.STYLE_NOLABEL, "1");
-        callGraphAdapter.getStylesheet().getDefaultEdgeStyle().put(mxConstants.STYLE_SHAPE,
-                                                                   mxConstants.SHAPE_CONNECTOR);
-        callGraphAdapter.getStylesheet().getDefaultEdgeStyle().put(mxConstants.STYLE_EDGE,
-                                                                   mxConstants.EDGESTYLE_ORTHOGONAL);
-        callGraphAdapter.getStylesheet().getDefaultEdgeStyle().put(mxConstants.STYLE_STROKECOLOR,
-                                                                   mxUtils.getHexColorString(new Color(0, 0, 255)));
+    private void drawArrowHead(PDPageContentStream contentStream, float x1, float y1, float x2, float y2, float size)
+            throws IOException {
+        double length = Math.hypot(x2 - x1, y2 - y1);
+        if (length == 0) {
+            return;
+        }
+        float unitX = (float) ((x2 - x1) / length);
+        float unitY = (float) ((y2 - y1) / length);
+        contentStream.moveTo(x2, y2);
+        contentStream.lineTo(x2 - size * unitX + size / 2 * unitY, y2 - size * unitY - size / 2 * unitX);
+        contentStream.lineTo(x2 - size * unitX - size / 2 * unitY, y2 - size * unitY + size / 2 * unitX);
+        contentStream.closePath();
+        contentStream.fill();
     }
 
     /**
-     * This methods computes an ARGB color from the hashcode of a catalog object kind to distinguish between vertex visually.
+     * This methods computes a color from the hashcode of a catalog object kind to distinguish between vertex visually.
      * In this way, we ensure to have as many color as many different kinds in the catalog.
-     *
-     * @param i
-     * @return
      */
-    private String intToARGB(int i) {
-        return "#" + (Integer.toHexString(((i >> 24) & 0xFF)) + Integer.toHexString(((i >> 16) & 0xFF)) +
-                      Integer.toHexString(((i >> 8) & 0xFF)) + Integer.toHexString((i & 0xFF))).substring(0, 6);
+    private Color kindColor(String objectKind) {
+        return new Color(objectKind.hashCode() & 0xFFFFFF);
     }
 
-    private BufferedImage generateBufferedImage(Graph<GraphNode, DefaultEdge> callGraph, int diameter) {
-
-        JGraphXAdapter<GraphNode, DefaultEdge> callGraphAdapter = new JGraphXAdapter(callGraph);
-        editCallGraphStyle(callGraphAdapter);
-        mxHierarchicalLayout layout = new mxHierarchicalLayout(callGraphAdapter, SwingConstants.WEST);
-        layout.setFineTuning(true);
+    private float textWidth(PDFont font, String text) throws IOException {
+        return font.getStringWidth(text) / 1000 * FONT_SIZE;
+    }
 
-        if (diameter >= MAX_DIAMETER) {
-            layout.setOrientation(SwingConstants.NORTH);
+    /**
+     * @return the text where the characters which cannot be drawn with the font are replaced by '?'
+     */
+    private String printableText(PDFont font, String text) throws IOException {
+        try {
+            font.encode(text);
+            return text;
+        } catch (IllegalArgumentException e) {
+            StringBuilder printableText = new StringBuilder();
+            text.codePoints().forEach(codePoint -> {
+                String character = new String(Character.toChars(codePoint));
+                try {
+                    font.encode(character);
+                    printableText.append(character);
+                } catch (IllegalArgumentException | IOException unsupportedCharacter) {
+                    printableText.append('?');
+                }
+            });
+            return printableText.toString();
         }
-
-        layout.execute(callGraphAdapter.getDefaultParent());
-        return mxCellRenderer.createBufferedImage(callGraphAdapter, null, 2, null, true, null);
-
     }
 
     /**
-     * The aim of these inner private classes is to disable the Drag and Drop functionality which throws HeadlessException in a Headless Environment.
+     * The call graph of a root catalog object, together with its diameter
      */
+    @Data
+    static class RootCallGraph {
 
-    private class mxGraphComponentWithoutDragAndDrop extends mxGraphComponent {
+        private final Graph<GraphNode, DefaultEdge> callGraph;
 
-        public mxGraphComponentWithoutDragAndDrop(mxGraph graph) {
-            super(graph);
-        }
-
-        @Override
-        protected mxGraphHandler createGraphHandler() {
-            return new mxGraphHandlerWithoutDragAndDrop(this);
-        }
+        private final int diameter;
     }
 
-    private class mxGraphHandlerWithoutDragAndDrop extends mxGraphHandler {
-        public mxGraphHandlerWithoutDragAndDrop(mxGraphComponent graphComponent) {
-            super(graphComponent);
-        }
+    /**
+     * The two lines of the label of a catalog object in a call graph
+     */
+    @Data
+    private static class NodeLabel {
 
-        @Override
-        protected void installDragGestureHandler() {
-            //My Blank implementation for the installDragGestureHandler
-        }
+        private final String name;
+
+        private final String kind;
     }
 }
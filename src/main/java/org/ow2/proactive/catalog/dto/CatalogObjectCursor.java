@@ -0,0 +1,79 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import lombok.Data;
+
+
+/**
+ * Position of a catalog object in a listing ordered by last commit time then name. It is exchanged with clients
+ * as an opaque string so that the next page is fetched from this position instead of skipping an offset.
+ *
+ * @author ActiveEon Team
+ */
+@Data
+public class CatalogObjectCursor {
+
+    private static final char SEPARATOR = ':';
+
+    private final long lastCommitTime;
+
+    private final String name;
+
+    public CatalogObjectCursor(long lastCommitTime, String name) {
+        this.lastCommitTime = lastCommitTime;
+        this.name = name;
+    }
+
+    /**
+     * @return the cursor positioned on the given catalog object, which must come from a listing of default revisions
+     */
+    public static CatalogObjectCursor of(CatalogObjectMetadata catalogObject) {
+        return new CatalogObjectCursor(Long.parseLong(catalogObject.getCommitTimeRaw()), catalogObject.getName());
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder()
+                     .withoutPadding()
+                     .encodeToString((lastCommitTime + String.valueOf(SEPARATOR) + name).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the given string was not produced by {@link #encode()}
+     */
+    public static CatalogObjectCursor decode(String cursor) {
+        String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int separatorIndex = decoded.indexOf(SEPARATOR);
+        if (separatorIndex <= 0 || separatorIndex == decoded.length() - 1) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        return new CatalogObjectCursor(Long.parseLong(decoded.substring(0, separatorIndex)),
+                                       decoded.substring(separatorIndex + 1));
+    }
+}
@@ -34,6 +34,7 @@ import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
 import org.ow2.proactive.catalog.repository.entity.CatalogObjectEntity;
 import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
+import org.ow2.proactive.catalog.repository.projection.CatalogObjectRevisionProjection;
 import org.ow2.proactive.catalog.util.KeyValueEntityToDtoTransformer;
 import org.ow2.proactive.scheduler.common.job.JobVariable;
 import org.springframework.hateoas.ResourceSupport;
@@ -123,6 +124,20 @@ public class CatalogObjectMetadata extends ResourceSupport implements Comparable
              catalogObject.getCatalogObject().getExtension());
     }
 
+    public CatalogObjectMetadata(CatalogObjectRevisionProjection catalogObject, List<Metadata> metadataList) {
+        this(catalogObject.getBucketName(),
+             catalogObject.getName(),
+             catalogObject.getProjectName(),
+             catalogObject.getTags(),
+             catalogObject.getKind(),
+             catalogObject.getContentType(),
+             catalogObject.getCommitTime(),
+             catalogObject.getCommitMessage(),
+             catalogObject.getUsername(),
+             metadataList,
+             catalogObject.getExtension());
+    }
+
     public CatalogObjectMetadata(String bucketName, String name, String projectName, String tags, String kind,
             String contentType, long commitTime, String commitMessage, String username, List<Metadata> metadataList,
             String extension) {
@@ -0,0 +1,68 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.Data;
+
+
+/**
+ * State of a report or call graph generated in the background
+ *
+ * @author ActiveEon Team
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReportJobMetadata {
+
+    public enum Status {
+        RUNNING,
+        FINISHED,
+        FAILED
+    }
+
+    @JsonProperty("job_id")
+    private final String jobId;
+
+    @JsonProperty("status")
+    private final Status status;
+
+    @JsonProperty("submission_time")
+    private final long submissionTime;
+
+    @JsonProperty("error")
+    private final String error;
+
+    public ReportJobMetadata(@JsonProperty("job_id") String jobId, @JsonProperty("status") Status status,
+            @JsonProperty("submission_time") long submissionTime, @JsonProperty("error") String error) {
+        this.jobId = jobId;
+        this.status = status;
+        this.submissionTime = submissionTime;
+        this.error = error;
+    }
+}
@@ -71,13 +71,20 @@ public class CatalogObject {
     }
 
     public CatalogObject(CatalogObjectRevisionEntity catalogObject) {
+        this(catalogObject, true);
+    }
+
+    /**
+     * @param withMetadata when false, the metadata of the revision are not converted and the metadata list is empty
+     */
+    public CatalogObject(CatalogObjectRevisionEntity catalogObject, boolean withMetadata) {
         this(catalogObject.getCatalogObject().getBucket().getBucketName(),
              catalogObject.getCatalogObject().getId().getName(),
              catalogObject.getCatalogObject().getKind(),
              catalogObject.getCatalogObject().getContentType(),
              catalogObject.getCommitTime(),
              catalogObject.getCommitMessage(),
-             KeyValueEntityToDtoTransformer.to(catalogObject.getKeyValueMetadataList()));
+             withMetadata ? KeyValueEntityToDtoTransformer.to(catalogObject.getKeyValueMetadataList()) : null);
     }
 
     public CatalogObject(String bucketName, String name, String kind, String contentType, long createdAt,
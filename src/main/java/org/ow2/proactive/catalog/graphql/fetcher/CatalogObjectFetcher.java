@@ -30,6 +30,7 @@ import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
@@ -45,15 +46,20 @@ import org.ow2.proactive.catalog.graphql.bean.common.Arguments;
 import org.ow2.proactive.catalog.graphql.handler.FilterHandler;
 import org.ow2.proactive.catalog.repository.CatalogObjectRevisionRepository;
 import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
+import org.ow2.proactive.catalog.repository.specification.catalogobject.CatalogObjectGrantSpecification;
 import org.ow2.proactive.catalog.repository.specification.catalogobject.DefaultSpecification;
 import org.ow2.proactive.catalog.rest.controller.CatalogObjectController;
+import org.ow2.proactive.catalog.service.GrantRightsService;
 import org.ow2.proactive.catalog.service.exception.AccessDeniedException;
+import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
 import org.ow2.proactive.microservices.common.exception.NotAuthenticatedException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.domain.Specifications;
 import org.springframework.hateoas.Link;
 import org.springframework.hateoas.mvc.ControllerLinkBuilder;
 import org.springframework.stereotype.Component;
@@ -63,6 +69,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import graphql.schema.DataFetcher;
 import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.DataFetchingFieldSelectionSet;
 import lombok.extern.log4j.Log4j2;
 
 
@@ -77,6 +84,19 @@ public class CatalogObjectFetcher implements DataFetcher<CatalogObjectConnection
 
     public static final String CATALOG_OBJECT_ID = "catalogObject.id";
 
+    /**
+     * Key of the authenticated user in the GraphQL context, absent when the session is not required
+     */
+    public static final String AUTHENTICATED_USER = "authenticatedUser";
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    private static final String EDGES = "edges";
+
+    private static final String EDGES_METADATA = "edges/metadata";
+
+    private static final String EDGES_LINK = "edges/link";
+
     @Autowired
     private List<FilterHandler<CatalogObjectWhereArgs, CatalogObjectRevisionEntity>> catalogObjectFilterHandlers;
 
@@ -86,6 +106,9 @@ public class CatalogObjectFetcher implements DataFetcher<CatalogObjectConnection
     @Autowired
     private CatalogObjectMapper catalogObjectMapper;
 
+    @Autowired
+    private GrantRightsService grantRightsService;
+
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
     @Override
@@ -103,13 +126,31 @@ public class CatalogObjectFetcher implements DataFetcher<CatalogObjectConnection
                                                                                                                                    .map(optional -> optional.get())
                                                                                                                                    .findFirst();
 
-        Page<CatalogObjectRevisionEntity> catalogObjectEntitiesPage = specificationOptional.isPresent() ? catalogObjectRevisionRepository.findAll(specificationOptional.get(),
-                                                                                                                                                  pageable)
-                                                                                                        : catalogObjectRevisionRepository.findAll(new DefaultSpecification(),
-                                                                                                                                                  pageable);
+        Specification<CatalogObjectRevisionEntity> specification = specificationOptional.orElseGet(DefaultSpecification::new);
+
+        // the objects the user cannot read are filtered by the query, so that the pages and the total count only
+        // contain accessible objects
+        AuthenticatedUser user = environment.getGraphQlContext().get(AUTHENTICATED_USER);
+        if (user != null) {
+            specification = Specifications.where(specification)
+                                          .and(CatalogObjectGrantSpecification.builder()
+                                                                              .value(grantRightsService.getCatalogObjectsAccess(user))
+                                                                              .build());
+        }
+
+        // the revisions are only loaded when the edges are requested, and their metadata and links are only built
+        // when these fields are requested
+        DataFetchingFieldSelectionSet selectionSet = environment.getSelectionSet();
+        Page<CatalogObjectRevisionEntity> catalogObjectEntitiesPage = selectionSet.contains(EDGES) ? catalogObjectRevisionRepository.findAll(specification,
+                                                                                                                                             pageable)
+                                                                                                   : new PageImpl<>(Collections.emptyList(),
+                                                                                                                    pageable,
+                                                                                                                    catalogObjectRevisionRepository.count(specification));
 
         return CatalogObjectConnection.builder()
-                                      .edges(catalogObjectMapper.apply(catalogObjectEntitiesPage.getContent().stream())
+                                      .edges(catalogObjectMapper.apply(catalogObjectEntitiesPage.getContent().stream(),
+                                                                       selectionSet.contains(EDGES_METADATA),
+                                                                       selectionSet.contains(EDGES_LINK))
                                                                 .collect(Collectors.toList()))
                                       .page(catalogObjectEntitiesPage.getNumber())
                                       .size(catalogObjectEntitiesPage.getSize())
@@ -135,7 +176,7 @@ public class CatalogObjectFetcher implements DataFetcher<CatalogObjectConnection
                                                       PageInfo.class);
 
         if (pageInfo == null) {
-            pageInfo = new PageInfo(0, 50);
+            pageInfo = new PageInfo(0, DEFAULT_PAGE_SIZE);
         }
 
         // remove orderby for now, and will fix it later
@@ -168,9 +209,16 @@ public class CatalogObjectFetcher implements DataFetcher<CatalogObjectConnection
 
         @Override
         public Stream<CatalogObject> apply(Stream<CatalogObjectRevisionEntity> catalogObjectEntityStream) {
+            return apply(catalogObjectEntityStream, true, true);
+        }
+
+        public Stream<CatalogObject> apply(Stream<CatalogObjectRevisionEntity> catalogObjectEntityStream,
+                boolean withMetadata, boolean withLink) {
             return catalogObjectEntityStream.map(entity -> {
-                CatalogObject object = new CatalogObject(entity);
-                object.setLink(generateLink(object.getBucketName(), object.getName()));
+                CatalogObject object = new CatalogObject(entity, withMetadata);
+                if (withLink) {
+                    object.setLink(generateLink(object.getBucketName(), object.getName()));
+                }
                 return object;
             });
         }
@@ -38,9 +38,6 @@ import org.ow2.proactive.catalog.service.exception.PDFGenerationException;
 import org.ow2.proactive.catalog.util.ReportGeneratorHelper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.zeroturnaround.zip.ByteSource;
-import org.zeroturnaround.zip.ZipEntrySource;
-import org.zeroturnaround.zip.ZipUtil;
 
 import com.google.common.annotations.VisibleForTesting;
 
@@ -71,6 +68,9 @@ public class CatalogObjectReportPDFGenerator {
     @Autowired
     private TableCatalogObjectsDependenciesBuilder tableCatalogObjectsDependenciesBuilder;
 
+    @Autowired
+    private PerBucketPDFArchiveGenerator perBucketPDFArchiveGenerator;
+
     public byte[] getAllCatalogObjectsReportPDFAsArchive(Set<CatalogObjectMetadata> orderedObjectsPerBucket,
             Optional<String> kind, Optional<String> contentType) {
 
@@ -78,20 +78,10 @@ public class CatalogObjectReportPDFGenerator {
                                                                                                          .collect(Collectors.groupingBy(CatalogObjectMetadata::getBucketName,
                                                                                                                                         Collectors.toSet()));
 
-        List<ZipEntrySource> zipEntrySources = new ArrayList<>(bucketNameCatalogObjectMetadata.keySet().size());
-
-        try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream()) {
-            for (Map.Entry<String, Set<CatalogObjectMetadata>> entry : bucketNameCatalogObjectMetadata.entrySet()) {
-                byte[] pdfData = generatePDF(entry.getValue(), kind, contentType);
-                zipEntrySources.add(new ByteSource(entry.getKey() + "_report.pdf", pdfData));
-            }
-
-            ZipEntrySource[] sources = zipEntrySources.toArray(new ZipEntrySource[0]);
-            ZipUtil.pack(sources, byteArrayOutputStream);
-            return byteArrayOutputStream.toByteArray();
-        } catch (IOException ioe) {
-            throw new RuntimeException(ioe);
-        }
+        return perBucketPDFArchiveGenerator.generateArchive(bucketNameCatalogObjectMetadata,
+                                                            catalogObjectsMetadata -> generatePDF(catalogObjectsMetadata,
+                                                                                                  kind,
+                                                                                                  contentType));
     }
 
     public byte[] generatePDF(Set<CatalogObjectMetadata> orderedObjectsPerBucket, Optional<String> kind,
@@ -118,7 +108,7 @@ public class CatalogObjectReportPDFGenerator {
             // Create table data
             tableDataBuilder.buildTableData(orderedObjectsPerBucket, table1);
 
-            table1.draw();
+            ReportGeneratorHelper.drawTable(table1);
 
             PDPage page2 = reportGeneratorHelper.addNewPage(doc);
 
@@ -135,7 +125,7 @@ public class CatalogObjectReportPDFGenerator {
                                                                                         globalCallGraph,
                                                                                         new ArrayList(orderedObjectsPerBucket),
                                                                                         table2);
-            table2.draw();
+            ReportGeneratorHelper.drawTable(table2);
 
             doc.save(byteArrayOutputStream);
 
@@ -143,6 +133,8 @@ public class CatalogObjectReportPDFGenerator {
 
         } catch (IOException e) {
             throw new PDFGenerationException(e);
+        } finally {
+            reportGeneratorHelper.releaseFontToUse();
         }
     }
 
@@ -25,22 +25,32 @@
  */
 package org.ow2.proactive.catalog.report;
 
+import java.awt.Color;
 import java.awt.image.BufferedImage;
 import java.net.URL;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import javax.imageio.ImageIO;
 
 import org.apache.pdfbox.pdmodel.PDPage;
+import org.ow2.proactive.catalog.util.ReportGeneratorHelper;
 import org.springframework.stereotype.Component;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
 import be.quodlibet.boxable.Cell;
 import be.quodlibet.boxable.HorizontalAlignment;
 import be.quodlibet.boxable.Row;
 import be.quodlibet.boxable.VerticalAlignment;
 import be.quodlibet.boxable.image.Image;
+import lombok.extern.log4j.Log4j2;
 
 
 @Component
+@Log4j2
 public class CellFactory {
 
     private static final int SMALL_FONT = 4;
@@ -51,17 +61,29 @@ public class CellFactory {
 
     private static final int MAIN_TITLE_FONT_SIZE = 20;
 
-    private static final String ACTIVEEON_BLUE = "#0E2C65";
+    private static final Color ACTIVEEON_BLUE = Color.decode("#0E2C65");
+
+    private static final Color ACTIVEEON_ORANGE = Color.decode("#EE7939");
+
+    private static final Color LIGHT_GRAY = Color.decode("#D3D3D3");
+
+    private static final Color LIGHT_CYAN = Color.decode("#F3F3F4");
 
-    private static final String ACTIVEEON_ORANGE = "#EE7939";
+    private static final Color WHITE = Color.decode("#ffffff");
 
-    private static final String LIGHT_GRAY = "#D3D3D3";
+    private static final Color BLACK = Color.decode("#000000");
 
-    private static final String LIGHT_CYAN = "#F3F3F4";
+    private static final long MAXIMUM_NUMBER_OF_IMAGES = 1000;
 
-    private static final String WHITE = "#ffffff";
+    private static final long IMAGES_TIMEOUT_IN_MINUTES = 10;
 
-    private static final String BLACK = "#000000";
+    // images are decoded once for all the cells and documents, as many objects share the same icons. Images which
+    // cannot be read are also kept, so that an unreachable url is not requested again for each cell
+    private final LoadingCache<String, Optional<BufferedImage>> images = CacheBuilder.newBuilder()
+                                                                                      .maximumSize(MAXIMUM_NUMBER_OF_IMAGES)
+                                                                                      .expireAfterWrite(IMAGES_TIMEOUT_IN_MINUTES,
+                                                                                                        TimeUnit.MINUTES)
+                                                                                      .build(CacheLoader.from(CellFactory::readImage));
 
     public void addMainTitleCell(Row<PDPage> row, String data) {
         createDataCell(row,
@@ -106,11 +128,10 @@ public class CellFactory {
     }
 
     public void createIconCell(Row<PDPage> row, float width, String url_path) {
-        try {
-            URL url = new URL(url_path);
-            BufferedImage imageFile = ImageIO.read(url);
-            row.createImageCell(width, new Image(imageFile));
-        } catch (Exception e) {
+        Optional<BufferedImage> imageFile = getImage(url_path);
+        if (imageFile.isPresent()) {
+            row.createImageCell(width, new Image(imageFile.get()));
+        } else {
             createDataCell(row,
                            width,
                            url_path,
@@ -122,14 +143,32 @@ public class CellFactory {
         }
     }
 
+    /**
+     * @param url_path the url of an image
+     * @return the decoded image, or empty if it cannot be read from the url
+     */
+    public Optional<BufferedImage> getImage(String url_path) {
+        return images.getUnchecked(url_path);
+    }
+
+    private static Optional<BufferedImage> readImage(String url_path) {
+        try {
+            return Optional.ofNullable(ImageIO.read(new URL(url_path)));
+        } catch (Exception e) {
+            log.warn("Impossible to create the image from the url: " + url_path, e);
+            return Optional.empty();
+        }
+    }
+
     private void createDataCell(Row<PDPage> row, float width, String data, int fontSize, HorizontalAlignment align,
-            VerticalAlignment valign, String fillColor, String textColor) {
+            VerticalAlignment valign, Color fillColor, Color textColor) {
         Cell<PDPage> cell = row.createCell(width, data);
+        ReportGeneratorHelper.applyDocumentFonts(cell);
         cell.setFontSize(fontSize);
         cell.setAlign(align);
         cell.setValign(valign);
-        cell.setFillColor(java.awt.Color.decode(fillColor));
-        cell.setTextColor(java.awt.Color.decode(textColor));
+        cell.setFillColor(fillColor);
+        cell.setTextColor(textColor);
 
     }
 }
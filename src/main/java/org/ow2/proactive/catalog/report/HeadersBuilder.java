@@ -27,15 +27,13 @@ package org.ow2.proactive.catalog.report;
 
 import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.net.URL;
 import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.Set;
 
-import javax.imageio.ImageIO;
-
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.ow2.proactive.catalog.dto.CatalogObjectMetadata;
+import org.ow2.proactive.catalog.util.ReportGeneratorHelper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -65,13 +63,14 @@ public class HeadersBuilder {
     public void createMainHeader(BaseTable table, String mainTitle) throws IOException {
         Row<PDPage> headerRow = table.createRow(15f);
 
-        try {
-            URL url = new URL(schedulerUrl + ACTIVEEON_LOGO);
-            BufferedImage imageFile = ImageIO.read(url);
-            headerRow.createImageCell((100 / 12f) * 3, new Image(imageFile));
-        } catch (Exception e) {
-            headerRow.createCell((100 / 12f) * 3, "Activeeon", HorizontalAlignment.CENTER, VerticalAlignment.MIDDLE);
-            log.error("Impossible to create the image from the url: " + schedulerUrl + ACTIVEEON_LOGO, e);
+        Optional<BufferedImage> imageFile = cellFactory.getImage(schedulerUrl + ACTIVEEON_LOGO);
+        if (imageFile.isPresent()) {
+            headerRow.createImageCell((100 / 12f) * 3, new Image(imageFile.get()));
+        } else {
+            ReportGeneratorHelper.applyDocumentFonts(headerRow.createCell((100 / 12f) * 3,
+                                                                          "Activeeon",
+                                                                          HorizontalAlignment.CENTER,
+                                                                          VerticalAlignment.MIDDLE));
         }
         cellFactory.addMainTitleCell(headerRow, mainTitle);
 
@@ -0,0 +1,122 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.report;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.annotation.PreDestroy;
+
+import org.ow2.proactive.catalog.service.exception.PDFGenerationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+
+/**
+ * Generates a ZIP archive containing one PDF per bucket.
+ *
+ * The PDF of the buckets are independent and CPU bound, they are rendered concurrently on a bounded worker pool and
+ * each PDF is written into the archive as soon as it is rendered. Only the drawing of the boxable tables is
+ * serialized between documents (see ReportGeneratorHelper.drawTable).
+ *
+ * @author ActiveEon Team
+ */
+@Component
+public class PerBucketPDFArchiveGenerator {
+
+    private static final String PDF_SUFFIX = "_report.pdf";
+
+    private final ExecutorService renderingExecutor;
+
+    @Autowired
+    public PerBucketPDFArchiveGenerator(@Value("${pa.catalog.pdf.report.rendering.threads:0}") int renderingThreads) {
+        int nbThreads = renderingThreads > 0 ? renderingThreads : Runtime.getRuntime().availableProcessors();
+        renderingExecutor = Executors.newFixedThreadPool(nbThreads,
+                                                         new ThreadFactoryBuilder().setNameFormat("pdf-rendering-%d")
+                                                                                   .setDaemon(true)
+                                                                                   .build());
+    }
+
+    /**
+     * @param contentPerBucket the content to render for every bucket, keyed by bucket name
+     * @param pdfRenderer renders the PDF of the content of a bucket
+     * @return a ZIP archive containing a bucketName_report.pdf entry per bucket
+     */
+    public <T> byte[] generateArchive(Map<String, T> contentPerBucket, Function<T, byte[]> pdfRenderer) {
+        CompletionService<Map.Entry<String, byte[]>> completionService = new ExecutorCompletionService<>(renderingExecutor);
+        List<Future<Map.Entry<String, byte[]>>> renderings = new ArrayList<>(contentPerBucket.size());
+        contentPerBucket.forEach((bucketName,
+                content) -> renderings.add(completionService.submit(() -> new AbstractMap.SimpleImmutableEntry<>(bucketName +
+                                                                                                                  PDF_SUFFIX,
+                                                                                                                  pdfRenderer.apply(content)))));
+
+        try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+                ZipOutputStream zipOutputStream = new ZipOutputStream(byteArrayOutputStream)) {
+            for (int rendered = 0; rendered < renderings.size(); rendered++) {
+                Map.Entry<String, byte[]> pdf = completionService.take().get();
+                zipOutputStream.putNextEntry(new ZipEntry(pdf.getKey()));
+                zipOutputStream.write(pdf.getValue());
+                zipOutputStream.closeEntry();
+            }
+            zipOutputStream.finish();
+            return byteArrayOutputStream.toByteArray();
+        } catch (IOException ioe) {
+            throw new RuntimeException(ioe);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PDFGenerationException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new PDFGenerationException(e.getCause());
+        } finally {
+            // stop rendering the remaining buckets when the archive cannot be completed
+            renderings.forEach(rendering -> rendering.cancel(true));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderingExecutor.shutdownNow();
+    }
+}
@@ -25,7 +25,6 @@
  */
 package org.ow2.proactive.catalog.report;
 
-import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
@@ -39,7 +38,7 @@ import java.util.stream.Collectors;
 
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.pdmodel.font.PDFont;
 import org.jgrapht.Graph;
 import org.jgrapht.GraphPath;
 import org.jgrapht.alg.connectivity.ConnectivityInspector;
@@ -54,6 +53,7 @@ import org.ow2.proactive.catalog.callgraph.GraphNode;
 import org.ow2.proactive.catalog.dto.CatalogObjectDependencies;
 import org.ow2.proactive.catalog.dto.CatalogObjectMetadata;
 import org.ow2.proactive.catalog.service.CatalogObjectService;
+import org.ow2.proactive.catalog.util.ReportGeneratorHelper;
 import org.ow2.proactive.catalog.util.SeparatorUtility;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -132,6 +132,9 @@ public class TableCatalogObjectsDependenciesBuilder {
             Map<String, CatalogObjectDependencies> catalogObjectDependenciesMap = computeCatalogObjectsDependencies(catalogObjectMetadataList,
                                                                                                                     catalogObjectService);
 
+            // embedded once in the document, with the glyphs of all the cells
+            PDFont unicodeFont = ReportGeneratorHelper.loadClasspathFont(doc, FONT_NAME);
+
             String currentBucketName = "";
             String bucketAndNameAndKindCatalogObject = "";
             for (Map.Entry<GraphNode, List<GraphPath<GraphNode, DefaultEdge>>> mapEntry : sortGraphPathsPerBucketAndObjectName.entrySet()) {
@@ -152,8 +155,10 @@ public class TableCatalogObjectsDependenciesBuilder {
                                                         dataCell(mapEntry.getKey(),
                                                                  mapEntry.getValue(),
                                                                  catalogObjectDependenciesMap.get(bucketAndNameAndKindCatalogObject)));
-                cell.setFont(PDType0Font.load(doc,
-                                              new File(getClass().getClassLoader().getResource(FONT_NAME).getFile())));
+                ReportGeneratorHelper.applyDocumentFonts(cell);
+                if (unicodeFont != null) {
+                    cell.setFont(unicodeFont);
+                }
                 cell.setFontSize(5);
             }
         }
@@ -25,6 +25,7 @@
  */
 package org.ow2.proactive.catalog.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import javax.persistence.LockModeType;
@@ -35,6 +36,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.querydsl.QueryDslPredicateExecutor;
@@ -54,6 +56,24 @@ public interface BucketRepository extends JpaRepository<BucketEntity, Long>, Jpa
 
     List<BucketEntity> findByTenantIsNull();
 
+    List<BucketEntity> findByBucketNameIn(Collection<String> bucketNames);
+
+    // the bucket name patterns escape the LIKE wildcards with '!', see BucketService.toBucketNamePattern. A backslash
+    // is not a portable escape character, MySQL reads it as an escape inside the string literal of the query.
+
+    @Query("SELECT bk FROM BucketEntity bk WHERE bk.bucketName IN ?1 AND LOWER(bk.bucketName) LIKE LOWER(?2) ESCAPE '!'")
+    List<BucketEntity> findByBucketNameInAndBucketNameLikeIgnoreCase(Collection<String> bucketNames,
+            String bucketNamePattern);
+
+    @Query("SELECT bk FROM BucketEntity bk WHERE LOWER(bk.bucketName) LIKE LOWER(?1) ESCAPE '!'")
+    List<BucketEntity> findByBucketNameLikeIgnoreCase(String bucketNamePattern);
+
+    @Query("SELECT bk FROM BucketEntity bk WHERE bk.tenant IN ?1 AND LOWER(bk.bucketName) LIKE LOWER(?2) ESCAPE '!'")
+    List<BucketEntity> findByTenantInAndBucketNameLikeIgnoreCase(List<String> tenants, String bucketNamePattern);
+
+    @Query("SELECT bk FROM BucketEntity bk WHERE bk.tenant IS NULL AND LOWER(bk.bucketName) LIKE LOWER(?1) ESCAPE '!'")
+    List<BucketEntity> findByTenantIsNullAndBucketNameLikeIgnoreCase(String bucketNamePattern);
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @QueryHints({ @QueryHint(name = "javax.persistence.lock.timeout", value = "5000") })
     @Query(value = "SELECT bk FROM BucketEntity bk WHERE SIZE(bk.catalogObjects) = 0")
@@ -64,4 +84,18 @@ public interface BucketRepository extends JpaRepository<BucketEntity, Long>, Jpa
     @Query(value = "SELECT bk FROM BucketEntity bk WHERE bk.bucketName = ?1")
     BucketEntity findBucketForUpdate(String bucketName);
 
+    @Modifying
+    @Query("UPDATE BucketEntity bk SET bk.objectCount = bk.objectCount + ?2 WHERE bk.id = ?1")
+    int addToObjectCount(Long bucketId, int delta);
+
+    @Modifying
+    @Query("UPDATE BucketEntity bk SET bk.objectCount = ?2 WHERE bk.id = ?1")
+    int setObjectCount(Long bucketId, int objectCount);
+
+    /**
+     * @return the id, the stored object count and the actual number of catalog objects of every bucket
+     */
+    @Query("SELECT bk.id, bk.objectCount, COUNT(cos) FROM BucketEntity bk LEFT JOIN bk.catalogObjects cos GROUP BY bk.id, bk.objectCount")
+    List<Object[]> findObjectCounts();
+
 }
@@ -38,8 +38,11 @@ public interface BucketRepositoryCustom {
     List<Object[]> findBucketContainingKindListAndContentTypeAndObjectName(List<String> kindList, String contentType,
             String objectName);
 
+    /**
+     * @param bucketNamePattern LIKE pattern of the bucket names, escaped with '!', or an empty string
+     */
     List<Object[]> findBucketByOwnerContainingKindListAndContentTypeAndObjectNameAndLastCommittedTimeInterval(
-            List<String> owners, List<String> kindList, String contentType, String objectName,
+            List<String> owners, List<String> kindList, String contentType, String objectName, String bucketNamePattern,
             Long committedTimeGreater, Long committedTimeLessThan, String tenant, AuthenticatedUser user);
 
     List<Object[]> findBucketByOwnerContainingKindList(List<String> owners, List<String> kindList);
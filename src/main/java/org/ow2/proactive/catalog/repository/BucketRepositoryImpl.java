@@ -57,19 +57,21 @@ public class BucketRepositoryImpl implements BucketRepositoryCustom {
     public List<Object[]> findBucketContainingKindListAndContentTypeAndObjectName(List<String> kindList,
             String contentType, String objectName) {
 
-        return em.createQuery(buildCriteriaQuery(null, kindList, contentType, objectName, null, null, null))
+        return em.createQuery(buildCriteriaQuery(null, kindList, contentType, objectName, null, null, null, null))
                  .getResultList();
     }
 
     @Override
     public List<Object[]> findBucketByOwnerContainingKindListAndContentTypeAndObjectNameAndLastCommittedTimeInterval(
             List<String> owners, List<String> kindList, String contentType, String objectName,
-            Long committedTimeGreater, Long committedTimeLessThan, String tenant, AuthenticatedUser user) {
+            String bucketNamePattern, Long committedTimeGreater, Long committedTimeLessThan, String tenant,
+            AuthenticatedUser user) {
 
         return em.createQuery(buildCriteriaQuery(owners,
                                                  kindList,
                                                  contentType,
                                                  objectName,
+                                                 bucketNamePattern,
                                                  committedTimeGreater,
                                                  committedTimeLessThan,
                                                  tenant,
@@ -79,17 +81,19 @@ public class BucketRepositoryImpl implements BucketRepositoryCustom {
 
     @Override
     public List<Object[]> findBucketByOwnerContainingKindList(List<String> owners, List<String> kindList) {
-        return em.createQuery(buildCriteriaQuery(owners, kindList, null, null, null, null, null)).getResultList();
+        return em.createQuery(buildCriteriaQuery(owners, kindList, null, null, null, null, null, null))
+                 .getResultList();
     }
 
     @Override
     public List<Object[]> findBucketContainingKindList(List<String> kindList) {
-        return em.createQuery(buildCriteriaQuery(null, kindList, null, null, null, null, null)).getResultList();
+        return em.createQuery(buildCriteriaQuery(null, kindList, null, null, null, null, null, null))
+                 .getResultList();
     }
 
     private CriteriaQuery<Object[]> buildCriteriaQuery(List<String> owners, List<String> kindList, String contentType,
-            String objectName, Long committedTimeGreater, Long committedTimeLessThan, String tenant,
-            AuthenticatedUser user) {
+            String objectName, String bucketNamePattern, Long committedTimeGreater, Long committedTimeLessThan,
+            String tenant, AuthenticatedUser user) {
         CriteriaBuilder cb = em.getCriteriaBuilder();
         CriteriaQuery<Object[]> cq = cb.createQuery(Object[].class);
         Root<BucketEntity> bucketEntityRoot = cq.from(BucketEntity.class);
@@ -125,6 +129,13 @@ public class BucketRepositoryImpl implements BucketRepositoryCustom {
             allPredicates.add(objectNamePredicate);
         }
 
+        if (!Strings.isNullOrEmpty(bucketNamePattern)) {
+            Predicate bucketNamePredicate = cb.like(cb.lower(bucketEntityRoot.get("bucketName")),
+                                                    bucketNamePattern.toLowerCase(),
+                                                    '!');
+            allPredicates.add(bucketNamePredicate);
+        }
+
         if (owners != null && !owners.isEmpty()) {
             Predicate ownerPredicate = cb.in(bucketEntityRoot.get("owner")).value(owners);
             allPredicates.add(ownerPredicate);
@@ -186,11 +197,13 @@ public class BucketRepositoryImpl implements BucketRepositoryCustom {
     }
 
     private CriteriaQuery<Object[]> buildCriteriaQuery(List<String> owners, List<String> kindList, String contentType,
-            String objectName, Long committedTimeGreater, Long committedTimeLessThan, String tenant) {
+            String objectName, String bucketNamePattern, Long committedTimeGreater, Long committedTimeLessThan,
+            String tenant) {
         return buildCriteriaQuery(owners,
                                   kindList,
                                   contentType,
                                   objectName,
+                                  bucketNamePattern,
                                   committedTimeGreater,
                                   committedTimeLessThan,
                                   tenant,
@@ -0,0 +1,57 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectContentEntity;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+
+/**
+ * @author ActiveEon Team
+ */
+public interface CatalogObjectContentRepository extends JpaRepository<CatalogObjectContentEntity, Long> {
+
+    @Query("SELECT coc.id FROM CatalogObjectContentEntity coc WHERE coc.contentHash = ?1")
+    Long findIdByContentHash(String contentHash);
+
+    @Query("SELECT cor.content.id FROM CatalogObjectRevisionEntity cor WHERE cor.catalogObject.id = ?1 AND cor.content IS NOT NULL")
+    List<Long> findContentIdsOfCatalogObject(CatalogObjectEntity.CatalogObjectEntityKey catalogObjectKey);
+
+    @Modifying
+    @Query("UPDATE CatalogObjectContentEntity coc SET coc.referenceCount = coc.referenceCount + ?2 WHERE coc.id = ?1")
+    int addToReferenceCount(long contentId, long delta);
+
+    @Modifying
+    @Query("DELETE FROM CatalogObjectContentEntity coc WHERE coc.id IN ?1 AND coc.referenceCount <= 0")
+    int deleteUnreferencedContents(Collection<Long> contentIds);
+
+}
@@ -60,4 +60,28 @@ public interface CatalogObjectRepository
     @Query("SELECT cos FROM CatalogObjectEntity cos WHERE cos.nameLower = null OR cos.kindLower = null OR cos.contentTypeLower = null")
     List<CatalogObjectEntity> findWithNullNameKindOrContentType();
 
+    /**
+     * @return the name and the kind of the given catalog objects which exist in the bucket
+     */
+    @Query("SELECT cos.id.name, cos.kind FROM CatalogObjectEntity cos WHERE cos.bucket.bucketName = ?1 AND cos.id.name in ?2")
+    List<Object[]> findKindsByNameInBucket(String bucketName, List<String> objectNames);
+
+    /**
+     * @return the bucket name, the name and the last commit time of every catalog object
+     */
+    @Query("SELECT cos.bucket.bucketName, cos.id.name, cos.lastCommitTime FROM CatalogObjectEntity cos")
+    List<Object[]> findAllLastCommitTimes();
+
+    /**
+     * @return the bucket name, the name, the kind and the Content-Type of every catalog object
+     */
+    @Query("SELECT cos.bucket.bucketName, cos.id.name, cos.kind, cos.contentType FROM CatalogObjectEntity cos")
+    List<Object[]> findAllKindsAndContentTypes();
+
+    /**
+     * @return a single row with the most recent last commit time and the number of catalog objects
+     */
+    @Query("SELECT MAX(cos.lastCommitTime), COUNT(cos) FROM CatalogObjectEntity cos")
+    List<Object[]> findMaxLastCommitTimeAndCount();
+
 }
@@ -27,7 +27,10 @@ package org.ow2.proactive.catalog.repository;
 
 import java.util.List;
 
+import org.ow2.proactive.catalog.dto.CatalogObjectCursor;
 import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
+import org.ow2.proactive.catalog.repository.projection.CatalogObjectRevisionProjection;
+import org.ow2.proactive.catalog.service.model.CatalogObjectAccessFilter;
 
 
 /**
@@ -45,4 +48,23 @@ public interface CatalogObjectRevisionCustom {
             String objectName, String projectName, String lastCommitBy, String committedAtLeastOnceBy, String tag,
             Long lastCommitTimeGreater, Long lastCommitTimeLessThan, int pageNo, int pageSize);
 
+    List<CatalogObjectRevisionProjection> findDefaultCatalogObjectProjectionsOfKindListAndContentTypeAndObjectNameInBucket(
+            List<String> bucketNames, List<String> kindList, String contentType, String objectName, String projectName,
+            String lastCommitBy, String committedAtLeastOnceBy, Long lastCommitTimeGreater, Long lastCommitTimeLessThan,
+            CatalogObjectAccessFilter accessFilter, int pageNo, int pageSize);
+
+    List<CatalogObjectRevisionProjection> findDefaultCatalogObjectProjectionsOfKindListAndContentTypeAndObjectNameAndTagInBucket(
+            List<String> bucketNames, List<String> kindList, String contentType, String objectName, String projectName,
+            String lastCommitBy, String committedAtLeastOnceBy, String tag, Long lastCommitTimeGreater,
+            Long lastCommitTimeLessThan, CatalogObjectAccessFilter accessFilter, int pageNo, int pageSize);
+
+    /**
+     * Keyset pagination: returns at most pageSize default revisions ordered by last commit time then name, starting
+     * right after the given cursor, or from the beginning if the cursor is null
+     */
+    List<CatalogObjectRevisionProjection> findDefaultCatalogObjectProjectionsAfterCursor(List<String> bucketNames,
+            List<String> kindList, String contentType, String objectName, String projectName, String lastCommitBy,
+            String committedAtLeastOnceBy, String tag, Long lastCommitTimeGreater, Long lastCommitTimeLessThan,
+            CatalogObjectAccessFilter accessFilter, CatalogObjectCursor cursor, int pageSize);
+
 }
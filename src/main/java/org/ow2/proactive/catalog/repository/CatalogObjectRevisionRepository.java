@@ -29,6 +29,8 @@ import java.util.List;
 import java.util.UUID;
 
 import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
+import org.ow2.proactive.catalog.repository.projection.CatalogObjectRevisionProjection;
+import org.ow2.proactive.catalog.repository.projection.KeyValueLabelMetadataProjection;
 import org.ow2.proactive.catalog.util.parser.WorkflowParser;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -51,6 +53,13 @@ public interface CatalogObjectRevisionRepository extends JpaRepository<CatalogOb
     @Query("SELECT cor FROM CatalogObjectRevisionEntity cor WHERE cor.catalogObject.bucket.bucketName in ?1 AND cor.catalogObject.lastCommitTime = cor.commitTime ORDER BY cor.projectName")
     Page<CatalogObjectRevisionEntity> findDefaultCatalogObjectsInBucket(List<String> bucketNames, Pageable pageable);
 
+    @Query("SELECT new org.ow2.proactive.catalog.repository.projection.CatalogObjectRevisionProjection(cor.id, cor.catalogObject.bucket.bucketName, cor.catalogObject.id.name, cor.catalogObject.kind, cor.catalogObject.contentType, cor.catalogObject.extension, cor.commitTime, cor.commitMessage, cor.username, cor.projectName, cor.tags) FROM CatalogObjectRevisionEntity cor WHERE cor.catalogObject.bucket.bucketName in ?1 AND cor.catalogObject.lastCommitTime = cor.commitTime ORDER BY cor.projectName")
+    List<CatalogObjectRevisionProjection> findDefaultCatalogObjectProjectionsInBucket(List<String> bucketNames,
+            Pageable pageable);
+
+    @Query("SELECT new org.ow2.proactive.catalog.repository.projection.KeyValueLabelMetadataProjection(kv.catalogObjectRevision.id, kv.key, kv.value, kv.label) FROM KeyValueLabelMetadataEntity kv WHERE kv.catalogObjectRevision.id in ?1 ORDER BY kv.id")
+    List<KeyValueLabelMetadataProjection> findMetadataProjectionsByRevisionIds(List<Long> revisionIds);
+
     @Query("SELECT cor FROM CatalogObjectRevisionEntity cor WHERE cor.catalogObject.bucket.bucketName in ?1 AND cor.catalogObject.id.name = ?2 AND cor.catalogObject.lastCommitTime = cor.commitTime")
     CatalogObjectRevisionEntity findDefaultCatalogObjectByNameInBucket(List<String> bucketNames, String name);
 
@@ -58,6 +67,16 @@ public interface CatalogObjectRevisionRepository extends JpaRepository<CatalogOb
     List<CatalogObjectRevisionEntity> findDefaultCatalogObjectsByNameInBucket(String bucketName,
             List<String> objectName);
 
+    @Query("SELECT COUNT(cor) FROM CatalogObjectRevisionEntity cor WHERE cor.catalogObject.bucket.bucketName = ?1 AND cor.catalogObject.id.name in ?2 AND cor.catalogObject.lastCommitTime = cor.commitTime")
+    long countDefaultCatalogObjectsByNameInBucket(String bucketName, List<String> objectName);
+
+    @Query("SELECT cor FROM CatalogObjectRevisionEntity cor LEFT JOIN FETCH cor.content WHERE cor.catalogObject.bucket.bucketName = ?1 AND cor.catalogObject.id.name in ?2 AND cor.catalogObject.lastCommitTime = cor.commitTime")
+    List<CatalogObjectRevisionEntity> findDefaultCatalogObjectsWithContentByNameInBucket(String bucketName,
+            List<String> objectName);
+
+    @Query("SELECT cor.id FROM CatalogObjectRevisionEntity cor WHERE cor.content IS NULL")
+    List<Long> findRevisionIdsWithoutContent();
+
     @Query("SELECT cor FROM CatalogObjectRevisionEntity cor WHERE cor.id = ?1")
     List<CatalogObjectRevisionEntity> findCatalogObject(long catalogObjectId);
 
@@ -91,6 +110,22 @@ public interface CatalogObjectRevisionRepository extends JpaRepository<CatalogOb
     List<CatalogObjectRevisionEntity>
             findCalledByCatalogObjectsFromKeyValueMetadata(@Param("bucketObjectName") String bucketObjectName);
 
+    /**
+     * @return the bucket name, the name, the depends on object and its revision of every dependency of the last
+     *         revisions
+     */
+    @Query("SELECT cor.catalogObject.bucket.bucketName, cor.catalogObject.id.name, metadata.key, metadata.value FROM CatalogObjectRevisionEntity cor INNER JOIN cor.keyValueMetadataList metadata WHERE metadata.label = '" +
+           WorkflowParser.ATTRIBUTE_DEPENDS_ON_LABEL + "' AND cor.commitTime = cor.catalogObject.lastCommitTime" +
+           " ORDER BY metadata.id")
+    List<Object[]> findDependsOnOfLastRevisions();
+
+    /**
+     * @return the bucket name, the name and the object tag of every object tag of every revision
+     */
+    @Query("SELECT cor.catalogObject.bucket.bucketName, cor.catalogObject.id.name, metadata.key FROM CatalogObjectRevisionEntity cor INNER JOIN cor.keyValueMetadataList metadata WHERE metadata.label = '" +
+           WorkflowParser.OBJECT_TAG_LABEL + "'")
+    List<Object[]> findObjectTagsOfAllRevisions();
+
     @Query(value = "SELECT cor FROM CatalogObjectRevisionEntity cor " +
                    "WHERE cor.catalogObject.kindLower LIKE lower(concat(?1, '%')) " +
                    "AND cor.catalogObject.contentTypeLower LIKE lower(concat(?2, '%'))  " +
@@ -33,8 +33,12 @@ import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.criteria.*;
 
+import org.ow2.proactive.catalog.dto.CatalogObjectCursor;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectEntity;
 import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
 import org.ow2.proactive.catalog.repository.entity.KeyValueLabelMetadataEntity;
+import org.ow2.proactive.catalog.repository.projection.CatalogObjectRevisionProjection;
+import org.ow2.proactive.catalog.service.model.CatalogObjectAccessFilter;
 import org.ow2.proactive.catalog.util.parser.WorkflowParser;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
@@ -57,11 +61,127 @@ public class CatalogObjectRevisionRepositoryImpl implements CatalogObjectRevisio
             List<String> bucketNames, List<String> kindList, String contentType, String objectName, String projectName,
             String lastCommitBy, String committedAtLeastOnceBy, Long lastCommitTimeGreater, Long lastCommitTimeLessThan,
             int pageNo, int pageSize) {
+        return findDefaultCatalogObjectsOfKindListAndContentTypeAndObjectNameInBucket(CatalogObjectRevisionEntity.class,
+                                                                                      bucketNames,
+                                                                                      kindList,
+                                                                                      contentType,
+                                                                                      objectName,
+                                                                                      projectName,
+                                                                                      lastCommitBy,
+                                                                                      committedAtLeastOnceBy,
+                                                                                      lastCommitTimeGreater,
+                                                                                      lastCommitTimeLessThan,
+                                                                                      CatalogObjectAccessFilter.ALL,
+                                                                                      pageNo,
+                                                                                      pageSize);
+    }
+
+    @Override
+    public List<CatalogObjectRevisionProjection>
+            findDefaultCatalogObjectProjectionsOfKindListAndContentTypeAndObjectNameInBucket(List<String> bucketNames,
+                    List<String> kindList, String contentType, String objectName, String projectName,
+                    String lastCommitBy, String committedAtLeastOnceBy, Long lastCommitTimeGreater,
+                    Long lastCommitTimeLessThan, CatalogObjectAccessFilter accessFilter, int pageNo, int pageSize) {
+        return findDefaultCatalogObjectsOfKindListAndContentTypeAndObjectNameInBucket(CatalogObjectRevisionProjection.class,
+                                                                                      bucketNames,
+                                                                                      kindList,
+                                                                                      contentType,
+                                                                                      objectName,
+                                                                                      projectName,
+                                                                                      lastCommitBy,
+                                                                                      committedAtLeastOnceBy,
+                                                                                      lastCommitTimeGreater,
+                                                                                      lastCommitTimeLessThan,
+                                                                                      accessFilter,
+                                                                                      pageNo,
+                                                                                      pageSize);
+    }
+
+    @Override
+    public List<CatalogObjectRevisionEntity>
+            findDefaultCatalogObjectsOfKindListAndContentTypeAndObjectNameAndTagInBucket(List<String> bucketNames,
+                    List<String> objectNames, List<String> kindList, String contentType, String objectName,
+                    String projectName, String lastCommitBy, String committedAtLeastOnceBy, String tag,
+                    Long lastCommitTimeGreater, Long lastCommitTimeLessThan, int pageNo, int pageSize) {
+        return findDefaultCatalogObjectsOfKindListAndContentTypeAndObjectNameAndTagInBucket(CatalogObjectRevisionEntity.class,
+                                                                                            bucketNames,
+                                                                                            objectNames,
+                                                                                            kindList,
+                                                                                            contentType,
+                                                                                            objectName,
+                                                                                            projectName,
+                                                                                            lastCommitBy,
+                                                                                            committedAtLeastOnceBy,
+                                                                                            tag,
+                                                                                            lastCommitTimeGreater,
+                                                                                            lastCommitTimeLessThan,
+                                                                                            CatalogObjectAccessFilter.ALL,
+                                                                                            pageNo,
+                                                                                            pageSize);
+    }
+
+    @Override
+    public List<CatalogObjectRevisionProjection>
+            findDefaultCatalogObjectProjectionsOfKindListAndContentTypeAndObjectNameAndTagInBucket(
+                    List<String> bucketNames, List<String> kindList, String contentType, String objectName,
+                    String projectName, String lastCommitBy, String committedAtLeastOnceBy, String tag,
+                    Long lastCommitTimeGreater, Long lastCommitTimeLessThan, CatalogObjectAccessFilter accessFilter,
+                    int pageNo, int pageSize) {
+        return findDefaultCatalogObjectsOfKindListAndContentTypeAndObjectNameAndTagInBucket(CatalogObjectRevisionProjection.class,
+                                                                                            bucketNames,
+                                                                                            null,
+                                                                                            kindList,
+                                                                                            contentType,
+                                                                                            objectName,
+                                                                                            projectName,
+                                                                                            lastCommitBy,
+                                                                                            committedAtLeastOnceBy,
+                                                                                            tag,
+                                                                                            lastCommitTimeGreater,
+                                                                                            lastCommitTimeLessThan,
+                                                                                            accessFilter,
+                                                                                            pageNo,
+                                                                                            pageSize);
+    }
+
+    @Override
+    public List<CatalogObjectRevisionProjection> findDefaultCatalogObjectProjectionsAfterCursor(
+            List<String> bucketNames, List<String> kindList, String contentType, String objectName, String projectName,
+            String lastCommitBy, String committedAtLeastOnceBy, String tag, Long lastCommitTimeGreater,
+            Long lastCommitTimeLessThan, CatalogObjectAccessFilter accessFilter, CatalogObjectCursor cursor,
+            int pageSize) {
         if (pageSize < 0) {
             throw new IllegalArgumentException("pageSize cannot be negative");
         }
-        return bucketNames != null && bucketNames.isEmpty() ? new ArrayList<>()
-                                                            : em.createQuery(buildCriteriaQuery(bucketNames,
+        if ((bucketNames != null && bucketNames.isEmpty()) || accessFilter.isNoneAccessible()) {
+            return new ArrayList<>();
+        }
+        return em.createQuery(buildKeysetCriteriaQuery(bucketNames,
+                                                       kindList,
+                                                       contentType,
+                                                       objectName,
+                                                       projectName,
+                                                       lastCommitBy,
+                                                       committedAtLeastOnceBy,
+                                                       tag,
+                                                       lastCommitTimeGreater,
+                                                       lastCommitTimeLessThan,
+                                                       accessFilter,
+                                                       cursor))
+                 .setMaxResults(pageSize)
+                 .getResultList();
+    }
+
+    private <T> List<T> findDefaultCatalogObjectsOfKindListAndContentTypeAndObjectNameInBucket(Class<T> resultType,
+            List<String> bucketNames, List<String> kindList, String contentType, String objectName, String projectName,
+            String lastCommitBy, String committedAtLeastOnceBy, Long lastCommitTimeGreater, Long lastCommitTimeLessThan,
+            CatalogObjectAccessFilter accessFilter, int pageNo, int pageSize) {
+        if (pageSize < 0) {
+            throw new IllegalArgumentException("pageSize cannot be negative");
+        }
+        return (bucketNames != null && bucketNames.isEmpty()) || accessFilter.isNoneAccessible() ? new ArrayList<>()
+                                                            : em.createQuery(buildCriteriaQuery(resultType,
+                                                                                                bucketNames,
                                                                                                 kindList,
                                                                                                 contentType,
                                                                                                 objectName,
@@ -69,21 +189,24 @@ public class CatalogObjectRevisionRepositoryImpl implements CatalogObjectRevisio
                                                                                                 lastCommitBy,
                                                                                                 committedAtLeastOnceBy,
                                                                                                 lastCommitTimeGreater,
-                                                                                                lastCommitTimeLessThan))
+                                                                                                lastCommitTimeLessThan,
+                                                                                                accessFilter))
                                                                 .setMaxResults(pageSize)
                                                                 .setFirstResult(pageNo * pageSize)
                                                                 .getResultList();
     }
 
-    @Override
-    public List<CatalogObjectRevisionEntity>
-            findDefaultCatalogObjectsOfKindListAndContentTypeAndObjectNameAndTagInBucket(List<String> bucketNames,
-                    List<String> objectNames, List<String> kindList, String contentType, String objectName,
-                    String projectName, String lastCommitBy, String committedAtLeastOnceBy, String tag,
-                    Long lastCommitTimeGreater, Long lastCommitTimeLessThan, int pageNo, int pageSize) {
+    private <T> List<T> findDefaultCatalogObjectsOfKindListAndContentTypeAndObjectNameAndTagInBucket(
+            Class<T> resultType, List<String> bucketNames, List<String> objectNames, List<String> kindList,
+            String contentType, String objectName, String projectName, String lastCommitBy,
+            String committedAtLeastOnceBy, String tag, Long lastCommitTimeGreater, Long lastCommitTimeLessThan,
+            CatalogObjectAccessFilter accessFilter, int pageNo, int pageSize) {
         if (pageSize < 0) {
             throw new IllegalArgumentException("pageSize cannot be negative");
         }
+        if (accessFilter.isNoneAccessible()) {
+            return new ArrayList<>();
+        }
         if (bucketNames != null) {
             if (bucketNames.isEmpty()) {
                 return new ArrayList<>();
@@ -97,31 +220,34 @@ public class CatalogObjectRevisionRepositoryImpl implements CatalogObjectRevisio
             return new ArrayList<>();
         } else if (objectNames != null && objectNames.size() > dbItemsMaxSize) {
             // we create a split partition for a big size of object name list
-            List<CatalogObjectRevisionEntity> answer = new ArrayList<>();
+            List<T> answer = new ArrayList<>();
             List<List<String>> partition = Lists.partition(objectNames, dbItemsMaxSize);
             for (List<String> objectNamesSubList : partition) {
-                List<CatalogObjectRevisionEntity> subAnswer = em.createQuery(buildCriteriaQuery(bucketNames,
-                                                                                                objectNamesSubList,
-                                                                                                kindList,
-                                                                                                contentType,
-                                                                                                objectName,
-                                                                                                projectName,
-                                                                                                lastCommitBy,
-                                                                                                committedAtLeastOnceBy,
-                                                                                                lastCommitTimeGreater,
-                                                                                                lastCommitTimeLessThan,
-                                                                                                tag))
-                                                                .setMaxResults(pageSize)
-                                                                .setFirstResult(pageNo * pageSize)
-                                                                .getResultList()
-                                                                .stream()
-                                                                .distinct()
-                                                                .collect(Collectors.toList());
+                List<T> subAnswer = em.createQuery(buildCriteriaQuery(resultType,
+                                                                      bucketNames,
+                                                                      objectNamesSubList,
+                                                                      kindList,
+                                                                      contentType,
+                                                                      objectName,
+                                                                      projectName,
+                                                                      lastCommitBy,
+                                                                      committedAtLeastOnceBy,
+                                                                      lastCommitTimeGreater,
+                                                                      lastCommitTimeLessThan,
+                                                                      tag,
+                                                                      accessFilter))
+                                      .setMaxResults(pageSize)
+                                      .setFirstResult(pageNo * pageSize)
+                                      .getResultList()
+                                      .stream()
+                                      .distinct()
+                                      .collect(Collectors.toList());
                 answer.addAll(subAnswer);
             }
             return answer;
         } else {
-            return em.createQuery(buildCriteriaQuery(bucketNames,
+            return em.createQuery(buildCriteriaQuery(resultType,
+                                                     bucketNames,
                                                      objectNames,
                                                      kindList,
                                                      contentType,
@@ -131,7 +257,8 @@ public class CatalogObjectRevisionRepositoryImpl implements CatalogObjectRevisio
                                                      committedAtLeastOnceBy,
                                                      lastCommitTimeGreater,
                                                      lastCommitTimeLessThan,
-                                                     tag))
+                                                     tag,
+                                                     accessFilter))
                      .setMaxResults(pageSize)
                      .setFirstResult(pageNo * pageSize)
                      .getResultList()
@@ -149,12 +276,12 @@ public class CatalogObjectRevisionRepositoryImpl implements CatalogObjectRevisio
         return pattern.contains("%") ? pattern.toLowerCase() : "%" + pattern.toLowerCase() + "%";
     }
 
-    private CriteriaQuery<CatalogObjectRevisionEntity> buildCriteriaQuery(List<String> bucketNames,
+    private <T> CriteriaQuery<T> buildCriteriaQuery(Class<T> resultType, List<String> bucketNames,
             List<String> objectNames, List<String> kindList, String contentType, String objectName, String projectName,
             String lastCommitBy, String committedAtLeastOnceBy, Long lastCommitTimeGreater, Long lastCommitTimeLessThan,
-            String tag) {
+            String tag, CatalogObjectAccessFilter accessFilter) {
         CriteriaBuilder cb = em.getCriteriaBuilder();
-        CriteriaQuery<CatalogObjectRevisionEntity> cq = cb.createQuery(CatalogObjectRevisionEntity.class);
+        CriteriaQuery<T> cq = cb.createQuery(resultType);
         Root<CatalogObjectRevisionEntity> root = cq.from(CatalogObjectRevisionEntity.class);
 
         ListJoin<CatalogObjectRevisionEntity, KeyValueLabelMetadataEntity> metadata = null;
@@ -175,7 +302,8 @@ public class CatalogObjectRevisionRepositoryImpl implements CatalogObjectRevisio
                                                             lastCommitTimeGreater,
                                                             lastCommitTimeLessThan,
                                                             bucketNames,
-                                                            objectNames);
+                                                            objectNames,
+                                                            accessFilter);
 
         if (tag != null) {
             allPredicates.add(cb.equal(metadata.get("label"), WorkflowParser.OBJECT_TAG_LABEL));
@@ -186,17 +314,70 @@ public class CatalogObjectRevisionRepositoryImpl implements CatalogObjectRevisio
 
         cq.orderBy(cb.asc(root.get("projectName")));
 
-        cq.select(root);
+        cq.select(buildSelection(resultType, cb, root));
         // we avoid using distinct as it creates an issue in Oracle
         // distinct is performed in java on the returned result
         return cq;
     }
 
+    /**
+     * Builds a query ordered by (LAST_COMMIT_TIME, NAME), so that the objects of each bucket are read in the order of
+     * CATALOG_OBJECT_KEYSET_INDEX (BUCKET_ID, LAST_COMMIT_TIME, NAME). The position of the cursor is expressed as a
+     * predicate so that the cost of a page does not depend on its depth. The tag filter uses
+     * an EXISTS sub-query instead of a join so that each object is returned once and pages are never shortened.
+     */
+    private CriteriaQuery<CatalogObjectRevisionProjection> buildKeysetCriteriaQuery(List<String> bucketNames,
+            List<String> kindList, String contentType, String objectName, String projectName, String lastCommitBy,
+            String committedAtLeastOnceBy, String tag, Long lastCommitTimeGreater, Long lastCommitTimeLessThan,
+            CatalogObjectAccessFilter accessFilter, CatalogObjectCursor cursor) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<CatalogObjectRevisionProjection> cq = cb.createQuery(CatalogObjectRevisionProjection.class);
+        Root<CatalogObjectRevisionEntity> root = cq.from(CatalogObjectRevisionEntity.class);
+
+        List<Predicate> allPredicates = getCommonPredicates(kindList,
+                                                            cb,
+                                                            cq,
+                                                            root,
+                                                            contentType,
+                                                            objectName,
+                                                            projectName,
+                                                            lastCommitBy,
+                                                            committedAtLeastOnceBy,
+                                                            lastCommitTimeGreater,
+                                                            lastCommitTimeLessThan,
+                                                            bucketNames,
+                                                            null,
+                                                            accessFilter);
+
+        if (tag != null) {
+            Subquery<Long> tagSubQuery = cq.subquery(Long.class);
+            Root<KeyValueLabelMetadataEntity> metadata = tagSubQuery.from(KeyValueLabelMetadataEntity.class);
+            tagSubQuery.select(metadata.get("id"))
+                       .where(cb.equal(metadata.get("catalogObjectRevision"), root),
+                              cb.equal(metadata.get("label"), WorkflowParser.OBJECT_TAG_LABEL),
+                              cb.like(cb.lower(metadata.get("key")), toBothSidesPredicatePattern(tag)));
+            allPredicates.add(cb.exists(tagSubQuery));
+        }
+
+        Path<Long> lastCommitTime = root.get("catalogObject").get("lastCommitTime");
+        Path<String> name = root.get("catalogObject").get("id").get("name");
+        if (cursor != null) {
+            allPredicates.add(cb.or(cb.greaterThan(lastCommitTime, cursor.getLastCommitTime()),
+                                    cb.and(cb.equal(lastCommitTime, cursor.getLastCommitTime()),
+                                           cb.greaterThan(name, cursor.getName()))));
+        }
+
+        cq.where(allPredicates.toArray(new Predicate[0]));
+        cq.orderBy(cb.asc(lastCommitTime), cb.asc(name));
+        cq.select(buildSelection(CatalogObjectRevisionProjection.class, cb, root));
+        return cq;
+    }
+
     private List<Predicate> getCommonPredicates(List<String> kindList, CriteriaBuilder cb,
-            CriteriaQuery<CatalogObjectRevisionEntity> cq, Root<CatalogObjectRevisionEntity> root, String contentType,
+            CriteriaQuery<?> cq, Root<CatalogObjectRevisionEntity> root, String contentType,
             String objectName, String projectName, String lastCommitBy, String committedAtLeastOnceBy,
             Long lastCommitTimeGreater, Long lastCommitTimeLessThan, List<String> bucketNames,
-            List<String> objectNames) {
+            List<String> objectNames, CatalogObjectAccessFilter accessFilter) {
         List<Predicate> allPredicates = new ArrayList<>();
         if (!kindList.isEmpty()) {
             List<Predicate> kindPredicates = new ArrayList<>();
@@ -261,17 +442,39 @@ public class CatalogObjectRevisionRepositoryImpl implements CatalogObjectRevisio
 
         }
 
+        if (!accessFilter.isAllAccessible()) {
+            allPredicates.add(buildAccessPredicate(cb, root, accessFilter));
+        }
+
         Predicate lastCommitTimePredicate = cb.equal(root.get("catalogObject").get("lastCommitTime"),
                                                      root.get("commitTime"));
         allPredicates.add(lastCommitTimePredicate);
         return allPredicates;
     }
 
-    private CriteriaQuery<CatalogObjectRevisionEntity> buildCriteriaQuery(List<String> bucketNames,
+    /**
+     * Restricts the listing to the objects accessible through the user's grants, so that inaccessible objects are
+     * removed before the page limits are applied. Object names are split in lists of the configurable max items.
+     */
+    private Predicate buildAccessPredicate(CriteriaBuilder cb, Root<CatalogObjectRevisionEntity> root,
+            CatalogObjectAccessFilter accessFilter) {
+        Path<String> name = root.get("catalogObject").get("id").get("name");
+        List<Predicate> namePredicates = new ArrayList<>();
+        for (List<String> objectNames : Lists.partition(new ArrayList<>(accessFilter.getObjectNames()),
+                                                        dbItemsMaxSize)) {
+            Predicate inObjectNames = name.in(objectNames);
+            namePredicates.add(accessFilter.isRestrictedToObjectNames() ? inObjectNames : cb.not(inObjectNames));
+        }
+        Predicate[] predicates = namePredicates.toArray(new Predicate[0]);
+        return accessFilter.isRestrictedToObjectNames() ? cb.or(predicates) : cb.and(predicates);
+    }
+
+    private <T> CriteriaQuery<T> buildCriteriaQuery(Class<T> resultType, List<String> bucketNames,
             List<String> kindList, String contentType, String objectName, String projectName, String lastCommitBy,
-            String committedAtLeastOnceBy, Long lastCommitTimeGreater, Long lastCommitTimeLessThan) {
+            String committedAtLeastOnceBy, Long lastCommitTimeGreater, Long lastCommitTimeLessThan,
+            CatalogObjectAccessFilter accessFilter) {
         CriteriaBuilder cb = em.getCriteriaBuilder();
-        CriteriaQuery<CatalogObjectRevisionEntity> cq = cb.createQuery(CatalogObjectRevisionEntity.class);
+        CriteriaQuery<T> cq = cb.createQuery(resultType);
         Root<CatalogObjectRevisionEntity> root = cq.from(CatalogObjectRevisionEntity.class);
 
         List<Predicate> allPredicates = getCommonPredicates(kindList,
@@ -286,13 +489,38 @@ public class CatalogObjectRevisionRepositoryImpl implements CatalogObjectRevisio
                                                             lastCommitTimeGreater,
                                                             lastCommitTimeLessThan,
                                                             bucketNames,
-                                                            null);
+                                                            null,
+                                                            accessFilter);
 
         cq.where(allPredicates.toArray(new Predicate[0]));
 
         cq.orderBy(cb.asc(root.get("projectName")));
-        cq.select(root);
+        cq.select(buildSelection(resultType, cb, root));
         return cq;
     }
 
+    /**
+     * Selects either the revision entity itself or, for projections, only the columns needed to list catalog objects
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Selection<T> buildSelection(Class<T> resultType, CriteriaBuilder cb,
+            Root<CatalogObjectRevisionEntity> root) {
+        if (CatalogObjectRevisionProjection.class.equals(resultType)) {
+            Path<CatalogObjectEntity> catalogObject = root.get("catalogObject");
+            return (Selection<T>) cb.construct(CatalogObjectRevisionProjection.class,
+                                               root.get("id"),
+                                               catalogObject.get("bucket").get("bucketName"),
+                                               catalogObject.get("id").get("name"),
+                                               catalogObject.get("kind"),
+                                               catalogObject.get("contentType"),
+                                               catalogObject.get("extension"),
+                                               root.get("commitTime"),
+                                               root.get("commitMessage"),
+                                               root.get("username"),
+                                               root.get("projectName"),
+                                               root.get("tags"));
+        }
+        return (Selection<T>) root;
+    }
+
 }
@@ -78,6 +78,11 @@ public class BucketEntity implements Serializable {
     @Column(name = "TENANT")
     protected String tenant;
 
+    // denormalized number of catalog objects, only written by the bulk updates of BucketRepository so that
+    // concurrent object creations or deletions are not overwritten by an update of the bucket
+    @Column(name = "OBJECT_COUNT", updatable = false)
+    private Integer objectCount;
+
     @OneToMany(mappedBy = "bucket", fetch = FetchType.LAZY, cascade = { CascadeType.PERSIST,
                                                                         CascadeType.REMOVE }, orphanRemoval = true)
     @Fetch(FetchMode.SELECT)
@@ -95,6 +100,7 @@ public class BucketEntity implements Serializable {
         this.bucketName = bucketName;
         this.owner = owner;
         this.tenant = null;
+        this.objectCount = 0;
         this.catalogObjects = new HashSet<>();
     }
 
@@ -102,6 +108,7 @@ public class BucketEntity implements Serializable {
         this.bucketName = bucketName;
         this.owner = owner;
         this.tenant = tenant;
+        this.objectCount = 0;
         this.catalogObjects = new HashSet<>();
     }
 
@@ -110,6 +117,14 @@ public class BucketEntity implements Serializable {
         catalogObject.setBucket(this);
     }
 
+    /**
+     * @return the number of catalog objects in the bucket, read from the catalog objects collection only when the
+     *         counter has not been computed yet
+     */
+    public int countCatalogObjects() {
+        return objectCount != null ? objectCount : catalogObjects.size();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o)
@@ -0,0 +1,109 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.repository.entity;
+
+import java.io.Serializable;
+
+import javax.persistence.*;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import com.google.common.hash.Hashing;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+/**
+ * Raw content of a catalog object revision. It is stored apart from the revision so that listing revisions does not
+ * load the raw objects.
+ *
+ * Contents are addressed by the SHA-256 hash of their bytes: revisions having the same raw object share one content,
+ * which is deleted once no revision references it anymore.
+ *
+ * @author ActiveEon Team
+ */
+@AllArgsConstructor
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "CATALOG_OBJECT_CONTENT", uniqueConstraints = @UniqueConstraint(columnNames = { "CONTENT_HASH" }), indexes = { @Index(name = "CONTENT_HASH_INDEX", columnList = "CONTENT_HASH") })
+public class CatalogObjectContentEntity implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "CATALOG_OBJECT_CONTENT_SEQ")
+    @GenericGenerator(name = "CATALOG_OBJECT_CONTENT_SEQ", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = { @Parameter(name = "sequence_name", value = "CATALOG_OBJECT_CONTENT_SEQ"),
+                                                                                                                                         @Parameter(name = "initial_value", value = "1"),
+                                                                                                                                         @Parameter(name = "increment_size", value = "1") })
+    @Column(name = "ID")
+    protected Long id;
+
+    @Column(name = "CONTENT_HASH", length = 64)
+    private String contentHash;
+
+    // number of revisions referencing this content
+    @Column(name = "REFERENCE_COUNT")
+    private long referenceCount;
+
+    @Lob
+    @Column(name = "RAW_OBJECT", length = Integer.MAX_VALUE)
+    private byte[] rawObject;
+
+    public CatalogObjectContentEntity(byte[] rawObject) {
+        this.contentHash = computeContentHash(rawObject);
+        this.referenceCount = 1;
+        this.rawObject = rawObject;
+    }
+
+    public static String computeContentHash(byte[] rawObject) {
+        return Hashing.sha256().hashBytes(rawObject == null ? new byte[0] : rawObject).toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+
+        CatalogObjectContentEntity that = (CatalogObjectContentEntity) o;
+
+        return id != null ? id.equals(that.id) : that.id == null;
+    }
+
+    @Override
+    public int hashCode() {
+        return id != null ? id.hashCode() : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "CatalogObjectContentEntity{" + "id=" + id + ", contentHash='" + contentHash + '\'' +
+               ", referenceCount=" + referenceCount + '}';
+    }
+}
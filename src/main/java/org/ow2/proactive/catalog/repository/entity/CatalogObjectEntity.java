@@ -68,7 +68,8 @@ import lombok.NoArgsConstructor;
 @BatchSize(size = 25)
 @Entity
 @NamedEntityGraph(name = "catalogObject.withRevisions", attributeNodes = { @NamedAttributeNode("revisions") })
-@Table(name = "CATALOG_OBJECT", indexes = { @Index(columnList = "LAST_COMMIT_TIME,NAME_LOWER,KIND_LOWER,CONTENT_TYPE_LOWER") })
+@Table(name = "CATALOG_OBJECT", indexes = { @Index(columnList = "LAST_COMMIT_TIME,NAME_LOWER,KIND_LOWER,CONTENT_TYPE_LOWER"),
+                                            @Index(name = "CATALOG_OBJECT_KEYSET_INDEX", columnList = "BUCKET_ID,LAST_COMMIT_TIME,NAME") })
 public class CatalogObjectEntity implements Serializable {
 
     @AllArgsConstructor
@@ -88,9 +88,10 @@ public class CatalogObjectRevisionEntity implements Comparable, Serializable {
     @Builder.Default
     private List<KeyValueLabelMetadataEntity> keyValueMetadataList = new ArrayList<>();
 
-    @Lob
-    @Column(name = "RAW_OBJECT", length = Integer.MAX_VALUE)
-    private byte[] rawObject;
+    // the content can be shared between revisions having the same raw object, see CatalogObjectContentEntity
+    @ManyToOne(fetch = FetchType.LAZY, cascade = { CascadeType.PERSIST })
+    @JoinColumn(name = "CONTENT_ID")
+    private CatalogObjectContentEntity content;
 
     @Override
     public int compareTo(Object o) {
@@ -110,6 +111,13 @@ public class CatalogObjectRevisionEntity implements Comparable, Serializable {
         keyValueMetadataList.forEach(kv -> addKeyValue(kv));
     }
 
+    /**
+     * The raw object is lazily loaded, calling this method triggers a query on CATALOG_OBJECT_CONTENT
+     */
+    public byte[] getRawObject() {
+        return this.content == null ? null : this.content.getRawObject();
+    }
+
     public String getProjectName() {
         return this.projectName == null ? "" : this.projectName;
     }
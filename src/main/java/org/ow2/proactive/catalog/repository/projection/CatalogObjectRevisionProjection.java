@@ -0,0 +1,78 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.repository.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+
+/**
+ * Read-only view of the default revision of a catalog object, holding only the columns needed to list catalog
+ * objects. It is built by a JPQL constructor expression so that listing does not load the revision entities and
+ * their eager associations.
+ *
+ * @author ActiveEon Team
+ */
+@AllArgsConstructor
+@Data
+public class CatalogObjectRevisionProjection {
+
+    private Long id;
+
+    private String bucketName;
+
+    private String name;
+
+    private String kind;
+
+    private String contentType;
+
+    private String extension;
+
+    private Long commitTime;
+
+    private String commitMessage;
+
+    private String username;
+
+    private String projectName;
+
+    private String tags;
+
+    // like CatalogObjectRevisionEntity, the optional columns are read as empty strings when they are NULL
+
+    public String getCommitMessage() {
+        return this.commitMessage == null ? "" : this.commitMessage;
+    }
+
+    public String getProjectName() {
+        return this.projectName == null ? "" : this.projectName;
+    }
+
+    public String getTags() {
+        return this.tags == null ? "" : this.tags;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.repository.specification.catalogobject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.ow2.proactive.catalog.graphql.bean.common.Operations;
+import org.ow2.proactive.catalog.repository.entity.BucketEntity;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectEntity;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
+import org.ow2.proactive.catalog.repository.entity.KeyValueLabelMetadataEntity;
+import org.ow2.proactive.catalog.repository.entity.metamodel.CatalogObjectEntityMetaModelEnum;
+import org.ow2.proactive.catalog.repository.specification.AbstractSpecification;
+import org.ow2.proactive.catalog.service.CatalogObjectService;
+import org.ow2.proactive.catalog.service.model.CatalogObjectAccessFilter;
+import org.ow2.proactive.catalog.service.model.UserCatalogObjectsAccess;
+
+import com.google.common.collect.Lists;
+
+import lombok.Builder;
+
+
+/**
+ * Restricts the catalog objects to the ones the user can read according to its grants. It must be combined after
+ * the filter specification, which creates the join on the last commit of the catalog objects.
+ *
+ * @author ActiveEon Team
+ */
+public class CatalogObjectGrantSpecification extends AbstractSpecification<UserCatalogObjectsAccess> {
+
+    private static final String OWNER = "owner";
+
+    @Builder
+    public CatalogObjectGrantSpecification(Operations operations, UserCatalogObjectsAccess value,
+            Join<CatalogObjectRevisionEntity, CatalogObjectEntity> catalogObjectJoin,
+            Join<CatalogObjectRevisionEntity, KeyValueLabelMetadataEntity> metadataJoin,
+            Join<Join, BucketEntity> bucketEntityJoin) {
+        super(operations, value, catalogObjectJoin, metadataJoin, bucketEntityJoin);
+    }
+
+    @Override
+    protected Predicate buildPredicate(Root<CatalogObjectRevisionEntity> root, CriteriaQuery<?> query,
+            CriteriaBuilder cb) {
+        if (value.isUnrestricted()) {
+            return cb.conjunction();
+        }
+        initBucketJoin(root, query, cb);
+        Path<String> bucketName = bucketEntityJoin.get(CatalogObjectEntityMetaModelEnum.BUCKET_NAME.getName());
+        Path<String> objectName = catalogObjectJoin.get(CatalogObjectEntityMetaModelEnum.ID.getName())
+                                                   .get(CatalogObjectEntityMetaModelEnum.NAME.getName());
+        Map<String, CatalogObjectAccessFilter> accessFilters = value.getGrantedBucketsAccessFilters();
+
+        List<Predicate> accessPredicates = new ArrayList<>();
+        // buckets of the accessible owners, which have no grants assigned to the user
+        if (!value.getAccessibleOwners().isEmpty()) {
+            List<Predicate> ownerPredicates = new ArrayList<>();
+            ownerPredicates.add(bucketEntityJoin.get(OWNER).in(value.getAccessibleOwners()));
+            partition(accessFilters.keySet()).forEach(names -> ownerPredicates.add(cb.not(bucketName.in(names))));
+            accessPredicates.add(cb.and(ownerPredicates.toArray(new Predicate[0])));
+        }
+        // granted buckets whose objects are all accessible
+        partition(accessFilters.entrySet()
+                               .stream()
+                               .filter(entry -> entry.getValue().isAllAccessible())
+                               .map(Map.Entry::getKey)
+                               .collect(Collectors.toList())).forEach(names -> accessPredicates.add(bucketName.in(names)));
+        // granted buckets whose objects are partially accessible
+        accessFilters.forEach((name, accessFilter) -> {
+            if (!accessFilter.isAllAccessible() && !accessFilter.isNoneAccessible()) {
+                accessPredicates.add(cb.and(cb.equal(bucketName, name),
+                                            buildObjectNamePredicate(cb, objectName, accessFilter)));
+            }
+        });
+
+        if (accessPredicates.isEmpty()) {
+            return cb.disjunction();
+        }
+        return cb.or(accessPredicates.toArray(new Predicate[0]));
+    }
+
+    private Predicate buildObjectNamePredicate(CriteriaBuilder cb, Path<String> objectName,
+            CatalogObjectAccessFilter accessFilter) {
+        Predicate[] predicates = partition(accessFilter.getObjectNames()).stream().map(names -> {
+            Predicate inObjectNames = objectName.in(names);
+            return accessFilter.isRestrictedToObjectNames() ? inObjectNames : cb.not(inObjectNames);
+        }).toArray(Predicate[]::new);
+        return accessFilter.isRestrictedToObjectNames() ? cb.or(predicates) : cb.and(predicates);
+    }
+
+    private static List<List<String>> partition(Collection<String> names) {
+        return Lists.partition(new ArrayList<>(names), CatalogObjectService.ORACLEDB_MAX_IN_PARAMS);
+    }
+}
@@ -32,7 +32,6 @@ import static org.springframework.web.bind.annotation.RequestMethod.*;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import org.ow2.proactive.catalog.dto.BucketGrantMetadata;
 import org.ow2.proactive.catalog.dto.BucketMetadata;
@@ -42,6 +41,7 @@ import org.ow2.proactive.catalog.service.exception.AccessDeniedException;
 import org.ow2.proactive.catalog.service.exception.BucketAlreadyExistingException;
 import org.ow2.proactive.catalog.service.exception.BucketGrantAccessException;
 import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
+import org.ow2.proactive.catalog.service.model.UserRightsTable;
 import org.ow2.proactive.catalog.util.AccessTypeHelper;
 import org.ow2.proactive.catalog.util.GrantHelper;
 import org.ow2.proactive.catalog.util.name.validator.BucketNameValidator;
@@ -52,8 +52,6 @@ import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
-import com.google.common.base.Strings;
-
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -217,6 +215,7 @@ public class BucketController {
         projectName = projectName.filter(s -> !s.isEmpty());
         lastCommitBy = lastCommitBy.filter(s -> !s.isEmpty());
         committedAtLeastOnceBy = committedAtLeastOnceBy.filter(s -> !s.isEmpty());
+        Optional<String> bucketNameFilter = bucketName.filter(s -> !s.isEmpty());
         boolean allBucketsEnabled = Boolean.parseBoolean(allBuckets);
         if (sessionIdRequired) {
             AuthenticatedUser user = restApiAccessService.checkAccessBySessionIdForOwnerOrGroupOrTenantAndThrowIfDeclined(sessionId,
@@ -238,26 +237,24 @@ public class BucketController {
                                                           lastCommitTimeLessThan,
                                                           sessionId,
                                                           allBucketsEnabled,
-                                                          user);
-            listBucket.addAll(grantRightsService.getBucketsByPrioritizedGrants(user));
+                                                          user,
+                                                          bucketNameFilter);
+            listBucket.addAll(grantRightsService.getBucketsByPrioritizedGrants(user, bucketNameFilter));
             listBucket = GrantHelper.removeDuplicate(listBucket);
 
-            List<BucketGrantMetadata> allBucketsGrants = bucketGrantService.getUserAllBucketsGrants(user);
-            List<CatalogObjectGrantMetadata> allCatalogObjectsGrants = catalogObjectGrantService.getObjectsGrants(user);
+            UserRightsTable userRightsTable = grantRightsService.getUserRightsTable(user);
 
             for (BucketMetadata bucket : listBucket) {
                 if (GrantHelper.isPublicBucket(bucket.getOwner()) || user.isCatalogAdmin()) {
                     bucket.setRights(admin.name());
                 } else {
-                    List<BucketGrantMetadata> bucketGrants = GrantHelper.filterBucketGrants(allBucketsGrants,
-                                                                                            bucket.getName());
+                    List<BucketGrantMetadata> bucketGrants = userRightsTable.getBucketGrants(bucket.getName());
                     grantRightsService.addGrantsForBucketOwner(user, bucket.getName(), bucket.getOwner(), bucketGrants);
 
                     String bucketRights = grantRightsService.getBucketRights(bucketGrants);
                     bucket.setRights(bucketRights);
 
-                    List<CatalogObjectGrantMetadata> objectsInBucketGrants = GrantHelper.filterBucketGrants(allCatalogObjectsGrants,
-                                                                                                            bucket.getName());
+                    List<CatalogObjectGrantMetadata> objectsInBucketGrants = userRightsTable.getCatalogObjectGrants(bucket.getName());
                     int objectCount = grantRightsService.getNumberOfAccessibleObjectsInBucket(bucket,
                                                                                               bucketGrants,
                                                                                               objectsInBucketGrants);
@@ -279,14 +276,8 @@ public class BucketController {
                                                    lastCommitTimeGreater,
                                                    lastCommitTimeLessThan,
                                                    sessionId,
-                                                   allBucketsEnabled);
-        }
-        // Filter by bucket name
-        if (!Strings.isNullOrEmpty(bucketName.orElse(""))) {
-            listBucket = listBucket.stream()
-                                   .filter(bucketMetadata -> bucketNameMatches(bucketMetadata.getName(),
-                                                                               bucketName.orElse("")))
-                                   .collect(Collectors.toList());
+                                                   allBucketsEnabled,
+                                                   bucketNameFilter);
         }
         Collections.sort(listBucket);
         log.debug("bucket list timer : total : " + (System.currentTimeMillis() - startTime) + " ms");
@@ -294,18 +285,6 @@ public class BucketController {
         return listBucket;
     }
 
-    private boolean bucketNameMatches(String bucketName, String bucketNameFilter) {
-        if (bucketNameFilter.isEmpty()) {
-            return true;
-        }
-        if (bucketNameFilter.contains("%")) {
-            String bucketNameFilterUpdated = bucketNameFilter.toLowerCase().replace("%", ".*");
-            return bucketName.toLowerCase().matches(bucketNameFilterUpdated);
-        } else {
-            return bucketName.toLowerCase().contains(bucketNameFilter.toLowerCase());
-        }
-    }
-
     @Operation(summary = "Delete the empty buckets")
     @RequestMapping(method = DELETE)
     @ApiResponses(value = { @ApiResponse(responseCode = "401", description = "User not authenticated"),
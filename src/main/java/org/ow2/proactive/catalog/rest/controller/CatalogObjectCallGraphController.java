@@ -26,7 +26,10 @@
 package org.ow2.proactive.catalog.rest.controller;
 
 import static org.ow2.proactive.catalog.util.ReportHelper.getListOfAuthorizedBuckets;
+import static org.ow2.proactive.catalog.util.ReportHelper.getReportJobOwner;
+import static org.ow2.proactive.catalog.util.ReportHelper.getReportJobParameters;
 import static org.springframework.web.bind.annotation.RequestMethod.GET;
+import static org.springframework.web.bind.annotation.RequestMethod.POST;
 
 import java.io.IOException;
 import java.util.Collections;
@@ -41,7 +44,9 @@ import javax.ws.rs.Produces;
 import org.ow2.proactive.catalog.dto.BucketGrantMetadata;
 import org.ow2.proactive.catalog.dto.BucketMetadata;
 import org.ow2.proactive.catalog.dto.CatalogObjectGrantMetadata;
+import org.ow2.proactive.catalog.dto.ReportJobMetadata;
 import org.ow2.proactive.catalog.service.*;
+import org.ow2.proactive.catalog.service.ReportJobService.ReportJobType;
 import org.ow2.proactive.catalog.service.exception.AccessDeniedException;
 import org.ow2.proactive.catalog.service.exception.BucketGrantAccessException;
 import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
@@ -90,6 +95,9 @@ public class CatalogObjectCallGraphController {
     @Autowired
     private BucketGrantService bucketGrantService;
 
+    @Autowired
+    private ReportJobService reportJobService;
+
     @Value("${pa.catalog.security.required.sessionid}")
     private boolean sessionIdRequired;
 
@@ -142,6 +150,101 @@ public class CatalogObjectCallGraphController {
 
     }
 
+    @Operation(summary = "Submit the generation in the background of a ZIP file containing a call graph report for each catalog objects matching the provided filters")
+    @ApiResponses(value = { @ApiResponse(responseCode = "202", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ReportJobMetadata.class))),
+                            @ApiResponse(responseCode = "401", description = "User not authenticated", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)),
+                            @ApiResponse(responseCode = "403", description = "Permission denied", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)),
+                            @ApiResponse(responseCode = "429", description = "Too many report jobs waiting", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)), })
+    @RequestMapping(value = "/jobs", method = POST, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public ReportJobMetadata submitCallGraphJob(
+            @Parameter(description = "sessionID", required = false) @RequestHeader(value = "sessionID", required = false) String sessionId,
+            @Parameter(description = "The name of the user who owns the Bucket") @RequestParam(value = "owner", required = false) String ownerName,
+            @Parameter(description = "The kind of objects that buckets must contain") @RequestParam(value = "kind", required = false) Optional<String> kind,
+            @Parameter(description = "The Content-Type of objects that buckets must contain") @RequestParam(value = "contentType", required = false) Optional<String> contentType,
+            @Parameter(description = "The project name of objects containing this name") @RequestParam(value = "projectName", required = false) Optional<String> projectName,
+            @Parameter(description = "The object name of objects containing this name") @RequestParam(value = "objectName", required = false) Optional<String> objectName,
+            @Parameter(description = "The bucket name of catalog objects") @RequestParam(value = "bucketName", required = false) Optional<String> bucketName,
+            @Parameter(description = "The tag of catalog objects") @RequestParam(value = "tag", required = false) Optional<String> tag,
+            @Parameter(description = "The user who last committed the catalog object") @RequestParam(value = "lastCommitBy", required = false) Optional<String> lastCommitBy,
+            @Parameter(description = "The user committed at least once in the catalog object") @RequestParam(value = "committedAtLeastOnceBy", required = false) Optional<String> committedAtLeastOnceBy,
+            @Parameter(description = "The maximum time the object was last committed") @RequestParam(value = "lastCommitTimeLessThan", required = false) Optional<Long> lastCommitTimeLessThan,
+            @Parameter(description = "The minimum time the object was last committed") @RequestParam(value = "lastCommitTimeGreater", required = false) Optional<Long> lastCommitTimeGreaterThan)
+            throws NotAuthenticatedException, AccessDeniedException {
+
+        List<String> authorisedBucketsNames = getListOfAuthorizedBuckets(bucketGrantService,
+                                                                         bucketService,
+                                                                         catalogObjectGrantService,
+                                                                         grantRightsService,
+                                                                         restApiAccessService,
+                                                                         sessionIdRequired,
+                                                                         sessionId,
+                                                                         ownerName,
+                                                                         kind,
+                                                                         contentType);
+        bucketName.ifPresent(bucketNameFilter -> authorisedBucketsNames.removeIf(bName -> !bName.contains(bucketNameFilter)));
+
+        List<Object> parameters = getReportJobParameters(authorisedBucketsNames,
+                                                         kind,
+                                                         contentType,
+                                                         objectName,
+                                                         tag,
+                                                         projectName,
+                                                         lastCommitBy,
+                                                         committedAtLeastOnceBy,
+                                                         lastCommitTimeGreaterThan,
+                                                         lastCommitTimeLessThan);
+
+        return reportJobService.submitJob(ReportJobType.CALL_GRAPH,
+                                          getReportJobOwner(restApiAccessService, sessionIdRequired, sessionId),
+                                          parameters,
+                                          () -> catalogObjectCallGraphService.generateBytesCallGraphForAllBucketsAsZip(authorisedBucketsNames,
+                                                                                                                       kind,
+                                                                                                                       contentType,
+                                                                                                                       objectName,
+                                                                                                                       tag,
+                                                                                                                       projectName,
+                                                                                                                       lastCommitBy,
+                                                                                                                       committedAtLeastOnceBy,
+                                                                                                                       lastCommitTimeGreaterThan,
+                                                                                                                       lastCommitTimeLessThan));
+    }
+
+    @Operation(summary = "Get the status of a call graph job")
+    @ApiResponses(value = { @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ReportJobMetadata.class))),
+                            @ApiResponse(responseCode = "404", description = "Call graph job not found", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)),
+                            @ApiResponse(responseCode = "401", description = "User not authenticated", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)),
+                            @ApiResponse(responseCode = "403", description = "Permission denied", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)) })
+    @RequestMapping(value = "/jobs/{jobId}", method = GET, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public ReportJobMetadata getCallGraphJob(
+            @Parameter(description = "sessionID", required = false) @RequestHeader(value = "sessionID", required = false) String sessionId,
+            @PathVariable String jobId) throws NotAuthenticatedException, AccessDeniedException {
+        return reportJobService.getJob(ReportJobType.CALL_GRAPH,
+                                       getReportJobOwner(restApiAccessService, sessionIdRequired, sessionId),
+                                       jobId);
+    }
+
+    @Operation(summary = "Download the ZIP file generated by a finished call graph job")
+    @ApiResponses(value = { @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_OCTET_STREAM_VALUE, schema = @Schema(type = "string", format = "byte"))),
+                            @ApiResponse(responseCode = "404", description = "Call graph job not found", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)),
+                            @ApiResponse(responseCode = "409", description = "Call graph job not finished", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)),
+                            @ApiResponse(responseCode = "401", description = "User not authenticated", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)),
+                            @ApiResponse(responseCode = "403", description = "Permission denied", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)) })
+    @RequestMapping(value = "/jobs/{jobId}/content", method = GET)
+    @ResponseStatus(HttpStatus.OK)
+    @Produces({ MediaType.APPLICATION_OCTET_STREAM_VALUE })
+    public void getCallGraphJobContent(HttpServletResponse response,
+            @Parameter(description = "sessionID", required = false) @RequestHeader(value = "sessionID", required = false) String sessionId,
+            @PathVariable String jobId) throws NotAuthenticatedException, AccessDeniedException, IOException {
+        byte[] content = reportJobService.getJobContent(ReportJobType.CALL_GRAPH,
+                                                        getReportJobOwner(restApiAccessService,
+                                                                          sessionIdRequired,
+                                                                          sessionId),
+                                                        jobId);
+        ReportHelper.flushZipResponse(response, content, "call-graph.zip");
+    }
+
     @Operation(summary = "Get the call graph of selected catalog objects in a bucket")
     @ApiResponses(value = { @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_PDF_VALUE, schema = @Schema(type = "string", format = "byte"))),
                             @ApiResponse(responseCode = "404", description = "Bucket not found", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)),
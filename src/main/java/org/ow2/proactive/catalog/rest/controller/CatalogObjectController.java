@@ -25,13 +25,13 @@
  */
 package org.ow2.proactive.catalog.rest.controller;
 
-import static org.ow2.proactive.catalog.dto.AssociationStatus.ALL;
 import static org.ow2.proactive.catalog.dto.AssociationStatus.UNPLANNED;
 import static org.ow2.proactive.catalog.service.model.AuthenticatedUser.ANONYMOUS;
 import static org.ow2.proactive.catalog.util.AccessType.*;
 import static org.springframework.web.bind.annotation.RequestMethod.*;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.util.*;
@@ -50,9 +50,12 @@ import org.ow2.proactive.catalog.service.exception.AccessDeniedException;
 import org.ow2.proactive.catalog.service.exception.BucketGrantAccessException;
 import org.ow2.proactive.catalog.service.exception.CatalogObjectGrantAccessException;
 import org.ow2.proactive.catalog.service.exception.CatalogObjectNotFoundException;
+import org.ow2.proactive.catalog.service.exception.WrongParametersException;
 import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
+import org.ow2.proactive.catalog.service.model.CatalogObjectAccessFilter;
+import org.ow2.proactive.catalog.service.model.JobPlannerAssociations;
+import org.ow2.proactive.catalog.service.model.UserRightsTable;
 import org.ow2.proactive.catalog.util.*;
-import org.ow2.proactive.catalog.util.ArchiveManagerHelper.ZipArchiveContent;
 import org.ow2.proactive.catalog.util.name.validator.BucketNameValidator;
 import org.ow2.proactive.catalog.util.name.validator.KindAndContentTypeValidator;
 import org.ow2.proactive.catalog.util.name.validator.ObjectNameValidator;
@@ -65,6 +68,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -122,6 +126,10 @@ public class CatalogObjectController {
 
     private static final long MAXVALUE = Integer.MAX_VALUE;
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final int DEFAULT_CURSOR_PAGE_SIZE = 100;
+
     @Value("${pa.catalog.security.required.sessionid}")
     private boolean sessionIdRequired;
 
@@ -391,6 +399,7 @@ public class CatalogObjectController {
 
     @Operation(summary = "Gets the raw content of the last revision of a catalog object")
     @ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Ok"),
+                            @ApiResponse(responseCode = "304", description = "Not modified since the revision identified by the If-None-Match or If-Modified-Since header"),
                             @ApiResponse(responseCode = "401", description = "User not authenticated"),
                             @ApiResponse(responseCode = "403", description = "Permission denied"),
                             @ApiResponse(responseCode = "404", description = "Bucket, catalog object or catalog object revision not found") })
@@ -399,11 +408,17 @@ public class CatalogObjectController {
     public ResponseEntity<String> getRaw(
             @Parameter(description = "sessionID", required = false) @RequestHeader(value = "sessionID", required = false) String sessionId,
             @Parameter(description = "The name of the existing Bucket", required = true, schema = @Schema(pattern = BucketNameValidator.VALID_BUCKET_NAME_PATTERN)) @PathVariable String bucketName,
-            @Parameter(description = "The name of the existing Object", required = true, schema = @Schema(pattern = ObjectNameValidator.VALID_OBJECT_NAME_PATTERN)) @PathVariable String name)
-            throws UnsupportedEncodingException, NotAuthenticatedException, AccessDeniedException {
+            @Parameter(description = "The name of the existing Object", required = true, schema = @Schema(pattern = ObjectNameValidator.VALID_OBJECT_NAME_PATTERN)) @PathVariable String name,
+            WebRequest webRequest) throws UnsupportedEncodingException, NotAuthenticatedException, AccessDeniedException {
 
         checkUserAccess(sessionId, bucketName, name, read);
 
+        // the raw object is loaded only if the client copy is outdated
+        CatalogObjectMetadata metadata = catalogObjectService.getCatalogObjectMetadata(bucketName, name);
+        if (rawObjectResponseCreator.isNotModified(webRequest, metadata)) {
+            return rawObjectResponseCreator.createNotModifiedResponse(metadata, false);
+        }
+
         CatalogRawObject rawObject = catalogObjectService.getCatalogRawObject(bucketName, name);
         return rawObjectResponseCreator.createRawObjectResponse(rawObject);
 
@@ -430,6 +445,7 @@ public class CatalogObjectController {
     @Operation(summary = "Lists catalog objects metadata", description = "Note: Returns catalog objects metadata associated to the latest revision.")
     @ApiResponses(value = { @ApiResponse(responseCode = "404", description = "Bucket not found"),
                             @ApiResponse(responseCode = "206", description = "Missing object"),
+                            @ApiResponse(responseCode = "400", description = "Invalid cursor or page size"),
                             @ApiResponse(responseCode = "401", description = "User not authenticated") })
     @RequestMapping(value = REQUEST_API_QUERY, method = GET)
     public ResponseEntity<List<CatalogObjectMetadata>> list(
@@ -450,6 +466,10 @@ public class CatalogObjectController {
             @Parameter(description = "Page number", required = false) @RequestParam(defaultValue = "0", value = "pageNo") int pageNo,
             @Parameter(description = "Page size", required = false) @RequestParam(defaultValue = MAXVALUE +
                                                                                                  "", value = "pageSize") int pageSize,
+            @Parameter(description = "Cursor returned in the " + NEXT_CURSOR_HEADER +
+                                     " header of the previous page.<br/>If present, objects are ordered by last commit time and the page number is ignored, an empty cursor returns the first page.<br/>Page size defaults to " +
+                                     DEFAULT_CURSOR_PAGE_SIZE +
+                                     " in this mode.") @RequestParam(value = "cursor", required = false) Optional<String> cursor,
             HttpServletResponse response)
             throws UnsupportedEncodingException, NotAuthenticatedException, AccessDeniedException {
 
@@ -471,8 +491,39 @@ public class CatalogObjectController {
         lastCommitBy = lastCommitBy.filter(s -> !s.isEmpty());
         committedAtLeastOnceBy = committedAtLeastOnceBy.filter(s -> !s.isEmpty());
         if (names.isPresent()) {
-            ZipArchiveContent content = catalogObjectService.getCatalogObjectsAsZipArchive(bucketName, names.get());
-            return getResponseAsArchive(content, response, bucketName);
+            return getResponseAsArchive(bucketName, names.get(), true, response);
+        } else if (cursor.isPresent()) {
+            int cursorPageSize = pageSize == MAXVALUE ? DEFAULT_CURSOR_PAGE_SIZE : pageSize;
+            if (cursorPageSize <= 0) {
+                throw new WrongParametersException("pageSize must be positive when a cursor is given, got " +
+                                                   pageSize);
+            }
+            List<CatalogObjectMetadata> metadataList = catalogObjectService.listCatalogObjectsAfterCursor(Collections.singletonList(bucketName),
+                                                                                                          kind,
+                                                                                                          contentType,
+                                                                                                          objectNameFilter,
+                                                                                                          objectTagFilter,
+                                                                                                          projectNameFilter,
+                                                                                                          lastCommitBy,
+                                                                                                          committedAtLeastOnceBy,
+                                                                                                          lastCommitTimeGreater,
+                                                                                                          lastCommitTimeLessThan,
+                                                                                                          getObjectAccessFilter(userGrants),
+                                                                                                          decodeCursor(cursor.get()),
+                                                                                                          cursorPageSize);
+            // the next cursor is taken before the objects are filtered by association status, so that they are not listed again
+            Optional<String> nextCursor = metadataList.size() < cursorPageSize ? Optional.empty()
+                                                                               : Optional.of(CatalogObjectCursor.of(metadataList.get(metadataList.size() -
+                                                                                                                                     1))
+                                                                                                                .encode());
+            metadataList = completeListedObjects(sessionId,
+                                                 bucketName,
+                                                 userGrants,
+                                                 associationStatusFilter,
+                                                 metadataList);
+            ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.ok();
+            nextCursor.ifPresent(value -> responseBuilder.header(NEXT_CURSOR_HEADER, value));
+            return responseBuilder.body(metadataList);
         } else {
             List<CatalogObjectMetadata> metadataList = catalogObjectService.listCatalogObjects(Collections.singletonList(bucketName),
                                                                                                kind,
@@ -484,64 +535,97 @@ public class CatalogObjectController {
                                                                                                committedAtLeastOnceBy,
                                                                                                lastCommitTimeGreater,
                                                                                                lastCommitTimeLessThan,
+                                                                                               getObjectAccessFilter(userGrants),
                                                                                                pageNo,
                                                                                                pageSize);
+            metadataList = completeListedObjects(sessionId,
+                                                 bucketName,
+                                                 userGrants,
+                                                 associationStatusFilter,
+                                                 metadataList);
+            Collections.sort(metadataList);
+            return ResponseEntity.ok(metadataList);
+        }
+    }
 
-            if (sessionIdRequired && !userGrants.isPublicBucket() && !userGrants.isCatalogAdmin()) {
-                // remove all objects that the user shouldn't have access according to the grants specification.
-                GrantRightsService.removeInaccessibleObjectsInBucket(metadataList,
-                                                                     userGrants.getBucketGrants(),
-                                                                     userGrants.getCatalogObjectsGrants());
-            }
+    private Optional<CatalogObjectCursor> decodeCursor(String cursor) {
+        if (cursor.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(CatalogObjectCursor.decode(cursor));
+        } catch (IllegalArgumentException e) {
+            throw new WrongParametersException("invalid cursor " + cursor);
+        }
+    }
 
-            Optional<String> userSpecificBucketRights = GrantHelper.filterFirstUserSpecificGrant(userGrants.getBucketGrants())
-                                                                   .map(BucketGrantMetadata::getAccessType);
-            for (CatalogObjectMetadata catalogObject : metadataList) {
-                catalogObject.add(LinkUtil.createLink(bucketName, catalogObject.getName()));
-                catalogObject.add(LinkUtil.createRelativeLink(bucketName, catalogObject.getName()));
-                if (sessionIdRequired) {
-                    List<CatalogObjectGrantMetadata> objectsGrants = GrantHelper.filterObjectGrants(userGrants.getCatalogObjectsGrants(),
-                                                                                                    catalogObject.getName());
-                    catalogObject.setRights(GrantRightsService.getCatalogObjectRights(userGrants.isPublicBucket() ||
-                                                                                      userGrants.isCatalogAdmin(),
-                                                                                      userGrants.getBucketRights(),
-                                                                                      userSpecificBucketRights,
-                                                                                      objectsGrants));
-                }
-            }
-            Optional<AssociatedObjectsByBucket> associatedObjectsByBucketOptional = Optional.empty();
+    /**
+     * The objects the user shouldn't have access to according to the grants specification, expressed as a filter
+     * applied by the listing query
+     */
+    private CatalogObjectAccessFilter getObjectAccessFilter(UserBucketGrants userGrants) {
+        if (sessionIdRequired && !userGrants.isPublicBucket() && !userGrants.isCatalogAdmin()) {
+            return GrantRightsService.getObjectAccessFilterInBucket(userGrants.getBucketGrants(),
+                                                                    userGrants.getCatalogObjectsGrants());
+        }
+        return CatalogObjectAccessFilter.ALL;
+    }
+
+    /**
+     * Removes the listed objects which do not match the association status filter, and adds links, rights and
+     * association status to the remaining ones
+     */
+    private List<CatalogObjectMetadata> completeListedObjects(String sessionId, String bucketName,
+            UserBucketGrants userGrants, Optional<String> associationStatusFilter,
+            List<CatalogObjectMetadata> metadataList) {
+        Optional<String> userSpecificBucketRights = GrantHelper.filterFirstUserSpecificGrant(userGrants.getBucketGrants())
+                                                               .map(BucketGrantMetadata::getAccessType);
+        // the grants are indexed once by object name instead of being scanned for each listed object
+        Map<String, List<CatalogObjectGrantMetadata>> objectsGrantsByName = sessionIdRequired ? userGrants.getCatalogObjectsGrants()
+                                                                                                          .stream()
+                                                                                                          .collect(Collectors.groupingBy(CatalogObjectGrantMetadata::getCatalogObjectName))
+                                                                              : Collections.emptyMap();
+        for (CatalogObjectMetadata catalogObject : metadataList) {
+            catalogObject.add(LinkUtil.createLink(bucketName, catalogObject.getName()));
+            catalogObject.add(LinkUtil.createRelativeLink(bucketName, catalogObject.getName()));
             if (sessionIdRequired) {
-                List<AssociatedObjectsByBucket> associatedObjectsByBucketList = jobPlannerService.getAssociatedObjects(sessionId);
-                associatedObjectsByBucketOptional = associatedObjectsByBucketList.stream()
-                                                                                 .filter(object -> bucketName.equals(object.getBucketName()))
-                                                                                 .findFirst();
-                if (associatedObjectsByBucketOptional.isPresent()) {
-                    AssociatedObjectsByBucket associatedObjects = associatedObjectsByBucketOptional.get();
-                    for (CatalogObjectMetadata catalogObject : metadataList) {
-                        AssociatedObject associatedObject = associatedObjects.findAssociatedObject(catalogObject.getName());
-                        addAssociationStatus(catalogObject, associatedObject);
-                    }
+                List<CatalogObjectGrantMetadata> objectsGrants = objectsGrantsByName.getOrDefault(catalogObject.getName(),
+                                                                                                  Collections.emptyList());
+                catalogObject.setRights(GrantRightsService.getCatalogObjectRights(userGrants.isPublicBucket() ||
+                                                                                  userGrants.isCatalogAdmin(),
+                                                                                  userGrants.getBucketRights(),
+                                                                                  userSpecificBucketRights,
+                                                                                  objectsGrants));
+            }
+        }
+        // associations are indexed by bucket and object name, each object is matched in constant time
+        JobPlannerAssociations associations = sessionIdRequired ? jobPlannerService.getAssociations(sessionId) : null;
+        if (sessionIdRequired) {
+            if (associations.containsBucket(bucketName)) {
+                for (CatalogObjectMetadata catalogObject : metadataList) {
+                    AssociatedObject associatedObject = associations.findAssociatedObjectIgnoreCase(bucketName,
+                                                                                                    catalogObject.getName())
+                                                                    .orElse(new AssociatedObject(catalogObject.getName(),
+                                                                                                 new HashSet<>()));
+                    addAssociationStatus(catalogObject, associatedObject);
                 }
             }
-            if (sessionIdRequired && associationStatusFilter.isPresent()) {
-                if (!associatedObjectsByBucketOptional.isPresent()) {
-                    if (!UNPLANNED.equalsIgnoreCase(associationStatusFilter.get())) {
-                        return ResponseEntity.ok(Collections.emptyList());
-                    }
-                    // if UNPLANNED and no objects are associated, we return the full list
-                } else {
-                    AssociatedObjectsByBucket associatedObjectsByBucket = associatedObjectsByBucketOptional.get();
-
-                    metadataList = metadataList.stream()
-                                               .filter(metadata -> isAssociatedInJobPlanner(metadata,
-                                                                                            associationStatusFilter.get(),
-                                                                                            associatedObjectsByBucket))
-                                               .collect(Collectors.toList());
+        }
+        if (sessionIdRequired && associationStatusFilter.isPresent()) {
+            if (!associations.containsBucket(bucketName)) {
+                if (!UNPLANNED.equalsIgnoreCase(associationStatusFilter.get())) {
+                    return new ArrayList<>();
                 }
+                // if UNPLANNED and no objects are associated, we return the full list
+            } else {
+                metadataList = metadataList.stream()
+                                           .filter(metadata -> JobPlannerAssociations.matchesAssociationStatus(associations.findAssociatedObject(bucketName,
+                                                                                                                                                 metadata.getName()),
+                                                                                                               associationStatusFilter.get()))
+                                           .collect(Collectors.toList());
             }
-            Collections.sort(metadataList);
-            return ResponseEntity.ok(metadataList);
         }
+        return metadataList;
     }
 
     @Operation(summary = "Export catalog objects as a plain zip archive or a ProActive Catalog Package", description = "Can either export catalog objects as a plain zip or as a ProActive Package containing the exported files along with a METADATA json file describing the exported objects. <br/> Note: Returns catalog objects metadata associated to the latest revision.")
@@ -560,7 +644,6 @@ public class CatalogObjectController {
 
         UserBucketGrants userGrants = checkAndGetUserGrantsForBucket(sessionId, bucketName);
 
-        ZipArchiveContent content;
         List<CatalogObjectMetadata> metadataList = catalogObjectService.listCatalogObjects(Collections.singletonList(bucketName),
                                                                                            Optional.empty(),
                                                                                            Optional.empty(),
@@ -571,14 +654,9 @@ public class CatalogObjectController {
                                                                                            Optional.empty(),
                                                                                            Optional.empty(),
                                                                                            Optional.empty(),
+                                                                                           getObjectAccessFilter(userGrants),
                                                                                            0,
                                                                                            Integer.MAX_VALUE);
-        if (sessionIdRequired && !userGrants.isPublicBucket() && !userGrants.isCatalogAdmin()) {
-            // remove all objects that the user shouldn't have access according to the grants specification.
-            GrantRightsService.removeInaccessibleObjectsInBucket(metadataList,
-                                                                 userGrants.getBucketGrants(),
-                                                                 userGrants.getCatalogObjectsGrants());
-        }
         if (names.isPresent() && !names.get().isEmpty()) {
             List<String> accessibleObjectNames = names.get();
             accessibleObjectNames = accessibleObjectNames.stream()
@@ -591,23 +669,14 @@ public class CatalogObjectController {
                                                          " not found or read-protected in bucket " + bucketName);
             }
 
-            if (isPlainZip) {
-                content = catalogObjectService.getCatalogObjectsAsZipArchive(bucketName, accessibleObjectNames);
-            } else {
-                content = catalogObjectService.getCatalogObjectsAsPackageZipArchive(bucketName, accessibleObjectNames);
-            }
+            return getResponseAsArchive(bucketName, accessibleObjectNames, isPlainZip, response);
         } else {
 
             List<String> objectNames = metadataList.stream()
                                                    .map(CatalogObjectMetadata::getName)
                                                    .collect(Collectors.toList());
-            if (isPlainZip) {
-                content = catalogObjectService.getCatalogObjectsAsZipArchive(bucketName, objectNames);
-            } else {
-                content = catalogObjectService.getCatalogObjectsAsPackageZipArchive(bucketName, objectNames);
-            }
+            return getResponseAsArchive(bucketName, objectNames, isPlainZip, response);
         }
-        return getResponseAsArchive(content, response, bucketName);
     }
 
     @Operation(summary = "Import an archive, either a plain zip or a ProActive Catalog package", description = "Can either import objects from a plain zip archive, in which case the objects kind, project name and tags must be specified. Alternatively, a ProActive Catalog package can be imported, the various information will be obtained from the METADATA json file present in the package.")
@@ -696,9 +765,10 @@ public class CatalogObjectController {
             if (isPublicBucket || user.isCatalogAdmin()) {
                 bucketRights = admin.name();
             } else {
-                userBucketGrants = bucketGrantService.getUserBucketGrants(user, bucketName);
+                UserRightsTable userRightsTable = grantRightsService.getUserRightsTable(user);
+                userBucketGrants = userRightsTable.getBucketGrants(bucketName);
                 GrantRightsService.addGrantsForBucketOwner(user, bucket.getName(), bucket.getOwner(), userBucketGrants);
-                userCatalogGrants = catalogObjectGrantService.getObjectsGrantsInABucket(user, bucketName);
+                userCatalogGrants = userRightsTable.getCatalogObjectGrants(bucketName);
                 bucketRights = GrantRightsService.getBucketRights(userBucketGrants);
             }
 
@@ -726,33 +796,6 @@ public class CatalogObjectController {
                                        JOB_PLANNER_LABEL));
     }
 
-    private boolean isAssociatedInJobPlanner(CatalogObjectMetadata objectMetadata, String expectedStatus,
-            AssociatedObjectsByBucket associatedObjectsByBucket) {
-        switch (expectedStatus) {
-            case ALL:
-                return associatedObjectsByBucket.getObjects()
-                                                .stream()
-                                                .anyMatch(associatedObject -> associatedObject.getObjectName()
-                                                                                              .equals(objectMetadata.getName()) &&
-                                                                              !associatedObject.getStatuses()
-                                                                                               .isEmpty());
-            case UNPLANNED:
-                // object must not have a job-planner association
-                return associatedObjectsByBucket.getObjects()
-                                                .stream()
-                                                .noneMatch(associatedObject -> associatedObject.getObjectName()
-                                                                                               .equals(objectMetadata.getName()));
-            default:
-                AssociationStatus associationStatus = AssociationStatus.convert(expectedStatus);
-                return associatedObjectsByBucket.getObjects()
-                                                .stream()
-                                                .anyMatch(associatedObject -> associatedObject.getObjectName()
-                                                                                              .equals(objectMetadata.getName()) &&
-                                                                              associatedObject.getStatuses()
-                                                                                              .contains(associationStatus));
-        }
-    }
-
     @Operation(summary = "Delete a catalog object", description = "Note: delete the entire catalog object as well as its revisions. Returns the deleted CatalogObject's metadata.")
     @ApiResponses(value = { @ApiResponse(responseCode = "404", description = "Bucket or object not found"),
                             @ApiResponse(responseCode = "401", description = "User not authenticated"),
@@ -784,10 +827,14 @@ public class CatalogObjectController {
         return catalogObjectMetadata;
     }
 
-    private ResponseEntity<List<CatalogObjectMetadata>> getResponseAsArchive(ZipArchiveContent zipArchiveContent,
-            HttpServletResponse response, String archiveName) {
+    /**
+     * Writes the archive of the given catalog objects directly to the response, the status being set beforehand
+     * according to the existence of all the requested objects
+     */
+    private ResponseEntity<List<CatalogObjectMetadata>> getResponseAsArchive(String bucketName,
+            List<String> catalogObjectsNames, boolean isPlainZip, HttpServletResponse response) {
         HttpStatus status;
-        if (zipArchiveContent.isPartial()) {
+        if (catalogObjectService.isAnyCatalogObjectMissing(bucketName, catalogObjectsNames)) {
             status = HttpStatus.PARTIAL_CONTENT;
             response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
         } else {
@@ -797,12 +844,19 @@ public class CatalogObjectController {
 
         response.setContentType(ZIP_CONTENT_TYPE);
         response.addHeader(HttpHeaders.CONTENT_DISPOSITION,
-                           "attachment; filename=\"" + (Strings.isBlank(archiveName) ? "archive" : archiveName) +
+                           "attachment; filename=\"" + (Strings.isBlank(bucketName) ? "archive" : bucketName) +
                                                             ".zip\"");
         response.addHeader(HttpHeaders.CONTENT_ENCODING, "binary");
         try {
-            response.getOutputStream().write(zipArchiveContent.getContent());
-            response.getOutputStream().flush();
+            OutputStream outputStream = response.getOutputStream();
+            if (isPlainZip) {
+                catalogObjectService.writeCatalogObjectsAsZipArchive(bucketName, catalogObjectsNames, outputStream);
+            } else {
+                catalogObjectService.writeCatalogObjectsAsPackageZipArchive(bucketName,
+                                                                            catalogObjectsNames,
+                                                                            outputStream);
+            }
+            outputStream.flush();
         } catch (IOException ioe) {
             throw new RuntimeException(ioe);
         }
@@ -54,6 +54,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -185,6 +186,7 @@ public class CatalogObjectRevisionController {
 
     @Operation(summary = "Gets the raw content of a specific revision")
     @ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Ok"),
+                            @ApiResponse(responseCode = "304", description = "Not modified, the raw content of a revision never changes"),
                             @ApiResponse(responseCode = "401", description = "User not authenticated"),
                             @ApiResponse(responseCode = "403", description = "Permission denied"),
                             @ApiResponse(responseCode = "404", description = "Bucket, catalog object or catalog object revision not found") })
@@ -194,7 +196,7 @@ public class CatalogObjectRevisionController {
             @Parameter(description = "sessionID", required = false) @RequestHeader(value = "sessionID", required = false) String sessionId,
             @Parameter(description = "The name of the existing Bucket", required = true, schema = @Schema(pattern = BucketNameValidator.VALID_BUCKET_NAME_PATTERN)) @PathVariable String bucketName,
             @Parameter(description = "The name of the existing Object", required = true, schema = @Schema(pattern = ObjectNameValidator.VALID_OBJECT_NAME_PATTERN)) @PathVariable String name,
-            @PathVariable long commitTimeRaw)
+            @PathVariable long commitTimeRaw, WebRequest webRequest)
             throws UnsupportedEncodingException, NotAuthenticatedException, AccessDeniedException {
         if (sessionIdRequired) {
             // Check session validation
@@ -209,11 +211,17 @@ public class CatalogObjectRevisionController {
             }
         }
 
+        // the raw object is loaded only if the client does not have it yet
+        CatalogObjectMetadata metadata = catalogObjectService.getCatalogObjectRevision(bucketName, name, commitTimeRaw);
+        if (rawObjectResponseCreator.isNotModified(webRequest, metadata)) {
+            return rawObjectResponseCreator.createNotModifiedResponse(metadata, true);
+        }
+
         CatalogRawObject objectRevisionRaw = catalogObjectService.getCatalogObjectRevisionRaw(bucketName,
                                                                                               name,
                                                                                               commitTimeRaw);
 
-        return rawObjectResponseCreator.createRawObjectResponse(objectRevisionRaw);
+        return rawObjectResponseCreator.createRawObjectResponse(objectRevisionRaw, true);
     }
 
     @Operation(summary = "Lists a catalog object revisions")
@@ -0,0 +1,241 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.extern.log4j.Log4j2;
+
+
+/**
+ * In-memory index of the catalog objects, keyed by bucket/name.
+ *
+ * The index is built from the database at startup, then updated incrementally once the transactions changing the
+ * catalog objects are committed. Updates are applied under the write lock of the index, reads under its read lock.
+ * Until the index is built, its readers get nothing and read the database instead. When the build fails, it is
+ * retried in the background until it succeeds, and every failed attempt is logged.
+ *
+ * @param <V> what the index keeps for every catalog object
+ * @author ActiveEon Team
+ */
+@Log4j2
+public abstract class AbstractCatalogObjectIndex<V> {
+
+    private final String indexName;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean built = false;
+
+    // number of updates applied to the index, guarded by the lock
+    private long updates = 0;
+
+    @Value("${pa.catalog.index.rebuild.retry.delay.seconds:60}")
+    long rebuildRetryDelayInSeconds = 60;
+
+    // retries the build after a failed attempt, guarded by this
+    private ScheduledExecutorService rebuildRetryExecutor;
+
+    private boolean shutdown = false;
+
+    /**
+     * @param indexName name of the index, used in the logs
+     */
+    protected AbstractCatalogObjectIndex(String indexName) {
+        this.indexName = indexName;
+    }
+
+    /**
+     * Build the index from the database. When the build fails, the index stays unavailable and the build is retried
+     * in the background.
+     */
+    @PostConstruct
+    public void rebuild() {
+        if (!tryRebuild()) {
+            scheduleRebuildRetry();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        shutdown = true;
+        if (rebuildRetryExecutor != null) {
+            rebuildRetryExecutor.shutdownNow();
+            rebuildRetryExecutor = null;
+        }
+    }
+
+    private boolean tryRebuild() {
+        long updatesBeforeLoad;
+        lock.readLock().lock();
+        try {
+            updatesBeforeLoad = updates;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<String, V> loaded;
+        try {
+            loaded = load();
+        } catch (RuntimeException e) {
+            log.warn("Could not build the " + indexName + ", it is read from the database until the next attempt in " +
+                     rebuildRetryDelayInSeconds + " seconds", e);
+            return false;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (updates != updatesBeforeLoad) {
+                // an update committed during the load may be missing from the loaded content
+                log.warn("Could not build the {}, catalog objects changed during the build, next attempt in {} seconds",
+                         indexName,
+                         rebuildRetryDelayInSeconds);
+                return false;
+            }
+            replaceAll(loaded);
+            built = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Built the {} for {} catalog objects", indexName, loaded.size());
+        return true;
+    }
+
+    private synchronized void scheduleRebuildRetry() {
+        if (shutdown) {
+            return;
+        }
+        if (rebuildRetryExecutor == null) {
+            String threadName = indexName.replace(' ', '-') + "-rebuild";
+            rebuildRetryExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat(threadName)
+                                                                                                        .setDaemon(true)
+                                                                                                        .build());
+        }
+        rebuildRetryExecutor.schedule(this::retryRebuild, rebuildRetryDelayInSeconds, TimeUnit.SECONDS);
+    }
+
+    private void retryRebuild() {
+        if (!tryRebuild()) {
+            scheduleRebuildRetry();
+            return;
+        }
+        synchronized (this) {
+            if (rebuildRetryExecutor != null) {
+                rebuildRetryExecutor.shutdown();
+                rebuildRetryExecutor = null;
+            }
+        }
+    }
+
+    /**
+     * @return what the index keeps for every catalog object stored in the database, keyed by bucket/name
+     */
+    protected abstract Map<String, V> load();
+
+    /**
+     * Replace the content of the index, called under the write lock
+     *
+     * @param loaded what the index keeps for every catalog object, keyed by bucket/name
+     */
+    protected abstract void replaceAll(Map<String, V> loaded);
+
+    /**
+     * @return true when the index is built and serves its readers
+     */
+    public boolean isBuilt() {
+        return built;
+    }
+
+    /**
+     * @return the number of updates applied to the index, which grows every time a transaction changing the catalog
+     *         objects is committed
+     */
+    public long getNumberOfUpdates() {
+        lock.readLock().lock();
+        try {
+            return updates;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return what the reader returns, read under the read lock, or empty when the index is not built or the reader
+     *         returns null
+     */
+    protected <T> Optional<T> readIfBuilt(Supplier<T> reader) {
+        if (!built) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(reader.get());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Apply an update under the write lock, once the current transaction (if any) is committed
+     */
+    protected void afterCommit(Runnable update) {
+        Runnable lockedUpdate = () -> {
+            lock.writeLock().lock();
+            try {
+                update.run();
+                updates++;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    lockedUpdate.run();
+                }
+            });
+        } else {
+            lockedUpdate.run();
+        }
+    }
+}
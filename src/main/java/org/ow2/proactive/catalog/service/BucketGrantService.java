@@ -68,6 +68,9 @@ public class BucketGrantService {
     @Autowired
     private CatalogObjectGrantService catalogObjectGrantService;
 
+    @Autowired
+    private UserRightsCache userRightsCache;
+
     /**
      * Get the list of all the bucket grants assigned to the user and its groups for all the buckets.
      *
@@ -191,6 +194,7 @@ public class BucketGrantService {
     @Transactional
     public BucketGrantMetadata updateBucketGrantForASpecificUser(AuthenticatedUser currentUser, String bucketName,
             String username, String accessType) {
+        userRightsCache.invalidateAll();
         accessType = AccessTypeValidator.checkAndValidateTheGivenAccessType(accessType);
         // Find the bucket and get its id
         long bucketId;
@@ -235,6 +239,7 @@ public class BucketGrantService {
     @Transactional
     public BucketGrantMetadata updateBucketGrantForASpecificTenant(AuthenticatedUser currentUser, String bucketName,
             String tenant, String accessType) {
+        userRightsCache.invalidateAll();
         accessType = AccessTypeValidator.checkAndValidateTheGivenAccessType(accessType);
         // Find the bucket and get its id
         long bucketId;
@@ -279,6 +284,7 @@ public class BucketGrantService {
     @Transactional
     public BucketGrantMetadata updateBucketGrantForASpecificUserGroup(AuthenticatedUser currentUser, String bucketName,
             String userGroup, String accessType, int priority) {
+        userRightsCache.invalidateAll();
         PriorityLevelValidator.checkAndValidateTheGivenPriorityLevel(priority);
         accessType = AccessTypeValidator.checkAndValidateTheGivenAccessType(accessType);
         // Find the bucket and get its id
@@ -328,6 +334,7 @@ public class BucketGrantService {
     @Transactional
     public BucketGrantMetadata createBucketGrantForAUser(String bucketName, String currentUser, String accessType,
             String username) throws DataIntegrityViolationException {
+        userRightsCache.invalidateAll();
         accessType = AccessTypeValidator.checkAndValidateTheGivenAccessType(accessType);
         // Find the corresponding bucket from the DB
         BucketEntity bucket = bucketRepository.findOneByBucketName(bucketName);
@@ -369,6 +376,7 @@ public class BucketGrantService {
     @Transactional
     public BucketGrantMetadata createBucketGrantForATenant(String bucketName, String currentUser, String accessType,
             String tenant) throws DataIntegrityViolationException {
+        userRightsCache.invalidateAll();
         accessType = AccessTypeValidator.checkAndValidateTheGivenAccessType(accessType);
         // Find the corresponding bucket from the DB
         BucketEntity bucket = bucketRepository.findOneByBucketName(bucketName);
@@ -407,6 +415,7 @@ public class BucketGrantService {
     @Transactional
     public BucketGrantMetadata createBucketGrantForAGroup(String bucketName, String currentUser, String accessType,
             int priority, String userGroup) throws DataIntegrityViolationException {
+        userRightsCache.invalidateAll();
         PriorityLevelValidator.checkAndValidateTheGivenPriorityLevel(priority);
         accessType = AccessTypeValidator.checkAndValidateTheGivenAccessType(accessType);
         // Find the corresponding bucket from the DB
@@ -444,6 +453,7 @@ public class BucketGrantService {
      */
     @Transactional
     public BucketGrantMetadata deleteBucketGrantForAUser(String bucketName, String username) {
+        userRightsCache.invalidateAll();
         // Find the bucket
         BucketEntity bucketEntity = bucketRepository.findOneByBucketName(bucketName);
         // Find the user grant
@@ -466,6 +476,7 @@ public class BucketGrantService {
      */
     @Transactional
     public BucketGrantMetadata deleteBucketGrantForATenant(String bucketName, String tenant) {
+        userRightsCache.invalidateAll();
         // Find the bucket
         BucketEntity bucketEntity = bucketRepository.findOneByBucketName(bucketName);
         // Find the user grant
@@ -488,6 +499,7 @@ public class BucketGrantService {
      */
     @Transactional
     public BucketGrantMetadata deleteBucketGrantForAGroup(String bucketName, String userGroup) {
+        userRightsCache.invalidateAll();
         // Find the bucket
         BucketEntity bucketEntity = bucketRepository.findOneByBucketName(bucketName);
         // Find the group grant
@@ -512,6 +524,7 @@ public class BucketGrantService {
      */
     @Transactional
     public void deleteAllGrantsAssignedToABucketAndItsObjects(long bucketId) {
+        userRightsCache.invalidateAll();
         // Get existing grants
         List<BucketGrantEntity> existingBucketGrantsToDelete = bucketGrantRepository.findBucketGrantEntitiesByBucketEntityId(bucketId);
         if (existingBucketGrantsToDelete != null) {
@@ -524,6 +537,7 @@ public class BucketGrantService {
 
     @Transactional
     public AllBucketGrants deleteAllBucketAndItsObjectsGrants(String bucketName) {
+        userRightsCache.invalidateAll();
         AllBucketGrants allBucketGrants = this.getAllBucketAndObjectGrants(bucketName);
         this.deleteAllGrantsAssignedToABucketAndItsObjects(this.getBucketIdByName(bucketName));
         return allBucketGrants;
@@ -538,6 +552,7 @@ public class BucketGrantService {
      */
     @Transactional
     public List<BucketGrantMetadata> deleteAllGrantsAssignedToABucket(String bucketName) {
+        userRightsCache.invalidateAll();
         long bucketId = this.getBucketIdByName(bucketName);
         return GrantHelper.mapToGrants(bucketGrantRepository.deleteAllByBucketEntityId(bucketId));
     }
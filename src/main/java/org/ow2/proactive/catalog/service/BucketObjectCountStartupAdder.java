@@ -0,0 +1,68 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import java.util.Objects;
+
+import org.ow2.proactive.catalog.repository.BucketRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import lombok.extern.log4j.Log4j2;
+
+
+/**
+ * Computes the BUCKET.OBJECT_COUNT column of the buckets created before it existed, and repairs the counts which
+ * do not match the number of catalog objects of their bucket.
+ *
+ * The counts are updated in the transactions creating and deleting the catalog objects, so they only drift when the
+ * database is modified outside of the catalog. They are therefore only repaired at startup, counting the catalog
+ * objects of all the buckets periodically would bring back the cost the column avoids.
+ */
+@Log4j2
+@Component
+public class BucketObjectCountStartupAdder {
+
+    @Autowired
+    private BucketRepository bucketRepository;
+
+    @Transactional
+    public void synchronizeObjectCounts() {
+        log.info("Checking bucket object counts ... ");
+        int repairedBuckets = 0;
+        for (Object[] row : bucketRepository.findObjectCounts()) {
+            int actualCount = ((Long) row[2]).intValue();
+            if (!Objects.equals(row[1], actualCount)) {
+                bucketRepository.setObjectCount((Long) row[0], actualCount);
+                repairedBuckets++;
+            }
+        }
+        if (repairedBuckets > 0) {
+            log.info("Object count of {} buckets resynchronized", repairedBuckets);
+        }
+    }
+}
@@ -25,18 +25,16 @@
  */
 package org.ow2.proactive.catalog.service;
 
-import static org.ow2.proactive.catalog.dto.AssociationStatus.ALL;
 import static org.ow2.proactive.catalog.dto.AssociationStatus.UNPLANNED;
 
 import java.util.*;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.ow2.proactive.catalog.dto.AssociatedObjectsByBucket;
-import org.ow2.proactive.catalog.dto.AssociationStatus;
 import org.ow2.proactive.catalog.dto.BucketMetadata;
 import org.ow2.proactive.catalog.repository.BucketRepository;
+import org.ow2.proactive.catalog.repository.CatalogObjectContentRepository;
 import org.ow2.proactive.catalog.repository.CatalogObjectRevisionRepository;
 import org.ow2.proactive.catalog.repository.entity.BucketEntity;
 import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
@@ -45,6 +43,7 @@ import org.ow2.proactive.catalog.service.exception.BucketNameIsNotValidException
 import org.ow2.proactive.catalog.service.exception.BucketNotFoundException;
 import org.ow2.proactive.catalog.service.exception.DeleteNonEmptyBucketException;
 import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
+import org.ow2.proactive.catalog.service.model.JobPlannerAssociations;
 import org.ow2.proactive.catalog.util.name.validator.BucketNameValidator;
 import org.ow2.proactive.microservices.common.exception.NotAuthenticatedException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -94,6 +93,15 @@ public class BucketService {
     @Autowired
     private CatalogObjectRevisionRepository catalogObjectRevisionRepository;
 
+    @Autowired
+    private CatalogObjectContentRepository catalogObjectContentRepository;
+
+    @Autowired
+    private CatalogObjectDependencyIndex catalogObjectDependencyIndex;
+
+    @Autowired
+    private CatalogObjectFacetIndex catalogObjectFacetIndex;
+
     @Value("${pa.catalog.tenant.filtering}")
     private boolean isTenantFiltering;
 
@@ -123,7 +131,7 @@ public class BucketService {
 
         createRevisionForObjects(bucketName, COMMIT_MESSAGE_UPDATE_BUCKET);
 
-        return new BucketMetadata(bucketEntity, bucketEntity.getCatalogObjects().size());
+        return new BucketMetadata(bucketEntity, bucketEntity.countCatalogObjects());
     }
 
     //create a new revision for objects when the bucket owner is updated
@@ -147,6 +155,34 @@ public class BucketService {
             Optional<String> associationStatus, Optional<String> projectName, Optional<String> lastCommitBy,
             Optional<String> committedAtLeastOnceBy, Optional<Long> lastCommitTimeGreater,
             Optional<Long> lastCommitTimeLessThan, String sessionId, boolean allBuckets) {
+        return listBuckets(owners,
+                           tenant,
+                           user,
+                           kind,
+                           contentType,
+                           objectName,
+                           tag,
+                           associationStatus,
+                           projectName,
+                           lastCommitBy,
+                           committedAtLeastOnceBy,
+                           lastCommitTimeGreater,
+                           lastCommitTimeLessThan,
+                           sessionId,
+                           allBuckets,
+                           Optional.empty());
+    }
+
+    /**
+     * @param bucketName when present, only the buckets whose name contains this value (case insensitive, % can be
+     *                   used as a wildcard) are returned
+     */
+    @Transactional(readOnly = true)
+    public List<BucketMetadata> listBuckets(List<String> owners, String tenant, AuthenticatedUser user,
+            Optional<String> kind, Optional<String> contentType, Optional<String> objectName, Optional<String> tag,
+            Optional<String> associationStatus, Optional<String> projectName, Optional<String> lastCommitBy,
+            Optional<String> committedAtLeastOnceBy, Optional<Long> lastCommitTimeGreater,
+            Optional<Long> lastCommitTimeLessThan, String sessionId, boolean allBuckets, Optional<String> bucketName) {
         if (owners == null) {
             return Collections.emptyList();
         }
@@ -155,6 +191,7 @@ public class BucketService {
                                                           kind,
                                                           contentType,
                                                           objectName,
+                                                          bucketName,
                                                           lastCommitTimeGreater,
                                                           lastCommitTimeLessThan,
                                                           allBuckets,
@@ -185,19 +222,25 @@ public class BucketService {
     }
 
     private List<BucketMetadata> getBucketEntities(List<String> owners, Optional<String> kind,
-            Optional<String> contentType, Optional<String> objectName, Optional<Long> lastCommitTimeGreater,
-            Optional<Long> lastCommitTimeLessThan, boolean allBuckets, String tenant, AuthenticatedUser user) {
+            Optional<String> contentType, Optional<String> objectName, Optional<String> bucketName,
+            Optional<Long> lastCommitTimeGreater, Optional<Long> lastCommitTimeLessThan, boolean allBuckets,
+            String tenant, AuthenticatedUser user) {
         List<String> kindList = convertKindFilterToList(kind);
+        Optional<String> bucketNamePattern = bucketName.map(BucketService::toBucketNamePattern);
         long startTime = System.currentTimeMillis();
         List<Object[]> filteredBucketsFromDB = bucketRepository.findBucketByOwnerContainingKindListAndContentTypeAndObjectNameAndLastCommittedTimeInterval(owners,
                                                                                                                                                            kindList,
                                                                                                                                                            contentType.orElse(""),
                                                                                                                                                            objectName.orElse(""),
+                                                                                                                                                           bucketNamePattern.orElse(""),
                                                                                                                                                            lastCommitTimeGreater.orElse(0L),
                                                                                                                                                            lastCommitTimeLessThan.orElse(0L),
                                                                                                                                                            tenant,
                                                                                                                                                            user);
-        List<BucketEntity> allBucketsFromDB = getAllFilteredBucketsFromDB(allBuckets, tenant, user);
+        List<BucketEntity> allBucketsFromDB = getAllFilteredBucketsFromDB(allBuckets,
+                                                                          tenant,
+                                                                          user,
+                                                                          bucketNamePattern);
         log.debug("bucket list timer : get buckets : DB request with filtering {} ms",
                   (System.currentTimeMillis() - startTime));
         List<BucketMetadata> filteredEntities = generateBucketMetadataListFromObject(filteredBucketsFromDB);
@@ -210,31 +253,49 @@ public class BucketService {
         return answer;
     }
 
-    private List<BucketEntity> getAllFilteredBucketsFromDB(boolean allBuckets, String tenant, AuthenticatedUser user) {
+    private List<BucketEntity> getAllFilteredBucketsFromDB(boolean allBuckets, String tenant, AuthenticatedUser user,
+            Optional<String> bucketNamePattern) {
         List<BucketEntity> allBucketsFromDB;
         if (isTenantFiltering && user != null && !user.isAllTenantAccess()) {
-            allBucketsFromDB = getBucketsFilteredByTenant(tenant, user);
+            allBucketsFromDB = getBucketsFilteredByTenant(tenant, user, bucketNamePattern);
+        } else if (!allBuckets) {
+            allBucketsFromDB = null;
         } else {
-            allBucketsFromDB = allBuckets ? bucketRepository.findAll() : null;
+            allBucketsFromDB = bucketNamePattern.map(bucketRepository::findByBucketNameLikeIgnoreCase)
+                                                .orElseGet(bucketRepository::findAll);
         }
         return allBucketsFromDB;
     }
 
-    private List<BucketEntity> getBucketsFilteredByTenant(String tenant, AuthenticatedUser user) {
-        List<BucketEntity> allBucketsFromDB;
+    private List<BucketEntity> getBucketsFilteredByTenant(String tenant, AuthenticatedUser user,
+            Optional<String> bucketNamePattern) {
         String userTenant = user.getTenant();
         boolean hasUserTenant = !Strings.isNullOrEmpty(userTenant);
         boolean hasTenant = !Strings.isNullOrEmpty(tenant);
+        List<String> tenants;
         if (hasUserTenant && hasTenant) {
-            allBucketsFromDB = bucketRepository.findByTenantIn(Arrays.asList(userTenant, tenant, null));
+            tenants = Arrays.asList(userTenant, tenant, null);
         } else if (hasUserTenant) {
-            allBucketsFromDB = bucketRepository.findByTenantIn(Arrays.asList(userTenant, null));
+            tenants = Arrays.asList(userTenant, null);
         } else if (hasTenant) {
-            allBucketsFromDB = bucketRepository.findByTenantIn(Arrays.asList(tenant, null));
+            tenants = Arrays.asList(tenant, null);
         } else {
-            allBucketsFromDB = bucketRepository.findByTenantIsNull();
+            return bucketNamePattern.map(bucketRepository::findByTenantIsNullAndBucketNameLikeIgnoreCase)
+                                    .orElseGet(bucketRepository::findByTenantIsNull);
         }
-        return allBucketsFromDB;
+        return bucketNamePattern.map(pattern -> bucketRepository.findByTenantInAndBucketNameLikeIgnoreCase(tenants,
+                                                                                                           pattern))
+                                .orElseGet(() -> bucketRepository.findByTenantIn(tenants));
+    }
+
+    /**
+     * @return the SQL LIKE pattern, escaped with '!', matching the bucket names which contain the filter, or the whole
+     *         bucket names when the filter contains '%' wildcards. Other characters, such as '_' or '\', match
+     *         literally.
+     */
+    static String toBucketNamePattern(String bucketName) {
+        String escapedBucketName = bucketName.replace("!", "!!").replace("_", "!_");
+        return escapedBucketName.contains("%") ? escapedBucketName : "%" + escapedBucketName + "%";
     }
 
     private List<BucketMetadata> mergeEntities(List<BucketMetadata> filteredEntities,
@@ -242,14 +303,14 @@ public class BucketService {
         if (allEntities == null) {
             return filteredEntities;
         }
-        allEntities.stream().forEach(bucketMetadata -> bucketMetadata.setObjectCount(0));
-        return allEntities.stream()
-                          .map(bucketMetadata -> filteredEntities.stream()
-                                                                 .filter(filteredBucketMetadata -> filteredBucketMetadata.getName()
-                                                                                                                         .equals(bucketMetadata.getName()))
-                                                                 .findFirst()
-                                                                 .orElse(bucketMetadata))
-                          .collect(Collectors.toList());
+        // bucket names are unique, the filtered buckets replace the buckets of the same name
+        Map<String, BucketMetadata> mergedEntities = new LinkedHashMap<>();
+        allEntities.forEach(bucketMetadata -> {
+            bucketMetadata.setObjectCount(0);
+            mergedEntities.put(bucketMetadata.getName(), bucketMetadata);
+        });
+        filteredEntities.forEach(bucketMetadata -> mergedEntities.replace(bucketMetadata.getName(), bucketMetadata));
+        return new ArrayList<>(mergedEntities.values());
     }
 
     private List<String> convertKindFilterToList(Optional<String> kindFilter) {
@@ -273,7 +334,7 @@ public class BucketService {
     private List<BucketMetadata> generateBucketMetadataList(List<BucketEntity> bucketEntityList) {
         return bucketEntityList.stream()
                                .map(bucketEntity -> new BucketMetadata(bucketEntity,
-                                                                       bucketEntity.getCatalogObjects().size()))
+                                                                       bucketEntity.countCatalogObjects()))
                                .collect(Collectors.toList());
 
     }
@@ -326,6 +387,30 @@ public class BucketService {
             Optional<String> associationStatus, Optional<String> projectName, Optional<String> lastCommitBy,
             Optional<String> committedAtLeastOnceBy, Optional<Long> lastCommitTimeGreater,
             Optional<Long> lastCommitTimeLessThan, String sessionId, boolean allBuckets) {
+        return listBuckets(ownerName,
+                           tenant,
+                           user,
+                           kind,
+                           contentType,
+                           objectName,
+                           tag,
+                           associationStatus,
+                           projectName,
+                           lastCommitBy,
+                           committedAtLeastOnceBy,
+                           lastCommitTimeGreater,
+                           lastCommitTimeLessThan,
+                           sessionId,
+                           allBuckets,
+                           Optional.empty());
+    }
+
+    @Transactional(readOnly = true)
+    public List<BucketMetadata> listBuckets(String ownerName, String tenant, AuthenticatedUser user,
+            Optional<String> kind, Optional<String> contentType, Optional<String> objectName, Optional<String> tag,
+            Optional<String> associationStatus, Optional<String> projectName, Optional<String> lastCommitBy,
+            Optional<String> committedAtLeastOnceBy, Optional<Long> lastCommitTimeGreater,
+            Optional<Long> lastCommitTimeLessThan, String sessionId, boolean allBuckets, Optional<String> bucketName) {
         List<String> owners = StringUtils.isEmpty(ownerName) ? Collections.emptyList()
                                                              : Collections.singletonList(ownerName);
 
@@ -343,7 +428,8 @@ public class BucketService {
                            lastCommitTimeGreater,
                            lastCommitTimeLessThan,
                            sessionId,
-                           allBuckets);
+                           allBuckets,
+                           bucketName);
     }
 
     private void filterByTagOrAssociationStatusOrProjectNameOrLastCommittedBy(List<BucketMetadata> entities,
@@ -368,14 +454,15 @@ public class BucketService {
         List<String> objectNames = null;
         // search in the DB the latest revision of catalog objects which matching the other filters including the tag
         List<CatalogObjectRevisionEntity> objectList;
-        List<AssociatedObjectsByBucket> associatedObjectsByBucketList = null;
+        JobPlannerAssociations associations = sessionId != null &&
+                                              associationStatus.isPresent() ? jobPlannerService.getAssociations(sessionId)
+                                                                            : null;
 
-        if (sessionId != null && associationStatus.isPresent()) {
-            associatedObjectsByBucketList = jobPlannerService.getAssociatedObjects(sessionId);
+        if (associations != null) {
             if (isFilteringEnabledAssociations(associationStatusFilter)) {
-                bucketNames = new ArrayList<>(Sets.intersection(findAllBucketNamesContainingAssociations(associatedObjectsByBucketList),
+                bucketNames = new ArrayList<>(Sets.intersection(findAllBucketNamesContainingAssociations(associations.getAssociatedObjectsByBucket()),
                                                                 new HashSet<>(bucketNames)));
-                objectNames = new ArrayList<>(findAllObjectNamesWithAssociations(associatedObjectsByBucketList));
+                objectNames = new ArrayList<>(findAllObjectNamesWithAssociations(associations.getAssociatedObjectsByBucket()));
             }
         }
 
@@ -394,15 +481,10 @@ public class BucketService {
                                                                                                                                   Integer.MAX_VALUE);
         // filter by association status if requested
 
-        if (sessionId != null && associationStatus.isPresent()) {
-            Map<String, AssociatedObjectsByBucket> associatedObjectsByBucketMap = associatedObjectsByBucketList.stream()
-                                                                                                               .collect(Collectors.toMap(AssociatedObjectsByBucket::getBucketName,
-                                                                                                                                         Function.identity()));
+        if (associations != null) {
             objectList = objectList.stream()
                                    .filter(entity -> isObjectMatchingJobPlannerAssociationStatus(entity,
-                                                                                                 associatedObjectsByBucketMap.get(entity.getCatalogObject()
-                                                                                                                                        .getBucket()
-                                                                                                                                        .getBucketName()),
+                                                                                                 associations,
                                                                                                  associationStatusFilter))
                                    .collect(Collectors.toList());
         }
@@ -448,36 +530,15 @@ public class BucketService {
     }
 
     private boolean isObjectMatchingJobPlannerAssociationStatus(CatalogObjectRevisionEntity entity,
-            AssociatedObjectsByBucket associatedObjectsByBucket, String expectedStatus) {
-        if (associatedObjectsByBucket == null) {
+            JobPlannerAssociations associations, String expectedStatus) {
+        String bucketName = entity.getCatalogObject().getBucket().getBucketName();
+        if (!associations.containsBucket(bucketName)) {
             return UNPLANNED.equalsIgnoreCase(expectedStatus);
         }
-        switch (expectedStatus) {
-            case ALL:
-                return associatedObjectsByBucket.getObjects()
-                                                .stream()
-                                                .anyMatch(associatedObject -> associatedObject.getObjectName()
-                                                                                              .equalsIgnoreCase(entity.getCatalogObject()
-                                                                                                                      .getNameLower()) &&
-                                                                              !associatedObject.getStatuses()
-                                                                                               .isEmpty());
-            case UNPLANNED:
-                // object must not have a job-planner association
-                return associatedObjectsByBucket.getObjects()
-                                                .stream()
-                                                .noneMatch(associatedObject -> associatedObject.getObjectName()
-                                                                                               .equalsIgnoreCase(entity.getCatalogObject()
-                                                                                                                       .getNameLower()));
-            default:
-                AssociationStatus associationStatus = AssociationStatus.convert(expectedStatus);
-                return associatedObjectsByBucket.getObjects()
-                                                .stream()
-                                                .anyMatch(associatedObject -> associatedObject.getObjectName()
-                                                                                              .equalsIgnoreCase(entity.getCatalogObject()
-                                                                                                                      .getNameLower()) &&
-                                                                              associatedObject.getStatuses()
-                                                                                              .contains(associationStatus));
-        }
+        return JobPlannerAssociations.matchesAssociationStatus(associations.findAssociatedObjectIgnoreCase(bucketName,
+                                                                                                           entity.getCatalogObject()
+                                                                                                                 .getNameLower()),
+                                                               expectedStatus);
     }
 
     @Transactional
@@ -497,6 +558,10 @@ public class BucketService {
     @Transactional
     public void cleanAll() {
         bucketRepository.deleteAll();
+        bucketRepository.flush();
+        catalogObjectContentRepository.deleteAllInBatch();
+        catalogObjectDependencyIndex.clear();
+        catalogObjectFacetIndex.clear();
     }
 
     @Transactional
@@ -557,6 +622,35 @@ public class BucketService {
             Optional<String> committedAtLeastOnceBy, Optional<Long> lastCommitTimeGreater,
             Optional<Long> lastCommitTimeLessThan, String sessionId, boolean allBuckets, AuthenticatedUser user)
             throws NotAuthenticatedException, AccessDeniedException {
+        return getBucketsByGroups(ownerName,
+                                  tenant,
+                                  kind,
+                                  contentType,
+                                  objectName,
+                                  tag,
+                                  associationStatus,
+                                  projectName,
+                                  lastCommitBy,
+                                  committedAtLeastOnceBy,
+                                  lastCommitTimeGreater,
+                                  lastCommitTimeLessThan,
+                                  sessionId,
+                                  allBuckets,
+                                  user,
+                                  Optional.empty());
+    }
+
+    /**
+     * @param bucketName when present, only the buckets whose name contains this value (case insensitive, % can be
+     *                   used as a wildcard) are returned
+     */
+    @Transactional(readOnly = true)
+    public List<BucketMetadata> getBucketsByGroups(String ownerName, String tenant, Optional<String> kind,
+            Optional<String> contentType, Optional<String> objectName, Optional<String> tag,
+            Optional<String> associationStatus, Optional<String> projectName, Optional<String> lastCommitBy,
+            Optional<String> committedAtLeastOnceBy, Optional<Long> lastCommitTimeGreater,
+            Optional<Long> lastCommitTimeLessThan, String sessionId, boolean allBuckets, AuthenticatedUser user,
+            Optional<String> bucketName) throws NotAuthenticatedException, AccessDeniedException {
         List<String> groups;
         long startTime = System.currentTimeMillis();
 
@@ -585,7 +679,8 @@ public class BucketService {
                                                            lastCommitTimeGreater,
                                                            lastCommitTimeLessThan,
                                                            sessionId,
-                                                           allBuckets);
+                                                           allBuckets,
+                                                           bucketName);
         log.debug("bucket list timer : get buckets by groups : " + (System.currentTimeMillis() - startTime) + " ms");
         return bucketsByGroups;
     }
@@ -25,19 +25,15 @@
  */
 package org.ow2.proactive.catalog.service;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
 import org.ow2.proactive.catalog.callgraph.CatalogObjectCallGraphPDFGenerator;
 import org.ow2.proactive.catalog.dto.CatalogObjectMetadata;
+import org.ow2.proactive.catalog.report.PerBucketPDFArchiveGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.zeroturnaround.zip.ByteSource;
-import org.zeroturnaround.zip.ZipEntrySource;
-import org.zeroturnaround.zip.ZipUtil;
 
 import lombok.extern.log4j.Log4j2;
 
@@ -57,6 +53,9 @@ public class CatalogObjectCallGraphService {
     @Autowired
     private CatalogObjectCallGraphPDFGenerator catalogObjectCallGraphPDFGenerator;
 
+    @Autowired
+    private PerBucketPDFArchiveGenerator perBucketPDFArchiveGenerator;
+
     public byte[] generateBytesCallGraphForAllBucketsAsZip(List<String> authorisedBucketsNames, Optional<String> kind,
             Optional<String> contentType, Optional<String> objectName, Optional<String> tag,
             Optional<String> projectName, Optional<String> lastCommitBy, Optional<String> committedAtLeastOnceBy,
@@ -78,23 +77,10 @@ public class CatalogObjectCallGraphService {
                                                                                                        .collect(Collectors.groupingBy(CatalogObjectMetadata::getBucketName,
                                                                                                                                       Collectors.toList()));
 
-        List<ZipEntrySource> zipEntrySources = new ArrayList<>(bucketNameCatalogObjectMetadata.keySet().size());
-
-        try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream()) {
-            for (Map.Entry<String, List<CatalogObjectMetadata>> entry : bucketNameCatalogObjectMetadata.entrySet()) {
-                byte[] pdfData = catalogObjectCallGraphPDFGenerator.generatePdfImage(entry.getValue(),
-                                                                                     kind,
-                                                                                     contentType);
-                ByteSource byteSource = new ByteSource(entry.getKey() + "_report.pdf", pdfData);
-                zipEntrySources.add(byteSource);
-            }
-
-            ZipEntrySource[] sources = zipEntrySources.toArray(new ZipEntrySource[0]);
-            ZipUtil.pack(sources, byteArrayOutputStream);
-            return byteArrayOutputStream.toByteArray();
-        } catch (IOException ioe) {
-            throw new RuntimeException(ioe);
-        }
+        return perBucketPDFArchiveGenerator.generateArchive(bucketNameCatalogObjectMetadata,
+                                                            catalogObjectsMetadata -> catalogObjectCallGraphPDFGenerator.generatePdfImage(catalogObjectsMetadata,
+                                                                                                                                          kind,
+                                                                                                                                          contentType));
     }
 
     public byte[] generateBytesCallGraphForSelectedObjects(String bucketName, List<String> catalogObjectsNames,
@@ -0,0 +1,137 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.SQLQuery;
+import org.hibernate.Session;
+import org.hibernate.type.StandardBasicTypes;
+import org.ow2.proactive.catalog.repository.CatalogObjectContentRepository;
+import org.ow2.proactive.catalog.repository.CatalogObjectRevisionRepository;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectContentEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.google.common.collect.Lists;
+
+import lombok.extern.log4j.Log4j2;
+
+
+/**
+ * Moves the raw objects stored in the legacy CATALOG_OBJECT_REVISION.RAW_OBJECT column to the CATALOG_OBJECT_CONTENT table
+ */
+@Log4j2
+@Component
+public class CatalogObjectContentStartupAdder {
+
+    private static final String REVISION_TABLE = "CATALOG_OBJECT_REVISION";
+
+    private static final String LEGACY_RAW_OBJECT_COLUMN = "RAW_OBJECT";
+
+    private static final int MIGRATION_BATCH_SIZE = 100;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private CatalogObjectRevisionRepository catalogObjectRevisionRepository;
+
+    @Autowired
+    private CatalogObjectContentRepository catalogObjectContentRepository;
+
+    @Transactional
+    public void moveRawObjectsToContentTable() {
+        log.info("Checking catalog object revision contents ... ");
+        if (!isLegacyRawObjectColumnPresent()) {
+            return;
+        }
+        List<Long> revisionIds = catalogObjectRevisionRepository.findRevisionIdsWithoutContent();
+        if (!revisionIds.isEmpty()) {
+            log.info("Moving {} raw objects to the CATALOG_OBJECT_CONTENT table ...", revisionIds.size());
+            for (List<Long> revisionIdsBatch : Lists.partition(revisionIds, MIGRATION_BATCH_SIZE)) {
+                for (Long revisionId : revisionIdsBatch) {
+                    byte[] rawObject = (byte[]) em.createNativeQuery("SELECT " + LEGACY_RAW_OBJECT_COLUMN + " FROM " +
+                                                                     REVISION_TABLE + " WHERE ID = ?1")
+                                                  .setParameter(1, revisionId)
+                                                  .unwrap(SQLQuery.class)
+                                                  .addScalar(LEGACY_RAW_OBJECT_COLUMN,
+                                                             StandardBasicTypes.MATERIALIZED_BLOB)
+                                                  .uniqueResult();
+                    if (rawObject == null) {
+                        continue;
+                    }
+                    // identical raw objects share the same content, the migration runs alone at startup
+                    Long contentId = findOrCreateContent(rawObject);
+                    em.createNativeQuery("UPDATE " + REVISION_TABLE + " SET CONTENT_ID = ?1, " +
+                                         LEGACY_RAW_OBJECT_COLUMN + " = NULL WHERE ID = ?2")
+                      .setParameter(1, contentId)
+                      .setParameter(2, revisionId)
+                      .executeUpdate();
+                }
+                // raw objects can be large, do not keep them in the persistence context
+                em.clear();
+            }
+            log.info("Raw objects moved to the CATALOG_OBJECT_CONTENT table successfully.");
+        }
+    }
+
+    private Long findOrCreateContent(byte[] rawObject) {
+        CatalogObjectContentEntity content = new CatalogObjectContentEntity(rawObject);
+        Long existingContentId = catalogObjectContentRepository.findIdByContentHash(content.getContentHash());
+        if (existingContentId != null) {
+            catalogObjectContentRepository.addToReferenceCount(existingContentId, 1);
+            return existingContentId;
+        }
+        em.persist(content);
+        em.flush();
+        return content.getId();
+    }
+
+    private boolean isLegacyRawObjectColumnPresent() {
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            // depending on the database, table names are stored in upper or lower case
+            for (String tableName : Arrays.asList(REVISION_TABLE, REVISION_TABLE.toLowerCase())) {
+                try (ResultSet columns = metaData.getColumns(null, null, tableName, null)) {
+                    while (columns.next()) {
+                        if (LEGACY_RAW_OBJECT_COLUMN.equalsIgnoreCase(columns.getString("COLUMN_NAME"))) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        });
+    }
+}
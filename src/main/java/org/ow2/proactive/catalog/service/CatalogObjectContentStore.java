@@ -0,0 +1,71 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import org.ow2.proactive.catalog.repository.CatalogObjectContentRepository;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectContentEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+
+/**
+ * Creates the catalog object contents shared between revisions, in their own short transaction, so that a content
+ * with the same hash created concurrently only fails this transaction, not the one creating the revision. The
+ * references to the contents are counted by the transactions creating the revisions, and rolled back with them.
+ *
+ * A content is created while the transaction creating the revision holds its own connection, so creating revisions
+ * with new contents takes two connections of the pool at once for a short time. A crash between the creation of a
+ * content and the commit of its revision leaves an unreferenced content, which is referenced by the next revision
+ * having the same raw object.
+ *
+ * @author ActiveEon Team
+ */
+@Component
+public class CatalogObjectContentStore {
+
+    @Autowired
+    private CatalogObjectContentRepository catalogObjectContentRepository;
+
+    /**
+     * @param rawObject raw object of the content
+     * @return the id of the committed content having the same hash as the raw object, created without any reference
+     *         if there is no such content
+     * @throws DataIntegrityViolationException if a content with the same hash has been created concurrently
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Long findOrCreateContent(byte[] rawObject) {
+        CatalogObjectContentEntity content = new CatalogObjectContentEntity(rawObject);
+        Long contentId = catalogObjectContentRepository.findIdByContentHash(content.getContentHash());
+        if (contentId != null) {
+            return contentId;
+        }
+        content.setReferenceCount(0);
+        return catalogObjectContentRepository.saveAndFlush(content).getId();
+    }
+}
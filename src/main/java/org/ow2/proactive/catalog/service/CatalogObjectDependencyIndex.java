@@ -0,0 +1,218 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import static org.ow2.proactive.catalog.util.parser.WorkflowParser.ATTRIBUTE_DEPENDS_ON_LABEL;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.ow2.proactive.catalog.repository.CatalogObjectRepository;
+import org.ow2.proactive.catalog.repository.CatalogObjectRevisionRepository;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectEntity;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
+import org.ow2.proactive.catalog.util.SeparatorUtility;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import lombok.Data;
+
+
+/**
+ * In-memory adjacency index of the dependencies (depends_on metadata) between the last revisions of the catalog
+ * objects, keyed by bucket/name.
+ *
+ * For every catalog object, the index keeps the commit time of its last revision and the objects this revision
+ * depends on, together with the reverse (called by) edges. It is built at startup and then updated incrementally
+ * once the transactions creating revisions or deleting objects are committed, so that the dependencies of a last
+ * revision are read in O(degree) instead of being searched in the metadata table. Older revisions are not indexed.
+ *
+ * @author ActiveEon Team
+ */
+@Service
+public class CatalogObjectDependencyIndex extends AbstractCatalogObjectIndex<CatalogObjectDependencyIndex.LastRevisionDependencies> {
+
+    private final CatalogObjectRepository catalogObjectRepository;
+
+    private final CatalogObjectRevisionRepository catalogObjectRevisionRepository;
+
+    private final SeparatorUtility separatorUtility;
+
+    // last revision of every catalog object, keyed by bucket/name
+    private final Map<String, LastRevisionDependencies> lastRevisions = new HashMap<>();
+
+    // for every bucket/name, the objects whose last revision depends on it
+    private final Map<String, Set<String>> calledBy = new HashMap<>();
+
+    @Autowired
+    public CatalogObjectDependencyIndex(CatalogObjectRepository catalogObjectRepository,
+            CatalogObjectRevisionRepository catalogObjectRevisionRepository, SeparatorUtility separatorUtility) {
+        super("dependency index");
+        this.catalogObjectRepository = catalogObjectRepository;
+        this.catalogObjectRevisionRepository = catalogObjectRevisionRepository;
+        this.separatorUtility = separatorUtility;
+    }
+
+    @Override
+    protected Map<String, LastRevisionDependencies> load() {
+        Map<String, LastRevisionDependencies> loadedRevisions = new HashMap<>();
+        for (Object[] row : catalogObjectRepository.findAllLastCommitTimes()) {
+            loadedRevisions.put(separatorUtility.getConcatWithSeparator((String) row[0], (String) row[1]),
+                                new LastRevisionDependencies((Long) row[2]));
+        }
+        for (Object[] row : catalogObjectRevisionRepository.findDependsOnOfLastRevisions()) {
+            LastRevisionDependencies lastRevision = loadedRevisions.get(separatorUtility.getConcatWithSeparator((String) row[0],
+                                                                                                                (String) row[1]));
+            if (lastRevision != null) {
+                lastRevision.getDependsOn().put((String) row[2], (String) row[3]);
+            }
+        }
+        return loadedRevisions;
+    }
+
+    @Override
+    protected void replaceAll(Map<String, LastRevisionDependencies> loadedRevisions) {
+        lastRevisions.clear();
+        calledBy.clear();
+        loadedRevisions.forEach(this::putLastRevision);
+    }
+
+    /**
+     * @param bucketName bucket of the catalog object
+     * @param name name of the catalog object
+     * @param commitTime commit time of the revision
+     * @return the objects (bucket/name) the revision depends on, mapped to the revision of each dependency, or empty
+     *         when the revision is not the indexed last revision of the object
+     */
+    public Optional<Map<String, String>> getDependsOn(String bucketName, String name, long commitTime) {
+        return readIfBuilt(() -> {
+            LastRevisionDependencies lastRevision = lastRevisions.get(separatorUtility.getConcatWithSeparator(bucketName,
+                                                                                                              name));
+            if (lastRevision == null || lastRevision.getCommitTime() != commitTime) {
+                return null;
+            }
+            return new LinkedHashMap<>(lastRevision.getDependsOn());
+        });
+    }
+
+    /**
+     * @param bucketName bucket of the catalog object
+     * @param name name of the catalog object
+     * @return the objects (bucket/name) whose last revision depends on the catalog object, or empty when the index
+     *         is not built
+     */
+    public Optional<List<String>> getCalledBy(String bucketName, String name) {
+        return readIfBuilt(() -> new ArrayList<>(calledBy.getOrDefault(separatorUtility.getConcatWithSeparator(bucketName,
+                                                                                                               name),
+                                                                       Collections.emptySet())));
+    }
+
+    /**
+     * Index a new last revision of a catalog object, once the current transaction (if any) is committed
+     *
+     * @param revision the new revision
+     */
+    public void indexRevision(CatalogObjectRevisionEntity revision) {
+        CatalogObjectEntity catalogObject = revision.getCatalogObject();
+        String key = separatorUtility.getConcatWithSeparator(catalogObject.getBucket().getBucketName(),
+                                                             catalogObject.getId().getName());
+        LastRevisionDependencies lastRevision = new LastRevisionDependencies(revision.getCommitTime());
+        revision.getKeyValueMetadataList()
+                .stream()
+                .filter(metadata -> ATTRIBUTE_DEPENDS_ON_LABEL.equals(metadata.getLabel()))
+                .forEach(metadata -> lastRevision.getDependsOn().put(metadata.getKey(), metadata.getValue()));
+
+        afterCommit(() -> {
+            LastRevisionDependencies previous = lastRevisions.get(key);
+            // concurrent transactions may commit out of order, the most recent revision wins
+            if (previous == null || previous.getCommitTime() <= lastRevision.getCommitTime()) {
+                removeLastRevision(key);
+                putLastRevision(key, lastRevision);
+            }
+        });
+    }
+
+    /**
+     * Remove a deleted catalog object from the index, once the current transaction (if any) is committed
+     *
+     * @param bucketName bucket of the catalog object
+     * @param name name of the catalog object
+     */
+    public void removeCatalogObject(String bucketName, String name) {
+        String key = separatorUtility.getConcatWithSeparator(bucketName, name);
+        afterCommit(() -> removeLastRevision(key));
+    }
+
+    /**
+     * Remove all catalog objects from the index, once the current transaction (if any) is committed
+     */
+    public void clear() {
+        afterCommit(() -> {
+            lastRevisions.clear();
+            calledBy.clear();
+        });
+    }
+
+    private void putLastRevision(String key, LastRevisionDependencies lastRevision) {
+        lastRevisions.put(key, lastRevision);
+        lastRevision.getDependsOn()
+                    .keySet()
+                    .forEach(dependsOnKey -> calledBy.computeIfAbsent(dependsOnKey, k -> new LinkedHashSet<>())
+                                                     .add(key));
+    }
+
+    private void removeLastRevision(String key) {
+        LastRevisionDependencies previous = lastRevisions.remove(key);
+        if (previous == null) {
+            return;
+        }
+        for (String dependsOnKey : previous.getDependsOn().keySet()) {
+            Set<String> callers = calledBy.get(dependsOnKey);
+            if (callers != null) {
+                callers.remove(key);
+                if (callers.isEmpty()) {
+                    calledBy.remove(dependsOnKey);
+                }
+            }
+        }
+    }
+
+    @Data
+    static class LastRevisionDependencies {
+
+        private final long commitTime;
+
+        // depends on object (bucket/name) -> revision of the dependency
+        private final Map<String, String> dependsOn = new LinkedHashMap<>();
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import static org.ow2.proactive.catalog.util.parser.WorkflowParser.OBJECT_TAG_LABEL;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.stream.Collectors;
+
+import org.ow2.proactive.catalog.repository.CatalogObjectRepository;
+import org.ow2.proactive.catalog.repository.CatalogObjectRevisionRepository;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectEntity;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
+import org.ow2.proactive.catalog.util.SeparatorUtility;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Multiset;
+
+import lombok.Data;
+
+
+/**
+ * In-memory index of the distinct kinds, Content-Types and object tags of the catalog objects.
+ *
+ * For every catalog object, keyed by bucket/name, the index keeps its kind, its Content-Type and the object tags of
+ * all its revisions, and counts how many times each value is used. It is built at startup and then updated
+ * incrementally once the transactions creating revisions, updating objects or deleting objects are committed. The
+ * sorted sets of distinct values are only rebuilt when a value appears or disappears, so that reading them does not
+ * scan the catalog.
+ *
+ * @author ActiveEon Team
+ */
+@Service
+public class CatalogObjectFacetIndex extends AbstractCatalogObjectIndex<CatalogObjectFacetIndex.CatalogObjectFacets> {
+
+    private final CatalogObjectRepository catalogObjectRepository;
+
+    private final CatalogObjectRevisionRepository catalogObjectRevisionRepository;
+
+    private final SeparatorUtility separatorUtility;
+
+    // facets of every catalog object, keyed by bucket/name
+    private final Map<String, CatalogObjectFacets> catalogObjects = new HashMap<>();
+
+    private final Multiset<String> kindCounts = HashMultiset.create();
+
+    private final Multiset<String> contentTypeCounts = HashMultiset.create();
+
+    private final Multiset<String> objectTagCounts = HashMultiset.create();
+
+    private volatile SortedSet<String> kinds = ImmutableSortedSet.of();
+
+    private volatile SortedSet<String> contentTypes = ImmutableSortedSet.of();
+
+    private volatile SortedSet<String> objectTags = ImmutableSortedSet.of();
+
+    @Autowired
+    public CatalogObjectFacetIndex(CatalogObjectRepository catalogObjectRepository,
+            CatalogObjectRevisionRepository catalogObjectRevisionRepository, SeparatorUtility separatorUtility) {
+        super("facet index");
+        this.catalogObjectRepository = catalogObjectRepository;
+        this.catalogObjectRevisionRepository = catalogObjectRevisionRepository;
+        this.separatorUtility = separatorUtility;
+    }
+
+    @Override
+    protected Map<String, CatalogObjectFacets> load() {
+        Map<String, CatalogObjectFacets> loadedCatalogObjects = new HashMap<>();
+        for (Object[] row : catalogObjectRepository.findAllKindsAndContentTypes()) {
+            loadedCatalogObjects.put(separatorUtility.getConcatWithSeparator((String) row[0], (String) row[1]),
+                                     new CatalogObjectFacets((String) row[2], (String) row[3]));
+        }
+        for (Object[] row : catalogObjectRevisionRepository.findObjectTagsOfAllRevisions()) {
+            CatalogObjectFacets facets = loadedCatalogObjects.get(separatorUtility.getConcatWithSeparator((String) row[0],
+                                                                                                          (String) row[1]));
+            if (facets != null) {
+                facets.getObjectTags().add((String) row[2]);
+            }
+        }
+        return loadedCatalogObjects;
+    }
+
+    @Override
+    protected void replaceAll(Map<String, CatalogObjectFacets> loadedCatalogObjects) {
+        clearAll();
+        loadedCatalogObjects.forEach(this::putCatalogObject);
+        refreshSnapshots(true, true, true);
+    }
+
+    /**
+     * @return the sorted distinct kinds of the catalog objects, or empty when the index is not built
+     */
+    public Optional<Set<String>> getKinds() {
+        return isBuilt() ? Optional.of(kinds) : Optional.empty();
+    }
+
+    /**
+     * @return the sorted distinct Content-Types of the catalog objects, or empty when the index is not built
+     */
+    public Optional<Set<String>> getContentTypes() {
+        return isBuilt() ? Optional.of(contentTypes) : Optional.empty();
+    }
+
+    /**
+     * @return the sorted distinct object tags of all revisions of the catalog objects, or empty when the index is
+     *         not built
+     */
+    public Optional<Set<String>> getObjectTags() {
+        return isBuilt() ? Optional.of(objectTags) : Optional.empty();
+    }
+
+    /**
+     * Index a new revision of a catalog object, with the current kind and Content-Type of the object, once the
+     * current transaction (if any) is committed
+     *
+     * @param revision the new revision
+     */
+    public void indexRevision(CatalogObjectRevisionEntity revision) {
+        CatalogObjectEntity catalogObject = revision.getCatalogObject();
+        String key = getKey(catalogObject);
+        String kind = catalogObject.getKind();
+        String contentType = catalogObject.getContentType();
+        List<String> revisionObjectTags = revision.getKeyValueMetadataList()
+                                                  .stream()
+                                                  .filter(metadata -> OBJECT_TAG_LABEL.equals(metadata.getLabel()))
+                                                  .map(metadata -> metadata.getKey())
+                                                  .collect(Collectors.toList());
+
+        afterCommit(() -> {
+            CatalogObjectFacets facets = catalogObjects.get(key);
+            CatalogObjectFacets updated = new CatalogObjectFacets(kind, contentType);
+            if (facets != null) {
+                updated.getObjectTags().addAll(facets.getObjectTags());
+            }
+            updated.getObjectTags().addAll(revisionObjectTags);
+            replaceCatalogObject(key, updated);
+        });
+    }
+
+    /**
+     * Index the kind and the Content-Type of an updated catalog object, once the current transaction (if any) is
+     * committed
+     *
+     * @param catalogObject the updated catalog object
+     */
+    public void indexCatalogObject(CatalogObjectEntity catalogObject) {
+        String key = getKey(catalogObject);
+        String kind = catalogObject.getKind();
+        String contentType = catalogObject.getContentType();
+
+        afterCommit(() -> {
+            CatalogObjectFacets facets = catalogObjects.get(key);
+            if (facets == null || (Objects.equals(facets.getKind(), kind) &&
+                                   Objects.equals(facets.getContentType(), contentType))) {
+                return;
+            }
+            CatalogObjectFacets updated = new CatalogObjectFacets(kind, contentType);
+            updated.getObjectTags().addAll(facets.getObjectTags());
+            replaceCatalogObject(key, updated);
+        });
+    }
+
+    /**
+     * Remove a deleted catalog object from the index, once the current transaction (if any) is committed
+     *
+     * @param bucketName bucket of the catalog object
+     * @param name name of the catalog object
+     */
+    public void removeCatalogObject(String bucketName, String name) {
+        String key = separatorUtility.getConcatWithSeparator(bucketName, name);
+        afterCommit(() -> replaceCatalogObject(key, null));
+    }
+
+    /**
+     * Remove all catalog objects from the index, once the current transaction (if any) is committed
+     */
+    public void clear() {
+        afterCommit(() -> {
+            clearAll();
+            refreshSnapshots(true, true, true);
+        });
+    }
+
+    private String getKey(CatalogObjectEntity catalogObject) {
+        return separatorUtility.getConcatWithSeparator(catalogObject.getBucket().getBucketName(),
+                                                       catalogObject.getId().getName());
+    }
+
+    private void clearAll() {
+        catalogObjects.clear();
+        kindCounts.clear();
+        contentTypeCounts.clear();
+        objectTagCounts.clear();
+    }
+
+    /**
+     * Replace the facets of a catalog object (or remove them when updated is null) and refresh the sorted sets whose
+     * distinct values changed
+     */
+    private void replaceCatalogObject(String key, CatalogObjectFacets updated) {
+        FacetChanges changes = new FacetChanges();
+        CatalogObjectFacets previous = catalogObjects.remove(key);
+        if (previous != null) {
+            changes.kinds |= updateCount(kindCounts, previous.getKind(), -1);
+            changes.contentTypes |= updateCount(contentTypeCounts, previous.getContentType(), -1);
+            for (Multiset.Entry<String> objectTag : previous.getObjectTags().entrySet()) {
+                changes.objectTags |= updateCount(objectTagCounts, objectTag.getElement(), -objectTag.getCount());
+            }
+        }
+        if (updated != null) {
+            FacetChanges putChanges = putCatalogObject(key, updated);
+            changes.kinds |= putChanges.kinds;
+            changes.contentTypes |= putChanges.contentTypes;
+            changes.objectTags |= putChanges.objectTags;
+        }
+        refreshSnapshots(changes.kinds, changes.contentTypes, changes.objectTags);
+    }
+
+    private FacetChanges putCatalogObject(String key, CatalogObjectFacets facets) {
+        FacetChanges changes = new FacetChanges();
+        catalogObjects.put(key, facets);
+        changes.kinds = updateCount(kindCounts, facets.getKind(), 1);
+        changes.contentTypes = updateCount(contentTypeCounts, facets.getContentType(), 1);
+        for (Multiset.Entry<String> objectTag : facets.getObjectTags().entrySet()) {
+            changes.objectTags |= updateCount(objectTagCounts, objectTag.getElement(), objectTag.getCount());
+        }
+        return changes;
+    }
+
+    /**
+     * @return true when the value appeared in or disappeared from the counts
+     */
+    private boolean updateCount(Multiset<String> counts, String value, int delta) {
+        if (value == null || delta == 0) {
+            return false;
+        }
+        int previousCount = delta > 0 ? counts.add(value, delta) : counts.remove(value, -delta);
+        return previousCount == 0 || previousCount + delta <= 0;
+    }
+
+    private void refreshSnapshots(boolean refreshKinds, boolean refreshContentTypes, boolean refreshObjectTags) {
+        if (refreshKinds) {
+            kinds = ImmutableSortedSet.copyOf(kindCounts.elementSet());
+        }
+        if (refreshContentTypes) {
+            contentTypes = ImmutableSortedSet.copyOf(contentTypeCounts.elementSet());
+        }
+        if (refreshObjectTags) {
+            objectTags = ImmutableSortedSet.copyOf(objectTagCounts.elementSet());
+        }
+    }
+
+    @Data
+    static class CatalogObjectFacets {
+
+        private final String kind;
+
+        private final String contentType;
+
+        // object tags of all the revisions of the catalog object, with their number of occurrences
+        private final Multiset<String> objectTags = HashMultiset.create();
+    }
+
+    private static class FacetChanges {
+
+        private boolean kinds;
+
+        private boolean contentTypes;
+
+        private boolean objectTags;
+    }
+}
@@ -31,17 +31,22 @@ import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.*;
 import java.util.stream.Collectors;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.tika.detect.Detector;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.AutoDetectParser;
+import org.ow2.proactive.catalog.dto.CatalogObjectCursor;
 import org.ow2.proactive.catalog.dto.CatalogObjectDependencies;
 import org.ow2.proactive.catalog.dto.CatalogObjectMetadata;
 import org.ow2.proactive.catalog.dto.CatalogObjectNameReference;
@@ -49,24 +54,29 @@ import org.ow2.proactive.catalog.dto.CatalogRawObject;
 import org.ow2.proactive.catalog.dto.DependsOnCatalogObject;
 import org.ow2.proactive.catalog.dto.Metadata;
 import org.ow2.proactive.catalog.repository.BucketRepository;
+import org.ow2.proactive.catalog.repository.CatalogObjectContentRepository;
 import org.ow2.proactive.catalog.repository.CatalogObjectRepository;
 import org.ow2.proactive.catalog.repository.CatalogObjectRevisionRepository;
 import org.ow2.proactive.catalog.repository.entity.BucketEntity;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectContentEntity;
 import org.ow2.proactive.catalog.repository.entity.CatalogObjectEntity;
 import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
 import org.ow2.proactive.catalog.repository.entity.KeyValueLabelMetadataEntity;
+import org.ow2.proactive.catalog.repository.projection.CatalogObjectRevisionProjection;
+import org.ow2.proactive.catalog.repository.projection.KeyValueLabelMetadataProjection;
 import org.ow2.proactive.catalog.service.exception.*;
 import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
+import org.ow2.proactive.catalog.service.model.CatalogObjectAccessFilter;
 import org.ow2.proactive.catalog.service.model.GenericInfoBucketData;
 import org.ow2.proactive.catalog.util.*;
 import org.ow2.proactive.catalog.util.ArchiveManagerHelper.FileNameAndContent;
-import org.ow2.proactive.catalog.util.ArchiveManagerHelper.ZipArchiveContent;
 import org.ow2.proactive.catalog.util.name.validator.KindAndContentTypeValidator;
 import org.ow2.proactive.catalog.util.name.validator.ObjectNameValidator;
 import org.ow2.proactive.catalog.util.name.validator.TagsValidator;
 import org.ow2.proactive.catalog.util.parser.WorkflowParser;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -91,8 +101,20 @@ public class CatalogObjectService {
 
     public static int ORACLEDB_MAX_IN_PARAMS = 1000;
 
+    // number of catalog objects whose raw objects are loaded at once when exporting an archive
+    private static final int ARCHIVE_CHUNK_SIZE = 50;
+
+    // number of catalog objects imported from an archive between two flushes of the persistence context
+    private static final int IMPORT_CHUNK_SIZE = 50;
+
+    // number of times a content is looked up again after being created or deleted concurrently
+    private static final int MAX_CONTENT_REFERENCE_ATTEMPTS = 3;
+
     public static final String UPDATE_COMMIT_MESSAGE = "The project name or/and tags metadata are updated";
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @Autowired
     private CatalogObjectRepository catalogObjectRepository;
 
@@ -102,6 +124,12 @@ public class CatalogObjectService {
     @Autowired
     private BucketRepository bucketRepository;
 
+    @Autowired
+    private CatalogObjectContentRepository catalogObjectContentRepository;
+
+    @Autowired
+    private CatalogObjectContentStore catalogObjectContentStore;
+
     @Autowired
     private ArchiveManagerHelper archiveManager;
 
@@ -135,6 +163,12 @@ public class CatalogObjectService {
     @Autowired
     private GrantRightsService grantRightsService;
 
+    @Autowired
+    private CatalogObjectDependencyIndex catalogObjectDependencyIndex;
+
+    @Autowired
+    private CatalogObjectFacetIndex catalogObjectFacetIndex;
+
     @Value("${kind.separator}")
     protected String kindSeparator;
 
@@ -170,45 +204,48 @@ public class CatalogObjectService {
     public List<CatalogObjectMetadata> createCatalogObjects(String bucketName, String projectName, String tags,
             String kind, String commitMessage, AuthenticatedUser user, byte[] zipArchive) {
 
-        List<FileNameAndContent> filesContainedInArchive = archiveManager.extractZIP(zipArchive);
-
-        if (filesContainedInArchive.isEmpty()) {
-            throw new UnprocessableEntityException("Malformed archive");
-        }
         BucketEntity bucketEntity = findBucketByNameAndCheck(bucketName);
+        Long bucketId = bucketEntity.getId();
+        List<CatalogObjectMetadata> objectsList = new ArrayList<>();
 
-        return filesContainedInArchive.stream().map(file -> {
+        archiveManager.iterateZIP(zipArchive, file -> {
             String objectName = file.getName();
-            CatalogObjectEntity catalogObject = catalogObjectRepository.findOne(new CatalogObjectEntity.CatalogObjectEntityKey(bucketEntity.getId(),
+            CatalogObjectEntity catalogObject = catalogObjectRepository.findOne(new CatalogObjectEntity.CatalogObjectEntityKey(bucketId,
                                                                                                                                objectName));
             if (catalogObject == null) {
                 String contentTypeOfFile = getFileMimeType(file);
-                return this.createCatalogObject(bucketName,
-                                                objectName,
-                                                projectName,
-                                                tags,
-                                                kind,
-                                                commitMessage,
-                                                user.getName(),
-                                                contentTypeOfFile,
-                                                Collections.emptyList(),
-                                                file.getContent(),
-                                                FilenameUtils.getExtension(file.getFileNameWithExtension()));
+                objectsList.add(this.createCatalogObject(bucketName,
+                                                         objectName,
+                                                         projectName,
+                                                         tags,
+                                                         kind,
+                                                         commitMessage,
+                                                         user.getName(),
+                                                         contentTypeOfFile,
+                                                         Collections.emptyList(),
+                                                         file.getContent(),
+                                                         FilenameUtils.getExtension(file.getFileNameWithExtension())));
             } else {
                 if (!user.equals(AuthenticatedUser.EMPTY) &&
                     !AccessTypeHelper.satisfy(grantRightsService.getCatalogObjectRights(user, bucketName, objectName),
                                               write)) {
                     throw new CatalogObjectGrantAccessException(bucketName, objectName);
                 }
-                return this.createCatalogObjectRevision(bucketName,
-                                                        objectName,
-                                                        projectName,
-                                                        tags,
-                                                        commitMessage,
-                                                        user.getName(),
-                                                        file.getContent());
+                objectsList.add(this.createCatalogObjectRevision(bucketName,
+                                                                 objectName,
+                                                                 projectName,
+                                                                 tags,
+                                                                 commitMessage,
+                                                                 user.getName(),
+                                                                 file.getContent()));
             }
-        }).collect(Collectors.toList());
+            flushImportedObjectsByChunk(objectsList.size());
+        });
+
+        if (objectsList.isEmpty()) {
+            throw new UnprocessableEntityException("Malformed archive");
+        }
+        return objectsList;
     }
 
     @Transactional
@@ -218,52 +255,96 @@ public class CatalogObjectService {
         PackageMetadataJSONParser.PackageData metadata = ArchiveManagerHelper.extractMetadataObject(bucketName,
                                                                                                     zipArchive);
 
-        List<CatalogObjectMetadata> objectsList = new ArrayList<>();
         BucketEntity bucketEntity = findBucketByNameAndCheck(bucketName);
+        Long bucketId = bucketEntity.getId();
+
+        // the objects declared in the package metadata are indexed by file path, so that the archive is read once,
+        // each object being created when its file is reached
+        List<PackageMetadataJSONParser.CatalogObjectData> packageObjects = metadata.getCatalog().getObjects();
+        Map<String, List<Integer>> packageObjectIndexesByPath = new HashMap<>();
+        for (int index = 0; index < packageObjects.size(); index++) {
+            packageObjectIndexesByPath.computeIfAbsent(packageObjects.get(index).getFile(), path -> new ArrayList<>())
+                                      .add(index);
+        }
 
-        metadata.getCatalog().getObjects().forEach(object -> {
-            byte[] objectFile = ArchiveManagerHelper.extractObjectByPath(zipArchive, object.getFile());
-            CatalogObjectEntity catalogObject = catalogObjectRepository.findOne(new CatalogObjectEntity.CatalogObjectEntityKey(bucketEntity.getId(),
-                                                                                                                               object.getName()));
-            CatalogObjectMetadata objectMetadata;
-            if (catalogObject == null) {
-                objectMetadata = this.createCatalogObject(bucketName,
-                                                          object.getName(),
-                                                          Strings.isNullOrEmpty(projectName) ? object.getMetadata()
-                                                                                                     .getProjectName()
-                                                                                             : projectName,
-                                                          Strings.isNullOrEmpty(tags) ? object.getMetadata().getTags()
-                                                                                      : tags,
-                                                          object.getMetadata().getKind(),
-                                                          Strings.isNullOrEmpty(commitMessage) ? object.getMetadata()
-                                                                                                       .getCommitMessage()
-                                                                                               : commitMessage,
-                                                          user.getName(),
-                                                          object.getMetadata().getContentType(),
-                                                          Collections.emptyList(),
-                                                          objectFile,
-                                                          FilenameUtils.getExtension(object.getFile()));
-            } else {
-                if (!user.equals(AuthenticatedUser.EMPTY) &&
-                    !AccessTypeHelper.satisfy(grantRightsService.getCatalogObjectRights(user,
-                                                                                        bucketName,
-                                                                                        object.getName()),
-                                              write)) {
-                    throw new CatalogObjectGrantAccessException(bucketName, object.getName());
+        CatalogObjectMetadata[] objectsList = new CatalogObjectMetadata[packageObjects.size()];
+        int[] importedObjects = { 0 };
+        archiveManager.iterateZIP(zipArchive, file -> {
+            List<Integer> packageObjectIndexes = packageObjectIndexesByPath.remove(file.getPath());
+            if (packageObjectIndexes != null) {
+                for (int index : packageObjectIndexes) {
+                    objectsList[index] = createCatalogObjectFromPackage(bucketName,
+                                                                        bucketId,
+                                                                        user,
+                                                                        projectName,
+                                                                        tags,
+                                                                        commitMessage,
+                                                                        packageObjects.get(index),
+                                                                        file.getContent());
+                    flushImportedObjectsByChunk(++importedObjects[0]);
                 }
-                objectMetadata = this.createCatalogObjectRevision(bucketName,
-                                                                  object.getName(),
-                                                                  projectName,
-                                                                  tags,
-                                                                  Strings.isNullOrEmpty(commitMessage) ? object.getMetadata()
-                                                                                                               .getCommitMessage()
-                                                                                                       : commitMessage,
-                                                                  user.getName(),
-                                                                  objectFile);
             }
-            objectsList.add(objectMetadata);
         });
-        return objectsList;
+        // objects whose file is missing in the archive
+        packageObjectIndexesByPath.values()
+                                  .stream()
+                                  .flatMap(List::stream)
+                                  .forEach(index -> objectsList[index] = createCatalogObjectFromPackage(bucketName,
+                                                                                                        bucketId,
+                                                                                                        user,
+                                                                                                        projectName,
+                                                                                                        tags,
+                                                                                                        commitMessage,
+                                                                                                        packageObjects.get(index),
+                                                                                                        null));
+        return Arrays.asList(objectsList);
+    }
+
+    private CatalogObjectMetadata createCatalogObjectFromPackage(String bucketName, Long bucketId,
+            AuthenticatedUser user, String projectName, String tags, String commitMessage,
+            PackageMetadataJSONParser.CatalogObjectData object, byte[] objectFile) {
+        CatalogObjectEntity catalogObject = catalogObjectRepository.findOne(new CatalogObjectEntity.CatalogObjectEntityKey(bucketId,
+                                                                                                                           object.getName()));
+        if (catalogObject == null) {
+            return this.createCatalogObject(bucketName,
+                                            object.getName(),
+                                            Strings.isNullOrEmpty(projectName) ? object.getMetadata().getProjectName()
+                                                                               : projectName,
+                                            Strings.isNullOrEmpty(tags) ? object.getMetadata().getTags() : tags,
+                                            object.getMetadata().getKind(),
+                                            Strings.isNullOrEmpty(commitMessage) ? object.getMetadata()
+                                                                                         .getCommitMessage()
+                                                                                 : commitMessage,
+                                            user.getName(),
+                                            object.getMetadata().getContentType(),
+                                            Collections.emptyList(),
+                                            objectFile,
+                                            FilenameUtils.getExtension(object.getFile()));
+        } else {
+            if (!user.equals(AuthenticatedUser.EMPTY) &&
+                !AccessTypeHelper.satisfy(grantRightsService.getCatalogObjectRights(user, bucketName, object.getName()),
+                                          write)) {
+                throw new CatalogObjectGrantAccessException(bucketName, object.getName());
+            }
+            return this.createCatalogObjectRevision(bucketName,
+                                                    object.getName(),
+                                                    projectName,
+                                                    tags,
+                                                    Strings.isNullOrEmpty(commitMessage) ? object.getMetadata()
+                                                                                                 .getCommitMessage()
+                                                                                         : commitMessage,
+                                                    user.getName(),
+                                                    objectFile);
+        }
+    }
+
+    // the imported objects are written by JDBC batches and detached every chunk, so that the persistence context
+    // does not grow with the size of the imported archive
+    private void flushImportedObjectsByChunk(int importedObjects) {
+        if (importedObjects % IMPORT_CHUNK_SIZE == 0) {
+            entityManager.flush();
+            entityManager.clear();
+        }
     }
 
     @Transactional
@@ -303,6 +384,7 @@ public class CatalogObjectService {
                                                                      .nameLower(name)
                                                                      .build();
         bucketEntity.getCatalogObjects().add(catalogObjectEntity);
+        bucketRepository.addToObjectCount(bucketEntity.getId(), 1);
         CatalogObjectRevisionEntity result = buildCatalogObjectRevisionEntity(commitMessage,
                                                                               username,
                                                                               projectName,
@@ -311,6 +393,8 @@ public class CatalogObjectService {
                                                                               catalogObjectEntity,
                                                                               metadataList,
                                                                               false);
+        catalogObjectDependencyIndex.indexRevision(result);
+        catalogObjectFacetIndex.indexRevision(result);
         return new CatalogObjectMetadata(catalogObjectRevisionRepository.save(result));
     }
 
@@ -395,7 +479,10 @@ public class CatalogObjectService {
         });
 
         catalogObjectRevisionRepository.save(updateRevisionEntities);
+        updateRevisionEntities.forEach(catalogObjectDependencyIndex::indexRevision);
+        updateRevisionEntities.forEach(catalogObjectFacetIndex::indexRevision);
         catalogObjectRepository.save(updateCatalogObjectEntities);
+        updateCatalogObjectEntities.forEach(catalogObjectFacetIndex::indexCatalogObject);
 
         return updateCatalogObjectEntities.stream().map(CatalogObjectMetadata::new).collect(Collectors.toList());
     }
@@ -412,19 +499,21 @@ public class CatalogObjectService {
     @Transactional(readOnly = true)
     protected CatalogObjectDependencies processObjectDependencies(String bucketName, String name,
             long revisionCommitTime) {
-        List<String> dependsOnCatalogObjectsList = catalogObjectRevisionRepository.findDependsOnCatalogObjectNamesFromKeyValueMetadata(bucketName,
-                                                                                                                                       name,
-                                                                                                                                       revisionCommitTime);
+        // the dependencies of the last revisions are served by the index, the older ones are read from the database
+        Map<String, String> dependsOnCatalogObjects = catalogObjectDependencyIndex.getDependsOn(bucketName,
+                                                                                                name,
+                                                                                                revisionCommitTime)
+                                                                                  .orElseGet(() -> findDependsOnCatalogObjects(bucketName,
+                                                                                                                               name,
+                                                                                                                               revisionCommitTime));
         List<DependsOnCatalogObject> dependsOnBucketAndObjectNameList = new ArrayList<>();
 
         String dependOnBucketName;
         String dependOnObjectName;
         String dependOnKind;
-        for (String dependOnBucketAndObjectName : dependsOnCatalogObjectsList) {
-            String revisionCommitTimeOfDependsOnObject = catalogObjectRevisionRepository.findRevisionOfDependsOnCatalogObjectFromKeyLabelMetadata(bucketName,
-                                                                                                                                                  name,
-                                                                                                                                                  revisionCommitTime,
-                                                                                                                                                  dependOnBucketAndObjectName);
+        for (Map.Entry<String, String> dependsOnCatalogObject : dependsOnCatalogObjects.entrySet()) {
+            String dependOnBucketAndObjectName = dependsOnCatalogObject.getKey();
+            String revisionCommitTimeOfDependsOnObject = dependsOnCatalogObject.getValue();
             dependOnBucketName = separatorUtility.getSplitBySeparator(dependOnBucketAndObjectName).get(0);
             dependOnObjectName = separatorUtility.getSplitBySeparator(dependOnBucketAndObjectName).get(1);
             boolean isCatalogObjectExist = isDependsOnObjectExistInCatalog(dependOnBucketName,
@@ -439,20 +528,40 @@ public class CatalogObjectService {
                                                                             isCatalogObjectExist));
 
         }
-        String input = separatorUtility.getConcatWithSeparator(bucketName, name);
-        List<CatalogObjectRevisionEntity> calledByCatalogObjectList = catalogObjectRevisionRepository.findCalledByCatalogObjectsFromKeyValueMetadata(input);
-        List<String> calledByBucketAndObjectNameList = calledByCatalogObjectList.stream()
-                                                                                .map(revisionEntity -> separatorUtility.getConcatWithSeparator(revisionEntity.getCatalogObject()
-                                                                                                                                                             .getBucket()
-                                                                                                                                                             .getBucketName(),
-                                                                                                                                               revisionEntity.getCatalogObject()
-                                                                                                                                                             .getId()
-                                                                                                                                                             .getName()))
-                                                                                .collect(Collectors.toList());
+        List<String> calledByBucketAndObjectNameList = catalogObjectDependencyIndex.getCalledBy(bucketName, name)
+                                                                                   .orElseGet(() -> findCalledByCatalogObjects(bucketName,
+                                                                                                                               name));
 
         return new CatalogObjectDependencies(dependsOnBucketAndObjectNameList, calledByBucketAndObjectNameList);
     }
 
+    private Map<String, String> findDependsOnCatalogObjects(String bucketName, String name, long revisionCommitTime) {
+        Map<String, String> dependsOnCatalogObjects = new LinkedHashMap<>();
+        for (String dependOnBucketAndObjectName : catalogObjectRevisionRepository.findDependsOnCatalogObjectNamesFromKeyValueMetadata(bucketName,
+                                                                                                                                      name,
+                                                                                                                                      revisionCommitTime)) {
+            dependsOnCatalogObjects.put(dependOnBucketAndObjectName,
+                                        catalogObjectRevisionRepository.findRevisionOfDependsOnCatalogObjectFromKeyLabelMetadata(bucketName,
+                                                                                                                                 name,
+                                                                                                                                 revisionCommitTime,
+                                                                                                                                 dependOnBucketAndObjectName));
+        }
+        return dependsOnCatalogObjects;
+    }
+
+    private List<String> findCalledByCatalogObjects(String bucketName, String name) {
+        String input = separatorUtility.getConcatWithSeparator(bucketName, name);
+        List<CatalogObjectRevisionEntity> calledByCatalogObjectList = catalogObjectRevisionRepository.findCalledByCatalogObjectsFromKeyValueMetadata(input);
+        return calledByCatalogObjectList.stream()
+                                        .map(revisionEntity -> separatorUtility.getConcatWithSeparator(revisionEntity.getCatalogObject()
+                                                                                                                     .getBucket()
+                                                                                                                     .getBucketName(),
+                                                                                                       revisionEntity.getCatalogObject()
+                                                                                                                     .getId()
+                                                                                                                     .getName()))
+                                        .collect(Collectors.toList());
+    }
+
     @Transactional(readOnly = true)
     public boolean isDependsOnObjectExistInCatalog(String bucketName, String name,
             String revisionCommitTimeOfDependsOnObject) {
@@ -469,6 +578,34 @@ public class CatalogObjectService {
         return catalogObjectRevisionEntity != null;
     }
 
+    /**
+     * Resolves the kinds of several catalog objects at once, the objects of a same bucket being fetched with IN
+     * batched queries instead of one query per object
+     *
+     * @param bucketAndObjectNames catalog objects as bucket/name
+     * @return the kind of each of the given catalog objects existing in the catalog, keyed by bucket/name
+     */
+    @Transactional(readOnly = true)
+    public Map<String, String> getCatalogObjectsKinds(Collection<String> bucketAndObjectNames) {
+        Map<String, List<String>> objectNamesByBucket = bucketAndObjectNames.stream()
+                                                                            .distinct()
+                                                                            .map(separatorUtility::getSplitBySeparator)
+                                                                            .collect(Collectors.groupingBy(bucketAndObjectName -> bucketAndObjectName.get(0),
+                                                                                                           Collectors.mapping(bucketAndObjectName -> bucketAndObjectName.get(1),
+                                                                                                                              Collectors.toList())));
+        Map<String, String> kinds = new HashMap<>();
+        objectNamesByBucket.forEach((bucketName,
+                objectNames) -> Lists.partition(objectNames, ORACLEDB_MAX_IN_PARAMS)
+                                     .stream()
+                                     .map(partitionedObjectNames -> catalogObjectRepository.findKindsByNameInBucket(bucketName,
+                                                                                                                    partitionedObjectNames))
+                                     .flatMap(List::stream)
+                                     .forEach(row -> kinds.put(separatorUtility.getConcatWithSeparator(bucketName,
+                                                                                                       (String) row[0]),
+                                                               (String) row[1])));
+        return kinds;
+    }
+
     /**
      *
      * @param bucketName
@@ -570,19 +707,13 @@ public class CatalogObjectService {
         //synchronize tags values
         List<KeyValueLabelMetadataEntity> synchronizedKeyValueMetadataEntityList = synchronizeTagsInMetadataEntityList(genericInformationWithBucketDataList,
                                                                                                                        synchronizedTags);
-        byte[] workflowWithReplacedGenericInfo = workflowInfoAdder.addGenericInformationJobNameToRawObjectIfWorkflow(rawObject,
-                                                                                                                     catalogObjectEntity.getKind(),
-                                                                                                                     keyValueLabelMetadataHelper.toMap(keyValueLabelMetadataHelper.getOnlyGenericInformation(synchronizedKeyValueMetadataEntityList)),
-                                                                                                                     catalogObjectEntity.getId()
-                                                                                                                                        .getName());
-        byte[] workflowWithSynchronizedProjectName = workflowInfoAdder.addAttributeToRawObjectIfWorkflow(workflowWithReplacedGenericInfo,
-                                                                                                         catalogObjectEntity.getKind(),
-                                                                                                         "projectName",
-                                                                                                         synchronizedProjectName);
-        byte[] workflowWithSynchronizedProjectNameAndTags = workflowInfoAdder.addAttributeToRawObjectIfWorkflow(workflowWithSynchronizedProjectName,
-                                                                                                                catalogObjectEntity.getKind(),
-                                                                                                                "tags",
-                                                                                                                synchronizedTags);
+        byte[] workflowWithSynchronizedJobLevelInformation = workflowInfoAdder.addJobLevelInformationToRawObjectIfWorkflow(rawObject,
+                                                                                                                           catalogObjectEntity.getKind(),
+                                                                                                                           keyValueLabelMetadataHelper.toMap(keyValueLabelMetadataHelper.getOnlyGenericInformation(synchronizedKeyValueMetadataEntityList)),
+                                                                                                                           catalogObjectEntity.getId()
+                                                                                                                                              .getName(),
+                                                                                                                           synchronizedProjectName,
+                                                                                                                           synchronizedTags);
 
         CatalogObjectRevisionEntity catalogObjectRevisionEntity = CatalogObjectRevisionEntity.builder()
                                                                                              .commitMessage(commitMessage)
@@ -594,7 +725,7 @@ public class CatalogObjectService {
                                                                                                                       .toInstant()
                                                                                                                       .toEpochMilli())
                                                                                              .keyValueMetadataList(synchronizedKeyValueMetadataEntityList)
-                                                                                             .rawObject(workflowWithSynchronizedProjectNameAndTags)
+                                                                                             .content(findOrCreateContent(workflowWithSynchronizedJobLevelInformation))
                                                                                              .catalogObject(catalogObjectEntity)
                                                                                              .build();
         synchronizedKeyValueMetadataEntityList.forEach(keyValue -> keyValue.setCatalogObjectRevision(catalogObjectRevisionEntity));
@@ -602,6 +733,54 @@ public class CatalogObjectService {
         return catalogObjectRevisionEntity;
     }
 
+    /**
+     * Returns the stored content having the same bytes as the given raw object, or a new content if none exists.
+     * The reference count of the content is incremented in the current transaction, so that the reference is
+     * rolled back with the revision. Only the creation of a new content is committed at once.
+     *
+     * @param rawObject the raw object of a new revision
+     * @return the content to reference from the new revision, or null if the raw object is null
+     */
+    protected CatalogObjectContentEntity findOrCreateContent(byte[] rawObject) {
+        if (rawObject == null) {
+            return null;
+        }
+        String contentHash = CatalogObjectContentEntity.computeContentHash(rawObject);
+        Long contentId = catalogObjectContentRepository.findIdByContentHash(contentHash);
+        for (int attempt = 1;; attempt++) {
+            // no row is updated when the content has been deleted since it was found
+            if (contentId != null && catalogObjectContentRepository.addToReferenceCount(contentId, 1) > 0) {
+                // only a reference is needed, the raw object of the content is not loaded
+                return catalogObjectContentRepository.getOne(contentId);
+            }
+            try {
+                contentId = catalogObjectContentStore.findOrCreateContent(rawObject);
+            } catch (DataIntegrityViolationException e) {
+                if (attempt >= MAX_CONTENT_REFERENCE_ATTEMPTS) {
+                    throw e;
+                }
+                // the same content has been created concurrently, reference it instead
+                log.debug("Content {} created concurrently, referencing it", contentHash);
+                contentId = null;
+            }
+        }
+    }
+
+    /**
+     * Decrements the reference counts of the contents referenced by the catalog object revisions
+     *
+     * @return the ids of the released contents
+     */
+    private Set<Long> releaseContents(CatalogObjectEntity.CatalogObjectEntityKey catalogObjectKey) {
+        Map<Long, Long> referencesByContentId = catalogObjectContentRepository.findContentIdsOfCatalogObject(catalogObjectKey)
+                                                                              .stream()
+                                                                              .collect(Collectors.groupingBy(contentId -> contentId,
+                                                                                                             Collectors.counting()));
+        referencesByContentId.forEach((contentId,
+                references) -> catalogObjectContentRepository.addToReferenceCount(contentId, -references));
+        return referencesByContentId.keySet();
+    }
+
     private String synchronizeMetadataValue(String queryParamMetadata, String metadataListMetadata,
             String workflowXmlMetadata) {
         String synchronizedMetadataValue = "";
@@ -647,9 +826,10 @@ public class CatalogObjectService {
     @Transactional(readOnly = true)
     public List<CatalogObjectMetadata> listCatalogObjects(List<String> bucketNames, int pageNo, int pageSize) {
         bucketNames.forEach(this::findBucketByNameAndCheck);
-        List<CatalogObjectRevisionEntity> result = listCatalogObjectsEntities(bucketNames, pageNo, pageSize);
-
-        return buildMetadataWithLink(result);
+        List<CatalogObjectRevisionProjection> result = catalogObjectRevisionRepository.findDefaultCatalogObjectProjectionsInBucket(bucketNames,
+                                                                                                                                  new PageRequest(pageNo,
+                                                                                                                                                  pageSize));
+        return buildMetadataFromProjections(result);
     }
 
     @Transactional(readOnly = true)
@@ -684,11 +864,36 @@ public class CatalogObjectService {
             Optional<String> projectNameFilter, Optional<String> lastCommitByFilter,
             Optional<String> committedAtLeastOnceByFilter, Optional<Long> lastCommitTimeGreater,
             Optional<Long> lastCommitTimeLessThan, int pageNo, int pageSize) {
+        return listCatalogObjects(bucketsNames,
+                                  kind,
+                                  contentType,
+                                  objectNameFilter,
+                                  objectTagFilter,
+                                  projectNameFilter,
+                                  lastCommitByFilter,
+                                  committedAtLeastOnceByFilter,
+                                  lastCommitTimeGreater,
+                                  lastCommitTimeLessThan,
+                                  CatalogObjectAccessFilter.ALL,
+                                  pageNo,
+                                  pageSize);
+    }
+
+    /**
+     * Lists catalog objects, keeping only those accepted by the given access filter. The access filter is applied by
+     * the database query, so that pages are not shortened by inaccessible objects.
+     */
+    @Transactional(readOnly = true)
+    public List<CatalogObjectMetadata> listCatalogObjects(List<String> bucketsNames, Optional<String> kind,
+            Optional<String> contentType, Optional<String> objectNameFilter, Optional<String> objectTagFilter,
+            Optional<String> projectNameFilter, Optional<String> lastCommitByFilter,
+            Optional<String> committedAtLeastOnceByFilter, Optional<Long> lastCommitTimeGreater,
+            Optional<Long> lastCommitTimeLessThan, CatalogObjectAccessFilter accessFilter, int pageNo, int pageSize) {
         List<CatalogObjectMetadata> metadataList;
         if (kind.isPresent() || contentType.isPresent() || objectNameFilter.isPresent() ||
             objectTagFilter.isPresent() || projectNameFilter.isPresent() || lastCommitByFilter.isPresent() ||
             committedAtLeastOnceByFilter.isPresent() || lastCommitTimeGreater.isPresent() ||
-            lastCommitTimeLessThan.isPresent()) {
+            lastCommitTimeLessThan.isPresent() || !accessFilter.isAllAccessible()) {
             metadataList = listCatalogObjectsByKindListAndContentTypeAndObjectNameAndObjectTag(bucketsNames,
                                                                                                kind.orElse(""),
                                                                                                contentType.orElse(""),
@@ -699,6 +904,7 @@ public class CatalogObjectService {
                                                                                                committedAtLeastOnceByFilter.orElse(""),
                                                                                                lastCommitTimeGreater.orElse(0L),
                                                                                                lastCommitTimeLessThan.orElse(0L),
+                                                                                               accessFilter,
                                                                                                pageNo,
                                                                                                pageSize);
         } else {
@@ -707,16 +913,87 @@ public class CatalogObjectService {
         return metadataList;
     }
 
+    /**
+     * Lists a page of catalog objects ordered by last commit time then name, starting right after the given cursor.
+     * Unlike page numbers, the cost of fetching a page does not grow with its position in the listing.
+     */
+    @Transactional(readOnly = true)
+    public List<CatalogObjectMetadata> listCatalogObjectsAfterCursor(List<String> bucketNames, Optional<String> kind,
+            Optional<String> contentType, Optional<String> objectNameFilter, Optional<String> objectTagFilter,
+            Optional<String> projectNameFilter, Optional<String> lastCommitByFilter,
+            Optional<String> committedAtLeastOnceByFilter, Optional<Long> lastCommitTimeGreater,
+            Optional<Long> lastCommitTimeLessThan, CatalogObjectAccessFilter accessFilter,
+            Optional<CatalogObjectCursor> cursor, int pageSize) {
+        bucketNames.forEach(this::findBucketByNameAndCheck);
+        List<String> kindList = new ArrayList<>();
+        if (kind.isPresent()) {
+            kindList = Arrays.asList(kind.get().toLowerCase().split(","));
+        }
+        List<CatalogObjectRevisionProjection> result = catalogObjectRevisionRepository.findDefaultCatalogObjectProjectionsAfterCursor(bucketNames,
+                                                                                                                                     kindList,
+                                                                                                                                     contentType.orElse(null),
+                                                                                                                                     objectNameFilter.orElse(null),
+                                                                                                                                     projectNameFilter.orElse(null),
+                                                                                                                                     lastCommitByFilter.orElse(null),
+                                                                                                                                     committedAtLeastOnceByFilter.orElse(null),
+                                                                                                                                     objectTagFilter.orElse(null),
+                                                                                                                                     lastCommitTimeGreater.orElse(0L),
+                                                                                                                                     lastCommitTimeLessThan.orElse(0L),
+                                                                                                                                     accessFilter,
+                                                                                                                                     cursor.orElse(null),
+                                                                                                                                     pageSize);
+        return buildMetadataFromProjections(result);
+    }
+
     private List<CatalogObjectMetadata> buildMetadataWithLink(List<CatalogObjectRevisionEntity> result) {
         return result.stream().map(CatalogObjectMetadata::new).collect(Collectors.toList());
     }
 
+    /**
+     * Builds the catalog objects metadata from listing projections, the key/values of all the listed revisions are
+     * fetched together instead of being loaded revision by revision
+     */
+    private List<CatalogObjectMetadata> buildMetadataFromProjections(List<CatalogObjectRevisionProjection> result) {
+        List<Long> revisionIds = result.stream().map(CatalogObjectRevisionProjection::getId).collect(Collectors.toList());
+        Map<Long, List<Metadata>> metadataByRevisionId = Lists.partition(revisionIds, ORACLEDB_MAX_IN_PARAMS)
+                                                              .stream()
+                                                              .map(catalogObjectRevisionRepository::findMetadataProjectionsByRevisionIds)
+                                                              .flatMap(List::stream)
+                                                              .collect(Collectors.groupingBy(KeyValueLabelMetadataProjection::getRevisionId,
+                                                                                             Collectors.mapping(KeyValueLabelMetadataProjection::toMetadata,
+                                                                                                                Collectors.toList())));
+        return result.stream()
+                     .map(projection -> new CatalogObjectMetadata(projection,
+                                                                  metadataByRevisionId.get(projection.getId())))
+                     .collect(Collectors.toList());
+    }
+
     // find pageable catalog objects by kind(s) and Content-Type and objectName and objectTag
     @Transactional(readOnly = true)
     public List<CatalogObjectMetadata> listCatalogObjectsByKindListAndContentTypeAndObjectNameAndObjectTag(
             List<String> bucketNames, String kind, String contentType, String objectName, String objectTag,
             String projectName, String lastCommitBy, String committedAtLeastOnceBy, Long lastCommitTimeGreater,
             Long lastCommitTimeLessThan, int pageNo, int pageSize) {
+        return listCatalogObjectsByKindListAndContentTypeAndObjectNameAndObjectTag(bucketNames,
+                                                                                   kind,
+                                                                                   contentType,
+                                                                                   objectName,
+                                                                                   objectTag,
+                                                                                   projectName,
+                                                                                   lastCommitBy,
+                                                                                   committedAtLeastOnceBy,
+                                                                                   lastCommitTimeGreater,
+                                                                                   lastCommitTimeLessThan,
+                                                                                   CatalogObjectAccessFilter.ALL,
+                                                                                   pageNo,
+                                                                                   pageSize);
+    }
+
+    @Transactional(readOnly = true)
+    public List<CatalogObjectMetadata> listCatalogObjectsByKindListAndContentTypeAndObjectNameAndObjectTag(
+            List<String> bucketNames, String kind, String contentType, String objectName, String objectTag,
+            String projectName, String lastCommitBy, String committedAtLeastOnceBy, Long lastCommitTimeGreater,
+            Long lastCommitTimeLessThan, CatalogObjectAccessFilter accessFilter, int pageNo, int pageSize) {
         bucketNames.forEach(this::findBucketByNameAndCheck);
         List<String> kindList = new ArrayList<>();
         if (!kind.isEmpty()) {
@@ -724,9 +1001,9 @@ public class CatalogObjectService {
         } else {
             kindList.add("");
         }
-        List<CatalogObjectRevisionEntity> objectList;
+        List<CatalogObjectRevisionProjection> objectList;
         if (Strings.isNullOrEmpty(objectTag)) {
-            objectList = catalogObjectRevisionRepository.findDefaultCatalogObjectsOfKindListAndContentTypeAndObjectNameInBucket(bucketNames,
+            objectList = catalogObjectRevisionRepository.findDefaultCatalogObjectProjectionsOfKindListAndContentTypeAndObjectNameInBucket(bucketNames,
                                                                                                                                 kindList,
                                                                                                                                 contentType,
                                                                                                                                 objectName,
@@ -735,11 +1012,11 @@ public class CatalogObjectService {
                                                                                                                                 committedAtLeastOnceBy,
                                                                                                                                 lastCommitTimeGreater,
                                                                                                                                 lastCommitTimeLessThan,
+                                                                                                                                accessFilter,
                                                                                                                                 pageNo,
                                                                                                                                 pageSize);
         } else {
-            objectList = catalogObjectRevisionRepository.findDefaultCatalogObjectsOfKindListAndContentTypeAndObjectNameAndTagInBucket(bucketNames,
-                                                                                                                                      null,
+            objectList = catalogObjectRevisionRepository.findDefaultCatalogObjectProjectionsOfKindListAndContentTypeAndObjectNameAndTagInBucket(bucketNames,
                                                                                                                                       kindList,
                                                                                                                                       contentType,
                                                                                                                                       objectName,
@@ -749,23 +1026,52 @@ public class CatalogObjectService {
                                                                                                                                       objectTag,
                                                                                                                                       lastCommitTimeGreater,
                                                                                                                                       lastCommitTimeLessThan,
+                                                                                                                                      accessFilter,
                                                                                                                                       pageNo,
                                                                                                                                       pageSize);
         }
 
-        return buildMetadataWithLink(objectList);
+        return buildMetadataFromProjections(objectList);
     }
 
+    /**
+     * @return true if some of the given catalog objects do not exist in the bucket, in which case an archive of these
+     * objects is partial
+     */
     @Transactional(readOnly = true)
-    public ZipArchiveContent getCatalogObjectsAsZipArchive(String bucketName, List<String> catalogObjectsNames) {
-        List<CatalogObjectRevisionEntity> revisions = getCatalogObjects(bucketName, catalogObjectsNames);
-        return archiveManager.compressZIP(catalogObjectsNames.size() != revisions.size(), revisions);
+    public boolean isAnyCatalogObjectMissing(String bucketName, List<String> catalogObjectsNames) {
+        findBucketByNameAndCheck(bucketName);
+        long existingCatalogObjects = Lists.partition(catalogObjectsNames, ORACLEDB_MAX_IN_PARAMS)
+                                           .stream()
+                                           .mapToLong(partitionedCatalogObjectsName -> catalogObjectRevisionRepository.countDefaultCatalogObjectsByNameInBucket(bucketName,
+                                                                                                                                                                  partitionedCatalogObjectsName))
+                                           .sum();
+        return existingCatalogObjects != catalogObjectsNames.size();
     }
 
+    /**
+     * Writes the given catalog objects as a plain ZIP archive to the output stream
+     */
     @Transactional(readOnly = true)
-    public ZipArchiveContent getCatalogObjectsAsPackageZipArchive(String bucketName, List<String> catalogObjectsNames) {
-        List<CatalogObjectRevisionEntity> revisions = getCatalogObjects(bucketName, catalogObjectsNames);
-        return archiveManager.compressPackageZIP(catalogObjectsNames.size() != revisions.size(), revisions, bucketName);
+    public void writeCatalogObjectsAsZipArchive(String bucketName, List<String> catalogObjectsNames,
+            OutputStream outputStream) {
+        findBucketByNameAndCheck(bucketName);
+        try (ArchiveManagerHelper.ZipArchiveWriter zipArchiveWriter = archiveManager.createZipArchiveWriter(outputStream)) {
+            writeCatalogObjectsWithContent(bucketName, catalogObjectsNames, zipArchiveWriter);
+        }
+    }
+
+    /**
+     * Writes the given catalog objects as a ProActive Package ZIP archive to the output stream
+     */
+    @Transactional(readOnly = true)
+    public void writeCatalogObjectsAsPackageZipArchive(String bucketName, List<String> catalogObjectsNames,
+            OutputStream outputStream) {
+        findBucketByNameAndCheck(bucketName);
+        try (ArchiveManagerHelper.ZipArchiveWriter zipArchiveWriter = archiveManager.createPackageZipArchiveWriter(outputStream,
+                                                                                                                   bucketName)) {
+            writeCatalogObjectsWithContent(bucketName, catalogObjectsNames, zipArchiveWriter);
+        }
     }
 
     @Transactional(readOnly = true)
@@ -780,11 +1086,22 @@ public class CatalogObjectService {
         return Lists.partition(catalogObjectsNames, ORACLEDB_MAX_IN_PARAMS)
                     .stream()
                     .map(partitionedCatalogObjectsName -> catalogObjectRevisionRepository.findDefaultCatalogObjectsByNameInBucket(bucketName,
-                                                                                                                                  catalogObjectsNames))
+                                                                                                                                  partitionedCatalogObjectsName))
                     .flatMap(List::stream)
                     .collect(Collectors.toList());
     }
 
+    // the raw objects are fetched and written by chunks, each chunk being detached from the persistence context
+    // once written, so that exporting a bucket does not hold all its raw objects in memory
+    private void writeCatalogObjectsWithContent(String bucketName, List<String> catalogObjectsNames,
+            ArchiveManagerHelper.ZipArchiveWriter zipArchiveWriter) {
+        for (List<String> partitionedCatalogObjectsName : Lists.partition(catalogObjectsNames, ARCHIVE_CHUNK_SIZE)) {
+            zipArchiveWriter.write(catalogObjectRevisionRepository.findDefaultCatalogObjectsWithContentByNameInBucket(bucketName,
+                                                                                                                      partitionedCatalogObjectsName));
+            entityManager.clear();
+        }
+    }
+
     @Transactional
     public CatalogObjectMetadata delete(String bucketName, String name) throws CatalogObjectNotFoundException {
         BucketEntity bucketEntity = findBucketByNameAndCheck(bucketName);
@@ -792,8 +1109,19 @@ public class CatalogObjectService {
         try {
             // Delete all grants that are associated to the object
             catalogObjectGrantService.deleteAllCatalogObjectGrantsByBucketNameAndObjectName(bucketName, name);
+            CatalogObjectEntity.CatalogObjectEntityKey catalogObjectKey = new CatalogObjectEntity.CatalogObjectEntityKey(bucketEntity.getId(),
+                                                                                                                       name);
+            // Release the contents referenced by the object revisions
+            Set<Long> releasedContentIds = releaseContents(catalogObjectKey);
             // Delete the catalog Object
-            catalogObjectRepository.delete(new CatalogObjectEntity.CatalogObjectEntityKey(bucketEntity.getId(), name));
+            catalogObjectRepository.delete(catalogObjectKey);
+            catalogObjectRepository.flush();
+            bucketRepository.addToObjectCount(bucketEntity.getId(), -1);
+            // only the released contents can have become unreferenced
+            Lists.partition(new ArrayList<>(releasedContentIds), ORACLEDB_MAX_IN_PARAMS)
+                 .forEach(catalogObjectContentRepository::deleteUnreferencedContents);
+            catalogObjectDependencyIndex.removeCatalogObject(bucketName, name);
+            catalogObjectFacetIndex.removeCatalogObject(bucketName, name);
         } catch (EmptyResultDataAccessException emptyResultDataAccessException) {
             log.warn("CatalogObject {} does not exist in bucket {}", name, bucketName);
             throw new CatalogObjectNotFoundException(bucketName, name);
@@ -849,6 +1177,8 @@ public class CatalogObjectService {
                                                                                       catalogObject,
                                                                                       metadataListParsed,
                                                                                       false);
+        catalogObjectDependencyIndex.indexRevision(revisionEntity);
+        catalogObjectFacetIndex.indexRevision(revisionEntity);
 
         return new CatalogObjectMetadata(catalogObjectRevisionRepository.save(revisionEntity));
     }
@@ -934,6 +1264,8 @@ public class CatalogObjectService {
                                                                                         catalogObjectRevision.getCatalogObject(),
                                                                                         metadataList,
                                                                                         false);
+        catalogObjectDependencyIndex.indexRevision(restoredRevision);
+        catalogObjectFacetIndex.indexRevision(restoredRevision);
 
         return new CatalogObjectMetadata(catalogObjectRevisionRepository.save(restoredRevision));
     }
@@ -947,7 +1279,8 @@ public class CatalogObjectService {
      */
     @Transactional(readOnly = true)
     public TreeSet<String> getKinds() {
-        Set<String> allStoredKinds = catalogObjectRepository.findAllKinds();
+        Set<String> allStoredKinds = catalogObjectFacetIndex.getKinds()
+                                                            .orElseGet(catalogObjectRepository::findAllKinds);
         TreeSet<String> resultKinds = new TreeSet<>();
 
         allStoredKinds.forEach(kind -> {
@@ -968,7 +1301,8 @@ public class CatalogObjectService {
      */
     @Transactional(readOnly = true)
     public TreeSet<String> getContentTypes() {
-        return new TreeSet<>(catalogObjectRepository.findAllContentTypes());
+        return new TreeSet<>(catalogObjectFacetIndex.getContentTypes()
+                                                    .orElseGet(catalogObjectRepository::findAllContentTypes));
     }
 
     /**
@@ -976,7 +1310,8 @@ public class CatalogObjectService {
      */
     @Transactional(readOnly = true)
     public TreeSet<String> getObjectTags() {
-        return new TreeSet<>(catalogObjectRepository.findAllObjectTags());
+        return new TreeSet<>(catalogObjectFacetIndex.getObjectTags()
+                                                    .orElseGet(catalogObjectRepository::findAllObjectTags));
     }
 
     @Transactional(readOnly = true)
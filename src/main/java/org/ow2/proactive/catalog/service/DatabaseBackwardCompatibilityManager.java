@@ -43,9 +43,17 @@ public class DatabaseBackwardCompatibilityManager {
     @Autowired
     NameKindContentTypeLowerCaseStartupAdder nameKindContentTypeLowerCaseStartupAdder;
 
+    @Autowired
+    CatalogObjectContentStartupAdder catalogObjectContentStartupAdder;
+
+    @Autowired
+    BucketObjectCountStartupAdder bucketObjectCountStartupAdder;
+
     @PostConstruct
     public void initMissingColumnsInDatabase() {
         projectNameStartupAdder.synchronizeProjectName();
         nameKindContentTypeLowerCaseStartupAdder.synchronizeNameKindAndContentType();
+        catalogObjectContentStartupAdder.moveRawObjectsToContentTable();
+        bucketObjectCountStartupAdder.synchronizeObjectCounts();
     }
 }
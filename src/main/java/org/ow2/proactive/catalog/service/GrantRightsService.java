@@ -44,12 +44,17 @@ import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
 import org.ow2.proactive.catalog.service.exception.BucketNotFoundException;
 import org.ow2.proactive.catalog.service.exception.CatalogObjectNotFoundException;
 import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
+import org.ow2.proactive.catalog.service.model.CatalogObjectAccessFilter;
+import org.ow2.proactive.catalog.service.model.UserCatalogObjectsAccess;
+import org.ow2.proactive.catalog.service.model.UserRightsTable;
 import org.ow2.proactive.catalog.util.AccessTypeHelper;
 import org.ow2.proactive.catalog.util.GrantHelper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.google.common.collect.Lists;
+
 import lombok.extern.log4j.Log4j2;
 
 
@@ -66,6 +71,25 @@ public class GrantRightsService {
     @Autowired
     private BucketRepository bucketRepository;
 
+    @Autowired
+    private UserRightsCache userRightsCache;
+
+    /**
+     * Get all the bucket and catalog object grants assigned to the user, its groups or its tenant.
+     *
+     * The table is cached until the user's grants are modified, so that the rights of a user can be resolved
+     * repeatedly without querying the database.
+     *
+     * @param user authenticated user
+     * @return the rights table of the user
+     */
+    @Transactional(readOnly = true)
+    public UserRightsTable getUserRightsTable(AuthenticatedUser user) {
+        return userRightsCache.get(user,
+                                   () -> new UserRightsTable(bucketGrantService.getUserAllBucketsGrants(user),
+                                                             catalogObjectGrantService.getObjectsGrants(user)));
+    }
+
     /**
      *
      * This method calculates the resulting grant for a user for an operation regarding a bucket, taking into consideration the priorities of the grants assigned
@@ -86,7 +110,7 @@ public class GrantRightsService {
             return admin.name();
         }
 
-        List<BucketGrantMetadata> userBucketGrants = bucketGrantService.getUserBucketGrants(user, bucketName);
+        List<BucketGrantMetadata> userBucketGrants = getUserRightsTable(user).getBucketGrants(bucketName);
         addGrantsForBucketOwner(user, bucketName, bucket.getOwner(), userBucketGrants);
 
         return getBucketRights(userBucketGrants);
@@ -128,12 +152,13 @@ public class GrantRightsService {
             return admin.name();
         }
 
-        List<CatalogObjectGrantMetadata> objGrants = catalogObjectGrantService.getObjectGrants(user,
-                                                                                               bucketName,
-                                                                                               catalogObjectName);
+        UserRightsTable userRightsTable = getUserRightsTable(user);
+        List<CatalogObjectGrantMetadata> objGrants = userRightsTable.getCatalogObjectGrants(bucketName,
+                                                                                            catalogObjectName);
         if (!objGrants.isEmpty()) {
-            Optional<String> userSpecBucketRights = bucketGrantService.getUserSpecificPositiveGrants(user, bucketName)
-                                                                      .map(BucketGrantMetadata::getAccessType);
+            Optional<String> userSpecBucketRights = userRightsTable.getUserSpecificPositiveBucketGrant(user.getName(),
+                                                                                                      bucketName)
+                                                                   .map(BucketGrantMetadata::getAccessType);
             return getCatalogObjectRightsFromHighestPriorityGrant(userSpecBucketRights, objGrants);
         }
         // In case when the user and user group object grants are unavailable, we check in the bucket grants for the accessType
@@ -170,25 +195,112 @@ public class GrantRightsService {
      */
     @Transactional(readOnly = true)
     public List<BucketMetadata> getBucketsByPrioritizedGrants(AuthenticatedUser user) {
+        return getBucketsByPrioritizedGrants(user, Optional.empty());
+    }
+
+    /**
+     * Get the list of buckets that are accessible for the user via his grants, with their object counts
+     *
+     * @param user authenticated user
+     * @param bucketName when present, only the buckets whose name contains this value (case insensitive, % can be
+     *                   used as a wildcard) are returned
+     * @return the list of buckets that are accessible for the user via his grants
+     */
+    @Transactional(readOnly = true)
+    public List<BucketMetadata> getBucketsByPrioritizedGrants(AuthenticatedUser user, Optional<String> bucketName) {
         // get all grants assigned to the user, its groups or its tenant, and group them by bucket
-        List<BucketGrantMetadata> bucketsGrants = bucketGrantService.getUserAllBucketsGrants(user);
-        List<CatalogObjectGrantMetadata> catalogObjectGrants = catalogObjectGrantService.getObjectsGrants(user);
+        UserRightsTable userRightsTable = getUserRightsTable(user);
+        List<BucketGrantMetadata> bucketsGrants = userRightsTable.getBucketGrants();
+        List<CatalogObjectGrantMetadata> catalogObjectGrants = userRightsTable.getCatalogObjectGrants();
 
         Set<String> accessibleBucketNames = findAccessibleBuckets(bucketsGrants, catalogObjectGrants);
 
         List<BucketMetadata> bucketMetadataList = new LinkedList<>();
-        for (String bucketName : accessibleBucketNames) {
-            BucketEntity bucket = bucketRepository.findOneByBucketName(bucketName);
-            if (bucket != null) {
-                BucketMetadata bucketMetadata = new BucketMetadata(bucket, bucket.getCatalogObjects().size());
-                bucketMetadataList.add(bucketMetadata);
-            } else {
-                log.warn("Cannot find bucket " + bucketName + " defined in existing grant");
+        Optional<String> bucketNamePattern = bucketName.map(BucketService::toBucketNamePattern);
+        Set<String> missingBucketNames = new HashSet<>(accessibleBucketNames);
+        for (List<String> bucketNames : Lists.partition(new ArrayList<>(accessibleBucketNames),
+                                                        CatalogObjectService.ORACLEDB_MAX_IN_PARAMS)) {
+            List<BucketEntity> buckets = bucketNamePattern.map(pattern -> bucketRepository.findByBucketNameInAndBucketNameLikeIgnoreCase(bucketNames,
+                                                                                                                                         pattern))
+                                                          .orElseGet(() -> bucketRepository.findByBucketNameIn(bucketNames));
+            for (BucketEntity bucket : buckets) {
+                bucketMetadataList.add(new BucketMetadata(bucket, bucket.countCatalogObjects()));
+                missingBucketNames.remove(bucket.getBucketName());
             }
         }
+        if (!bucketNamePattern.isPresent()) {
+            missingBucketNames.forEach(bucketName -> log.warn("Cannot find bucket " + bucketName +
+                                                              " defined in existing grant"));
+        }
         return bucketMetadataList;
     }
 
+    /**
+     * Resolve the catalog objects of all buckets that the user can read, so that they can be filtered by the database
+     * instead of checking the rights of each object.
+     *
+     * The accessible objects are the ones whose rights, as calculated by
+     * {@link #getCatalogObjectRights(AuthenticatedUser, String, String)}, allow to read them.
+     *
+     * @param user authenticated user
+     * @return the catalog objects accessible for the user
+     */
+    @Transactional(readOnly = true)
+    public UserCatalogObjectsAccess getCatalogObjectsAccess(AuthenticatedUser user) {
+        if (user.isCatalogAdmin()) {
+            return UserCatalogObjectsAccess.UNRESTRICTED;
+        }
+        Set<String> accessibleOwners = new HashSet<>();
+        accessibleOwners.add(BucketService.DEFAULT_BUCKET_OWNER);
+        user.getGroups().forEach(group -> accessibleOwners.add(OwnerGroupStringHelper.GROUP_PREFIX + group));
+
+        UserRightsTable userRightsTable = getUserRightsTable(user);
+        Map<String, CatalogObjectAccessFilter> grantedBucketsAccessFilters = new HashMap<>();
+        for (List<String> bucketNames : Lists.partition(new ArrayList<>(userRightsTable.getGrantedBucketNames()),
+                                                        CatalogObjectService.ORACLEDB_MAX_IN_PARAMS)) {
+            for (BucketEntity bucket : bucketRepository.findByBucketNameIn(bucketNames)) {
+                grantedBucketsAccessFilters.put(bucket.getBucketName(),
+                                                getReadableObjectsFilter(user, userRightsTable, bucket));
+            }
+        }
+        return UserCatalogObjectsAccess.restricted(accessibleOwners, grantedBucketsAccessFilters);
+    }
+
+    /**
+     * The objects with grants are readable according to their highest priority grant, the other objects according to
+     * the bucket rights, in the same way as {@link #getCatalogObjectRights(AuthenticatedUser, String, String)}.
+     */
+    private static CatalogObjectAccessFilter getReadableObjectsFilter(AuthenticatedUser user,
+            UserRightsTable userRightsTable, BucketEntity bucket) {
+        String bucketName = bucket.getBucketName();
+        String bucketRights;
+        if (GrantHelper.isPublicBucket(bucket.getOwner())) {
+            bucketRights = admin.name();
+        } else {
+            List<BucketGrantMetadata> bucketGrants = userRightsTable.getBucketGrants(bucketName);
+            addGrantsForBucketOwner(user, bucketName, bucket.getOwner(), bucketGrants);
+            bucketRights = getBucketRights(bucketGrants);
+        }
+        boolean bucketReadable = AccessTypeHelper.satisfy(bucketRights, read);
+
+        Optional<String> userSpecificBucketRights = userRightsTable.getUserSpecificPositiveBucketGrant(user.getName(),
+                                                                                                      bucketName)
+                                                                   .map(BucketGrantMetadata::getAccessType);
+        // the objects whose readability differs from the one of the bucket
+        Set<String> objectNames = userRightsTable.getCatalogObjectGrants(bucketName)
+                                                 .stream()
+                                                 .collect(Collectors.groupingBy(CatalogObjectGrantMetadata::getCatalogObjectName))
+                                                 .entrySet()
+                                                 .stream()
+                                                 .filter(objectGrants -> AccessTypeHelper.satisfy(getCatalogObjectRightsFromHighestPriorityGrant(userSpecificBucketRights,
+                                                                                                                                                 objectGrants.getValue()),
+                                                                                                  read) != bucketReadable)
+                                                 .map(Map.Entry::getKey)
+                                                 .collect(Collectors.toSet());
+        return bucketReadable ? CatalogObjectAccessFilter.excluding(objectNames)
+                              : CatalogObjectAccessFilter.restrictedTo(objectNames);
+    }
+
     private static Set<String> findAccessibleBuckets(List<BucketGrantMetadata> bucketsGrants,
             List<CatalogObjectGrantMetadata> catalogObjectGrants) {
         Map<String, List<BucketGrantMetadata>> bucketGrantsByBucketName = bucketsGrants.stream()
@@ -265,16 +377,30 @@ public class GrantRightsService {
      */
     public static void removeInaccessibleObjectsInBucket(List<CatalogObjectMetadata> metadataList,
             List<BucketGrantMetadata> bucketGrants, List<CatalogObjectGrantMetadata> objectsGrants) {
+        CatalogObjectAccessFilter accessFilter = getObjectAccessFilterInBucket(bucketGrants, objectsGrants);
+        metadataList.removeIf(object -> !accessFilter.isAccessible(object.getName()));
+    }
+
+    /**
+     * Resolve the user's grants into the catalog objects of a bucket the user can access, so that inaccessible
+     * objects can be filtered out by the listing query itself
+     *
+     * Note that the calculation of the accessibility is following the rule: userObject grant > userBucket grant > groupObject grant > groupBucket grant
+     *
+     * @param bucketGrants list of user's bucket grants
+     * @param objectsGrants list of user's catalog object grants for catalog objects in the bucket
+     * @return the filter describing the accessible catalog objects of the bucket
+     */
+    public static CatalogObjectAccessFilter getObjectAccessFilterInBucket(List<BucketGrantMetadata> bucketGrants,
+            List<CatalogObjectGrantMetadata> objectsGrants) {
         String bucketRights = getBucketRights(bucketGrants);
 
         if (bucketRights.equals(noAccess.name())) {
-            // When the user has no access on the bucket, we count only objects that the user have a positive grant over them
-            Set<String> accessibleObjects = getAccessibleObjects(bucketGrants, objectsGrants);
-            metadataList.removeIf(object -> !accessibleObjects.contains(object.getName()));
+            // When the user has no access on the bucket, only objects that the user have a positive grant over them are accessible
+            return CatalogObjectAccessFilter.restrictedTo(getAccessibleObjects(bucketGrants, objectsGrants));
         } else {
-            // When the user has access on the bucket, we count the objects that the user has a negative grant over it, then reduce it from the bucket objects count
-            Set<String> inaccessibleObjects = getInaccessibleObjects(bucketGrants, objectsGrants);
-            metadataList.removeIf(object -> inaccessibleObjects.contains(object.getName()));
+            // When the user has access on the bucket, all objects are accessible except those the user has a negative grant over it
+            return CatalogObjectAccessFilter.excluding(getInaccessibleObjects(bucketGrants, objectsGrants));
         }
     }
 
@@ -307,10 +433,10 @@ public class GrantRightsService {
         if (isPublicBucket || user.isCatalogAdmin()) {
             return true;
         } else {
-            List<BucketGrantMetadata> bucketGrants = bucketGrantService.getUserBucketGrants(user, bucket.getName());
+            UserRightsTable userRightsTable = getUserRightsTable(user);
+            List<BucketGrantMetadata> bucketGrants = userRightsTable.getBucketGrants(bucket.getName());
             addGrantsForBucketOwner(user, bucket.getName(), bucket.getOwner(), bucketGrants);
-            List<CatalogObjectGrantMetadata> catalogObjectsGrants = catalogObjectGrantService.getObjectsGrantsInABucket(user,
-                                                                                                                        bucket.getName());
+            List<CatalogObjectGrantMetadata> catalogObjectsGrants = userRightsTable.getCatalogObjectGrants(bucket.getName());
 
             String bucketRights = getBucketRights(bucketGrants);
             return isBucketAccessible(bucketRights, bucketGrants, catalogObjectsGrants);
@@ -27,17 +27,16 @@ package org.ow2.proactive.catalog.service;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
 
 import javax.annotation.PostConstruct;
 
+import org.ow2.proactive.catalog.graphql.bean.common.Arguments;
+import org.ow2.proactive.catalog.graphql.fetcher.CatalogObjectFetcher;
 import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
-import org.ow2.proactive.catalog.util.AccessType;
-import org.ow2.proactive.catalog.util.AccessTypeHelper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
@@ -46,6 +45,10 @@ import com.google.common.collect.ImmutableMap;
 import graphql.ExecutionInput;
 import graphql.ExecutionResult;
 import graphql.GraphQL;
+import graphql.analysis.FieldComplexityEnvironment;
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.analysis.MaxQueryDepthInstrumentation;
+import graphql.execution.instrumentation.ChainedInstrumentation;
 import graphql.schema.DataFetcher;
 import graphql.schema.GraphQLSchema;
 import graphql.schema.idl.RuntimeWiring;
@@ -64,17 +67,26 @@ import lombok.extern.log4j.Log4j2;
 @Service
 public class GraphqlService {
 
+    private static final String ALL_CATALOG_OBJECTS = "allCatalogObjects";
+
     @Getter
     private GraphQL graphql;
 
     @Autowired
     private DataFetcher catalogObjectFetcher;
 
-    @Autowired
-    private GrantRightsService grantRightsService;
+    @Value("${pa.catalog.graphql.max.query.depth:15}")
+    private int maxQueryDepth;
+
+    @Value("${pa.catalog.graphql.max.query.complexity:5000}")
+    private int maxQueryComplexity;
 
     @PostConstruct
     public void init() throws IOException {
+        graphql = buildGraphql(maxQueryDepth, maxQueryComplexity);
+    }
+
+    GraphQL buildGraphql(int maxQueryDepth, int maxQueryComplexity) throws IOException {
         SchemaParser schemaParser = new SchemaParser();
         SchemaGenerator schemaGenerator = new SchemaGenerator();
 
@@ -84,13 +96,32 @@ public class GraphqlService {
         RuntimeWiring wiring = buildRuntimeWiring();
         GraphQLSchema graphQLSchema = schemaGenerator.makeExecutableSchema(typeRegistry, wiring);
 
-        graphql = GraphQL.newGraphQL(graphQLSchema).build();
+        // queries exceeding the limits are rejected before being executed, so that a single query cannot keep the
+        // database connections busy
+        return GraphQL.newGraphQL(graphQLSchema)
+                      .instrumentation(new ChainedInstrumentation(new MaxQueryDepthInstrumentation(maxQueryDepth),
+                                                                  new MaxQueryComplexityInstrumentation(maxQueryComplexity,
+                                                                                                        GraphqlService::calculateFieldComplexity)))
+                      .build();
+    }
+
+    /**
+     * Each field costs one, except the catalog object listings which cost the number of objects they can load
+     */
+    static int calculateFieldComplexity(FieldComplexityEnvironment environment, int childComplexity) {
+        if (ALL_CATALOG_OBJECTS.equals(environment.getField().getName())) {
+            Object pageInfo = environment.getArguments().get(Arguments.PAGE_INFO.getName());
+            Object pageSize = pageInfo instanceof Map ? ((Map<?, ?>) pageInfo).get("size") : null;
+            return childComplexity +
+                   (pageSize instanceof Integer ? (Integer) pageSize : CatalogObjectFetcher.DEFAULT_PAGE_SIZE);
+        }
+        return 1 + childComplexity;
     }
 
     private RuntimeWiring buildRuntimeWiring() {
         return RuntimeWiring.newRuntimeWiring()
                             .type("Query",
-                                  typeWiring -> typeWiring.dataFetcher("allCatalogObjects", catalogObjectFetcher))
+                                  typeWiring -> typeWiring.dataFetcher(ALL_CATALOG_OBJECTS, catalogObjectFetcher))
                             .build();
     }
 
@@ -105,6 +136,12 @@ public class GraphqlService {
                                                                         .query(query)
                                                                         .operationName(operationName)
                                                                         .context(graphqlContext)
+                                                                        .graphQLContext(context -> {
+                                                                            if (user != null) {
+                                                                                context.of(CatalogObjectFetcher.AUTHENTICATED_USER,
+                                                                                           user);
+                                                                            }
+                                                                        })
                                                                         .variables(variables)
                                                                         .build());
 
@@ -114,29 +151,7 @@ public class GraphqlService {
             result.put("errors", executionResult.getErrors());
             log.error("Errors: {}", executionResult.getErrors());
         }
-        Object data = executionResult.getData();
-
-        // the following block is used to remove buckets and objects for which the current user does not have read access
-        if (data != null && user != null) {
-            try {
-                Map<String, Object> allCatalogObjects = (Map<String, Object>) ((Map<String, Object>) data).get("allCatalogObjects");
-                List<Map<String, Object>> edges = (List<Map<String, Object>>) allCatalogObjects.get("edges");
-                for (Iterator<Map<String, Object>> it = edges.iterator(); it.hasNext();) {
-                    Map<String, Object> edge = it.next();
-                    String bucketName = (String) edge.get("bucketName");
-                    String objectName = (String) edge.get("name");
-                    if (!AccessTypeHelper.satisfy(grantRightsService.getCatalogObjectRights(user,
-                                                                                            bucketName,
-                                                                                            objectName),
-                                                  AccessType.read)) {
-                        it.remove();
-                    }
-                }
-            } catch (Exception e) {
-                log.error("Unexpected exception when parsing graphql result: {}", e);
-            }
-        }
-        result.put("data", data);
+        result.put("data", executionResult.getData());
 
         return result;
     }
@@ -26,14 +26,19 @@
 package org.ow2.proactive.catalog.service;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.apache.commons.lang3.Validate;
 import org.ow2.proactive.catalog.dto.AssociatedObject;
 import org.ow2.proactive.catalog.dto.AssociatedObjectsByBucket;
 import org.ow2.proactive.catalog.service.helper.CommonRestTemplate;
+import org.ow2.proactive.catalog.service.model.JobPlannerAssociations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
@@ -41,12 +46,21 @@ import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpStatusCodeException;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+import lombok.Data;
 import lombok.extern.log4j.Log4j2;
 
 
+/**
+ * Retrieves the job-planner associations of catalog objects.
+ *
+ * All the associations are kept, indexed, in an immutable snapshot which is read without locking, and replaced in the
+ * background every pa.job-planner.cache.timeout seconds while listings keep requesting it. Listings only wait for
+ * the job-planner when no recent snapshot exists (first request, or no request for a while).
+ */
 @Service
 @Lazy
 @Log4j2
@@ -66,55 +80,144 @@ public class JobPlannerService {
     @Value("${pa.job-planner.cache.timeout}")
     private String jobPlannerCacheTimeout;
 
-    private Cache<String, List<AssociatedObjectsByBucket>> jobPlannerAllAssociationsCache;
+    private long cacheTimeoutInSeconds;
 
-    private Cache<String, AssociatedObject> jobPlannerAssociationCache;
+    private final AtomicReference<AssociationsSnapshot> associationsSnapshot = new AtomicReference<>();
+
+    // session id of the latest request, used by the background refresh to call the job-planner
+    private volatile String latestSessionId;
 
-    private static final String ALL_ASSOCIATIONS = "ALL";
+    private volatile boolean requestedSinceLastRefresh;
 
-    private ReentrantLock mainReentrantLock = new ReentrantLock();
+    private final Object snapshotLoadLock = new Object();
 
-    private Map<String, ReentrantLock> objectLocks = new ConcurrentHashMap<>();
+    private ScheduledExecutorService associationsRefresher;
+
+    private Cache<String, AssociatedObject> jobPlannerAssociationCache;
 
     @Autowired
     public JobPlannerService() {
         this.commonRestTemplate = new CommonRestTemplate();
-        int timeout = jobPlannerCacheTimeout != null ? Integer.parseInt(jobPlannerCacheTimeout) : 0;
-        jobPlannerAllAssociationsCache = CacheBuilder.newBuilder().expireAfterWrite(timeout, TimeUnit.SECONDS).build();
-        jobPlannerAssociationCache = CacheBuilder.newBuilder().expireAfterWrite(timeout, TimeUnit.SECONDS).build();
+    }
+
+    JobPlannerService(String jobPlannerRestUrl, String plannedObjectsPaths, String plannedObjectStatusPath,
+            String jobPlannerCacheTimeout) {
+        this();
+        this.jobPlannerRestUrl = jobPlannerRestUrl;
+        this.plannedObjectsPaths = plannedObjectsPaths;
+        this.plannedObjectStatusPath = plannedObjectStatusPath;
+        this.jobPlannerCacheTimeout = jobPlannerCacheTimeout;
+    }
+
+    @PostConstruct
+    public void init() {
+        cacheTimeoutInSeconds = jobPlannerCacheTimeout != null ? Long.parseLong(jobPlannerCacheTimeout) : 0;
+        // per object entries are loaded once for concurrent requests of the same object, and evicted on expiry
+        jobPlannerAssociationCache = Caffeine.newBuilder()
+                                             .expireAfterWrite(cacheTimeoutInSeconds, TimeUnit.SECONDS)
+                                             .build();
+        if (cacheTimeoutInSeconds > 0) {
+            associationsRefresher = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("job-planner-associations-refresher")
+                                                                                                         .setDaemon(true)
+                                                                                                         .build());
+            associationsRefresher.scheduleWithFixedDelay(this::refreshAssociatedObjects,
+                                                         cacheTimeoutInSeconds,
+                                                         cacheTimeoutInSeconds,
+                                                         TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (associationsRefresher != null) {
+            associationsRefresher.shutdownNow();
+        }
     }
 
     public List<AssociatedObjectsByBucket> getAssociatedObjects(String sessionId) {
+        return getAssociations(sessionId).getAssociatedObjectsByBucket();
+    }
+
+    /**
+     * @param sessionId session id used to call the job-planner
+     * @return all the job-planner associations, indexed by bucket and object name
+     */
+    public JobPlannerAssociations getAssociations(String sessionId) {
         Validate.notNull(sessionId, "SessionId must not be null");
+        latestSessionId = sessionId;
+        requestedSinceLastRefresh = true;
+        if (cacheTimeoutInSeconds <= 0) {
+            return loadAssociatedObjects(sessionId).getAssociations();
+        }
+
+        AssociationsSnapshot snapshot = associationsSnapshot.get();
+        if (isRecent(snapshot)) {
+            return snapshot.getAssociations();
+        }
+        synchronized (snapshotLoadLock) {
+            snapshot = associationsSnapshot.get();
+            if (isRecent(snapshot)) {
+                return snapshot.getAssociations();
+            }
+            return loadAssociatedObjects(sessionId).getAssociations();
+        }
+    }
+
+    /**
+     * Replace the associations snapshot, as long as associations were requested since the previous refresh.
+     * When the job-planner cannot be reached, the previous snapshot is kept.
+     */
+    void refreshAssociatedObjects() {
+        String sessionId = latestSessionId;
+        if (sessionId == null || !requestedSinceLastRefresh) {
+            return;
+        }
+        requestedSinceLastRefresh = false;
+        try {
+            associationsSnapshot.set(new AssociationsSnapshot(new JobPlannerAssociations(fetchAssociatedObjects(sessionId)),
+                                                              System.currentTimeMillis()));
+        } catch (HttpStatusCodeException httpException) {
+            log.error(String.format("Could not refresh job-planner associated objects, http response is: %s",
+                                    httpException.getResponseBodyAsString()));
+        } catch (RuntimeException e) {
+            log.error("Could not refresh job-planner associated objects", e);
+        }
+    }
+
+    private boolean isRecent(AssociationsSnapshot snapshot) {
+        // a snapshot which missed a refresh is no longer used, as nobody requested it for a while
+        return snapshot != null &&
+               System.currentTimeMillis() - snapshot.getCreationTime() < TimeUnit.SECONDS.toMillis(2 *
+                                                                                                    cacheTimeoutInSeconds);
+    }
+
+    private AssociationsSnapshot loadAssociatedObjects(String sessionId) {
         List<AssociatedObjectsByBucket> answer;
         try {
-            mainReentrantLock.lock();
-            answer = jobPlannerAllAssociationsCache.getIfPresent(ALL_ASSOCIATIONS);
-            if (answer == null) {
-                ResponseEntity<AssociatedObjectsByBucket[]> listResponseEntity;
-                String url = jobPlannerRestUrl + plannedObjectsPaths;
-                HttpHeaders headers = new HttpHeaders();
-                headers.set("sessionid", sessionId);
-                headers.setAccept(Arrays.asList(MediaType.APPLICATION_JSON));
-                HttpEntity<String> entity = new HttpEntity<String>(headers);
-                try {
-                    listResponseEntity = commonRestTemplate.getRestTemplate()
-                                                           .exchange(url,
-                                                                     HttpMethod.GET,
-                                                                     entity,
-                                                                     AssociatedObjectsByBucket[].class);
-                    answer = Arrays.asList(listResponseEntity.getBody());
-                } catch (HttpStatusCodeException httpException) {
-                    log.error(String.format("Could not retrieve job-planner associated objects, http response is: %s",
-                                            httpException.getResponseBodyAsString()));
-                    answer = Collections.emptyList();
-                }
-                jobPlannerAllAssociationsCache.put(ALL_ASSOCIATIONS, answer);
-            }
-        } finally {
-            mainReentrantLock.unlock();
+            answer = fetchAssociatedObjects(sessionId);
+        } catch (HttpStatusCodeException httpException) {
+            log.error(String.format("Could not retrieve job-planner associated objects, http response is: %s",
+                                    httpException.getResponseBodyAsString()));
+            answer = Collections.emptyList();
         }
-        return answer;
+        AssociationsSnapshot snapshot = new AssociationsSnapshot(new JobPlannerAssociations(answer),
+                                                                 System.currentTimeMillis());
+        associationsSnapshot.set(snapshot);
+        return snapshot;
+    }
+
+    private List<AssociatedObjectsByBucket> fetchAssociatedObjects(String sessionId) {
+        String url = jobPlannerRestUrl + plannedObjectsPaths;
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("sessionid", sessionId);
+        headers.setAccept(Arrays.asList(MediaType.APPLICATION_JSON));
+        HttpEntity<String> entity = new HttpEntity<String>(headers);
+        ResponseEntity<AssociatedObjectsByBucket[]> listResponseEntity = commonRestTemplate.getRestTemplate()
+                                                                                           .exchange(url,
+                                                                                                     HttpMethod.GET,
+                                                                                                     entity,
+                                                                                                     AssociatedObjectsByBucket[].class);
+        return Collections.unmodifiableList(Arrays.asList(listResponseEntity.getBody()));
     }
 
     public AssociatedObject getAssociatedObject(String sessionId, String bucketName, String objectName) {
@@ -122,37 +225,37 @@ public class JobPlannerService {
         Validate.notNull(bucketName, "bucketName must not be null");
         Validate.notNull(objectName, "objectName must not be null");
         String key = bucketName + "_" + objectName;
-        objectLocks.putIfAbsent(key, new ReentrantLock());
-        AssociatedObject answer;
+        return jobPlannerAssociationCache.get(key, k -> fetchAssociatedObject(sessionId, bucketName, objectName));
+    }
+
+    private AssociatedObject fetchAssociatedObject(String sessionId, String bucketName, String objectName) {
+        String url = jobPlannerRestUrl + plannedObjectStatusPath;
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("sessionid", sessionId);
+        headers.setAccept(Arrays.asList(MediaType.APPLICATION_JSON));
+        HttpEntity<String> entity = new HttpEntity<String>(headers);
         try {
-            objectLocks.get(key).lock();
-            answer = jobPlannerAssociationCache.getIfPresent(key);
-            if (answer == null) {
-                ResponseEntity<AssociatedObject> responseEntity;
-                String url = jobPlannerRestUrl + plannedObjectStatusPath;
-                HttpHeaders headers = new HttpHeaders();
-                headers.set("sessionid", sessionId);
-                headers.setAccept(Arrays.asList(MediaType.APPLICATION_JSON));
-                HttpEntity<String> entity = new HttpEntity<String>(headers);
-                try {
-                    responseEntity = commonRestTemplate.getRestTemplate().exchange(url,
-                                                                                   HttpMethod.GET,
-                                                                                   entity,
-                                                                                   AssociatedObject.class,
-                                                                                   bucketName,
-                                                                                   objectName);
-                    answer = responseEntity.getBody();
-                } catch (HttpStatusCodeException httpException) {
-                    log.error(String.format("Could not retrieve job-planner associated object, http response is: %s",
-                                            httpException.getResponseBodyAsString()));
-                    answer = new AssociatedObject(objectName, new HashSet<>());
-                }
-                jobPlannerAssociationCache.put(key, answer);
-            }
-        } finally {
-            objectLocks.get(key).unlock();
+            ResponseEntity<AssociatedObject> responseEntity = commonRestTemplate.getRestTemplate()
+                                                                                .exchange(url,
+                                                                                          HttpMethod.GET,
+                                                                                          entity,
+                                                                                          AssociatedObject.class,
+                                                                                          bucketName,
+                                                                                          objectName);
+            return responseEntity.getBody();
+        } catch (HttpStatusCodeException httpException) {
+            log.error(String.format("Could not retrieve job-planner associated object, http response is: %s",
+                                    httpException.getResponseBodyAsString()));
+            return new AssociatedObject(objectName, new HashSet<>());
         }
-        return answer;
+    }
+
+    @Data
+    private static class AssociationsSnapshot {
+
+        private final JobPlannerAssociations associations;
+
+        private final long creationTime;
     }
 
 }
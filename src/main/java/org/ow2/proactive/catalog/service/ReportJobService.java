@@ -0,0 +1,302 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import org.ow2.proactive.catalog.dto.ReportJobMetadata;
+import org.ow2.proactive.catalog.repository.CatalogObjectRepository;
+import org.ow2.proactive.catalog.service.exception.ReportJobNotFinishedException;
+import org.ow2.proactive.catalog.service.exception.ReportJobNotFoundException;
+import org.ow2.proactive.catalog.service.exception.ReportJobRejectedException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.Data;
+import lombok.extern.log4j.Log4j2;
+
+
+/**
+ * Generates reports and call graphs in the background, so that HTTP requests only submit, poll and download them.
+ *
+ * The generated contents are cached by kind of report, filter parameters and state of the catalog (most recent last
+ * commit time, number of catalog objects and number of updates of the facet index, which is updated once every
+ * transaction creating, updating or deleting catalog objects is committed). Identical submissions are served from the
+ * cache until a catalog object is committed, has its metadata updated or is deleted, and share the same generation
+ * while it is running.
+ *
+ * A job only refers to its content through the cache, which is bounded by size: a content evicted before it is
+ * downloaded is generated again. Submissions are rejected when all the threads are busy and the queue is full.
+ *
+ * @author ActiveEon Team
+ */
+@Log4j2
+@Service
+public class ReportJobService {
+
+    public enum ReportJobType {
+        REPORT,
+        CALL_GRAPH
+    }
+
+    private static final long MAXIMUM_NUMBER_OF_JOBS = 10000;
+
+    private final CatalogObjectRepository catalogObjectRepository;
+
+    private final CatalogObjectFacetIndex catalogObjectFacetIndex;
+
+    private final ThreadPoolExecutor reportJobExecutor;
+
+    private final Cache<String, ReportJob> jobs;
+
+    private final Cache<ReportKey, byte[]> generatedContents;
+
+    private final ConcurrentMap<ReportKey, CompletableFuture<Void>> runningGenerations = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ReportJobService(CatalogObjectRepository catalogObjectRepository,
+            CatalogObjectFacetIndex catalogObjectFacetIndex,
+            @Value("${pa.catalog.report.jobs.threads:2}") int numberOfThreads,
+            @Value("${pa.catalog.report.jobs.queue.size:20}") int queueSize,
+            @Value("${pa.catalog.report.jobs.retention.seconds:3600}") long retentionInSeconds,
+            @Value("${pa.catalog.report.cache.size.mb:256}") long cacheMaximumSizeInMb) {
+        this.catalogObjectRepository = catalogObjectRepository;
+        this.catalogObjectFacetIndex = catalogObjectFacetIndex;
+        this.reportJobExecutor = new ThreadPoolExecutor(numberOfThreads,
+                                                        numberOfThreads,
+                                                        0L,
+                                                        TimeUnit.MILLISECONDS,
+                                                        new ArrayBlockingQueue<>(queueSize),
+                                                        new ThreadFactoryBuilder().setNameFormat("report-job-%d")
+                                                                                  .setDaemon(true)
+                                                                                  .build(),
+                                                        new ThreadPoolExecutor.AbortPolicy());
+        this.jobs = CacheBuilder.newBuilder()
+                                .maximumSize(MAXIMUM_NUMBER_OF_JOBS)
+                                .expireAfterAccess(retentionInSeconds, TimeUnit.SECONDS)
+                                .build();
+        // a single segment, so that a content can use the whole size of the cache
+        this.generatedContents = CacheBuilder.newBuilder()
+                                             .concurrencyLevel(1)
+                                             .maximumWeight(cacheMaximumSizeInMb * 1024 * 1024)
+                                             .<ReportKey, byte[]> weigher((key, content) -> content.length)
+                                             .expireAfterAccess(retentionInSeconds, TimeUnit.SECONDS)
+                                             .build();
+    }
+
+    /**
+     * Submit the generation of a report
+     *
+     * @param type kind of report
+     * @param owner name of the user submitting the job, null when sessions are not required
+     * @param parameters filter parameters which fully determine the report for a given state of the catalog
+     * @param generator generates the report
+     * @return the submitted job, already finished when the report is cached
+     * @throws ReportJobRejectedException if too many jobs are already waiting to be generated
+     */
+    public ReportJobMetadata submitJob(ReportJobType type, String owner, List<Object> parameters,
+            Supplier<byte[]> generator) {
+        ReportKey key = new ReportKey(type, parameters, getCatalogState());
+        CompletableFuture<Void> generation;
+        if (generatedContents.getIfPresent(key) != null) {
+            generation = CompletableFuture.completedFuture(null);
+        } else {
+            try {
+                generation = runningGenerations.computeIfAbsent(key,
+                                                                k -> CompletableFuture.runAsync(() -> generateInBackground(k,
+                                                                                                                           generator),
+                                                                                                reportJobExecutor));
+            } catch (RejectedExecutionException e) {
+                log.warn("Report job rejected for {} {}, {} jobs are waiting",
+                         type,
+                         parameters,
+                         reportJobExecutor.getQueue().size());
+                throw new ReportJobRejectedException();
+            }
+        }
+        ReportJob job = new ReportJob(UUID.randomUUID().toString(),
+                                      owner,
+                                      System.currentTimeMillis(),
+                                      key,
+                                      generator,
+                                      generation);
+        jobs.put(job.getId(), job);
+        log.debug("Report job {} submitted for {} {}", job.getId(), type, parameters);
+        return toMetadata(job);
+    }
+
+    /**
+     * @return the state of the job
+     * @throws ReportJobNotFoundException if the job does not exist, has expired or belongs to another user
+     */
+    public ReportJobMetadata getJob(ReportJobType type, String owner, String jobId) {
+        return toMetadata(findJob(type, owner, jobId));
+    }
+
+    /**
+     * @return the generated content of the job
+     * @throws ReportJobNotFoundException if the job does not exist, has expired or belongs to another user
+     * @throws ReportJobNotFinishedException if the job is still running
+     */
+    public byte[] getJobContent(ReportJobType type, String owner, String jobId) {
+        ReportJob job = findJob(type, owner, jobId);
+        if (!job.getGeneration().isDone()) {
+            throw new ReportJobNotFinishedException(jobId);
+        }
+        try {
+            job.getGeneration().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        byte[] content = generatedContents.getIfPresent(job.getKey());
+        if (content == null) {
+            log.debug("Content of the report job {} evicted from the cache, generating it again", jobId);
+            content = generate(new ReportKey(type, job.getKey().getParameters(), getCatalogState()),
+                               job.getGenerator());
+        }
+        return content;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reportJobExecutor.shutdownNow();
+    }
+
+    private void generateInBackground(ReportKey key, Supplier<byte[]> generator) {
+        try {
+            generate(key, generator);
+        } finally {
+            runningGenerations.remove(key);
+        }
+    }
+
+    private byte[] generate(ReportKey key, Supplier<byte[]> generator) {
+        try {
+            byte[] content = generator.get();
+            generatedContents.put(key, content);
+            return content;
+        } catch (RuntimeException e) {
+            log.warn("Generation of the " + key.getType() + " failed", e);
+            throw e;
+        }
+    }
+
+    private ReportJob findJob(ReportJobType type, String owner, String jobId) {
+        ReportJob job = jobs.getIfPresent(jobId);
+        if (job == null || job.getKey().getType() != type || !Objects.equals(job.getOwner(), owner)) {
+            throw new ReportJobNotFoundException(jobId);
+        }
+        return job;
+    }
+
+    private CatalogState getCatalogState() {
+        // read first, so that an update committed during the query gives a state never seen before
+        long numberOfUpdates = catalogObjectFacetIndex.getNumberOfUpdates();
+        List<Object[]> rows = catalogObjectRepository.findMaxLastCommitTimeAndCount();
+        if (rows.isEmpty() || rows.get(0)[0] == null) {
+            return new CatalogState(0, 0, numberOfUpdates);
+        }
+        return new CatalogState(((Number) rows.get(0)[0]).longValue(),
+                                ((Number) rows.get(0)[1]).longValue(),
+                                numberOfUpdates);
+    }
+
+    private static ReportJobMetadata toMetadata(ReportJob job) {
+        CompletableFuture<Void> generation = job.getGeneration();
+        if (!generation.isDone()) {
+            return new ReportJobMetadata(job.getId(), ReportJobMetadata.Status.RUNNING, job.getSubmissionTime(), null);
+        }
+        if (generation.isCompletedExceptionally()) {
+            String error = null;
+            try {
+                generation.join();
+            } catch (CompletionException e) {
+                error = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+            }
+            return new ReportJobMetadata(job.getId(), ReportJobMetadata.Status.FAILED, job.getSubmissionTime(), error);
+        }
+        return new ReportJobMetadata(job.getId(), ReportJobMetadata.Status.FINISHED, job.getSubmissionTime(), null);
+    }
+
+    @Data
+    private static class ReportJob {
+
+        private final String id;
+
+        private final String owner;
+
+        private final long submissionTime;
+
+        private final ReportKey key;
+
+        private final Supplier<byte[]> generator;
+
+        // completes once the content is in the cache, the job never holds the content itself
+        private final CompletableFuture<Void> generation;
+    }
+
+    @Data
+    private static class ReportKey {
+
+        private final ReportJobType type;
+
+        private final List<Object> parameters;
+
+        private final CatalogState catalogState;
+    }
+
+    @Data
+    private static class CatalogState {
+
+        private final long maxLastCommitTime;
+
+        private final long numberOfObjects;
+
+        // the metadata updates change neither the commit times nor the number of catalog objects
+        private final long numberOfUpdates;
+    }
+}
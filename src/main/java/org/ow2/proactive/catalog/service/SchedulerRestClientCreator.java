@@ -25,6 +25,9 @@
  */
 package org.ow2.proactive.catalog.service;
 
+import org.apache.http.client.HttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.jboss.resteasy.client.jaxrs.engines.ApacheHttpClient4Engine;
 import org.ow2.proactive_grid_cloud_portal.scheduler.client.SchedulerRestClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -44,7 +47,47 @@ public class SchedulerRestClientCreator {
     @Value("${pa.scheduler.rest.url}")
     private String schedulerRestUrl;
 
+    @Value("${pa.catalog.scheduler.rest.max.connections:20}")
+    private int maxConnections;
+
+    private volatile SchedulerRestClient sharedClient;
+
     public SchedulerRestClient getNewClientInitializedWithSchedulerRestUrl() {
         return new SchedulerRestClient(this.getSchedulerRestUrl());
     }
+
+    /**
+     * Get a client whose http connections are pooled, so that it can be used by concurrent callers. All the
+     * connections go to the scheduler, so the pool allows as many connections to that single route as in total.
+     *
+     * @return a new scheduler rest client using a pool of http connections
+     */
+    public SchedulerRestClient getNewPooledClientInitializedWithSchedulerRestUrl() {
+        HttpClient httpClient = HttpClientBuilder.create()
+                                                 .useSystemProperties()
+                                                 .setMaxConnTotal(maxConnections)
+                                                 .setMaxConnPerRoute(maxConnections)
+                                                 .build();
+        return new SchedulerRestClient(this.getSchedulerRestUrl(), new ApacheHttpClient4Engine(httpClient));
+    }
+
+    /**
+     * Get a client shared by all callers, created on first use, so that its underlying http connections are reused
+     * between calls instead of being set up for every request
+     *
+     * @return the shared scheduler rest client
+     */
+    public SchedulerRestClient getSharedClientInitializedWithSchedulerRestUrl() {
+        SchedulerRestClient client = sharedClient;
+        if (client == null) {
+            synchronized (this) {
+                client = sharedClient;
+                if (client == null) {
+                    client = getNewPooledClientInitializedWithSchedulerRestUrl();
+                    sharedClient = client;
+                }
+            }
+        }
+        return client;
+    }
 }
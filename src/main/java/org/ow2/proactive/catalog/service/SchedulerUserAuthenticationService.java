@@ -26,7 +26,9 @@
 package org.ow2.proactive.catalog.service;
 
 import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.StringUtils;
@@ -37,37 +39,68 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.google.common.annotations.VisibleForTesting;
 
 
 /**
+ * Validates session ids against the scheduler.
+ *
+ * Valid sessions are cached: concurrent requests for the same session id wait for a single call to the scheduler,
+ * and sessions in use are refreshed in the background before they expire. Sessions unknown to the scheduler are
+ * remembered for a short time so that repeated requests with the same invalid session id do not all reach the
+ * scheduler. Failures to reach the scheduler are not cached: the next request asks the scheduler again, and a
+ * session refreshed while the scheduler is unreachable keeps its cached user data until the timeout following its
+ * last successful validation.
+ *
  * @author ActiveEon Team
  * @since 27/07/2017
  */
 @Component
 public class SchedulerUserAuthenticationService {
 
+    private static final long MAXIMUM_CACHED_SESSIONS = 10000;
+
     private final SchedulerRestClientCreator schedulerRestClientCreator;
 
-    @Value("${pa.catalog.sessionId.timeout.minutes}")
-    private int cacheTimeoutValue;
+    private final LoadingCache<String, UserData> userDataCache;
 
-    // Cache used for future planning calculations
-    private Cache<String, UserData> userDataCache = null;
+    private final Cache<String, NotAuthenticatedException> invalidSessionCache;
 
-    private Cache<String, UserData> getCache() {
-        synchronized (SchedulerUserAuthenticationService.class) {
-            if (userDataCache == null) {
-                userDataCache = CacheBuilder.newBuilder().expireAfterWrite(cacheTimeoutValue, TimeUnit.MINUTES).build();
-            }
-            return userDataCache;
-        }
+    @Autowired
+    public SchedulerUserAuthenticationService(SchedulerRestClientCreator schedulerRestClientCreator,
+            @Value("${pa.catalog.sessionId.timeout.minutes}") int cacheTimeoutValue,
+            @Value("${pa.catalog.sessionId.invalid.timeout.seconds:5}") int invalidSessionCacheTimeoutValue) {
+        this(schedulerRestClientCreator,
+             cacheTimeoutValue,
+             invalidSessionCacheTimeoutValue,
+             Ticker.systemTicker(),
+             ForkJoinPool.commonPool());
     }
 
-    @Autowired
-    public SchedulerUserAuthenticationService(SchedulerRestClientCreator schedulerRestClientCreator) {
+    @VisibleForTesting
+    SchedulerUserAuthenticationService(SchedulerRestClientCreator schedulerRestClientCreator, int cacheTimeoutValue,
+            int invalidSessionCacheTimeoutValue, Ticker ticker, Executor refreshExecutor) {
         this.schedulerRestClientCreator = schedulerRestClientCreator;
+        long cacheTimeoutInSeconds = TimeUnit.MINUTES.toSeconds(cacheTimeoutValue);
+        // a failed refresh keeps the entry without renewing its write time, so a session is never trusted for longer
+        // than the timeout after its last successful validation, even while the scheduler is unreachable
+        this.userDataCache = Caffeine.newBuilder()
+                                     .maximumSize(MAXIMUM_CACHED_SESSIONS)
+                                     .expireAfterWrite(cacheTimeoutInSeconds, TimeUnit.SECONDS)
+                                     .refreshAfterWrite(Math.max(1, cacheTimeoutInSeconds / 2), TimeUnit.SECONDS)
+                                     .ticker(ticker)
+                                     .executor(refreshExecutor)
+                                     .build(new UserDataLoader());
+        this.invalidSessionCache = Caffeine.newBuilder()
+                                           .maximumSize(MAXIMUM_CACHED_SESSIONS)
+                                           .expireAfterWrite(invalidSessionCacheTimeoutValue, TimeUnit.SECONDS)
+                                           .ticker(ticker)
+                                           .build();
     }
 
     public AuthenticatedUser authenticateBySessionId(String sessionId) throws NotAuthenticatedException {
@@ -75,22 +108,15 @@ public class SchedulerUserAuthenticationService {
             throw new NotAuthenticatedException("Could not validate empty sessionId");
         }
 
-        UserData userData = getCache().getIfPresent(sessionId);
-
-        if (userData == null) {
-            try {
-                userData = this.schedulerRestClientCreator.getNewClientInitializedWithSchedulerRestUrl()
-                                                          .getScheduler()
-                                                          .getUserDataFromSessionId(sessionId);
-            } catch (Exception exception) {
-                throw new NotAuthenticatedException("Could not validate sessionId, validation returned: " +
-                                                    exception.getMessage(), exception);
+        UserData userData;
+        try {
+            userData = userDataCache.get(sessionId);
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof NotAuthenticatedException) {
+                throw (NotAuthenticatedException) exception.getCause();
             }
-
-            if (userData == null || StringUtils.isEmpty(userData.getUserName())) {
-                throw new NotAuthenticatedException("SessionId is invalid");
-            }
-            getCache().put(sessionId, userData);
+            throw new NotAuthenticatedException("Could not validate sessionId, validation returned: " +
+                                                exception.getMessage(), exception);
         }
 
         return AuthenticatedUser.builder()
@@ -101,4 +127,67 @@ public class SchedulerUserAuthenticationService {
                                 .allTenantAccess(userData.isAllTenantPermission())
                                 .build();
     }
+
+    private UserData getUserDataFromScheduler(String sessionId) throws NotAuthenticatedException {
+        // requests waiting for a failed validation of the same session id retry the load, they fail here instead
+        NotAuthenticatedException invalidSessionException = invalidSessionCache.getIfPresent(sessionId);
+        if (invalidSessionException != null) {
+            throw invalidSessionException;
+        }
+
+        UserData userData = requestUserData(sessionId);
+        if (isUnknownSession(userData)) {
+            throw invalidSession(sessionId);
+        }
+        return userData;
+    }
+
+    /**
+     * Asks the scheduler for the user data of the session. A failure to get an answer, e.g. a connection error or a
+     * timeout, says nothing about the session, so it is reported without being cached.
+     */
+    private UserData requestUserData(String sessionId) throws NotAuthenticatedException {
+        try {
+            return this.schedulerRestClientCreator.getSharedClientInitializedWithSchedulerRestUrl()
+                                                  .getScheduler()
+                                                  .getUserDataFromSessionId(sessionId);
+        } catch (Exception exception) {
+            throw new NotAuthenticatedException("Could not validate sessionId, validation returned: " +
+                                                exception.getMessage(), exception);
+        }
+    }
+
+    private boolean isUnknownSession(UserData userData) {
+        return userData == null || StringUtils.isEmpty(userData.getUserName());
+    }
+
+    private NotAuthenticatedException invalidSession(String sessionId) {
+        NotAuthenticatedException exception = new NotAuthenticatedException("SessionId is invalid");
+        invalidSessionCache.put(sessionId, exception);
+        return exception;
+    }
+
+    @VisibleForTesting
+    class UserDataLoader implements CacheLoader<String, UserData> {
+
+        @Override
+        public UserData load(String sessionId) throws NotAuthenticatedException {
+            return getUserDataFromScheduler(sessionId);
+        }
+
+        /**
+         * A failure to reach the scheduler is thrown rather than answered with the old user data: the cached entry is
+         * then kept until it expires, instead of being written again and trusted for another full timeout.
+         */
+        @Override
+        public UserData reload(String sessionId, UserData oldUserData) throws NotAuthenticatedException {
+            UserData userData = requestUserData(sessionId);
+            if (isUnknownSession(userData)) {
+                // the session is no longer valid, remove it from the cache
+                invalidSession(sessionId);
+                return null;
+            }
+            return userData;
+        }
+    }
 }
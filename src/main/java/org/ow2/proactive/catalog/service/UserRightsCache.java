@@ -0,0 +1,130 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
+import org.ow2.proactive.catalog.service.model.UserRightsTable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import lombok.Data;
+import lombok.extern.log4j.Log4j2;
+
+
+/**
+ * Bounded cache of the rights tables of the users, keyed by (user, groups, tenant).
+ *
+ * As a single group or tenant grant affects many users, every grant modification invalidates the whole cache. The
+ * invalidation is repeated once the modifying transaction completes, so that a table loaded concurrently from the
+ * not yet committed state cannot survive the modification.
+ *
+ * @author ActiveEon Team
+ */
+@Log4j2
+@Service
+public class UserRightsCache {
+
+    private final Cache<UserKey, UserRightsTable> userRightsCache;
+
+    // incremented on every invalidation, a table loaded before an invalidation is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public UserRightsCache(@Value("${pa.catalog.security.rights.cache.size:10000}") long cacheMaximumSize,
+            @Value("${pa.catalog.security.rights.cache.timeout:60}") long cacheTimeoutInSeconds) {
+        userRightsCache = CacheBuilder.newBuilder()
+                                      .maximumSize(cacheMaximumSize)
+                                      .expireAfterWrite(cacheTimeoutInSeconds, TimeUnit.SECONDS)
+                                      .build();
+    }
+
+    /**
+     * Get the rights table of a user, loading it when it is not cached
+     *
+     * @param user authenticated user
+     * @param loader loads the rights table of the user from the database
+     * @return the rights table of the user
+     */
+    public UserRightsTable get(AuthenticatedUser user, Supplier<UserRightsTable> loader) {
+        UserKey key = new UserKey(user.getName(),
+                                  user.getGroups() == null ? Collections.emptySet()
+                                                           : new HashSet<>(user.getGroups()),
+                                  user.getTenant());
+        UserRightsTable userRightsTable = userRightsCache.getIfPresent(key);
+        if (userRightsTable == null) {
+            long loadGeneration = generation.get();
+            userRightsTable = loader.get();
+            if (loadGeneration == generation.get()) {
+                userRightsCache.put(key, userRightsTable);
+            }
+        }
+        return userRightsTable;
+    }
+
+    /**
+     * Invalidate the rights tables of all users, now and after the completion of the current transaction (if any)
+     */
+    public void invalidateAll() {
+        invalidateAllNow();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidateAllNow();
+                }
+            });
+        }
+    }
+
+    private void invalidateAllNow() {
+        generation.incrementAndGet();
+        userRightsCache.invalidateAll();
+        log.debug("User rights cache invalidated");
+    }
+
+    @Data
+    private static class UserKey {
+
+        private final String name;
+
+        private final Set<String> groups;
+
+        private final String tenant;
+    }
+}
@@ -47,8 +47,7 @@ public class WorkflowInfoAdder {
             final String catalogObjectEntityKind, Map<String, String> genericInformationMap, final String jobName) {
         byte[] workflowWithReplacedGenericInfoJobName = rawObject;
 
-        if (catalogObjectEntityKind != null &&
-            catalogObjectEntityKind.toLowerCase().startsWith(SupportedParserKinds.WORKFLOW.toString().toLowerCase())) {
+        if (isWorkflow(catalogObjectEntityKind)) {
             workflowWithReplacedGenericInfoJobName = workflowXmlManipulator.replaceGenericInformationHiddenVariablesAndJobNameOnJobLevel(rawObject,
                                                                                                                                          genericInformationMap,
                                                                                                                                          jobName);
@@ -56,12 +55,28 @@ public class WorkflowInfoAdder {
         return workflowWithReplacedGenericInfoJobName;
     }
 
+    /**
+     * Replaces in a single pass the generic information, the job name, the project name and the tags of a workflow,
+     * and encrypts its hidden variables. Objects which are not workflows are returned unchanged.
+     */
+    public byte[] addJobLevelInformationToRawObjectIfWorkflow(final byte[] rawObject,
+            final String catalogObjectEntityKind, Map<String, String> genericInformationMap, final String jobName,
+            final String projectName, final String tags) {
+        if (isWorkflow(catalogObjectEntityKind)) {
+            return workflowXmlManipulator.replaceJobLevelInformation(rawObject,
+                                                                     genericInformationMap,
+                                                                     jobName,
+                                                                     projectName,
+                                                                     tags);
+        }
+        return rawObject;
+    }
+
     public byte[] addAttributeToRawObjectIfWorkflow(final byte[] rawObject, final String catalogObjectEntityKind,
             final String attributeName, final String attributeValue) {
         byte[] workflowWithReplacedAttribute = rawObject;
 
-        if (catalogObjectEntityKind != null &&
-            catalogObjectEntityKind.toLowerCase().startsWith(SupportedParserKinds.WORKFLOW.toString().toLowerCase())) {
+        if (isWorkflow(catalogObjectEntityKind)) {
             workflowWithReplacedAttribute = workflowXmlManipulator.replaceOrAddOrRemoveAttributeOnJobLevel(rawObject,
                                                                                                            attributeName,
                                                                                                            attributeValue);
@@ -69,4 +84,9 @@ public class WorkflowInfoAdder {
         return workflowWithReplacedAttribute;
     }
 
+    private boolean isWorkflow(String catalogObjectEntityKind) {
+        return catalogObjectEntityKind != null &&
+               catalogObjectEntityKind.toLowerCase().startsWith(SupportedParserKinds.WORKFLOW.toString().toLowerCase());
+    }
+
 }
@@ -25,34 +25,39 @@
  */
 package org.ow2.proactive.catalog.service;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 
 import org.ow2.proactive.catalog.service.exception.ParsingObjectException;
 import org.ow2.proactive.core.properties.PropertyDecrypter;
 import org.springframework.stereotype.Component;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
 
 import lombok.extern.log4j.Log4j2;
 
 
 /**
+ * Rewrites the job level of XML workflows in a single streaming pass: the workflow is read with a StAX reader and
+ * copied to a StAX writer, only the job element attributes, the job generic information and the job hidden
+ * variables being modified on the fly. Contrary to a DOM round-trip, the rest of the document is neither
+ * materialized in memory nor reformatted.
+ *
  * @author ActiveEon Team
  * @since 09/08/2017
  */
@@ -61,6 +66,38 @@ import lombok.extern.log4j.Log4j2;
 @Log4j2
 public class WorkflowXmlManipulator {
 
+    private static final String REPORT_CDATA_EVENT_PROPERTY = "http://java.sun.com/xml/stream/properties/report-cdata-event";
+
+    private static final String JOB_NAME_ATTRIBUTE = "name";
+
+    private static final String GENERIC_INFORMATION_ELEMENT = "genericInformation";
+
+    private static final String INFO_ELEMENT = "info";
+
+    private static final String VARIABLES_ELEMENT = "variables";
+
+    private static final String NAME_ATTRIBUTE = "name";
+
+    private static final String VALUE_ATTRIBUTE = "value";
+
+    private static final String MODEL_ATTRIBUTE = "model";
+
+    private static final String HIDDEN_MODEL = "PA:HIDDEN";
+
+    private static final String INDENTATION = "  ";
+
+    // job level elements which follow the generic information in the job descriptor schema
+    private static final Set<String> ELEMENTS_AFTER_GENERIC_INFORMATION = new HashSet<>(Arrays.asList("inputSpace",
+                                                                                                      "outputSpace",
+                                                                                                      "globalSpace",
+                                                                                                      "userSpace",
+                                                                                                      "taskFlow"));
+
+    // StAX factories are thread safe once configured, they are shared to avoid a factory lookup per workflow
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
     public byte[] replaceGenericInformationHiddenVariablesAndJobNameOnJobLevel(final byte[] xmlWorkflow,
             Map<String, String> genericInfoMap, String jobName) {
         if (xmlWorkflow == null || xmlWorkflow.length == 0) {
@@ -69,149 +106,356 @@ public class WorkflowXmlManipulator {
         if (genericInfoMap == null) {
             return xmlWorkflow;
         }
+        return rewriteJobLevel(xmlWorkflow,
+                               genericInfoMap,
+                               Collections.singletonMap(JOB_NAME_ATTRIBUTE, jobName),
+                               Collections.emptySet());
+    }
 
-        Document doc = null;
-        try {
-            doc = parseWorkflow(xmlWorkflow);
+    public byte[] replaceOrAddOrRemoveAttributeOnJobLevel(final byte[] xmlWorkflow, String attributeName,
+            String attributeValue) {
+        if (xmlWorkflow == null || xmlWorkflow.length == 0) {
+            return new byte[] {};
+        }
+        return rewriteJobLevel(xmlWorkflow,
+                               null,
+                               Collections.singletonMap(attributeName, attributeValue),
+                               Collections.singleton(attributeName));
+    }
 
-            Element rootElement = doc.getDocumentElement();
-            replaceJobName(rootElement, jobName);
-            replaceOrAddGenericInfoElement(genericInfoMap, doc, rootElement);
-            replaceHiddenVariables(rootElement);
+    /**
+     * Applies in one pass all the job level modifications done when committing a workflow: the generic information
+     * and the job name are replaced, the hidden variables are encrypted, and the project name and the tags are
+     * replaced, or removed when they are empty.
+     *
+     * @param xmlWorkflow the workflow to modify
+     * @param genericInfoMap the generic information replacing the job generic information, if null the generic
+     *                       information, the job name and the hidden variables are left unchanged
+     * @param jobName the new job name
+     * @param projectName the new project name
+     * @param tags the new comma separated tags
+     * @return the modified workflow, or an empty array if the given workflow is empty
+     */
+    public byte[] replaceJobLevelInformation(final byte[] xmlWorkflow, Map<String, String> genericInfoMap,
+            String jobName, String projectName, String tags) {
+        if (xmlWorkflow == null || xmlWorkflow.length == 0) {
+            return new byte[] {};
+        }
+        Map<String, String> jobAttributes = new LinkedHashMap<>();
+        if (genericInfoMap != null) {
+            jobAttributes.put(JOB_NAME_ATTRIBUTE, jobName);
+        }
+        jobAttributes.put("projectName", projectName);
+        jobAttributes.put("tags", tags);
+        return rewriteJobLevel(xmlWorkflow, genericInfoMap, jobAttributes, new HashSet<>(Arrays.asList("projectName",
+                                                                                                       "tags")));
+    }
 
-            ByteArrayOutputStream answer = transform(doc);
+    private byte[] rewriteJobLevel(byte[] xmlWorkflow, Map<String, String> genericInfoMap,
+            Map<String, String> jobAttributes, Set<String> removableJobAttributes) {
+        ByteArrayOutputStream answer = new ByteArrayOutputStream(xmlWorkflow.length + 1024);
+        XMLStreamReader reader = null;
+        XMLStreamWriter writer = null;
+        try {
+            reader = INPUT_FACTORY.createXMLStreamReader(new ByteArrayInputStream(xmlWorkflow));
+            writer = OUTPUT_FACTORY.createXMLStreamWriter(answer, StandardCharsets.UTF_8.name());
+            new JobLevelRewriter(reader,
+                                 writer,
+                                 genericInfoMap,
+                                 jobAttributes,
+                                 removableJobAttributes).rewrite();
+            writer.flush();
             return answer.toByteArray();
         } catch (Exception e) {
             throw new ParsingObjectException(e.getMessage(), e);
+        } finally {
+            closeQuietly(reader, writer);
         }
     }
 
-    private Document parseWorkflow(byte[] xmlWorkflow) throws SAXException, IOException, ParserConfigurationException {
-        return DocumentBuilderFactory.newInstance()
-                                     .newDocumentBuilder()
-                                     .parse(new InputSource(new StringReader(new String(xmlWorkflow))));
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        if (factory.isPropertySupported(REPORT_CDATA_EVENT_PROPERTY)) {
+            factory.setProperty(REPORT_CDATA_EVENT_PROPERTY, true);
+        }
+        return factory;
     }
 
-    private ByteArrayOutputStream transform(Document doc) throws TransformerException {
-        Transformer xformer = TransformerFactory.newInstance().newTransformer();
-        xformer.setOutputProperty(OutputKeys.INDENT, "yes");
-        ByteArrayOutputStream answer = new ByteArrayOutputStream();
-        xformer.transform(new DOMSource(doc), new StreamResult(answer));
-        return answer;
+    private void closeQuietly(XMLStreamReader reader, XMLStreamWriter writer) {
+        try {
+            if (reader != null) {
+                reader.close();
+            }
+            if (writer != null) {
+                writer.close();
+            }
+        } catch (XMLStreamException e) {
+            log.warn("Could not close workflow stream", e);
+        }
     }
 
-    public byte[] replaceOrAddOrRemoveAttributeOnJobLevel(final byte[] xmlWorkflow, String attributeName,
-            String attributeValue) {
-        if (xmlWorkflow == null || xmlWorkflow.length == 0) {
-            return new byte[] {};
+    private static boolean isEmptyValue(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    /**
+     * Copies a workflow from a reader to a writer, modifying the job level on the fly.
+     */
+    private static class JobLevelRewriter {
+
+        private final XMLStreamReader reader;
+
+        private final XMLStreamWriter writer;
+
+        private final Map<String, String> genericInfoMap;
+
+        private final Map<String, String> jobAttributes;
+
+        private final Set<String> removableJobAttributes;
+
+        private final boolean replaceGenericInformation;
+
+        private boolean genericInformationReplaced = false;
+
+        private boolean insideJobVariables = false;
+
+        private int depth = 0;
+
+        private String jobNamespacePrefix = XMLConstants.DEFAULT_NS_PREFIX;
+
+        private String jobNamespaceUri = XMLConstants.NULL_NS_URI;
+
+        // last whitespace written between two job children, reused to indent the inserted generic information
+        private String jobChildIndentation = "\n" + INDENTATION;
+
+        JobLevelRewriter(XMLStreamReader reader, XMLStreamWriter writer, Map<String, String> genericInfoMap,
+                Map<String, String> jobAttributes, Set<String> removableJobAttributes) {
+            this.reader = reader;
+            this.writer = writer;
+            this.genericInfoMap = genericInfoMap;
+            this.jobAttributes = jobAttributes;
+            this.removableJobAttributes = removableJobAttributes;
+            this.replaceGenericInformation = genericInfoMap != null;
         }
-        Document doc = null;
-        try {
-            doc = parseWorkflow(xmlWorkflow);
 
-            Element rootElement = doc.getDocumentElement();
-            if (attributeValue.trim().isEmpty()) {
-                removeAttributeValue(rootElement, attributeName);
+        void rewrite() throws XMLStreamException {
+            int event = reader.getEventType();
+            while (true) {
+                switch (event) {
+                    case XMLStreamConstants.START_DOCUMENT:
+                        writer.writeStartDocument(StandardCharsets.UTF_8.name(),
+                                                  reader.getVersion() == null ? "1.0" : reader.getVersion());
+                        writer.writeCharacters("\n");
+                        break;
+                    case XMLStreamConstants.START_ELEMENT:
+                        event = copyStartElement();
+                        continue;
+                    case XMLStreamConstants.END_ELEMENT:
+                        writer.writeEndElement();
+                        endElement();
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.SPACE:
+                        if (depth == 1 && reader.isWhiteSpace()) {
+                            jobChildIndentation = reader.getText();
+                        }
+                        writer.writeCharacters(reader.getTextCharacters(),
+                                               reader.getTextStart(),
+                                               reader.getTextLength());
+                        break;
+                    case XMLStreamConstants.CDATA:
+                        writer.writeCData(reader.getText());
+                        break;
+                    case XMLStreamConstants.COMMENT:
+                        writer.writeComment(reader.getText());
+                        break;
+                    case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                        writer.writeProcessingInstruction(reader.getPITarget(), reader.getPIData());
+                        break;
+                    case XMLStreamConstants.DTD:
+                        writer.writeDTD(reader.getText());
+                        break;
+                    case XMLStreamConstants.ENTITY_REFERENCE:
+                        writer.writeEntityRef(reader.getLocalName());
+                        break;
+                    case XMLStreamConstants.END_DOCUMENT:
+                        writer.writeEndDocument();
+                        return;
+                    default:
+                        break;
+                }
+                event = reader.next();
+            }
+        }
+
+        /**
+         * Copies the current start element, possibly modified, and returns the next event to process. An element
+         * without content is written as an empty element, which requires to look one event ahead.
+         */
+        private int copyStartElement() throws XMLStreamException {
+            String localName = reader.getLocalName();
+            if (depth == 0) {
+                jobNamespacePrefix = nullToEmpty(reader.getPrefix());
+                jobNamespaceUri = nullToEmpty(reader.getNamespaceURI());
+            } else if (depth == 1 && replaceGenericInformation && !genericInformationReplaced) {
+                if (GENERIC_INFORMATION_ELEMENT.equals(localName)) {
+                    writeGenericInformation();
+                    skipElement();
+                    return reader.next();
+                }
+                if (ELEMENTS_AFTER_GENERIC_INFORMATION.contains(localName)) {
+                    writeGenericInformation();
+                    writer.writeCharacters(jobChildIndentation);
+                }
+            }
+            List<String[]> namespaces = readNamespaces();
+            List<String[]> attributes = readAttributes(localName);
+            String prefix = nullToEmpty(reader.getPrefix());
+            String namespaceUri = nullToEmpty(reader.getNamespaceURI());
+
+            int next = reader.next();
+            boolean empty = next == XMLStreamConstants.END_ELEMENT;
+            if (empty) {
+                writer.writeEmptyElement(prefix, localName, namespaceUri);
             } else {
-                replaceAttributeValue(rootElement, attributeName, attributeValue);
+                writer.writeStartElement(prefix, localName, namespaceUri);
             }
-            ByteArrayOutputStream answer = transform(doc);
-            return answer.toByteArray();
-        } catch (Exception e) {
-            throw new ParsingObjectException(e.getMessage(), e);
+            writeNamespacesAndAttributes(namespaces, attributes);
+
+            if (depth == 1 && replaceGenericInformation && VARIABLES_ELEMENT.equals(localName)) {
+                insideJobVariables = true;
+            }
+            depth++;
+            if (empty) {
+                endElement();
+                return reader.next();
+            }
+            return next;
         }
-    }
 
-    private void replaceOrAddGenericInfoElement(Map<String, String> genericInfoMap, Document doc, Element rootElement) {
-        NodeList nodes = rootElement.getChildNodes();
-        for (int idx = 0; idx < nodes.getLength(); idx++) {
-            if ("genericInformation".equals(nodes.item(idx).getNodeName())) {
-                Element oldGenericInfoElement = (Element) nodes.item(idx);
-                rootElement.replaceChild(createGenericInfoElement(doc, genericInfoMap), oldGenericInfoElement);
-                break;
-            }
-            switch (nodes.item(idx).getNodeName()) {
-                case "genericInformation":
-                    Element oldGenericInfoElement = (Element) nodes.item(idx);
-                    rootElement.replaceChild(createGenericInfoElement(doc, genericInfoMap), oldGenericInfoElement);
-                    return;
-                case "inputSpace":
-                case "outputSpace":
-                case "globalSpace":
-                case "userSpace":
-                case "taskFlow":
-                    Element elementAfterGenericInfo = (Element) nodes.item(idx);
-                    rootElement.insertBefore(createGenericInfoElement(doc, genericInfoMap), elementAfterGenericInfo);
-                    return;
+        private void endElement() {
+            depth--;
+            if (depth == 1) {
+                insideJobVariables = false;
             }
         }
-    }
 
-    private void replaceHiddenVariables(Element rootElement) {
-        NodeList nodes = rootElement.getChildNodes();
-        for (int idx = 0; idx < nodes.getLength(); idx++) {
-            if ("variables".equals(nodes.item(idx).getNodeName())) {
-                Element variablesElement = (Element) nodes.item(idx);
-                NodeList variableNodes = variablesElement.getChildNodes();
-                for (int varIdx = 0; varIdx < variableNodes.getLength(); varIdx++) {
-                    Node variableNode = variableNodes.item(varIdx);
-                    if (variableNode.getNodeType() == Node.ELEMENT_NODE) {
-                        Element variableElement = (Element) variableNode;
-                        if (checkHiddenVariableReplacementNeeded(variableElement)) {
-                            String value = variableElement.getAttribute("value");
-                            try {
-                                value = PropertyDecrypter.encryptData(value);
-                            } catch (Exception e) {
-                                String name = variableElement.getAttribute("name");
-                                log.warn("Could not encrypt hidden variable " + name, e);
-                            }
-                            variableElement.setAttribute("value", value);
-                        }
+        private List<String[]> readNamespaces() {
+            List<String[]> namespaces = new ArrayList<>(reader.getNamespaceCount());
+            for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                namespaces.add(new String[] { reader.getNamespacePrefix(i), reader.getNamespaceURI(i) });
+            }
+            return namespaces;
+        }
+
+        private List<String[]> readAttributes(String localName) {
+            List<String[]> attributes = new ArrayList<>(reader.getAttributeCount() + jobAttributes.size());
+            Set<String> appliedJobAttributes = new HashSet<>();
+            boolean hiddenVariable = insideJobVariables && depth == 2 &&
+                                     HIDDEN_MODEL.equalsIgnoreCase(reader.getAttributeValue(null, MODEL_ATTRIBUTE));
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                String attributePrefix = nullToEmpty(reader.getAttributePrefix(i));
+                String attributeNamespaceUri = nullToEmpty(reader.getAttributeNamespace(i));
+                String attributeName = reader.getAttributeLocalName(i);
+                String attributeValue = reader.getAttributeValue(i);
+                boolean unqualified = attributeNamespaceUri.isEmpty();
+                if (depth == 0 && unqualified && jobAttributes.containsKey(attributeName)) {
+                    appliedJobAttributes.add(attributeName);
+                    String newValue = jobAttributes.get(attributeName);
+                    if (removableJobAttributes.contains(attributeName) && isEmptyValue(newValue)) {
+                        continue;
+                    }
+                    if (newValue != null) {
+                        attributeValue = newValue;
+                    }
+                } else if (hiddenVariable && unqualified && VALUE_ATTRIBUTE.equals(attributeName)) {
+                    appliedJobAttributes.add(VALUE_ATTRIBUTE);
+                    attributeValue = encryptIfNeeded(attributeValue);
+                }
+                attributes.add(new String[] { attributePrefix, attributeNamespaceUri, attributeName, attributeValue });
+            }
+            if (depth == 0) {
+                for (Map.Entry<String, String> jobAttribute : jobAttributes.entrySet()) {
+                    if (!appliedJobAttributes.contains(jobAttribute.getKey()) && jobAttribute.getValue() != null &&
+                        !(removableJobAttributes.contains(jobAttribute.getKey()) &&
+                          isEmptyValue(jobAttribute.getValue()))) {
+                        attributes.add(new String[] { "", "", jobAttribute.getKey(), jobAttribute.getValue() });
                     }
                 }
+            } else if (hiddenVariable && !appliedJobAttributes.contains(VALUE_ATTRIBUTE)) {
+                attributes.add(new String[] { "", "", VALUE_ATTRIBUTE, encryptIfNeeded("") });
             }
+            return attributes;
         }
-    }
 
-    private Element replaceJobName(Element element, String jobName) {
-        return replaceAttributeValue(element, "name", jobName);
-    }
-
-    private boolean checkHiddenVariableReplacementNeeded(Element element) {
-        String model = element.getAttribute("model");
-        if ("PA:HIDDEN".equalsIgnoreCase(model)) {
-            String value = element.getAttribute("value");
-            if (!value.startsWith(PropertyDecrypter.ENCRYPTION_PREFIX)) {
-                return true;
+        private String encryptIfNeeded(String value) {
+            if (value.startsWith(PropertyDecrypter.ENCRYPTION_PREFIX)) {
+                return value;
+            }
+            try {
+                return PropertyDecrypter.encryptData(value);
+            } catch (Exception e) {
+                log.warn("Could not encrypt hidden variable " + reader.getAttributeValue(null, NAME_ATTRIBUTE), e);
+                return value;
             }
         }
-        return false;
-    }
 
-    private Element replaceAttributeValue(Element element, String attrName, String attrValue) {
-        element.setAttribute(attrName, attrValue);
-        return element;
-    }
+        private void writeNamespacesAndAttributes(List<String[]> namespaces, List<String[]> attributes)
+                throws XMLStreamException {
+            for (String[] namespace : namespaces) {
+                if (namespace[0] == null || namespace[0].isEmpty()) {
+                    writer.writeDefaultNamespace(namespace[1]);
+                } else {
+                    writer.writeNamespace(namespace[0], namespace[1]);
+                }
+            }
+            for (String[] attribute : attributes) {
+                if (attribute[1].isEmpty()) {
+                    writer.writeAttribute(attribute[2], attribute[3]);
+                } else {
+                    writer.writeAttribute(attribute[0], attribute[1], attribute[2], attribute[3]);
+                }
+            }
+        }
 
-    private Element removeAttributeValue(Element element, String attrName) {
-        element.removeAttribute(attrName);
-        return element;
-    }
+        private void writeGenericInformation() throws XMLStreamException {
+            genericInformationReplaced = true;
+            if (genericInfoMap.isEmpty()) {
+                writer.writeEmptyElement(jobNamespacePrefix, GENERIC_INFORMATION_ELEMENT, jobNamespaceUri);
+                return;
+            }
+            writer.writeStartElement(jobNamespacePrefix, GENERIC_INFORMATION_ELEMENT, jobNamespaceUri);
+            for (Map.Entry<String, String> entry : genericInfoMap.entrySet()) {
+                writer.writeCharacters(jobChildIndentation + INDENTATION);
+                writer.writeEmptyElement(jobNamespacePrefix, INFO_ELEMENT, jobNamespaceUri);
+                writer.writeAttribute(NAME_ATTRIBUTE, entry.getKey());
+                writer.writeAttribute(VALUE_ATTRIBUTE, entry.getValue());
+            }
+            writer.writeCharacters(jobChildIndentation);
+            writer.writeEndElement();
+        }
 
-    private Element createInfoElement(Document doc, String name, String value) {
-        Element infoElement = doc.createElement("info");
-        infoElement.setAttribute("name", name);
-        infoElement.setAttribute("value", value);
-        return infoElement;
-    }
+        /**
+         * Skips the current element and its content, the reader being left on its end element.
+         */
+        private void skipElement() throws XMLStreamException {
+            int nestedElements = 1;
+            while (nestedElements > 0) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    nestedElements++;
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    nestedElements--;
+                }
+            }
+        }
 
-    private Node createGenericInfoElement(Document doc, Map<String, String> keyValueMetadataEntities) {
-        Element genericInfoElement = doc.createElement("genericInformation");
-        for (Map.Entry<String, String> entry : keyValueMetadataEntities.entrySet()) {
-            Element child = createInfoElement(doc, entry.getKey(), entry.getValue());
-            genericInfoElement.appendChild(child);
+        private static String nullToEmpty(String value) {
+            return value == null ? "" : value;
         }
-        return genericInfoElement;
     }
 
 }
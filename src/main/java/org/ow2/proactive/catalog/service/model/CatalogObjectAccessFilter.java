@@ -0,0 +1,75 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service.model;
+
+import java.util.Collections;
+import java.util.Set;
+
+import lombok.Data;
+
+
+/**
+ * Catalog objects of a bucket that a user can list, resolved from the user's bucket and catalog object grants.
+ * Either only the given object names are accessible (the user has no access on the bucket but positive grants on
+ * some of its objects), or every object except the given names is accessible (the user has access on the bucket but
+ * negative grants on some of its objects).
+ *
+ * It is translated into a predicate on the object names so that listings are filtered and paged by the database.
+ *
+ * @author ActiveEon Team
+ */
+@Data
+public class CatalogObjectAccessFilter {
+
+    public static final CatalogObjectAccessFilter ALL = excluding(Collections.emptySet());
+
+    private final boolean restrictedToObjectNames;
+
+    private final Set<String> objectNames;
+
+    public static CatalogObjectAccessFilter restrictedTo(Set<String> accessibleObjectNames) {
+        return new CatalogObjectAccessFilter(true, accessibleObjectNames);
+    }
+
+    public static CatalogObjectAccessFilter excluding(Set<String> inaccessibleObjectNames) {
+        return new CatalogObjectAccessFilter(false, inaccessibleObjectNames);
+    }
+
+    public boolean isAccessible(String objectName) {
+        return restrictedToObjectNames == objectNames.contains(objectName);
+    }
+
+    /**
+     * @return true if no object can be accessed, in which case the listing does not need to query the database
+     */
+    public boolean isNoneAccessible() {
+        return restrictedToObjectNames && objectNames.isEmpty();
+    }
+
+    public boolean isAllAccessible() {
+        return !restrictedToObjectNames && objectNames.isEmpty();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service.model;
+
+import static org.ow2.proactive.catalog.dto.AssociationStatus.ALL;
+import static org.ow2.proactive.catalog.dto.AssociationStatus.UNPLANNED;
+
+import java.util.*;
+
+import org.ow2.proactive.catalog.dto.AssociatedObject;
+import org.ow2.proactive.catalog.dto.AssociatedObjectsByBucket;
+import org.ow2.proactive.catalog.dto.AssociationStatus;
+
+import lombok.Getter;
+
+
+/**
+ * Job-planner associations of catalog objects, indexed by bucket name and object name so that the association of
+ * a listed object is found in constant time.
+ *
+ * @author ActiveEon Team
+ */
+public class JobPlannerAssociations {
+
+    @Getter
+    private final List<AssociatedObjectsByBucket> associatedObjectsByBucket;
+
+    private final Map<String, Map<String, AssociatedObject>> objectsByNameByBucket = new HashMap<>();
+
+    private final Map<String, Map<String, AssociatedObject>> objectsByLowerCaseNameByBucket = new HashMap<>();
+
+    public JobPlannerAssociations(List<AssociatedObjectsByBucket> associatedObjectsByBucket) {
+        this.associatedObjectsByBucket = associatedObjectsByBucket;
+        for (AssociatedObjectsByBucket objectsOfBucket : associatedObjectsByBucket) {
+            if (objectsByNameByBucket.containsKey(objectsOfBucket.getBucketName())) {
+                // only the first entry of a bucket is taken into account
+                continue;
+            }
+            Map<String, AssociatedObject> objectsByName = new HashMap<>();
+            Map<String, AssociatedObject> objectsByLowerCaseName = new HashMap<>();
+            for (AssociatedObject associatedObject : objectsOfBucket.getObjects()) {
+                objectsByName.putIfAbsent(associatedObject.getObjectName(), associatedObject);
+                objectsByLowerCaseName.putIfAbsent(associatedObject.getObjectName().toLowerCase(), associatedObject);
+            }
+            objectsByNameByBucket.put(objectsOfBucket.getBucketName(), objectsByName);
+            objectsByLowerCaseNameByBucket.put(objectsOfBucket.getBucketName(), objectsByLowerCaseName);
+        }
+    }
+
+    public boolean containsBucket(String bucketName) {
+        return objectsByNameByBucket.containsKey(bucketName);
+    }
+
+    public Optional<AssociatedObject> findAssociatedObject(String bucketName, String objectName) {
+        return Optional.ofNullable(objectsByNameByBucket.getOrDefault(bucketName, Collections.emptyMap())
+                                                        .get(objectName));
+    }
+
+    public Optional<AssociatedObject> findAssociatedObjectIgnoreCase(String bucketName, String objectName) {
+        return Optional.ofNullable(objectsByLowerCaseNameByBucket.getOrDefault(bucketName, Collections.emptyMap())
+                                                                 .get(objectName.toLowerCase()));
+    }
+
+    /**
+     * @param associatedObject the job-planner association of an object, if any
+     * @param expectedStatus an association status, or ALL (any association) or UNPLANNED (no association)
+     * @return true if the association matches the expected status
+     */
+    public static boolean matchesAssociationStatus(Optional<AssociatedObject> associatedObject,
+            String expectedStatus) {
+        switch (expectedStatus) {
+            case ALL:
+                return associatedObject.isPresent() && !associatedObject.get().getStatuses().isEmpty();
+            case UNPLANNED:
+                // object must not have a job-planner association
+                return !associatedObject.isPresent();
+            default:
+                AssociationStatus associationStatus = AssociationStatus.convert(expectedStatus);
+                return associatedObject.isPresent() &&
+                       associatedObject.get().getStatuses().contains(associationStatus);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service.model;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.Data;
+
+
+/**
+ * Catalog objects of all buckets that a user can read, resolved once from the user's bucket and catalog object grants.
+ * The objects of the buckets owned by one of the accessible owners (the public owner and the user's groups) are all
+ * accessible, unless the bucket has grants assigned to the user, in which case the bucket's access filter applies.
+ *
+ * It is translated into a query predicate so that the GraphQL listings are filtered and paged by the database.
+ *
+ * @author ActiveEon Team
+ */
+@Data
+public class UserCatalogObjectsAccess {
+
+    public static final UserCatalogObjectsAccess UNRESTRICTED = new UserCatalogObjectsAccess(true,
+                                                                                             Collections.emptySet(),
+                                                                                             Collections.emptyMap());
+
+    private final boolean unrestricted;
+
+    private final Set<String> accessibleOwners;
+
+    private final Map<String, CatalogObjectAccessFilter> grantedBucketsAccessFilters;
+
+    public static UserCatalogObjectsAccess restricted(Set<String> accessibleOwners,
+            Map<String, CatalogObjectAccessFilter> grantedBucketsAccessFilters) {
+        return new UserCatalogObjectsAccess(false, accessibleOwners, grantedBucketsAccessFilters);
+    }
+}
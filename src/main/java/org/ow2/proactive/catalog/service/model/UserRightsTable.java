@@ -0,0 +1,118 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service.model;
+
+import static org.ow2.proactive.catalog.util.AccessType.noAccess;
+import static org.ow2.proactive.catalog.util.GrantHelper.USER_GRANTEE_TYPE;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import org.ow2.proactive.catalog.dto.BucketGrantMetadata;
+import org.ow2.proactive.catalog.dto.CatalogObjectGrantMetadata;
+
+import lombok.Getter;
+
+
+/**
+ * All the bucket and catalog object grants assigned to a user, its groups or its tenant, indexed by bucket name,
+ * so that the user's rights can be resolved for any bucket or catalog object without querying the database.
+ *
+ * @author ActiveEon Team
+ */
+public class UserRightsTable {
+
+    @Getter
+    private final List<BucketGrantMetadata> bucketGrants;
+
+    @Getter
+    private final List<CatalogObjectGrantMetadata> catalogObjectGrants;
+
+    private final Map<String, List<BucketGrantMetadata>> bucketGrantsByBucketName;
+
+    private final Map<String, List<CatalogObjectGrantMetadata>> catalogObjectGrantsByBucketName;
+
+    public UserRightsTable(List<BucketGrantMetadata> bucketGrants,
+            List<CatalogObjectGrantMetadata> catalogObjectGrants) {
+        this.bucketGrants = Collections.unmodifiableList(new ArrayList<>(bucketGrants));
+        this.catalogObjectGrants = Collections.unmodifiableList(new ArrayList<>(catalogObjectGrants));
+        this.bucketGrantsByBucketName = this.bucketGrants.stream()
+                                                         .collect(Collectors.groupingBy(BucketGrantMetadata::getBucketName));
+        this.catalogObjectGrantsByBucketName = this.catalogObjectGrants.stream()
+                                                                       .collect(Collectors.groupingBy(CatalogObjectGrantMetadata::getBucketName));
+    }
+
+    /**
+     * @return the names of the buckets targeted by the user's bucket grants or catalog object grants
+     */
+    public Set<String> getGrantedBucketNames() {
+        Set<String> bucketNames = new HashSet<>(bucketGrantsByBucketName.keySet());
+        bucketNames.addAll(catalogObjectGrantsByBucketName.keySet());
+        return bucketNames;
+    }
+
+    /**
+     * @param bucketName name of the bucket
+     * @return a new modifiable list of the user's grants targeting the bucket
+     */
+    public List<BucketGrantMetadata> getBucketGrants(String bucketName) {
+        return new ArrayList<>(bucketGrantsByBucketName.getOrDefault(bucketName, Collections.emptyList()));
+    }
+
+    /**
+     * @param bucketName name of the bucket
+     * @return a new modifiable list of the user's grants targeting the catalog objects of the bucket
+     */
+    public List<CatalogObjectGrantMetadata> getCatalogObjectGrants(String bucketName) {
+        return new ArrayList<>(catalogObjectGrantsByBucketName.getOrDefault(bucketName, Collections.emptyList()));
+    }
+
+    /**
+     * @param bucketName name of the bucket
+     * @param catalogObjectName name of the catalog object
+     * @return the user's grants targeting the catalog object
+     */
+    public List<CatalogObjectGrantMetadata> getCatalogObjectGrants(String bucketName, String catalogObjectName) {
+        return catalogObjectGrantsByBucketName.getOrDefault(bucketName, Collections.emptyList())
+                                              .stream()
+                                              .filter(grant -> grant.getCatalogObjectName().equals(catalogObjectName))
+                                              .collect(Collectors.toList());
+    }
+
+    /**
+     * @param username name of the user
+     * @param bucketName name of the bucket
+     * @return the positive bucket grant assigned to the user itself (not its groups or tenant), if any
+     */
+    public Optional<BucketGrantMetadata> getUserSpecificPositiveBucketGrant(String username, String bucketName) {
+        return bucketGrantsByBucketName.getOrDefault(bucketName, Collections.emptyList())
+                                       .stream()
+                                       .filter(grant -> grant.getGranteeType().equals(USER_GRANTEE_TYPE) &&
+                                                        grant.getGrantee().equals(username) &&
+                                                        !grant.getAccessType().equals(noAccess.name()))
+                                       .findFirst();
+    }
+}
@@ -30,22 +30,23 @@ import static org.ow2.proactive.catalog.util.PackageMetadataJSONParser.writeJSON
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Stream;
+import java.util.function.Consumer;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.Level;
 import org.ow2.proactive.catalog.repository.entity.CatalogObjectEntity;
 import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.zeroturnaround.zip.ByteSource;
-import org.zeroturnaround.zip.ZipEntrySource;
 import org.zeroturnaround.zip.ZipUtil;
 
 import lombok.extern.log4j.Log4j2;
@@ -55,6 +56,10 @@ import lombok.extern.log4j.Log4j2;
 @Component
 public class ArchiveManagerHelper {
 
+    private static final String PACKAGE_METADATA_FILE_NAME = "METADATA.json";
+
+    private static final String PACKAGE_RESOURCES_PATH = "resources/catalog/";
+
     @Autowired
     private RawObjectResponseCreator rawObjectResponseCreator;
 
@@ -95,6 +100,8 @@ public class ArchiveManagerHelper {
 
         private String fileNameWithExtension;
 
+        private String path;
+
         public byte[] getContent() {
             return content;
         }
@@ -118,80 +125,124 @@ public class ArchiveManagerHelper {
         public void setFileNameWithExtension(String fileNameWithExtension) {
             this.fileNameWithExtension = fileNameWithExtension;
         }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
     }
 
     /**
-     * Compress a list of CatalogObjectRevision files into a ZIP archive
-     * @param catalogObjectList the list of catalogObjects to compress
-     * @return a byte array corresponding to the archive containing the files
+     * Writes catalog objects into a ZIP archive, entry by entry, directly to an output stream. The archive can be
+     * written in several steps, so that the raw objects of only one chunk of catalog objects are held in memory at a
+     * time. For a ProActive Package, the METADATA.json file describing the written objects is added when the writer
+     * is closed.
      */
-    public ZipArchiveContent compressZIP(boolean isPartial, List<CatalogObjectRevisionEntity> catalogObjectList) {
+    public class ZipArchiveWriter implements Closeable {
 
-        if (catalogObjectList == null) {
-            return null;
+        private final ZipOutputStream zipOutputStream;
+
+        private final PackageMetadataJSONParser.PackageData packageData;
+
+        private ZipArchiveWriter(OutputStream outputStream, PackageMetadataJSONParser.PackageData packageData) {
+            this.zipOutputStream = new ZipOutputStream(outputStream);
+            this.packageData = packageData;
         }
 
-        try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream()) {
-
-            ZipArchiveContent zipContent = new ZipArchiveContent();
-
-            Stream<ZipEntrySource> streamSources = catalogObjectList.stream()
-                                                                    .filter(Objects::nonNull)
-                                                                    .map(catalogObjectRevision -> {
-                                                                        CatalogObjectEntity catalogObjectEntity = catalogObjectRevision.getCatalogObject();
-                                                                        String fileNameWithExtension = rawObjectResponseCreator.getNameWithFileExtension(catalogObjectEntity.getId()
-                                                                                                                                                                            .getName(),
-                                                                                                                                                         catalogObjectEntity.getExtension(),
-                                                                                                                                                         catalogObjectEntity.getKind());
-                                                                        return new ByteSource(fileNameWithExtension,
-                                                                                              catalogObjectRevision.getRawObject());
-                                                                    });
-            ZipEntrySource[] sources = streamSources.toArray(size -> new ZipEntrySource[size]);
-            ZipUtil.pack(sources, byteArrayOutputStream);
-            zipContent.setContent(byteArrayOutputStream.toByteArray());
-            zipContent.setPartial(isPartial);
-            return zipContent;
-        } catch (IOException ioe) {
-            log.error("Could not compress catalog objects as a ZIP");
-            throw new RuntimeException(ioe);
+        /**
+         * Adds the raw objects of the given catalog object revisions to the archive
+         * @param catalogObjectList the list of catalogObjects to compress
+         */
+        public void write(List<CatalogObjectRevisionEntity> catalogObjectList) {
+            try {
+                for (CatalogObjectRevisionEntity catalogObjectRevision : catalogObjectList) {
+                    if (catalogObjectRevision == null) {
+                        continue;
+                    }
+                    CatalogObjectEntity catalogObjectEntity = catalogObjectRevision.getCatalogObject();
+                    String fileNameWithExtension = rawObjectResponseCreator.getNameWithFileExtension(catalogObjectEntity.getId()
+                                                                                                                        .getName(),
+                                                                                                     catalogObjectEntity.getExtension(),
+                                                                                                     catalogObjectEntity.getKind());
+                    if (packageData != null) {
+                        fileNameWithExtension = PACKAGE_RESOURCES_PATH + fileNameWithExtension;
+                        packageData.getCatalog()
+                                   .getObjects()
+                                   .add(createCatalogObjectData(catalogObjectRevision, fileNameWithExtension));
+                    }
+                    writeEntry(fileNameWithExtension, catalogObjectRevision.getRawObject());
+                }
+                zipOutputStream.flush();
+            } catch (IOException ioe) {
+                log.error("Could not compress catalog objects as a ZIP");
+                throw new RuntimeException(ioe);
+            }
+        }
+
+        private void writeEntry(String name, byte[] content) throws IOException {
+            zipOutputStream.putNextEntry(new ZipEntry(name));
+            if (content != null) {
+                zipOutputStream.write(content);
+            }
+            zipOutputStream.closeEntry();
         }
 
+        /**
+         * Completes the archive, the underlying output stream is left open
+         */
+        @Override
+        public void close() {
+            try {
+                if (packageData != null) {
+                    writeEntry(PACKAGE_METADATA_FILE_NAME, writeJSONFile(packageData));
+                }
+                zipOutputStream.finish();
+                zipOutputStream.flush();
+            } catch (IOException ioe) {
+                log.error("Could not complete the ZIP archive");
+                throw new RuntimeException(ioe);
+            }
+        }
+    }
+
+    /**
+     * Creates a writer of a plain ZIP archive
+     * @param outputStream the stream where the archive is written
+     * @return the archive writer
+     */
+    public ZipArchiveWriter createZipArchiveWriter(OutputStream outputStream) {
+        return new ZipArchiveWriter(outputStream, null);
+    }
+
+    /**
+     * Creates a writer of a ProActive Package ZIP archive
+     * @param outputStream the stream where the archive is written
+     * @param bucketName the name of the bucket exported as a package
+     * @return the archive writer
+     */
+    public ZipArchiveWriter createPackageZipArchiveWriter(OutputStream outputStream, String bucketName) {
+        return new ZipArchiveWriter(outputStream, PackageMetadataJSONParser.createPackageMetadata(bucketName, ""));
     }
 
     /**
-     * Generates a METADATA.json file in order to create a ProActive Package
+     * Compress a list of CatalogObjectRevision files into a ZIP archive
      * @param catalogObjectList the list of catalogObjects to compress
-     * @return a byte array corresponding to the METADATA.json file
+     * @return a byte array corresponding to the archive containing the files
      */
-    public ByteSource generateMetadataForPackage(String bucketName,
-            List<CatalogObjectRevisionEntity> catalogObjectList) {
-
-        PackageMetadataJSONParser.PackageData packageData = PackageMetadataJSONParser.createPackageMetadata(bucketName,
-                                                                                                            "");
-        for (CatalogObjectRevisionEntity catalogObjectRevision : catalogObjectList) {
-            CatalogObjectEntity catalogObjectEntity = catalogObjectRevision.getCatalogObject();
-            String fileNameWithExtension = rawObjectResponseCreator.getNameWithFileExtension(catalogObjectEntity.getId()
-                                                                                                                .getName(),
-                                                                                             catalogObjectEntity.getExtension(),
-                                                                                             catalogObjectEntity.getKind());
-            fileNameWithExtension = "resources/catalog/" + fileNameWithExtension;
-            CatalogObjectRevisionEntity lastRevision = catalogObjectEntity.getRevisions().last();
-            PackageMetadataJSONParser.CatalogObjectData objectData = new PackageMetadataJSONParser.CatalogObjectData(catalogObjectEntity.getId()
-                                                                                                                                        .getName(),
-                                                                                                                     catalogObjectEntity.getKind(),
-                                                                                                                     lastRevision.getCommitMessage(),
-                                                                                                                     catalogObjectEntity.getContentType(),
-                                                                                                                     lastRevision.getProjectName(),
-                                                                                                                     lastRevision.getTags(),
-                                                                                                                     fileNameWithExtension);
-            packageData.getCatalog().getObjects().add(objectData);
+    public ZipArchiveContent compressZIP(boolean isPartial, List<CatalogObjectRevisionEntity> catalogObjectList) {
+
+        if (catalogObjectList == null) {
+            return null;
         }
-        try {
-            return new ByteSource("METADATA.json", writeJSONFile(packageData));
-        } catch (IOException ioe) {
-            log.error("Could not create a METADATA.json file for the demanded package");
-            throw new RuntimeException(ioe);
+
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (ZipArchiveWriter zipArchiveWriter = createZipArchiveWriter(byteArrayOutputStream)) {
+            zipArchiveWriter.write(catalogObjectList);
         }
+        return createZipArchiveContent(isPartial, byteArrayOutputStream);
     }
 
     /**
@@ -206,36 +257,34 @@ public class ArchiveManagerHelper {
             return null;
         }
 
-        try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream()) {
-
-            ZipArchiveContent zipContent = new ZipArchiveContent();
-
-            Stream<ZipEntrySource> streamSources = catalogObjectList.stream()
-                                                                    .filter(Objects::nonNull)
-                                                                    .map(catalogObjectRevision -> {
-                                                                        CatalogObjectEntity catalogObjectEntity = catalogObjectRevision.getCatalogObject();
-                                                                        String fileNameWithExtension = rawObjectResponseCreator.getNameWithFileExtension(catalogObjectEntity.getId()
-                                                                                                                                                                            .getName(),
-                                                                                                                                                         catalogObjectEntity.getExtension(),
-                                                                                                                                                         catalogObjectEntity.getKind());
-                                                                        fileNameWithExtension = "resources/catalog/" +
-                                                                                                fileNameWithExtension;
-                                                                        return new ByteSource(fileNameWithExtension,
-                                                                                              catalogObjectRevision.getRawObject());
-                                                                    });
-
-            ByteSource metaFileSource = generateMetadataForPackage(bucketName, catalogObjectList);
-            Stream<ZipEntrySource> finalStream = Stream.concat(Stream.of(metaFileSource), streamSources);
-            ZipEntrySource[] sources = finalStream.toArray(size -> new ZipEntrySource[size]);
-            ZipUtil.pack(sources, byteArrayOutputStream);
-            zipContent.setContent(byteArrayOutputStream.toByteArray());
-            zipContent.setPartial(isPartial);
-            return zipContent;
-        } catch (IOException ioe) {
-            log.error("Could not generate a ProActive package");
-            throw new RuntimeException(ioe);
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (ZipArchiveWriter zipArchiveWriter = createPackageZipArchiveWriter(byteArrayOutputStream, bucketName)) {
+            zipArchiveWriter.write(catalogObjectList);
         }
+        return createZipArchiveContent(isPartial, byteArrayOutputStream);
+    }
+
+    private ZipArchiveContent createZipArchiveContent(boolean isPartial, ByteArrayOutputStream byteArrayOutputStream) {
+        ZipArchiveContent zipContent = new ZipArchiveContent();
+        zipContent.setContent(byteArrayOutputStream.toByteArray());
+        zipContent.setPartial(isPartial);
+        return zipContent;
+    }
 
+    /**
+     * Describes in the METADATA.json file of a package the given catalog object revision, which is the last
+     * revision of the object
+     */
+    private PackageMetadataJSONParser.CatalogObjectData createCatalogObjectData(
+            CatalogObjectRevisionEntity catalogObjectRevision, String fileNameWithExtension) {
+        CatalogObjectEntity catalogObjectEntity = catalogObjectRevision.getCatalogObject();
+        return new PackageMetadataJSONParser.CatalogObjectData(catalogObjectEntity.getId().getName(),
+                                                               catalogObjectEntity.getKind(),
+                                                               catalogObjectRevision.getCommitMessage(),
+                                                               catalogObjectEntity.getContentType(),
+                                                               catalogObjectRevision.getProjectName(),
+                                                               catalogObjectRevision.getTags(),
+                                                               fileNameWithExtension);
     }
 
     /**
@@ -246,50 +295,52 @@ public class ArchiveManagerHelper {
     public List<FileNameAndContent> extractZIP(byte[] byteArrayArchive) {
 
         List<FileNameAndContent> filesList = new ArrayList<>();
+        iterateZIP(byteArrayArchive, filesList::add);
+        return filesList;
+    }
+
+    /**
+     * Reads the files of an archive in a single pass, each file being given to the consumer as soon as it is
+     * extracted, so that only one file content is held at a time by the iteration
+     * @param byteArrayArchive the archive as byte array
+     * @param fileConsumer the consumer of the extracted files
+     */
+    public void iterateZIP(byte[] byteArrayArchive, Consumer<FileNameAndContent> fileConsumer) {
         if (byteArrayArchive == null) {
-            return filesList;
+            return;
         }
 
         try (ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(byteArrayArchive)) {
-            ZipUtil.iterate(byteArrayInputStream, (in, zipEntry) -> checkAndAddFileFromZip(filesList, in, zipEntry));
+            ZipUtil.iterate(byteArrayInputStream, (in, zipEntry) -> checkAndConsumeFileFromZip(fileConsumer, in, zipEntry));
         } catch (IOException ioe) {
             throw new RuntimeException(ioe);
         }
-
-        return filesList;
     }
 
     /**
      * check the name of zip entry, exclude containing folder as extracting file
-     * @param filesList
+     * @param fileConsumer
      * @param in
      * @param entry
      */
-    private void checkAndAddFileFromZip(List<FileNameAndContent> filesList, InputStream in, ZipEntry entry) {
+    private void checkAndConsumeFileFromZip(Consumer<FileNameAndContent> fileConsumer, InputStream in,
+            ZipEntry entry) {
         String nameZipEntry = FilenameUtils.getName(entry.getName());
-        if (!nameZipEntry.isEmpty() && !nameZipEntry.equals("METADATA.json")) {
-            filesList.add(process(in, entry));
+        if (!nameZipEntry.isEmpty() && !nameZipEntry.equals(PACKAGE_METADATA_FILE_NAME)) {
+            fileConsumer.accept(process(in, entry));
         }
     }
 
     public static PackageMetadataJSONParser.PackageData extractMetadataObject(String bucketName,
             byte[] byteArrayArchive) {
         try (ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(byteArrayArchive)) {
-            byte[] bytes = ZipUtil.unpackEntry(byteArrayInputStream, "METADATA.json");
+            byte[] bytes = ZipUtil.unpackEntry(byteArrayInputStream, PACKAGE_METADATA_FILE_NAME);
             return readJSONFile(bytes);
         } catch (IOException ioe) {
             throw new RuntimeException(ioe);
         }
     }
 
-    public static byte[] extractObjectByPath(byte[] byteArrayArchive, String objectName) {
-        try (ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(byteArrayArchive)) {
-            return ZipUtil.unpackEntry(byteArrayInputStream, objectName);
-        } catch (IOException ioe) {
-            throw new RuntimeException(ioe);
-        }
-    }
-
     /**
      * Extract ZIP entry into a byte array
      * @param in entry content
@@ -297,16 +348,12 @@ public class ArchiveManagerHelper {
      * @return FileNameAndContent
      */
     private FileNameAndContent process(InputStream in, ZipEntry entry) {
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+        try {
             FileNameAndContent file = new FileNameAndContent();
             file.setName(FilenameUtils.getBaseName(entry.getName()));
             file.setFileNameWithExtension(FilenameUtils.getName(entry.getName()));
-
-            int data = 0;
-            while ((data = in.read()) != -1) {
-                outputStream.write(data);
-            }
-            file.setContent(outputStream.toByteArray());
+            file.setPath(entry.getName());
+            file.setContent(IOUtils.toByteArray(in));
             return file;
         } catch (IOException ioe) {
             throw new RuntimeException(ioe);
@@ -26,16 +26,23 @@
 package org.ow2.proactive.catalog.util;
 
 import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
 
+import org.ow2.proactive.catalog.dto.CatalogObjectMetadata;
 import org.ow2.proactive.catalog.dto.CatalogRawObject;
 import org.ow2.proactive.catalog.util.parser.SupportedParserKinds;
 import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
 
 import com.google.common.base.Strings;
+import com.google.common.hash.Hashing;
 
 import lombok.extern.log4j.Log4j2;
 
@@ -50,11 +57,31 @@ public class RawObjectResponseCreator {
 
     public final static String WORKFLOW_EXTENSION = ".xml";
 
+    // the raw object of the last revision can change at any time, clients must revalidate it using the ETag
+    public final static String LAST_REVISION_CACHE_CONTROL = CacheControl.noCache().cachePrivate().getHeaderValue();
+
+    // the raw object of a given revision never changes, but its kind and Content-Type can be modified without a new
+    // revision, so clients only keep it a short time before revalidating it using the ETag
+    public final static String REVISION_CACHE_CONTROL = CacheControl.maxAge(1, TimeUnit.MINUTES)
+                                                                    .cachePrivate()
+                                                                    .mustRevalidate()
+                                                                    .getHeaderValue();
+
     public ResponseEntity createRawObjectResponse(CatalogRawObject rawObject) {
+        return createRawObjectResponse(rawObject, false);
+    }
+
+    /**
+     * @param rawObject the raw object to send
+     * @param revision true when the raw object is the one of a specific revision rather than of the last one
+     * @return the response containing the raw object, along with its ETag and Last-Modified headers
+     */
+    public ResponseEntity createRawObjectResponse(CatalogRawObject rawObject, boolean revision) {
         String name = rawObject.getName();
         byte[] bytes = rawObject.getRawObject();
 
         ResponseEntity.BodyBuilder responseBodyBuilder = ResponseEntity.ok().contentLength(bytes.length);
+        addCacheHeaders(responseBodyBuilder, rawObject, revision);
 
         try {
             String contentDispositionFileName = getNameWithFileExtension(rawObject.getName(),
@@ -78,6 +105,47 @@ public class RawObjectResponseCreator {
         return responseBodyBuilder.body(new InputStreamResource(new ByteArrayInputStream(bytes)));
     }
 
+    /**
+     * Checks the conditional headers (If-None-Match, If-Modified-Since) of the request against the given catalog
+     * object, so that the raw object does not need to be loaded when the client already has it.
+     *
+     * @param webRequest the current request
+     * @param metadata the metadata of the requested catalog object revision
+     * @return true if the client copy of the raw object is still valid
+     */
+    public boolean isNotModified(WebRequest webRequest, CatalogObjectMetadata metadata) {
+        return webRequest.checkNotModified(getETag(metadata), getLastModified(metadata));
+    }
+
+    public ResponseEntity createNotModifiedResponse(CatalogObjectMetadata metadata, boolean revision) {
+        ResponseEntity.BodyBuilder responseBodyBuilder = ResponseEntity.status(HttpStatus.NOT_MODIFIED);
+        addCacheHeaders(responseBodyBuilder, metadata, revision);
+        return responseBodyBuilder.build();
+    }
+
+    /**
+     * @return a strong ETag identifying the raw object of a catalog object revision, together with the kind and
+     * Content-Type used to serve it, as they can be modified without creating a new revision
+     */
+    public String getETag(CatalogObjectMetadata metadata) {
+        String revisionKey = metadata.getBucketName() + "/" + metadata.getName() + "/" + metadata.getCommitTimeRaw() +
+                             "/" + metadata.getKind() + "/" + metadata.getContentType() + "/" +
+                             metadata.getExtension();
+        return "\"" + Hashing.sha256().hashString(revisionKey, StandardCharsets.UTF_8).toString() + "\"";
+    }
+
+    public long getLastModified(CatalogObjectMetadata metadata) {
+        return Long.parseLong(metadata.getCommitTimeRaw());
+    }
+
+    private void addCacheHeaders(ResponseEntity.BodyBuilder responseBodyBuilder, CatalogObjectMetadata metadata,
+            boolean revision) {
+        responseBodyBuilder.eTag(getETag(metadata))
+                           .lastModified(getLastModified(metadata))
+                           .header(HttpHeaders.CACHE_CONTROL,
+                                   revision ? REVISION_CACHE_CONTROL : LAST_REVISION_CACHE_CONTROL);
+    }
+
     /**
      *
      * @param name
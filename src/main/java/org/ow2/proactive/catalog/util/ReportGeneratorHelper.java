@@ -25,15 +25,24 @@
  */
 package org.ow2.proactive.catalog.util;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.font.PDFont;
 import org.apache.pdfbox.pdmodel.font.PDType0Font;
 import org.ow2.proactive.catalog.callgraph.CallGraphHolder;
 import org.ow2.proactive.catalog.callgraph.GraphNode;
@@ -46,7 +55,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+
 import be.quodlibet.boxable.BaseTable;
+import be.quodlibet.boxable.Cell;
 import be.quodlibet.boxable.utils.FontUtils;
 
 
@@ -57,6 +70,30 @@ import be.quodlibet.boxable.utils.FontUtils;
 @Component
 public class ReportGeneratorHelper {
 
+    // the default fonts of boxable are global, and are the only way to set the bold and italic fonts of the
+    // paragraphs that boxable creates when it draws a table. A table is drawn while holding this lock, with the fonts
+    // of its document set as the default fonts, the rest of the documents being generated concurrently
+    private static final ReentrantLock TABLE_DRAWING_LOCK = new ReentrantLock();
+
+    // the fonts of the document generated by the current thread, from setFontToUse to releaseFontToUse
+    private static final ThreadLocal<Map<String, PDFont>> DOCUMENT_FONTS = new ThreadLocal<>();
+
+    public static final float BOTTOM_MARGIN = 70f;
+
+    // the sans fonts bundled with boxable, used by FontUtils.setSansFontsAsDefault
+    private static final Map<String, String> SANS_FONT_RESOURCES = ImmutableMap.of("font",
+                                                                                   "fonts/FreeSans.ttf",
+                                                                                   "fontBold",
+                                                                                   "fonts/FreeSansBold.ttf",
+                                                                                   "fontItalic",
+                                                                                   "fonts/FreeSansOblique.ttf",
+                                                                                   "fontBoldItalic",
+                                                                                   "fonts/FreeSansBoldOblique.ttf");
+
+    // the font files are read once per JVM and never modified, each document parses its own fonts from these bytes
+    // and only embeds the subset of glyphs it uses, so that documents generated concurrently share no parsed font
+    private static final ConcurrentMap<String, byte[]> FONT_FILES = new ConcurrentHashMap<>();
+
     @Value("${pa.scheduler.url}")
     private String schedulerUrl;
 
@@ -67,10 +104,10 @@ public class ReportGeneratorHelper {
     private String ttfFontBoldPath;
 
     @Value("${pa.catalog.pdf.report.ttf.font.italic.path}")
-    private static String ttfFontItalicPath;
+    private String ttfFontItalicPath;
 
     @Value("${pa.catalog.pdf.report.ttf.font.bold.italic.path}")
-    private static String ttfFontBoldItalicPath;
+    private String ttfFontBoldItalicPath;
 
     @Autowired
     private SeparatorUtility separatorUtility;
@@ -78,30 +115,142 @@ public class ReportGeneratorHelper {
     @Autowired
     private CatalogObjectService catalogObjectService;
 
+    /**
+     * Loads the fonts of the given document. The fonts are used by the current thread for the cells and tables of
+     * the document until releaseFontToUse is called.
+     *
+     * @param doc the document generated by the current thread
+     */
     public void setFontToUse(PDDocument doc) throws IOException {
-        FontUtils.setSansFontsAsDefault(doc);
-        addFontTypeIfFileExists(doc, ttfFontPath, "font");
-        addFontTypeIfFileExists(doc, ttfFontBoldPath, "fontBold");
-        addFontTypeIfFileExists(doc, ttfFontItalicPath, "fontItalic");
-        addFontTypeIfFileExists(doc, ttfFontBoldItalicPath, "fontBoldItalic");
+        Map<String, PDFont> documentFonts = new HashMap<>();
+        for (Map.Entry<String, String> sansFontResource : SANS_FONT_RESOURCES.entrySet()) {
+            PDFont font = loadClasspathFont(doc, sansFontResource.getValue());
+            if (font != null) {
+                documentFonts.put(sansFontResource.getKey(), font);
+            }
+        }
+        addFontTypeIfFileExists(doc, documentFonts, ttfFontPath, "font");
+        addFontTypeIfFileExists(doc, documentFonts, ttfFontBoldPath, "fontBold");
+        addFontTypeIfFileExists(doc, documentFonts, ttfFontItalicPath, "fontItalic");
+        addFontTypeIfFileExists(doc, documentFonts, ttfFontBoldItalicPath, "fontBoldItalic");
+        DOCUMENT_FONTS.set(ImmutableMap.copyOf(documentFonts));
+    }
+
+    /**
+     * Releases the fonts of the document generated by the current thread
+     */
+    public void releaseFontToUse() {
+        DOCUMENT_FONTS.remove();
+    }
+
+    /**
+     * @param fontType the type of font (font, fontBold, fontItalic or fontBoldItalic)
+     * @param defaultFont the font to use when no document fonts are set
+     * @return the font of the document generated by the current thread
+     */
+    public static PDFont getDocumentFont(String fontType, PDFont defaultFont) {
+        Map<String, PDFont> documentFonts = DOCUMENT_FONTS.get();
+        PDFont font = documentFonts == null ? null : documentFonts.get(fontType);
+        return font == null ? defaultFont : font;
+    }
+
+    /**
+     * Sets the fonts of the document generated by the current thread on a cell. A cell is otherwise created with the
+     * global default fonts of boxable, which are only set while a table is drawn.
+     *
+     * @param cell the cell of a table of the document
+     */
+    public static void applyDocumentFonts(Cell<PDPage> cell) {
+        PDFont font = getDocumentFont("font", null);
+        if (font != null) {
+            cell.setFont(font);
+        }
+        PDFont boldFont = getDocumentFont("fontBold", null);
+        if (boldFont != null) {
+            cell.setFontBold(boldFont);
+        }
+    }
+
+    /**
+     * Draws a table of the document generated by the current thread. The fonts of the document are the default fonts
+     * of boxable while the table is drawn, the tables of other documents are drawn once it is done.
+     *
+     * @param table the table to draw
+     * @return the vertical position below the table, on its last page
+     */
+    public static float drawTable(BaseTable table) throws IOException {
+        TABLE_DRAWING_LOCK.lock();
+        try {
+            Map<String, PDFont> documentFonts = DOCUMENT_FONTS.get();
+            if (documentFonts != null) {
+                FontUtils.getDefaultfonts().putAll(documentFonts);
+            }
+            return table.draw();
+        } finally {
+            // cells created meanwhile by other documents may have read these fonts, applyDocumentFonts replaces them
+            FontUtils.getDefaultfonts().clear();
+            TABLE_DRAWING_LOCK.unlock();
+        }
     }
 
-    public void addFontTypeIfFileExists(PDDocument doc, String path, String fontType) throws IOException {
+    /**
+     * Loads a font of the classpath into a document. The font file is read once, and only the glyphs used by the
+     * document are embedded, so the returned font must be reused for all the cells of the document.
+     *
+     * @param doc the document using the font
+     * @param resourceName the classpath location of the TrueType font
+     * @return the font embedded in the document, or null if the font does not exist in the classpath
+     */
+    public static PDFont loadClasspathFont(PDDocument doc, String resourceName) throws IOException {
+        String key = "classpath:" + resourceName;
+        byte[] fontFile = FONT_FILES.get(key);
+        if (fontFile == null) {
+            try (InputStream fontStream = ReportGeneratorHelper.class.getClassLoader()
+                                                                      .getResourceAsStream(resourceName)) {
+                if (fontStream == null) {
+                    return null;
+                }
+                fontFile = readFontFile(key, fontStream);
+            }
+        }
+        return PDType0Font.load(doc, new ByteArrayInputStream(fontFile), true);
+    }
+
+    private void addFontTypeIfFileExists(PDDocument doc, Map<String, PDFont> documentFonts, String path,
+            String fontType) throws IOException {
         if (!StringUtils.isEmpty(path) && new File(path).exists()) {
-            FontUtils.getDefaultfonts().put(fontType, PDType0Font.load(doc, new File(path)));
+            String key = "file:" + path;
+            byte[] fontFile = FONT_FILES.get(key);
+            if (fontFile == null) {
+                try (InputStream fontStream = new FileInputStream(path)) {
+                    fontFile = readFontFile(key, fontStream);
+                }
+            }
+            documentFonts.put(fontType, PDType0Font.load(doc, new ByteArrayInputStream(fontFile), true));
         }
     }
 
+    private static byte[] readFontFile(String key, InputStream fontStream) throws IOException {
+        // concurrent first reads of a font file are identical, the first one to be stored is kept
+        FONT_FILES.putIfAbsent(key, ByteStreams.toByteArray(fontStream));
+        return FONT_FILES.get(key);
+    }
+
     public BaseTable initializeTable(PDDocument doc, float margin, PDPage page) throws IOException {
+        return initializeTable(doc, margin, page, getYStartNewPage(margin, page));
+    }
+
+    /**
+     * Initializes a table starting at the given position of the page, below what was already drawn on it
+     */
+    public BaseTable initializeTable(PDDocument doc, float margin, PDPage page, float yStart) throws IOException {
         float tableWidth = page.getMediaBox().getWidth() - (2 * margin);
-        float yStartNewPage = page.getMediaBox().getHeight() - (2 * margin);
+        float yStartNewPage = getYStartNewPage(margin, page);
         boolean drawContent = true;
         boolean drawLines = true;
-        float yStart = yStartNewPage;
-        float bottomMargin = 70f;
         return new BaseTable(yStart,
                              yStartNewPage,
-                             bottomMargin,
+                             BOTTOM_MARGIN,
                              tableWidth,
                              margin,
                              doc,
@@ -110,6 +259,13 @@ public class ReportGeneratorHelper {
                              drawContent);
     }
 
+    /**
+     * @return the vertical position at which the content of a new page starts
+     */
+    public float getYStartNewPage(float margin, PDPage page) {
+        return page.getMediaBox().getHeight() - (2 * margin);
+    }
+
     public PDPage addNewPage(PDDocument doc) {
         PDPage page = new PDPage();
         doc.addPage(page);
@@ -128,6 +284,12 @@ public class ReportGeneratorHelper {
 
     public CallGraphHolder buildCatalogCallGraph(List<CatalogObjectMetadata> catalogObjectMetadataList) {
 
+        // the existence and kind of all the called objects are resolved at once, rather than edge by edge
+        Map<String, String> calledCatalogObjectsKinds = catalogObjectService.getCatalogObjectsKinds(catalogObjectMetadataList.stream()
+                                                                                                                             .map(this::collectDependsOnCatalogObjects)
+                                                                                                                             .flatMap(List::stream)
+                                                                                                                             .collect(Collectors.toSet()));
+
         CallGraphHolder callGraphHolder = new CallGraphHolder();
         for (CatalogObjectMetadata catalogObjectMetadata : catalogObjectMetadataList) {
             List<String> dependsOnCatalogObjects = collectDependsOnCatalogObjects(catalogObjectMetadata);
@@ -144,13 +306,8 @@ public class ReportGeneratorHelper {
                 for (String dependsOnCatalogObject : dependsOnCatalogObjects) {
                     bucketName = separatorUtility.getSplitBySeparator(dependsOnCatalogObject).get(0);
                     objectName = separatorUtility.getSplitBySeparator(dependsOnCatalogObject).get(1);
-                    isCatalogObjectExist = catalogObjectService.isDependsOnObjectExistInCatalog(bucketName,
-                                                                                                objectName,
-                                                                                                WorkflowParser.LATEST_VERSION);
-                    objectKind = isCatalogObjectExist ? catalogObjectService.getCatalogObjectMetadata(bucketName,
-                                                                                                      objectName)
-                                                                            .getKind()
-                                                      : "N/A";
+                    isCatalogObjectExist = calledCatalogObjectsKinds.containsKey(dependsOnCatalogObject);
+                    objectKind = isCatalogObjectExist ? calledCatalogObjectsKinds.get(dependsOnCatalogObject) : "N/A";
                     calledCatalogObject = callGraphHolder.addNode(bucketName,
                                                                   objectName,
                                                                   objectKind,
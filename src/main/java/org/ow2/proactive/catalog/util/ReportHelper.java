@@ -26,6 +26,8 @@
 package org.ow2.proactive.catalog.util;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
@@ -39,12 +41,16 @@ import org.ow2.proactive.catalog.dto.CatalogObjectGrantMetadata;
 import org.ow2.proactive.catalog.service.*;
 import org.ow2.proactive.catalog.service.exception.AccessDeniedException;
 import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
+import org.ow2.proactive.catalog.service.model.UserRightsTable;
 import org.ow2.proactive.microservices.common.exception.NotAuthenticatedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 
 
 public class ReportHelper {
 
+    private static final String ZIP_CONTENT_TYPE = "application/zip";
+
     public static void flushResponse(HttpServletResponse response, byte[] content, String fileName) throws IOException {
         response.addHeader("Content-size", Integer.toString(content.length));
         response.setCharacterEncoding("UTF-8");
@@ -55,6 +61,16 @@ public class ReportHelper {
         response.getOutputStream().flush();
     }
 
+    public static void flushZipResponse(HttpServletResponse response, byte[] content, String fileName)
+            throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(ZIP_CONTENT_TYPE);
+        response.addHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+        response.addHeader(HttpHeaders.CONTENT_ENCODING, "binary");
+        response.getOutputStream().write(content);
+        response.getOutputStream().flush();
+    }
+
     public static List<String> getListOfAuthorizedBuckets(BucketGrantService bucketGrantService,
             BucketService bucketService, CatalogObjectGrantService catalogObjectGrantService,
             GrantRightsService grantRightsService, RestApiAccessService restApiAccessService, boolean sessionIdRequired,
@@ -74,8 +90,9 @@ public class ReportHelper {
             authorisedBuckets = bucketService.getBucketsByGroups(ownerName, kind, contentType, user);
             authorisedBuckets.addAll(grantRightsService.getBucketsByPrioritizedGrants(user));
 
-            List<BucketGrantMetadata> allBucketsGrants = bucketGrantService.getUserAllBucketsGrants(user);
-            List<CatalogObjectGrantMetadata> allCatalogObjectsGrants = catalogObjectGrantService.getObjectsGrants(user);
+            UserRightsTable userRightsTable = grantRightsService.getUserRightsTable(user);
+            List<BucketGrantMetadata> allBucketsGrants = userRightsTable.getBucketGrants();
+            List<CatalogObjectGrantMetadata> allCatalogObjectsGrants = userRightsTable.getCatalogObjectGrants();
 
             List<BucketMetadata> res = new LinkedList<>();
             for (BucketMetadata data : authorisedBuckets) {
@@ -107,4 +124,28 @@ public class ReportHelper {
 
         return authorisedBuckets.stream().map(BucketMetadata::getName).collect(Collectors.toList());
     }
+
+    /**
+     * @return the name of the user owning the report jobs of the session, null when sessions are not required
+     */
+    public static String getReportJobOwner(RestApiAccessService restApiAccessService, boolean sessionIdRequired,
+            String sessionId) throws NotAuthenticatedException, AccessDeniedException {
+        if (!sessionIdRequired) {
+            return null;
+        }
+        if (!restApiAccessService.isSessionActive(sessionId)) {
+            throw new AccessDeniedException("Session id is not active. Please login.");
+        }
+        return restApiAccessService.getUserFromSessionId(sessionId).getName();
+    }
+
+    /**
+     * @return the parameters identifying a report for the report job cache, the bucket names being sorted
+     */
+    public static List<Object> getReportJobParameters(List<String> authorisedBucketsNames, Object... filters) {
+        List<Object> parameters = new ArrayList<>(filters.length + 1);
+        parameters.add(authorisedBucketsNames.stream().sorted().distinct().collect(Collectors.toList()));
+        parameters.addAll(Arrays.asList(filters));
+        return parameters;
+    }
 }
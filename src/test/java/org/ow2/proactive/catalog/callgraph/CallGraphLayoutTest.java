@@ -0,0 +1,121 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.callgraph;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+
+public class CallGraphLayoutTest {
+
+    private static final float NODE_HEIGHT = 20f;
+
+    @Test
+    public void layoutOfDiamondIsLayeredByDistanceFromRoot() {
+        CallGraphHolder callGraphHolder = new CallGraphHolder();
+        GraphNode a = callGraphHolder.addNode("bucket", "a", "kind", true);
+        GraphNode b = callGraphHolder.addNode("bucket", "b", "kind", true);
+        GraphNode c = callGraphHolder.addNode("bucket", "c", "kind", true);
+        GraphNode d = callGraphHolder.addNode("bucket", "d", "kind", true);
+        callGraphHolder.addDependsOnEdge(a, b);
+        callGraphHolder.addDependsOnEdge(a, c);
+        callGraphHolder.addDependsOnEdge(b, d);
+        callGraphHolder.addDependsOnEdge(c, d);
+
+        CallGraphLayout layout = CallGraphLayout.compute(callGraphHolder.getCallGraph(),
+                                                         a,
+                                                         nodeWidths(callGraphHolder, 50f),
+                                                         NODE_HEIGHT,
+                                                         true);
+
+        Map<GraphNode, CallGraphLayout.NodeBox> boxes = layout.getNodeBoxes();
+        assertThat(boxes.get(a).getLayer()).isEqualTo(0);
+        assertThat(boxes.get(b).getLayer()).isEqualTo(1);
+        assertThat(boxes.get(c).getLayer()).isEqualTo(1);
+        assertThat(boxes.get(d).getLayer()).isEqualTo(2);
+
+        // layers are columns from left to right, the catalog objects of a layer are stacked without overlapping
+        assertThat(boxes.get(b).getX()).isGreaterThan(boxes.get(a).getX() + 50f);
+        assertThat(boxes.get(d).getX()).isGreaterThan(boxes.get(b).getX() + 50f);
+        assertThat(boxes.get(b).getX()).isEqualTo(boxes.get(c).getX());
+        assertThat(boxes.get(c).getY()).isAtLeast(boxes.get(b).getY() + NODE_HEIGHT);
+
+        assertThat(layout.getWidth()).isEqualTo(3 * 50f + 2 * CallGraphLayout.LAYER_SPACING);
+        assertThat(layout.getHeight()).isEqualTo(2 * NODE_HEIGHT + CallGraphLayout.NODE_SPACING);
+    }
+
+    @Test
+    public void verticalLayoutHasLayersAsRows() {
+        CallGraphHolder callGraphHolder = new CallGraphHolder();
+        GraphNode a = callGraphHolder.addNode("bucket", "a", "kind", true);
+        GraphNode b = callGraphHolder.addNode("bucket", "b", "kind", true);
+        GraphNode c = callGraphHolder.addNode("bucket", "c", "kind", true);
+        callGraphHolder.addDependsOnEdge(a, b);
+        callGraphHolder.addDependsOnEdge(a, c);
+
+        CallGraphLayout layout = CallGraphLayout.compute(callGraphHolder.getCallGraph(),
+                                                         a,
+                                                         nodeWidths(callGraphHolder, 50f),
+                                                         NODE_HEIGHT,
+                                                         false);
+
+        Map<GraphNode, CallGraphLayout.NodeBox> boxes = layout.getNodeBoxes();
+        assertThat(boxes.get(b).getY()).isEqualTo(NODE_HEIGHT + CallGraphLayout.LAYER_SPACING);
+        assertThat(boxes.get(c).getX()).isAtLeast(boxes.get(b).getX() + 50f);
+        assertThat(layout.getWidth()).isEqualTo(2 * 50f + CallGraphLayout.NODE_SPACING);
+        assertThat(layout.getHeight()).isEqualTo(2 * NODE_HEIGHT + CallGraphLayout.LAYER_SPACING);
+    }
+
+    @Test
+    public void layoutOfCycleContainsAllCatalogObjectsOnce() {
+        CallGraphHolder callGraphHolder = new CallGraphHolder();
+        GraphNode a = callGraphHolder.addNode("bucket", "a", "kind", true);
+        GraphNode b = callGraphHolder.addNode("bucket", "b", "kind", true);
+        GraphNode c = callGraphHolder.addNode("bucket", "c", "kind", false);
+        callGraphHolder.addDependsOnEdge(a, b);
+        callGraphHolder.addDependsOnEdge(b, a);
+        callGraphHolder.addDependsOnEdge(b, c);
+
+        CallGraphLayout layout = CallGraphLayout.compute(callGraphHolder.getCallGraph(),
+                                                         a,
+                                                         nodeWidths(callGraphHolder, 50f),
+                                                         NODE_HEIGHT,
+                                                         true);
+
+        assertThat(layout.getNodeBoxes().keySet()).containsExactly(a, b, c);
+        assertThat(layout.getNodeBoxes().get(c).getLayer()).isEqualTo(2);
+    }
+
+    private Map<GraphNode, Float> nodeWidths(CallGraphHolder callGraphHolder, float width) {
+        Map<GraphNode, Float> nodeWidths = new HashMap<>();
+        callGraphHolder.nodeSet().forEach(graphNode -> nodeWidths.put(graphNode, width));
+        return nodeWidths;
+    }
+}
@@ -32,15 +32,19 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
-import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
-import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.ow2.proactive.catalog.report.CellFactory;
 import org.ow2.proactive.catalog.util.ReportGeneratorHelper;
@@ -55,25 +59,31 @@ public class TableCallGraphsBuilderTest {
     @InjectMocks
     private TableCallGraphsBuilder tableCallGraphsBuilder;
 
-    @Mock
-    private CellFactory cellFactory;
+    @Spy
+    private CellFactory cellFactory = new CellFactory();
+
+    @Spy
+    private ReportGeneratorHelper reportGeneratorHelper = new ReportGeneratorHelper();
 
     @Test
-    public void buildCallGraphsTableWithCallGraphHolder0Order() throws IOException {
+    public void drawCallGraphsWithCallGraphHolder0Order() throws IOException {
 
         CallGraphHolder callGraphHolder = new CallGraphHolder();
 
         assertThat(callGraphHolder.order()).isEqualTo(0);
 
-        BaseTable baseTable = new ReportGeneratorHelper().initializeTable(new PDDocument(), 1f, new PDPage());
+        PDDocument document = new PDDocument();
+        PDPage page = reportGeneratorHelper.addNewPage(document);
+        BaseTable baseTable = reportGeneratorHelper.initializeTable(document, 1f, page);
 
-        tableCallGraphsBuilder.buildCallGraphsTable(callGraphHolder, baseTable);
+        tableCallGraphsBuilder.drawCallGraphs(document, callGraphHolder, baseTable, 1f);
 
         verify(cellFactory, times(1)).createDataHeaderCell(any(Row.class), eq(100f), anyString());
+        assertThat(document.getNumberOfPages()).isEqualTo(1);
     }
 
     @Test
-    public void buildCallGraphsTableWithoutCallGraphHolder0Order() throws IOException {
+    public void drawCallGraphsWithoutCallGraphHolder0Order() throws IOException {
 
         final String bucketName = "bucket";
 
@@ -82,14 +92,110 @@ public class TableCallGraphsBuilderTest {
 
         assertThat(callGraphHolder.order()).isNotEqualTo(0);
 
-        BaseTable baseTable = new ReportGeneratorHelper().initializeTable(new PDDocument(), 1f, new PDPage());
-
-        tableCallGraphsBuilder.buildCallGraphsTable(callGraphHolder, baseTable);
+        PDDocument document = new PDDocument();
+        PDPage page = reportGeneratorHelper.addNewPage(document);
+        BaseTable baseTable = reportGeneratorHelper.initializeTable(document, 1f, page);
 
-        assertThat(baseTable.getRows()).hasSize(2);
+        tableCallGraphsBuilder.drawCallGraphs(document, callGraphHolder, baseTable, 1f);
 
         verify(cellFactory, times(1)).createDataCellBucketName(any(Row.class), eq(100f), eq(bucketName));
+        assertThat(document.getNumberOfPages()).isEqualTo(1);
+    }
+
+    @Test
+    public void drawCallGraphsAddsPagesForCallGraphsWhichDoNotFit() throws IOException {
+
+        // 40 independent call graphs of 2 catalog objects, taller together than a page
+        CallGraphHolder callGraphHolder = new CallGraphHolder();
+        for (int index = 0; index < 40; index++) {
+            GraphNode caller = callGraphHolder.addNode("bucket", "caller-" + index, "workflow/standard", true);
+            GraphNode called = callGraphHolder.addNode("bucket", "called-" + index, "workflow/standard", false);
+            callGraphHolder.addDependsOnEdge(caller, called);
+        }
+
+        PDDocument document = new PDDocument();
+        PDPage page = reportGeneratorHelper.addNewPage(document);
+        BaseTable baseTable = reportGeneratorHelper.initializeTable(document, 10f, page);
+
+        tableCallGraphsBuilder.drawCallGraphs(document, callGraphHolder, baseTable, 10f);
+
+        assertThat(document.getNumberOfPages()).isGreaterThan(1);
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        document.save(pdf);
+        document.close();
+        assertThat(pdf.size()).isGreaterThan(0);
+    }
+
+    @Test
+    public void computeCallGraphForAllRootsOfDiamond() {
+        CallGraphHolder callGraphHolder = new CallGraphHolder();
+        GraphNode a = callGraphHolder.addNode("bucket", "a", "kind", true);
+        GraphNode b = callGraphHolder.addNode("bucket", "b", "kind", true);
+        GraphNode c = callGraphHolder.addNode("bucket", "c", "kind", true);
+        GraphNode d = callGraphHolder.addNode("bucket", "d", "kind", true);
+        GraphNode e = callGraphHolder.addNode("bucket", "e", "kind", true);
+        callGraphHolder.addDependsOnEdge(a, b);
+        callGraphHolder.addDependsOnEdge(a, c);
+        callGraphHolder.addDependsOnEdge(b, d);
+        callGraphHolder.addDependsOnEdge(c, d);
+        callGraphHolder.addDependsOnEdge(e, c);
+
+        Map<GraphNode, TableCallGraphsBuilder.RootCallGraph> callGraphs = tableCallGraphsBuilder.computeCallGraphForAllRoots(callGraphHolder);
+
+        assertThat(callGraphs.keySet()).containsExactly(a, e);
+        assertThat(callGraphs.get(a).getCallGraph().vertexSet()).containsExactly(a, b, c, d);
+        assertThat(callGraphs.get(a).getCallGraph().edgeSet()).hasSize(4);
+        assertThat(callGraphs.get(a).getDiameter()).isEqualTo(2);
+        assertThat(callGraphs.get(e).getCallGraph().vertexSet()).containsExactly(e, c, d);
+        assertThat(callGraphs.get(e).getDiameter()).isEqualTo(2);
+    }
 
+    @Test
+    public void computeCallGraphForAllRootsOfCycle() {
+        CallGraphHolder callGraphHolder = new CallGraphHolder();
+        GraphNode a = callGraphHolder.addNode("bucket", "a", "kind", true);
+        GraphNode b = callGraphHolder.addNode("bucket", "b", "kind", true);
+        GraphNode c = callGraphHolder.addNode("bucket", "c", "kind", false);
+        callGraphHolder.addDependsOnEdge(b, a);
+        callGraphHolder.addDependsOnEdge(a, b);
+        callGraphHolder.addDependsOnEdge(b, c);
+
+        Map<GraphNode, TableCallGraphsBuilder.RootCallGraph> callGraphs = tableCallGraphsBuilder.computeCallGraphForAllRoots(callGraphHolder);
+
+        assertThat(callGraphs.keySet()).containsExactly(a);
+        assertThat(callGraphs.get(a).getCallGraph().vertexSet()).containsExactly(a, b, c);
+        assertThat(callGraphs.get(a).getDiameter()).isEqualTo(2);
+    }
+
+    @Test(timeout = 1000)
+    public void computeCallGraphForAllRootsOfLayeredDiamondsIsNotExponential() {
+        final int layers = 150;
+        final int layerWidth = 2;
+
+        // every node calls all the nodes of the next layer: the number of paths from the root is 2^150
+        CallGraphHolder callGraphHolder = new CallGraphHolder();
+        GraphNode root = callGraphHolder.addNode("bucket", "root", "kind", true);
+        List<GraphNode> previousLayer = Collections.singletonList(root);
+        for (int layer = 0; layer < layers; layer++) {
+            List<GraphNode> currentLayer = new ArrayList<>();
+            for (int index = 0; index < layerWidth; index++) {
+                currentLayer.add(callGraphHolder.addNode("bucket", "node-" + layer + "-" + index, "kind", true));
+            }
+            for (GraphNode caller : previousLayer) {
+                for (GraphNode called : currentLayer) {
+                    callGraphHolder.addDependsOnEdge(caller, called);
+                }
+            }
+            previousLayer = currentLayer;
+        }
+        GraphNode leaf = callGraphHolder.addNode("bucket", "leaf", "kind", true);
+        previousLayer.forEach(caller -> callGraphHolder.addDependsOnEdge(caller, leaf));
+
+        Map<GraphNode, TableCallGraphsBuilder.RootCallGraph> callGraphs = tableCallGraphsBuilder.computeCallGraphForAllRoots(callGraphHolder);
+
+        assertThat(callGraphs.keySet()).containsExactly(root);
+        assertThat(callGraphs.get(root).getCallGraph().vertexSet()).hasSize(layers * layerWidth + 2);
+        assertThat(callGraphs.get(root).getDiameter()).isEqualTo(layers + 1);
     }
 
 }
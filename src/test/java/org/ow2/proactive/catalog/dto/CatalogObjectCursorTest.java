@@ -0,0 +1,86 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.dto;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.Base64;
+import java.util.Collections;
+
+import org.junit.Test;
+
+
+/**
+ * @author ActiveEon Team
+ */
+public class CatalogObjectCursorTest {
+
+    @Test
+    public void testEncodeDecode() {
+        CatalogObjectCursor cursor = new CatalogObjectCursor(1400343L, "name:with/separators \u00e9\u00e0");
+
+        assertThat(CatalogObjectCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    public void testEncodedCursorIsUrlSafe() {
+        String encoded = new CatalogObjectCursor(Long.MAX_VALUE, "???>>>~~~").encode();
+
+        assertThat(encoded).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    public void testCursorOfCatalogObject() {
+        CatalogObjectMetadata catalogObject = new CatalogObjectMetadata("bucket",
+                                                                        "name",
+                                                                        "project",
+                                                                        "tags",
+                                                                        "workflow",
+                                                                        "application/xml",
+                                                                        1400343L,
+                                                                        "commit message",
+                                                                        "username",
+                                                                        Collections.emptyList(),
+                                                                        "xml");
+
+        assertThat(CatalogObjectCursor.of(catalogObject)).isEqualTo(new CatalogObjectCursor(1400343L, "name"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeInvalidBase64() {
+        CatalogObjectCursor.decode("not a cursor");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeWithoutSeparator() {
+        CatalogObjectCursor.decode(Base64.getUrlEncoder().encodeToString("1400343".getBytes()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeWithInvalidCommitTime() {
+        CatalogObjectCursor.decode(Base64.getUrlEncoder().encodeToString("time:name".getBytes()));
+    }
+}
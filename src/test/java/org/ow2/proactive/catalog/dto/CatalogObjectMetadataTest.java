@@ -30,6 +30,7 @@ import static com.google.common.truth.Truth.assertThat;
 import java.util.List;
 
 import org.junit.Test;
+import org.ow2.proactive.catalog.repository.projection.CatalogObjectRevisionProjection;
 
 import com.google.common.collect.Lists;
 
@@ -64,6 +65,27 @@ public class CatalogObjectMetadataTest {
         assertThat(a.getProjectName()).isEqualTo("");
     }
 
+    @Test
+    public void testNullCommitMessageOfProjectionIsEmpty() {
+        CatalogObjectRevisionProjection projection = new CatalogObjectRevisionProjection(1L,
+                                                                                         "bucketName",
+                                                                                         "name",
+                                                                                         "kind",
+                                                                                         "contentType",
+                                                                                         "xml",
+                                                                                         123546587L,
+                                                                                         null,
+                                                                                         "username",
+                                                                                         null,
+                                                                                         null);
+
+        CatalogObjectMetadata metadata = new CatalogObjectMetadata(projection, null);
+
+        assertThat(metadata.getCommitMessage()).isEqualTo("");
+        assertThat(metadata.getProjectName()).isEqualTo("");
+        assertThat(metadata.getTags()).isEqualTo("");
+    }
+
     private CatalogObjectMetadata createObjectMetadata(String bucketName, String name, List<Metadata> metadataList) {
 
         CatalogObjectMetadata catalogObjectMetadata = new CatalogObjectMetadata(bucketName,
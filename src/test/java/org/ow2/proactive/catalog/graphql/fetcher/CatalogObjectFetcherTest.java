@@ -0,0 +1,167 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.graphql.fetcher;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.ow2.proactive.catalog.graphql.bean.CatalogObject;
+import org.ow2.proactive.catalog.graphql.bean.CatalogObjectConnection;
+import org.ow2.proactive.catalog.repository.CatalogObjectRevisionRepository;
+import org.ow2.proactive.catalog.repository.entity.BucketEntity;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectEntity;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
+import org.ow2.proactive.catalog.repository.entity.KeyValueLabelMetadataEntity;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import graphql.GraphQLContext;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.DataFetchingFieldSelectionSet;
+
+
+/**
+ * @author ActiveEon Team
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class CatalogObjectFetcherTest {
+
+    @InjectMocks
+    private CatalogObjectFetcher catalogObjectFetcher;
+
+    @Mock
+    private CatalogObjectRevisionRepository catalogObjectRevisionRepository;
+
+    @Spy
+    private CatalogObjectFetcher.CatalogObjectMapper catalogObjectMapper;
+
+    private DataFetchingEnvironment environment;
+
+    private DataFetchingFieldSelectionSet selectionSet;
+
+    @Before
+    public void setUp() {
+        selectionSet = mock(DataFetchingFieldSelectionSet.class);
+        environment = mock(DataFetchingEnvironment.class);
+        when(environment.getGraphQlContext()).thenReturn(GraphQLContext.newContext().build());
+        when(environment.getSelectionSet()).thenReturn(selectionSet);
+        doReturn("link").when(catalogObjectMapper).generateLink(anyString(), anyString());
+        when(catalogObjectRevisionRepository.findAll(any(Specification.class),
+                                                     any(Pageable.class))).thenReturn(new PageImpl<>(Collections.singletonList(newRevision()),
+                                                                                                     new PageRequest(0,
+                                                                                                                     CatalogObjectFetcher.DEFAULT_PAGE_SIZE),
+                                                                                                     1));
+        when(catalogObjectRevisionRepository.count(any(Specification.class))).thenReturn(7L);
+    }
+
+    @Test
+    public void testOnlyTheCountIsQueriedWhenTheEdgesAreNotSelected() {
+        select("totalCount");
+
+        CatalogObjectConnection connection = catalogObjectFetcher.get(environment);
+
+        assertThat(connection.getEdges()).isEmpty();
+        assertThat(connection.getTotalCount()).isEqualTo(7);
+        verify(catalogObjectRevisionRepository).count(any(Specification.class));
+        verify(catalogObjectRevisionRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    public void testTheRevisionsAreLoadedWhenTheEdgesAreSelected() {
+        select("edges", "edges/name", "totalCount");
+
+        CatalogObjectConnection connection = catalogObjectFetcher.get(environment);
+
+        assertThat(connection.getEdges()).hasSize(1);
+        assertThat(connection.getTotalCount()).isEqualTo(1);
+        verify(catalogObjectRevisionRepository).findAll(any(Specification.class), any(Pageable.class));
+        verify(catalogObjectRevisionRepository, never()).count(any(Specification.class));
+    }
+
+    @Test
+    public void testMetadataAndLinkAreNotBuiltWhenNotSelected() {
+        select("edges", "edges/name");
+
+        CatalogObject catalogObject = catalogObjectFetcher.get(environment).getEdges().get(0);
+
+        assertThat(catalogObject.getName()).isEqualTo("object");
+        assertThat(catalogObject.getMetadata()).isEmpty();
+        assertThat(catalogObject.getLink()).isNull();
+        verify(catalogObjectMapper, never()).generateLink(anyString(), anyString());
+    }
+
+    @Test
+    public void testMetadataAndLinkAreBuiltWhenSelected() {
+        select("edges", "edges/name", "edges/metadata", "edges/link");
+
+        CatalogObject catalogObject = catalogObjectFetcher.get(environment).getEdges().get(0);
+
+        assertThat(catalogObject.getMetadata()).hasSize(1);
+        assertThat(catalogObject.getMetadata().get(0).getKey()).isEqualTo("key");
+        assertThat(catalogObject.getLink()).isEqualTo("link");
+    }
+
+    private void select(String... fields) {
+        for (String field : fields) {
+            when(selectionSet.contains(field)).thenReturn(true);
+        }
+    }
+
+    private CatalogObjectRevisionEntity newRevision() {
+        CatalogObjectEntity catalogObject = CatalogObjectEntity.builder()
+                                                               .bucket(new BucketEntity("bucket", "owner"))
+                                                               .id(new CatalogObjectEntity.CatalogObjectEntityKey(1L,
+                                                                                                                  "object"))
+                                                               .kind("workflow")
+                                                               .contentType("application/xml")
+                                                               .build();
+        return CatalogObjectRevisionEntity.builder()
+                                          .catalogObject(catalogObject)
+                                          .commitTime(1L)
+                                          .commitMessage("commit")
+                                          .keyValueMetadataList(Collections.singletonList(new KeyValueLabelMetadataEntity("key",
+                                                                                                                          "value",
+                                                                                                                          "label")))
+                                          .build();
+    }
+}
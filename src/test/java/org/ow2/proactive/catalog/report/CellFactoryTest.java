@@ -30,7 +30,12 @@ import static org.mockito.Matchers.anyFloat;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Mockito.when;
 
+import java.awt.image.BufferedImage;
+import java.io.File;
 import java.io.IOException;
+import java.util.Optional;
+
+import javax.imageio.ImageIO;
 
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
@@ -125,6 +130,19 @@ public class CellFactoryTest {
         assertThat(row.getCells().get(0).getText()).isEqualTo(path);
     }
 
+    @Test
+    public void testThatImageIsDecodedOnce() throws IOException {
+        File imageFile = File.createTempFile("icon", ".png");
+        ImageIO.write(new BufferedImage(2, 2, BufferedImage.TYPE_INT_RGB), "png", imageFile);
+        String path = imageFile.toURI().toURL().toString();
+
+        Optional<BufferedImage> image = cellFactory.getImage(path);
+        assertThat(imageFile.delete()).isTrue();
+
+        assertThat(image.isPresent()).isTrue();
+        assertThat(cellFactory.getImage(path).get()).isSameAs(image.get());
+    }
+
     private void assertThatCellHasGoodValues(String content) {
         assertThat(row.getCells()).hasSize(1);
         assertThat(row.getCells().get(0).getText()).isEqualTo(content);
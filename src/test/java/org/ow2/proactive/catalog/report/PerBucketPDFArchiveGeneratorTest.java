@@ -0,0 +1,107 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.report;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.ow2.proactive.catalog.service.exception.PDFGenerationException;
+import org.zeroturnaround.zip.ZipUtil;
+
+
+public class PerBucketPDFArchiveGeneratorTest {
+
+    private final PerBucketPDFArchiveGenerator perBucketPDFArchiveGenerator = new PerBucketPDFArchiveGenerator(4);
+
+    @After
+    public void tearDown() {
+        perBucketPDFArchiveGenerator.shutdown();
+    }
+
+    @Test
+    public void testArchiveContainsOnePdfPerBucket() {
+        Map<String, String> contentPerBucket = new LinkedHashMap<>();
+        contentPerBucket.put("bucket1", "one");
+        contentPerBucket.put("bucket2", "two");
+        contentPerBucket.put("bucket3", "three");
+
+        byte[] archive = perBucketPDFArchiveGenerator.generateArchive(contentPerBucket, String::getBytes);
+
+        assertThat(ZipUtil.unpackEntry(new ByteArrayInputStream(archive),
+                                       "bucket1_report.pdf")).isEqualTo("one".getBytes());
+        assertThat(ZipUtil.unpackEntry(new ByteArrayInputStream(archive),
+                                       "bucket2_report.pdf")).isEqualTo("two".getBytes());
+        assertThat(ZipUtil.unpackEntry(new ByteArrayInputStream(archive),
+                                       "bucket3_report.pdf")).isEqualTo("three".getBytes());
+    }
+
+    @Test(timeout = 10000)
+    public void testBucketsAreRenderedConcurrently() {
+        Map<String, String> contentPerBucket = new LinkedHashMap<>();
+        contentPerBucket.put("bucket1", "one");
+        contentPerBucket.put("bucket2", "two");
+        contentPerBucket.put("bucket3", "three");
+        CountDownLatch allRenderingsStarted = new CountDownLatch(contentPerBucket.size());
+        Set<String> renderingThreads = ConcurrentHashMap.newKeySet();
+
+        // every rendering waits for the others, which can only complete if they run concurrently
+        perBucketPDFArchiveGenerator.generateArchive(contentPerBucket, content -> {
+            renderingThreads.add(Thread.currentThread().getName());
+            allRenderingsStarted.countDown();
+            try {
+                assertThat(allRenderingsStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return content.getBytes();
+        });
+
+        assertThat(renderingThreads).hasSize(contentPerBucket.size());
+    }
+
+    @Test(expected = PDFGenerationException.class)
+    public void testRenderingFailureIsPropagated() {
+        Map<String, String> contentPerBucket = new LinkedHashMap<>();
+        contentPerBucket.put("bucket1", "one");
+        contentPerBucket.put("bucket2", "two");
+
+        perBucketPDFArchiveGenerator.generateArchive(contentPerBucket, content -> {
+            if (content.equals("two")) {
+                throw new PDFGenerationException("rendering failed");
+            }
+            return content.getBytes();
+        });
+    }
+}
@@ -139,10 +139,16 @@ public class TableCatalogObjectsDependenciesBuilderTest {
 
         callGraphHolder.addNode(bucketName, objectName, kind, true);
 
-        tableCatalogObjectsDependenciesBuilder.buildCatalogObjectsDependenciesTable(pdDocument,
-                                                                                    callGraphHolder,
-                                                                                    catalogObjectMetadatas,
-                                                                                    table);
+        ReportGeneratorHelper reportGeneratorHelper = new ReportGeneratorHelper();
+        try {
+            reportGeneratorHelper.setFontToUse(pdDocument);
+            tableCatalogObjectsDependenciesBuilder.buildCatalogObjectsDependenciesTable(pdDocument,
+                                                                                        callGraphHolder,
+                                                                                        catalogObjectMetadatas,
+                                                                                        table);
+        } finally {
+            reportGeneratorHelper.releaseFontToUse();
+        }
 
         assertThat(table.getRows()).hasSize(2);
     }
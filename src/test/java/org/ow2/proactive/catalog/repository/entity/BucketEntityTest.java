@@ -63,6 +63,22 @@ public class BucketEntityTest {
         assertThat(catalogObject.getBucket()).isEqualTo(bucket);
     }
 
+    @Test
+    public void testCountCatalogObjects() {
+        bucket.setObjectCount(3);
+        assertEquals(3, bucket.countCatalogObjects());
+    }
+
+    @Test
+    public void testCountCatalogObjectsWithoutObjectCount() {
+        CatalogObjectEntity catalogObject = new CatalogObjectEntity();
+        catalogObject.setId(new CatalogObjectEntity.CatalogObjectEntityKey(null, "name"));
+        bucket.addCatalogObject(catalogObject);
+        bucket.setObjectCount(null);
+
+        assertEquals(1, bucket.countCatalogObjects());
+    }
+
     @Test
     public void testSetName() {
         final String expectedName = "EXPECTED_BUCKET_NAME";
@@ -106,6 +106,6 @@ public class CatalogObjectEntityTest {
                                                time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(),
                                                catalogObject,
                                                Collections.emptyList(),
-                                               new byte[0]);
+                                               new CatalogObjectContentEntity(new byte[0]));
     }
 }
@@ -112,7 +112,8 @@ public class BucketControllerTest {
                                                     Optional.empty(),
                                                     Optional.empty(),
                                                     null,
-                                                    false);
+                                                    false,
+                                                    Optional.empty());
     }
 
     @Test
@@ -157,7 +158,8 @@ public class BucketControllerTest {
                                                     Optional.ofNullable(0L),
                                                     Optional.ofNullable(0L),
                                                     null,
-                                                    false);
+                                                    false,
+                                                    Optional.empty());
     }
 
     @Test
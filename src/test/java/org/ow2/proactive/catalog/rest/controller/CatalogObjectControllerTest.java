@@ -27,8 +27,10 @@ package org.ow2.proactive.catalog.rest.controller;
 
 import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyList;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -37,6 +39,7 @@ import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -51,18 +54,21 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.ow2.proactive.catalog.dto.CatalogObjectCursor;
 import org.ow2.proactive.catalog.dto.CatalogObjectMetadata;
 import org.ow2.proactive.catalog.dto.CatalogRawObject;
 import org.ow2.proactive.catalog.repository.BucketRepository;
 import org.ow2.proactive.catalog.repository.entity.BucketEntity;
 import org.ow2.proactive.catalog.service.*;
 import org.ow2.proactive.catalog.service.exception.AccessDeniedException;
+import org.ow2.proactive.catalog.service.exception.WrongParametersException;
+import org.ow2.proactive.catalog.service.model.CatalogObjectAccessFilter;
 import org.ow2.proactive.catalog.util.ArchiveManagerHelper;
-import org.ow2.proactive.catalog.util.ArchiveManagerHelper.ZipArchiveContent;
 import org.ow2.proactive.catalog.util.RawObjectResponseCreator;
 import org.ow2.proactive.microservices.common.exception.NotAuthenticatedException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
 
 
 /**
@@ -117,9 +123,6 @@ public class CatalogObjectControllerTest {
         when(response.getOutputStream()).thenReturn(sos);
         List<String> nameList = new ArrayList<>();
         nameList.add("workflowname");
-        ZipArchiveContent content = new ZipArchiveContent();
-        content.setContent(new byte[0]);
-        when(catalogObjectService.getCatalogObjectsAsZipArchive("bucket-name", nameList)).thenReturn(content);
         catalogObjectController.list("",
                                      "bucket-name",
                                      Optional.empty(),
@@ -135,14 +138,14 @@ public class CatalogObjectControllerTest {
                                      Optional.of(nameList),
                                      0,
                                      Integer.MAX_VALUE,
+                                     Optional.empty(),
                                      response);
-        verify(catalogObjectService, times(1)).getCatalogObjectsAsZipArchive("bucket-name", nameList);
+        verify(catalogObjectService, times(1)).writeCatalogObjectsAsZipArchive("bucket-name", nameList, sos);
         verify(response, times(1)).setStatus(HttpServletResponse.SC_OK);
         verify(response, times(1)).setContentType("application/zip");
         verify(response, times(1)).addHeader(HttpHeaders.CONTENT_ENCODING, "binary");
         verify(response, times(1)).addHeader(HttpHeaders.CONTENT_DISPOSITION,
                                              "attachment; filename=\"bucket-name.zip\"");
-        verify(sos, times(1)).write(any());
         verify(sos, times(1)).flush();
     }
 
@@ -153,9 +156,6 @@ public class CatalogObjectControllerTest {
         when(response.getOutputStream()).thenReturn(sos);
         List<String> nameList = new ArrayList<>();
         nameList.add("workflowname");
-        ZipArchiveContent content = new ZipArchiveContent();
-        content.setContent(new byte[0]);
-        when(catalogObjectService.getCatalogObjectsAsPackageZipArchive("bucket-name", nameList)).thenReturn(content);
         CatalogObjectMetadata dummyContent = new CatalogObjectMetadata("bucket-name",
                                                                        "workflowname",
                                                                        "",
@@ -177,16 +177,16 @@ public class CatalogObjectControllerTest {
                                                      Optional.empty(),
                                                      Optional.empty(),
                                                      Optional.empty(),
+                                                     CatalogObjectAccessFilter.ALL,
                                                      0,
                                                      Integer.MAX_VALUE)).thenReturn(Collections.singletonList(dummyContent));
         catalogObjectController.exportCatalogObjects("", "bucket-name", false, Optional.of(nameList), response);
-        verify(catalogObjectService, times(1)).getCatalogObjectsAsPackageZipArchive("bucket-name", nameList);
+        verify(catalogObjectService, times(1)).writeCatalogObjectsAsPackageZipArchive("bucket-name", nameList, sos);
         verify(response, times(1)).setStatus(HttpServletResponse.SC_OK);
         verify(response, times(1)).setContentType("application/zip");
         verify(response, times(1)).addHeader(HttpHeaders.CONTENT_ENCODING, "binary");
         verify(response, times(1)).addHeader(HttpHeaders.CONTENT_DISPOSITION,
                                              "attachment; filename=\"bucket-name.zip\"");
-        verify(sos, times(1)).write(any());
         verify(sos, times(1)).flush();
     }
 
@@ -200,9 +200,7 @@ public class CatalogObjectControllerTest {
         String workflowName = "workflowname";
         List<String> nameList = new ArrayList<>();
         nameList.add(workflowName);
-        ZipArchiveContent content = new ZipArchiveContent();
-        content.setContent(new byte[0]);
-        content.setPartial(true);
+        when(catalogObjectService.isAnyCatalogObjectMissing(bucketName, nameList)).thenReturn(true);
 
         CatalogObjectMetadata dummyContent = new CatalogObjectMetadata(bucketName,
                                                                        workflowName,
@@ -225,9 +223,9 @@ public class CatalogObjectControllerTest {
                                                      Optional.empty(),
                                                      Optional.empty(),
                                                      Optional.empty(),
+                                                     CatalogObjectAccessFilter.ALL,
                                                      0,
                                                      Integer.MAX_VALUE)).thenReturn(Collections.singletonList(dummyContent));
-        when(catalogObjectService.getCatalogObjectsAsZipArchive(bucketName, nameList)).thenReturn(content);
         catalogObjectController.list("",
                                      bucketName,
                                      Optional.empty(),
@@ -243,8 +241,9 @@ public class CatalogObjectControllerTest {
                                      Optional.of(nameList),
                                      0,
                                      Integer.MAX_VALUE,
+                                     Optional.empty(),
                                      response);
-        verify(catalogObjectService, times(1)).getCatalogObjectsAsZipArchive(bucketName, nameList);
+        verify(catalogObjectService, times(1)).writeCatalogObjectsAsZipArchive(bucketName, nameList, sos);
         verify(response, never()).setStatus(HttpServletResponse.SC_OK);
     }
 
@@ -258,9 +257,7 @@ public class CatalogObjectControllerTest {
         when(response.getOutputStream()).thenReturn(sos);
         List<String> nameList = new ArrayList<>();
         nameList.add(workflowName);
-        ZipArchiveContent content = new ZipArchiveContent();
-        content.setContent(new byte[0]);
-        content.setPartial(true);
+        when(catalogObjectService.isAnyCatalogObjectMissing(bucketName, nameList)).thenReturn(true);
         CatalogObjectMetadata dummyContent = new CatalogObjectMetadata(bucketName,
                                                                        workflowName,
                                                                        "",
@@ -282,12 +279,13 @@ public class CatalogObjectControllerTest {
                                                      Optional.empty(),
                                                      Optional.empty(),
                                                      Optional.empty(),
+                                                     CatalogObjectAccessFilter.ALL,
                                                      0,
                                                      Integer.MAX_VALUE)).thenReturn(Collections.singletonList(dummyContent));
-        when(catalogObjectService.getCatalogObjectsAsPackageZipArchive(bucketName, nameList)).thenReturn(content);
         catalogObjectController.exportCatalogObjects("", bucketName, false, Optional.of(nameList), response);
-        verify(catalogObjectService, times(1)).getCatalogObjectsAsPackageZipArchive(bucketName, nameList);
+        verify(catalogObjectService, times(1)).writeCatalogObjectsAsPackageZipArchive(bucketName, nameList, sos);
         verify(response, never()).setStatus(HttpServletResponse.SC_OK);
+        verify(response, times(1)).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
     }
 
     @Test
@@ -312,6 +310,7 @@ public class CatalogObjectControllerTest {
                                      Optional.empty(),
                                      0,
                                      Integer.MAX_VALUE,
+                                     Optional.empty(),
                                      response);
         verify(catalogObjectService, times(1)).listCatalogObjects(anyList(),
                                                                   any(Optional.class),
@@ -323,10 +322,142 @@ public class CatalogObjectControllerTest {
                                                                   any(Optional.class),
                                                                   any(Optional.class),
                                                                   any(Optional.class),
+                                                                  any(CatalogObjectAccessFilter.class),
                                                                   any(Integer.class),
                                                                   any(Integer.class));
     }
 
+    @Test
+    public void testListWithCursorReturnsNextCursorWhenThePageIsFull() throws Exception {
+        CatalogObjectMetadata first = new CatalogObjectMetadata("bucket-name",
+                                                                "first",
+                                                                PROJECT_NAME,
+                                                                TAGS,
+                                                                "object",
+                                                                "application/xml",
+                                                                1000L,
+                                                                "commit message",
+                                                                "username",
+                                                                Collections.emptyList(),
+                                                                "xml");
+        CatalogObjectMetadata second = new CatalogObjectMetadata("bucket-name",
+                                                                 "second",
+                                                                 PROJECT_NAME,
+                                                                 TAGS,
+                                                                 "object",
+                                                                 "application/xml",
+                                                                 2000L,
+                                                                 "commit message",
+                                                                 "username",
+                                                                 Collections.emptyList(),
+                                                                 "xml");
+        CatalogObjectCursor cursor = new CatalogObjectCursor(500L, "previous");
+        when(catalogObjectService.listCatalogObjectsAfterCursor(anyList(),
+                                                                any(Optional.class),
+                                                                any(Optional.class),
+                                                                any(Optional.class),
+                                                                any(Optional.class),
+                                                                any(Optional.class),
+                                                                any(Optional.class),
+                                                                any(Optional.class),
+                                                                any(Optional.class),
+                                                                any(Optional.class),
+                                                                any(CatalogObjectAccessFilter.class),
+                                                                eq(Optional.of(cursor)),
+                                                                eq(2))).thenReturn(new ArrayList<>(Arrays.asList(first,
+                                                                                                                 second)));
+
+        ResponseEntity<List<CatalogObjectMetadata>> response = listWithCursor(cursor.encode(), 2);
+
+        assertThat(response.getBody()).containsExactly(first, second).inOrder();
+        String nextCursor = response.getHeaders().getFirst(CatalogObjectController.NEXT_CURSOR_HEADER);
+        assertThat(CatalogObjectCursor.decode(nextCursor)).isEqualTo(new CatalogObjectCursor(2000L, "second"));
+        verify(catalogObjectService, never()).listCatalogObjects(anyList(),
+                                                                 any(Optional.class),
+                                                                 any(Optional.class),
+                                                                 any(Optional.class),
+                                                                 any(Optional.class),
+                                                                 any(Optional.class),
+                                                                 any(Optional.class),
+                                                                 any(Optional.class),
+                                                                 any(Optional.class),
+                                                                 any(Optional.class),
+                                                                 any(CatalogObjectAccessFilter.class),
+                                                                 any(Integer.class),
+                                                                 any(Integer.class));
+    }
+
+    @Test
+    public void testListWithEmptyCursorStartsFromTheFirstPageWithTheDefaultPageSize() throws Exception {
+        when(catalogObjectService.listCatalogObjectsAfterCursor(anyList(),
+                                                                any(Optional.class),
+                                                                any(Optional.class),
+                                                                any(Optional.class),
+                                                                any(Optional.class),
+                                                                any(Optional.class),
+                                                                any(Optional.class),
+                                                                any(Optional.class),
+                                                                any(Optional.class),
+                                                                any(Optional.class),
+                                                                any(CatalogObjectAccessFilter.class),
+                                                                any(Optional.class),
+                                                                anyInt())).thenReturn(new ArrayList<>());
+
+        ResponseEntity<List<CatalogObjectMetadata>> response = listWithCursor("", Integer.MAX_VALUE);
+
+        assertThat(response.getBody()).isEmpty();
+        assertThat(response.getHeaders().containsKey(CatalogObjectController.NEXT_CURSOR_HEADER)).isFalse();
+        verify(catalogObjectService).listCatalogObjectsAfterCursor(anyList(),
+                                                                   any(Optional.class),
+                                                                   any(Optional.class),
+                                                                   any(Optional.class),
+                                                                   any(Optional.class),
+                                                                   any(Optional.class),
+                                                                   any(Optional.class),
+                                                                   any(Optional.class),
+                                                                   any(Optional.class),
+                                                                   any(Optional.class),
+                                                                   any(CatalogObjectAccessFilter.class),
+                                                                   eq(Optional.empty()),
+                                                                   eq(100));
+    }
+
+    @Test(expected = WrongParametersException.class)
+    public void testListWithInvalidCursor() throws Exception {
+        listWithCursor("not a cursor", 10);
+    }
+
+    @Test(expected = WrongParametersException.class)
+    public void testListWithCursorAndZeroPageSize() throws Exception {
+        listWithCursor("", 0);
+    }
+
+    @Test(expected = WrongParametersException.class)
+    public void testListWithCursorAndNegativePageSize() throws Exception {
+        listWithCursor("", -1);
+    }
+
+    private ResponseEntity<List<CatalogObjectMetadata>> listWithCursor(String cursor, int pageSize)
+            throws Exception {
+        return catalogObjectController.list("",
+                                            "bucket-name",
+                                            Optional.empty(),
+                                            Optional.empty(),
+                                            Optional.empty(),
+                                            Optional.empty(),
+                                            Optional.empty(),
+                                            Optional.empty(),
+                                            Optional.empty(),
+                                            Optional.empty(),
+                                            Optional.empty(),
+                                            Optional.empty(),
+                                            Optional.empty(),
+                                            0,
+                                            pageSize,
+                                            Optional.of(cursor),
+                                            mock(HttpServletResponse.class));
+    }
+
     @Test
     public void testGetRaw() throws Exception {
         CatalogRawObject rawObject = new CatalogRawObject("bucket-name",
@@ -347,7 +478,10 @@ public class CatalogObjectControllerTest {
 
         when(catalogObjectService.getCatalogRawObject(anyString(), anyString())).thenReturn(rawObject);
         when(rawObjectResponseCreator.createRawObjectResponse(rawObject)).thenReturn(responseEntity);
-        ResponseEntity responseEntityFromController = catalogObjectController.getRaw("", "bucket-name", "name");
+        ResponseEntity responseEntityFromController = catalogObjectController.getRaw("",
+                                                                                     "bucket-name",
+                                                                                     "name",
+                                                                                     mock(WebRequest.class));
         verify(catalogObjectService, times(1)).getCatalogRawObject(anyString(), anyString());
         verify(rawObjectResponseCreator, times(1)).createRawObjectResponse(rawObject);
         assertThat(responseEntityFromController).isNotNull();
@@ -25,9 +25,12 @@
  */
 package org.ow2.proactive.catalog.rest.controller;
 
+import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.Matchers.anyList;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -41,12 +44,16 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.ow2.proactive.catalog.dto.BucketMetadata;
+import org.ow2.proactive.catalog.dto.ReportJobMetadata;
 import org.ow2.proactive.catalog.service.BucketService;
 import org.ow2.proactive.catalog.service.CatalogObjectReportService;
+import org.ow2.proactive.catalog.service.ReportJobService;
+import org.ow2.proactive.catalog.service.ReportJobService.ReportJobType;
 import org.ow2.proactive.catalog.service.RestApiAccessService;
 import org.springframework.http.HttpHeaders;
 
@@ -71,6 +78,9 @@ public class CatalogObjectReportControllerTest {
     @Mock
     private RestApiAccessService restApiAccessService;
 
+    @Mock
+    private ReportJobService reportJobService;
+
     @Test
     public void getReport() throws Exception {
 
@@ -121,6 +131,62 @@ public class CatalogObjectReportControllerTest {
 
     }
 
+    @Test
+    public void submitReportJob() throws Exception {
+
+        Optional<String> kind = Optional.empty();
+        Optional<String> contentType = Optional.empty();
+
+        List<BucketMetadata> authorisedBuckets = Lists.newArrayList(new BucketMetadata("bucket5", "xxx"),
+                                                                    new BucketMetadata("bucket2", "xxx"));
+        when(bucketService.listBuckets("xxx", kind, contentType)).thenReturn(authorisedBuckets);
+
+        ReportJobMetadata job = new ReportJobMetadata("job-id", ReportJobMetadata.Status.RUNNING, 1L, null);
+        when(reportJobService.submitJob(eq(ReportJobType.REPORT),
+                                        isNull(String.class),
+                                        anyList(),
+                                        anyObject())).thenReturn(job);
+
+        ReportJobMetadata submittedJob = catalogObjectReportController.submitReportJob("sessionid",
+                                                                                       "xxx",
+                                                                                       kind,
+                                                                                       contentType,
+                                                                                       Optional.empty(),
+                                                                                       Optional.empty(),
+                                                                                       Optional.empty(),
+                                                                                       Optional.empty(),
+                                                                                       Optional.empty(),
+                                                                                       Optional.empty(),
+                                                                                       Optional.empty(),
+                                                                                       Optional.empty());
+
+        assertThat(submittedJob).isEqualTo(job);
+        ArgumentCaptor<List> parameters = ArgumentCaptor.forClass(List.class);
+        verify(reportJobService).submitJob(eq(ReportJobType.REPORT),
+                                           isNull(String.class),
+                                           parameters.capture(),
+                                           anyObject());
+        assertThat(parameters.getValue().get(0)).isEqualTo(Lists.newArrayList("bucket2", "bucket5"));
+    }
+
+    @Test
+    public void getReportJobContent() throws Exception {
+
+        byte[] content = "some data to test".getBytes();
+
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        ServletOutputStream sos = mock(ServletOutputStream.class);
+        when(response.getOutputStream()).thenReturn(sos);
+        when(reportJobService.getJobContent(ReportJobType.REPORT, null, "job-id")).thenReturn(content);
+
+        catalogObjectReportController.getReportJobContent(response, "sessionid", "job-id");
+
+        verify(response, times(1)).addHeader(HttpHeaders.CONTENT_DISPOSITION,
+                                             "attachment; filename=\"catalog_report.zip\"");
+        verify(sos, times(1)).write(content);
+        verify(sos, times(1)).flush();
+    }
+
     @Test
     public void getReportForSelectedObjectsWithNames() throws Exception {
 
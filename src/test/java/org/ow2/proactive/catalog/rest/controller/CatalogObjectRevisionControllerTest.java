@@ -28,6 +28,8 @@ package org.ow2.proactive.catalog.rest.controller;
 import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -43,7 +45,9 @@ import org.ow2.proactive.catalog.dto.CatalogRawObject;
 import org.ow2.proactive.catalog.service.CatalogObjectService;
 import org.ow2.proactive.catalog.service.RestApiAccessService;
 import org.ow2.proactive.catalog.util.RawObjectResponseCreator;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
 
 
 /**
@@ -95,13 +99,45 @@ public class CatalogObjectRevisionControllerTest {
         when(catalogObjectService.getCatalogObjectRevisionRaw(anyString(),
                                                               anyString(),
                                                               anyLong())).thenReturn(rawObject);
-        when(rawObjectResponseCreator.createRawObjectResponse(rawObject)).thenReturn(responseEntity);
+        when(rawObjectResponseCreator.createRawObjectResponse(rawObject, true)).thenReturn(responseEntity);
         ResponseEntity responseEntityFromController = catalogObjectRevisionController.getRaw("",
                                                                                              BUCKET_ID,
                                                                                              "name",
-                                                                                             System.currentTimeMillis());
+                                                                                             System.currentTimeMillis(),
+                                                                                             mock(WebRequest.class));
         verify(catalogObjectService, times(1)).getCatalogObjectRevisionRaw(anyString(), anyString(), anyLong());
         assertThat(responseEntityFromController).isNotNull();
         assertThat(responseEntityFromController).isEqualTo(responseEntity);
     }
+
+    @Test
+    public void testGetRevisionRawNotModified() throws Exception {
+        CatalogRawObject rawObject = new CatalogRawObject("bucket-name",
+                                                          "name",
+                                                          "projectName",
+                                                          "tag",
+                                                          "object",
+                                                          "application/xml",
+                                                          1400343L,
+                                                          "commit message",
+                                                          "username",
+                                                          Collections.emptyList(),
+                                                          new byte[0],
+                                                          "xml");
+        ResponseEntity notModifiedResponse = ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        WebRequest webRequest = mock(WebRequest.class);
+
+        when(restApiAccessService.isAPublicBucket(anyString())).thenReturn(true);
+
+        when(catalogObjectService.getCatalogObjectRevision(anyString(), anyString(), anyLong())).thenReturn(rawObject);
+        when(rawObjectResponseCreator.isNotModified(webRequest, rawObject)).thenReturn(true);
+        when(rawObjectResponseCreator.createNotModifiedResponse(rawObject, true)).thenReturn(notModifiedResponse);
+        ResponseEntity responseEntityFromController = catalogObjectRevisionController.getRaw("",
+                                                                                             BUCKET_ID,
+                                                                                             "name",
+                                                                                             1400343L,
+                                                                                             webRequest);
+        verify(catalogObjectService, never()).getCatalogObjectRevisionRaw(anyString(), anyString(), anyLong());
+        assertThat(responseEntityFromController.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
 }
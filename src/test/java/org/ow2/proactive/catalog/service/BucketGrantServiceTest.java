@@ -69,6 +69,9 @@ public class BucketGrantServiceTest {
     @Mock
     private CatalogObjectGrantService catalogObjectGrantService;
 
+    @Mock
+    private UserRightsCache userRightsCache;
+
     private final String DUMMY_USERNAME = "dummyUser";
 
     private final String DUMMY_TENANT = "dummyTenant";
@@ -115,6 +118,7 @@ public class BucketGrantServiceTest {
         verify(bucketRepository, times(1)).findOneByBucketName(DUMMY_BUCKET);
         verify(bucketGrantRepository, times(1)).findBucketGrantByUsername(DUMMY_BUCKET_ID, DUMMY_USERNAME);
         verify(bucketGrantRepository, times(1)).save(bucketGrantEntity);
+        verify(userRightsCache).invalidateAll();
     }
 
     @Test
@@ -0,0 +1,78 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.ow2.proactive.catalog.repository.BucketRepository;
+
+
+/**
+ * @author ActiveEon Team
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class BucketObjectCountStartupAdderTest {
+
+    @InjectMocks
+    private BucketObjectCountStartupAdder bucketObjectCountStartupAdder;
+
+    @Mock
+    private BucketRepository bucketRepository;
+
+    @Test
+    public void testDriftedAndMissingObjectCountsAreRepaired() {
+        when(bucketRepository.findObjectCounts()).thenReturn(Arrays.asList(new Object[] { 1L, 5, 3L },
+                                                                           new Object[] { 2L, null, 2L },
+                                                                           new Object[] { 3L, 1, 1L }));
+
+        bucketObjectCountStartupAdder.synchronizeObjectCounts();
+
+        verify(bucketRepository).setObjectCount(1L, 3);
+        verify(bucketRepository).setObjectCount(2L, 2);
+        verify(bucketRepository, never()).setObjectCount(3L, 1);
+    }
+
+    @Test
+    public void testCorrectObjectCountsAreNotUpdated() {
+        when(bucketRepository.findObjectCounts()).thenReturn(Arrays.asList(new Object[] { 1L, 0, 0L },
+                                                                           new Object[] { 2L, 4, 4L }));
+
+        bucketObjectCountStartupAdder.synchronizeObjectCounts();
+
+        verify(bucketRepository, never()).setObjectCount(anyLong(), anyInt());
+    }
+}
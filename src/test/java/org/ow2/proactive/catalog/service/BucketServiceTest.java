@@ -108,6 +108,7 @@ public class BucketServiceTest {
                                                                                                                     any(),
                                                                                                                     any(),
                                                                                                                     any(),
+                                                                                                                    any(),
                                                                                                                     any());
         verify(bucketRepository, times(0)).findByOwnerIn(any(), any(Sort.class));
     }
@@ -140,6 +141,7 @@ public class BucketServiceTest {
                                                                                                                     any(),
                                                                                                                     any(),
                                                                                                                     any(),
+                                                                                                                    any(),
                                                                                                                     any());
     }
 
@@ -265,6 +267,99 @@ public class BucketServiceTest {
         verify(bucketRepository, times(1)).findBucketForUpdate("bucket-name");
     }
 
+    @Test
+    public void testListAllBucketsMergesFilteredBuckets() {
+        BucketEntity bucketA = new BucketEntity("bucket-a", "owner");
+        BucketEntity bucketB = new BucketEntity("bucket-b", "owner");
+        BucketEntity bucketC = new BucketEntity("bucket-c", "owner");
+        when(bucketRepository.findAll()).thenReturn(Arrays.asList(bucketA, bucketB, bucketC));
+        when(bucketRepository.findBucketByOwnerContainingKindListAndContentTypeAndObjectNameAndLastCommittedTimeInterval(anyList(),
+                                                                                                                        anyList(),
+                                                                                                                        anyString(),
+                                                                                                                        anyString(),
+                                                                                                                        anyString(),
+                                                                                                                        anyLong(),
+                                                                                                                        anyLong(),
+                                                                                                                        any(),
+                                                                                                                        any())).thenReturn(Collections.singletonList(new Object[] { "bucket-b",
+                                                                                                                                                                                    "owner",
+                                                                                                                                                                                    2L,
+                                                                                                                                                                                    null,
+                                                                                                                                                                                    2L }));
+
+        List<BucketMetadata> buckets = bucketService.listBuckets((String) null,
+                                                                 null,
+                                                                 null,
+                                                                 Optional.of("workflow"),
+                                                                 Optional.empty(),
+                                                                 Optional.empty(),
+                                                                 Optional.empty(),
+                                                                 Optional.empty(),
+                                                                 Optional.empty(),
+                                                                 Optional.empty(),
+                                                                 Optional.empty(),
+                                                                 Optional.empty(),
+                                                                 Optional.empty(),
+                                                                 null,
+                                                                 true);
+
+        assertThat(buckets).hasSize(3);
+        assertThat(buckets.get(0).getName()).isEqualTo("bucket-a");
+        assertThat(buckets.get(0).getObjectCount()).isEqualTo(0);
+        assertThat(buckets.get(1).getName()).isEqualTo("bucket-b");
+        assertThat(buckets.get(1).getObjectCount()).isEqualTo(2);
+        assertThat(buckets.get(2).getName()).isEqualTo("bucket-c");
+        assertThat(buckets.get(2).getObjectCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testListAllBucketsFiltersBucketNameInDatabase() {
+        when(bucketRepository.findByBucketNameLikeIgnoreCase("%bucket%")).thenReturn(Collections.emptyList());
+
+        bucketService.listBuckets((String) null,
+                                  null,
+                                  null,
+                                  Optional.empty(),
+                                  Optional.empty(),
+                                  Optional.empty(),
+                                  Optional.empty(),
+                                  Optional.empty(),
+                                  Optional.empty(),
+                                  Optional.empty(),
+                                  Optional.empty(),
+                                  Optional.empty(),
+                                  Optional.empty(),
+                                  null,
+                                  true,
+                                  Optional.of("bucket"));
+
+        verify(bucketRepository,
+               times(1)).findBucketByOwnerContainingKindListAndContentTypeAndObjectNameAndLastCommittedTimeInterval(anyList(),
+                                                                                                                    anyList(),
+                                                                                                                    anyString(),
+                                                                                                                    anyString(),
+                                                                                                                    eq("%bucket%"),
+                                                                                                                    anyLong(),
+                                                                                                                    anyLong(),
+                                                                                                                    any(),
+                                                                                                                    any());
+        verify(bucketRepository, times(1)).findByBucketNameLikeIgnoreCase("%bucket%");
+        verify(bucketRepository, times(0)).findAll();
+    }
+
+    @Test
+    public void testBucketNamePatternMatchesTheFilterLiterally() {
+        assertThat(BucketService.toBucketNamePattern("bucket")).isEqualTo("%bucket%");
+        assertThat(BucketService.toBucketNamePattern("my_bucket")).isEqualTo("%my!_bucket%");
+        assertThat(BucketService.toBucketNamePattern("my!bucket\\")).isEqualTo("%my!!bucket\\%");
+    }
+
+    @Test
+    public void testBucketNamePatternKeepsPercentWildcards() {
+        assertThat(BucketService.toBucketNamePattern("my%")).isEqualTo("my%");
+        assertThat(BucketService.toBucketNamePattern("my_%")).isEqualTo("my!_%");
+    }
+
     private void listBucket(String owner, Optional<String> kind, Optional<String> contentType) {
         when(bucketRepository.findAll()).thenReturn(Collections.emptyList());
         bucketService.listBuckets(owner, (kind), (contentType));
@@ -273,6 +368,7 @@ public class BucketServiceTest {
                                                                                                                     anyList(),
                                                                                                                     anyString(),
                                                                                                                     anyString(),
+                                                                                                                    anyString(),
                                                                                                                     anyLong(),
                                                                                                                     anyLong(),
                                                                                                                     any(),
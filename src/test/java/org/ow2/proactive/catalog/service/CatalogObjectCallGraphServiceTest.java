@@ -31,6 +31,7 @@ import static org.mockito.Matchers.anyList;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
 import java.io.OutputStream;
 import java.util.*;
 
@@ -38,10 +39,12 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.ow2.proactive.catalog.callgraph.CatalogObjectCallGraphPDFGenerator;
 import org.ow2.proactive.catalog.dto.CatalogObjectMetadata;
 import org.ow2.proactive.catalog.dto.Metadata;
+import org.ow2.proactive.catalog.report.PerBucketPDFArchiveGenerator;
 import org.ow2.proactive.catalog.util.SeparatorUtility;
 import org.ow2.proactive.catalog.util.parser.WorkflowParser;
 import org.zeroturnaround.zip.ZipEntrySource;
@@ -74,6 +77,9 @@ public class CatalogObjectCallGraphServiceTest {
     @Mock
     private CatalogObjectService catalogObjectService;
 
+    @Spy
+    private PerBucketPDFArchiveGenerator perBucketPDFArchiveGenerator = new PerBucketPDFArchiveGenerator(2);
+
     private SeparatorUtility separatorUtility = new SeparatorUtility();
 
     @Test
@@ -115,6 +121,10 @@ public class CatalogObjectCallGraphServiceTest {
                                                                                                 Optional.empty());
 
         assertThat(content).isNotNull();
+        assertThat(ZipUtil.unpackEntry(new ByteArrayInputStream(content),
+                                       "bucket3_report.pdf")).isEqualTo("onetwo".getBytes());
+        assertThat(ZipUtil.unpackEntry(new ByteArrayInputStream(content),
+                                       "bucket6_report.pdf")).isEqualTo("three".getBytes());
     }
 
     @Test
@@ -0,0 +1,80 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.ow2.proactive.catalog.repository.CatalogObjectContentRepository;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectContentEntity;
+
+
+@RunWith(MockitoJUnitRunner.class)
+public class CatalogObjectContentStoreTest {
+
+    private static final byte[] RAW_OBJECT = "content".getBytes();
+
+    private static final String CONTENT_HASH = CatalogObjectContentEntity.computeContentHash(RAW_OBJECT);
+
+    @InjectMocks
+    private CatalogObjectContentStore catalogObjectContentStore;
+
+    @Mock
+    private CatalogObjectContentRepository catalogObjectContentRepository;
+
+    @Test
+    public void testFindExistingContent() {
+        when(catalogObjectContentRepository.findIdByContentHash(CONTENT_HASH)).thenReturn(42L);
+
+        assertThat(catalogObjectContentStore.findOrCreateContent(RAW_OBJECT)).isEqualTo(42L);
+        verify(catalogObjectContentRepository, never()).saveAndFlush(any(CatalogObjectContentEntity.class));
+    }
+
+    @Test
+    public void testCreateMissingContentWithoutReference() {
+        CatalogObjectContentEntity savedContent = new CatalogObjectContentEntity(RAW_OBJECT);
+        savedContent.setId(42L);
+        when(catalogObjectContentRepository.findIdByContentHash(CONTENT_HASH)).thenReturn(null);
+        when(catalogObjectContentRepository.saveAndFlush(any(CatalogObjectContentEntity.class))).thenReturn(savedContent);
+
+        assertThat(catalogObjectContentStore.findOrCreateContent(RAW_OBJECT)).isEqualTo(42L);
+
+        ArgumentCaptor<CatalogObjectContentEntity> content = ArgumentCaptor.forClass(CatalogObjectContentEntity.class);
+        verify(catalogObjectContentRepository).saveAndFlush(content.capture());
+        assertThat(content.getValue().getContentHash()).isEqualTo(CONTENT_HASH);
+        // the reference is counted by the transaction creating the revision
+        assertThat(content.getValue().getReferenceCount()).isEqualTo(0L);
+    }
+}
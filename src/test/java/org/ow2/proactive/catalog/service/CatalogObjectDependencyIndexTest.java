@@ -0,0 +1,212 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ow2.proactive.catalog.repository.CatalogObjectRepository;
+import org.ow2.proactive.catalog.repository.CatalogObjectRevisionRepository;
+import org.ow2.proactive.catalog.repository.entity.BucketEntity;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectEntity;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
+import org.ow2.proactive.catalog.repository.entity.KeyValueLabelMetadataEntity;
+import org.ow2.proactive.catalog.util.SeparatorUtility;
+import org.ow2.proactive.catalog.util.parser.WorkflowParser;
+
+
+public class CatalogObjectDependencyIndexTest {
+
+    private static final String BUCKET = "bucket";
+
+    private final SeparatorUtility separatorUtility = new SeparatorUtility();
+
+    private CatalogObjectRepository catalogObjectRepository;
+
+    private CatalogObjectRevisionRepository catalogObjectRevisionRepository;
+
+    private CatalogObjectDependencyIndex catalogObjectDependencyIndex;
+
+    @Before
+    public void setUp() {
+        catalogObjectRepository = mock(CatalogObjectRepository.class);
+        catalogObjectRevisionRepository = mock(CatalogObjectRevisionRepository.class);
+        catalogObjectDependencyIndex = new CatalogObjectDependencyIndex(catalogObjectRepository,
+                                                                        catalogObjectRevisionRepository,
+                                                                        separatorUtility);
+    }
+
+    @After
+    public void tearDown() {
+        catalogObjectDependencyIndex.shutdown();
+    }
+
+    @Test
+    public void testIndexIsUnavailableBeforeBuild() {
+        assertThat(catalogObjectDependencyIndex.getDependsOn(BUCKET, "a", 1L).isPresent()).isFalse();
+        assertThat(catalogObjectDependencyIndex.getCalledBy(BUCKET, "a").isPresent()).isFalse();
+    }
+
+    @Test
+    public void testRebuildFromDatabase() {
+        when(catalogObjectRepository.findAllLastCommitTimes()).thenReturn(Arrays.asList(new Object[] { BUCKET, "a", 1L },
+                                                                                        new Object[] { BUCKET, "b", 2L },
+                                                                                        new Object[] { BUCKET, "c",
+                                                                                                       3L }));
+        when(catalogObjectRevisionRepository.findDependsOnOfLastRevisions()).thenReturn(Arrays.asList(new Object[] { BUCKET,
+                                                                                                                     "a",
+                                                                                                                     key("c"),
+                                                                                                                     WorkflowParser.LATEST_VERSION },
+                                                                                                      new Object[] { BUCKET,
+                                                                                                                     "b",
+                                                                                                                     key("c"),
+                                                                                                                     "3" }));
+
+        catalogObjectDependencyIndex.rebuild();
+
+        assertThat(catalogObjectDependencyIndex.getDependsOn(BUCKET, "a", 1L)
+                                               .get()).isEqualTo(Collections.singletonMap(key("c"),
+                                                                                          WorkflowParser.LATEST_VERSION));
+        assertThat(catalogObjectDependencyIndex.getDependsOn(BUCKET, "c", 3L).get()).isEmpty();
+        assertThat(catalogObjectDependencyIndex.getCalledBy(BUCKET, "c").get()).containsExactly(key("a"), key("b"));
+        assertThat(catalogObjectDependencyIndex.getCalledBy(BUCKET, "a").get()).isEmpty();
+    }
+
+    @Test
+    public void testFailedBuildIsRetriedInTheBackground() throws InterruptedException {
+        when(catalogObjectRepository.findAllLastCommitTimes()).thenThrow(new IllegalStateException())
+                                                              .thenReturn(Collections.singletonList(new Object[] { BUCKET,
+                                                                                                                   "a",
+                                                                                                                   1L }));
+        catalogObjectDependencyIndex.rebuildRetryDelayInSeconds = 1;
+
+        catalogObjectDependencyIndex.rebuild();
+        assertThat(catalogObjectDependencyIndex.getCalledBy(BUCKET, "a").isPresent()).isFalse();
+
+        waitUntilBuilt();
+        assertThat(catalogObjectDependencyIndex.getDependsOn(BUCKET, "a", 1L).get()).isEmpty();
+    }
+
+    @Test
+    public void testBuildIsRetriedWhenAnUpdateIsCommittedDuringTheLoad() throws InterruptedException {
+        when(catalogObjectRepository.findAllLastCommitTimes()).thenAnswer(invocation -> {
+            // a revision committed while the last revisions are read, it may be missing from the loaded rows
+            catalogObjectDependencyIndex.indexRevision(revision("a", 1L, "b"));
+            return Collections.emptyList();
+        }).thenReturn(Collections.singletonList(new Object[] { BUCKET, "a", 1L }));
+        when(catalogObjectRevisionRepository.findDependsOnOfLastRevisions()).thenReturn(Collections.emptyList())
+                                                                             .thenReturn(Collections.singletonList(new Object[] { BUCKET,
+                                                                                                                                  "a",
+                                                                                                                                  key("b"),
+                                                                                                                                  WorkflowParser.LATEST_VERSION }));
+        catalogObjectDependencyIndex.rebuildRetryDelayInSeconds = 1;
+
+        catalogObjectDependencyIndex.rebuild();
+        assertThat(catalogObjectDependencyIndex.isBuilt()).isFalse();
+
+        waitUntilBuilt();
+        assertThat(catalogObjectDependencyIndex.getCalledBy(BUCKET, "b").get()).containsExactly(key("a"));
+    }
+
+    @Test
+    public void testOnlyLastRevisionIsServed() {
+        catalogObjectDependencyIndex.rebuild();
+        catalogObjectDependencyIndex.indexRevision(revision("a", 1L, "b"));
+
+        assertThat(catalogObjectDependencyIndex.getDependsOn(BUCKET, "a", 1L).isPresent()).isTrue();
+        assertThat(catalogObjectDependencyIndex.getDependsOn(BUCKET, "a", 0L).isPresent()).isFalse();
+        assertThat(catalogObjectDependencyIndex.getDependsOn(BUCKET, "unknown", 1L).isPresent()).isFalse();
+    }
+
+    @Test
+    public void testNewRevisionReplacesDependencies() {
+        catalogObjectDependencyIndex.rebuild();
+        catalogObjectDependencyIndex.indexRevision(revision("a", 1L, "b"));
+        catalogObjectDependencyIndex.indexRevision(revision("a", 2L, "c"));
+
+        Optional<Map<String, String>> dependsOn = catalogObjectDependencyIndex.getDependsOn(BUCKET, "a", 2L);
+        assertThat(dependsOn.get()).isEqualTo(Collections.singletonMap(key("c"), WorkflowParser.LATEST_VERSION));
+        assertThat(catalogObjectDependencyIndex.getCalledBy(BUCKET, "b").get()).isEmpty();
+        assertThat(catalogObjectDependencyIndex.getCalledBy(BUCKET, "c").get()).containsExactly(key("a"));
+    }
+
+    @Test
+    public void testOlderRevisionDoesNotReplaceNewerOne() {
+        catalogObjectDependencyIndex.rebuild();
+        catalogObjectDependencyIndex.indexRevision(revision("a", 2L, "c"));
+        catalogObjectDependencyIndex.indexRevision(revision("a", 1L, "b"));
+
+        assertThat(catalogObjectDependencyIndex.getDependsOn(BUCKET, "a", 2L).isPresent()).isTrue();
+        assertThat(catalogObjectDependencyIndex.getCalledBy(BUCKET, "b").get()).isEmpty();
+    }
+
+    @Test
+    public void testRemoveCatalogObject() {
+        catalogObjectDependencyIndex.rebuild();
+        catalogObjectDependencyIndex.indexRevision(revision("a", 1L, "b"));
+        catalogObjectDependencyIndex.removeCatalogObject(BUCKET, "a");
+
+        assertThat(catalogObjectDependencyIndex.getDependsOn(BUCKET, "a", 1L).isPresent()).isFalse();
+        assertThat(catalogObjectDependencyIndex.getCalledBy(BUCKET, "b").get()).isEmpty();
+    }
+
+    private void waitUntilBuilt() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (!catalogObjectDependencyIndex.isBuilt() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(catalogObjectDependencyIndex.isBuilt()).isTrue();
+    }
+
+    private String key(String name) {
+        return separatorUtility.getConcatWithSeparator(BUCKET, name);
+    }
+
+    private CatalogObjectRevisionEntity revision(String name, long commitTime, String dependsOnName) {
+        CatalogObjectEntity catalogObject = CatalogObjectEntity.builder()
+                                                               .bucket(new BucketEntity(BUCKET, "owner"))
+                                                               .id(new CatalogObjectEntity.CatalogObjectEntityKey(1L,
+                                                                                                                  name))
+                                                               .build();
+        return CatalogObjectRevisionEntity.builder()
+                                          .catalogObject(catalogObject)
+                                          .commitTime(commitTime)
+                                          .keyValueMetadataList(Collections.singletonList(new KeyValueLabelMetadataEntity(key(dependsOnName),
+                                                                                                                          WorkflowParser.LATEST_VERSION,
+                                                                                                                          WorkflowParser.ATTRIBUTE_DEPENDS_ON_LABEL)))
+                                          .build();
+    }
+}
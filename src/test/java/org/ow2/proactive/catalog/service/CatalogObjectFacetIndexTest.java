@@ -0,0 +1,219 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ow2.proactive.catalog.repository.CatalogObjectRepository;
+import org.ow2.proactive.catalog.repository.CatalogObjectRevisionRepository;
+import org.ow2.proactive.catalog.repository.entity.BucketEntity;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectEntity;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
+import org.ow2.proactive.catalog.repository.entity.KeyValueLabelMetadataEntity;
+import org.ow2.proactive.catalog.util.SeparatorUtility;
+import org.ow2.proactive.catalog.util.parser.WorkflowParser;
+
+
+public class CatalogObjectFacetIndexTest {
+
+    private static final String BUCKET = "bucket";
+
+    private CatalogObjectRepository catalogObjectRepository;
+
+    private CatalogObjectRevisionRepository catalogObjectRevisionRepository;
+
+    private CatalogObjectFacetIndex catalogObjectFacetIndex;
+
+    @Before
+    public void setUp() {
+        catalogObjectRepository = mock(CatalogObjectRepository.class);
+        catalogObjectRevisionRepository = mock(CatalogObjectRevisionRepository.class);
+        catalogObjectFacetIndex = new CatalogObjectFacetIndex(catalogObjectRepository,
+                                                              catalogObjectRevisionRepository,
+                                                              new SeparatorUtility());
+    }
+
+    @After
+    public void tearDown() {
+        catalogObjectFacetIndex.shutdown();
+    }
+
+    @Test
+    public void testIndexIsUnavailableBeforeBuild() {
+        assertThat(catalogObjectFacetIndex.getKinds().isPresent()).isFalse();
+        assertThat(catalogObjectFacetIndex.getContentTypes().isPresent()).isFalse();
+        assertThat(catalogObjectFacetIndex.getObjectTags().isPresent()).isFalse();
+    }
+
+    @Test
+    public void testIndexIsUnavailableWhenBuildFails() {
+        when(catalogObjectRepository.findAllKindsAndContentTypes()).thenThrow(new IllegalStateException());
+
+        catalogObjectFacetIndex.rebuild();
+
+        assertThat(catalogObjectFacetIndex.getKinds().isPresent()).isFalse();
+    }
+
+    @Test
+    public void testFailedBuildIsRetriedInTheBackground() throws InterruptedException {
+        when(catalogObjectRepository.findAllKindsAndContentTypes()).thenThrow(new IllegalStateException())
+                                                                   .thenReturn(Arrays.<Object[]> asList(new Object[] { BUCKET,
+                                                                                                                       "a",
+                                                                                                                       "workflow",
+                                                                                                                       "application/xml" }));
+        catalogObjectFacetIndex.rebuildRetryDelayInSeconds = 1;
+
+        catalogObjectFacetIndex.rebuild();
+        assertThat(catalogObjectFacetIndex.isBuilt()).isFalse();
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (!catalogObjectFacetIndex.isBuilt() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(catalogObjectFacetIndex.getKinds().get()).containsExactly("workflow");
+    }
+
+    @Test
+    public void testRebuildFromDatabase() {
+        when(catalogObjectRepository.findAllKindsAndContentTypes()).thenReturn(Arrays.asList(new Object[] { BUCKET,
+                                                                                                             "a",
+                                                                                                             "workflow/standard",
+                                                                                                             "application/xml" },
+                                                                                             new Object[] { BUCKET,
+                                                                                                            "b",
+                                                                                                            "script",
+                                                                                                            "text/x-groovy" }));
+        when(catalogObjectRevisionRepository.findObjectTagsOfAllRevisions()).thenReturn(Arrays.asList(new Object[] { BUCKET,
+                                                                                                                     "a",
+                                                                                                                     "tagB" },
+                                                                                                       new Object[] { BUCKET,
+                                                                                                                      "a",
+                                                                                                                      "tagA" },
+                                                                                                       new Object[] { BUCKET,
+                                                                                                                      "unknown",
+                                                                                                                      "tagC" }));
+
+        catalogObjectFacetIndex.rebuild();
+
+        assertThat(catalogObjectFacetIndex.getKinds().get()).containsExactly("script", "workflow/standard").inOrder();
+        assertThat(catalogObjectFacetIndex.getContentTypes().get()).containsExactly("application/xml",
+                                                                                    "text/x-groovy")
+                                                                   .inOrder();
+        assertThat(catalogObjectFacetIndex.getObjectTags().get()).containsExactly("tagA", "tagB").inOrder();
+    }
+
+    @Test
+    public void testIndexRevisionsKeepsTagsOfAllRevisions() {
+        catalogObjectFacetIndex.rebuild();
+        catalogObjectFacetIndex.indexRevision(revision("a", "workflow", "application/xml", "tagA"));
+        catalogObjectFacetIndex.indexRevision(revision("a", "workflow", "application/xml", "tagB"));
+        catalogObjectFacetIndex.indexRevision(revision("b", "script", "text/x-groovy", "tagB"));
+
+        assertThat(catalogObjectFacetIndex.getKinds().get()).containsExactly("script", "workflow").inOrder();
+        assertThat(catalogObjectFacetIndex.getContentTypes().get()).containsExactly("application/xml",
+                                                                                    "text/x-groovy")
+                                                                   .inOrder();
+        assertThat(catalogObjectFacetIndex.getObjectTags().get()).containsExactly("tagA", "tagB").inOrder();
+    }
+
+    @Test
+    public void testIndexCatalogObjectReplacesKindAndContentType() {
+        catalogObjectFacetIndex.rebuild();
+        catalogObjectFacetIndex.indexRevision(revision("a", "workflow", "application/xml", "tagA"));
+        catalogObjectFacetIndex.indexRevision(revision("b", "workflow", "application/xml"));
+
+        catalogObjectFacetIndex.indexCatalogObject(catalogObject("a", "script", "text/x-groovy"));
+
+        assertThat(catalogObjectFacetIndex.getKinds().get()).containsExactly("script", "workflow").inOrder();
+        assertThat(catalogObjectFacetIndex.getContentTypes().get()).containsExactly("application/xml",
+                                                                                    "text/x-groovy")
+                                                                   .inOrder();
+        assertThat(catalogObjectFacetIndex.getObjectTags().get()).containsExactly("tagA");
+
+        catalogObjectFacetIndex.indexCatalogObject(catalogObject("b", "script", "text/x-groovy"));
+
+        assertThat(catalogObjectFacetIndex.getKinds().get()).containsExactly("script");
+        assertThat(catalogObjectFacetIndex.getContentTypes().get()).containsExactly("text/x-groovy");
+    }
+
+    @Test
+    public void testRemoveCatalogObject() {
+        catalogObjectFacetIndex.rebuild();
+        catalogObjectFacetIndex.indexRevision(revision("a", "workflow", "application/xml", "tagA", "tagB"));
+        catalogObjectFacetIndex.indexRevision(revision("b", "script", "text/x-groovy", "tagB"));
+
+        catalogObjectFacetIndex.removeCatalogObject(BUCKET, "a");
+
+        assertThat(catalogObjectFacetIndex.getKinds().get()).containsExactly("script");
+        assertThat(catalogObjectFacetIndex.getContentTypes().get()).containsExactly("text/x-groovy");
+        assertThat(catalogObjectFacetIndex.getObjectTags().get()).containsExactly("tagB");
+    }
+
+    @Test
+    public void testClear() {
+        catalogObjectFacetIndex.rebuild();
+        catalogObjectFacetIndex.indexRevision(revision("a", "workflow", "application/xml", "tagA"));
+
+        catalogObjectFacetIndex.clear();
+
+        assertThat(catalogObjectFacetIndex.getKinds().get()).isEmpty();
+        assertThat(catalogObjectFacetIndex.getContentTypes().get()).isEmpty();
+        assertThat(catalogObjectFacetIndex.getObjectTags().get()).isEmpty();
+    }
+
+    private CatalogObjectEntity catalogObject(String name, String kind, String contentType) {
+        return CatalogObjectEntity.builder()
+                                  .bucket(new BucketEntity(BUCKET, "owner"))
+                                  .id(new CatalogObjectEntity.CatalogObjectEntityKey(1L, name))
+                                  .kind(kind)
+                                  .contentType(contentType)
+                                  .build();
+    }
+
+    private CatalogObjectRevisionEntity revision(String name, String kind, String contentType, String... objectTags) {
+        List<KeyValueLabelMetadataEntity> metadataList = Arrays.stream(objectTags)
+                                                               .map(objectTag -> new KeyValueLabelMetadataEntity(objectTag,
+                                                                                                                 "",
+                                                                                                                 WorkflowParser.OBJECT_TAG_LABEL))
+                                                               .collect(Collectors.toList());
+        metadataList.add(new KeyValueLabelMetadataEntity("not_a_tag", "", "generic_information"));
+        return CatalogObjectRevisionEntity.builder()
+                                          .catalogObject(catalogObject(name, kind, contentType))
+                                          .commitTime(System.currentTimeMillis())
+                                          .keyValueMetadataList(metadataList)
+                                          .build();
+    }
+}
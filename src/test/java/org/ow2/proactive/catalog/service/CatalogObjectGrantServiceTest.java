@@ -66,6 +66,9 @@ public class CatalogObjectGrantServiceTest {
     @Mock
     private CatalogObjectRevisionRepository catalogObjectRevisionRepository;
 
+    @Mock
+    private UserRightsCache userRightsCache;
+
     private final String DUMMY_USERNAME = "dummyUser";
 
     private final String DUMMY_CURRENT_USERNAME = "dummyAdmin";
@@ -128,6 +131,7 @@ public class CatalogObjectGrantServiceTest {
                                                                                                  DUMMY_USERNAME,
                                                                                                  BUCKET_ID);
         verify(catalogObjectGrantRepository, times(1)).save((CatalogObjectGrantEntity) anyObject());
+        verify(userRightsCache).invalidateAll();
     }
 
     @Test
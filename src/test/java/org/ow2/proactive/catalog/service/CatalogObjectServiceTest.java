@@ -26,18 +26,33 @@
 package org.ow2.proactive.catalog.service;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyList;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.ow2.proactive.catalog.service.CatalogObjectService.KIND_NOT_FOUND;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.ZoneId;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
+import javax.persistence.EntityManager;
+
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
@@ -48,20 +63,27 @@ import org.ow2.proactive.catalog.dto.CatalogObjectMetadata;
 import org.ow2.proactive.catalog.dto.DependsOnCatalogObject;
 import org.ow2.proactive.catalog.dto.Metadata;
 import org.ow2.proactive.catalog.repository.BucketRepository;
+import org.ow2.proactive.catalog.repository.CatalogObjectContentRepository;
 import org.ow2.proactive.catalog.repository.CatalogObjectRepository;
 import org.ow2.proactive.catalog.repository.CatalogObjectRevisionRepository;
 import org.ow2.proactive.catalog.repository.entity.BucketEntity;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectContentEntity;
 import org.ow2.proactive.catalog.repository.entity.CatalogObjectEntity;
 import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
 import org.ow2.proactive.catalog.repository.entity.KeyValueLabelMetadataEntity;
 import org.ow2.proactive.catalog.service.exception.*;
+import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
+import org.ow2.proactive.catalog.util.ArchiveManagerHelper;
 import org.ow2.proactive.catalog.util.SeparatorUtility;
 import org.ow2.proactive.catalog.util.name.validator.KindAndContentTypeValidator;
 import org.ow2.proactive.catalog.util.name.validator.ObjectNameValidator;
 import org.ow2.proactive.catalog.util.name.validator.TagsValidator;
 import org.ow2.proactive.catalog.util.parser.WorkflowParser;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.EmptyResultDataAccessException;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
 
 
 /**
@@ -102,6 +124,12 @@ public class CatalogObjectServiceTest {
     @Mock
     private BucketRepository bucketRepository;
 
+    @Mock
+    private CatalogObjectContentRepository catalogObjectContentRepository;
+
+    @Mock
+    private CatalogObjectContentStore catalogObjectContentStore;
+
     @Mock
     private KeyValueLabelMetadataHelper keyValueLabelMetadataHelper;
 
@@ -120,6 +148,24 @@ public class CatalogObjectServiceTest {
     @Mock
     private SeparatorUtility separatorUtility;
 
+    @Mock
+    private ArchiveManagerHelper archiveManager;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private CatalogObjectDependencyIndex catalogObjectDependencyIndex;
+
+    @Mock
+    private CatalogObjectFacetIndex catalogObjectFacetIndex;
+
+    @Before
+    public void setUp() {
+        when(catalogObjectContentStore.findOrCreateContent(any(byte[].class))).thenReturn(1L);
+        when(catalogObjectContentRepository.addToReferenceCount(anyLong(), anyLong())).thenReturn(1);
+    }
+
     @Test(expected = BucketNotFoundException.class)
     public void testCreateCatalogObjectWithInvalidBucket() {
         when(objectNameValidator.isValid(anyString())).thenReturn(true);
@@ -148,6 +194,7 @@ public class CatalogObjectServiceTest {
         storedKinds.add("a/b");
         storedKinds.add("a/c");
         storedKinds.add("d/f/g");
+        when(catalogObjectFacetIndex.getKinds()).thenReturn(Optional.empty());
         when(catalogObjectRepository.findAllKinds()).thenReturn(storedKinds);
         catalogObjectService.kindSeparator = "/";
         Set<String> returnedKinds = catalogObjectService.getKinds();
@@ -164,6 +211,7 @@ public class CatalogObjectServiceTest {
         storedContentTypes.add("application/xml");
         storedContentTypes.add("application/json");
         storedContentTypes.add("text");
+        when(catalogObjectFacetIndex.getContentTypes()).thenReturn(Optional.empty());
         when(catalogObjectRepository.findAllContentTypes()).thenReturn(storedContentTypes);
         Set<String> returnedContentTypes = catalogObjectService.getContentTypes();
         verify(catalogObjectRepository, times(1)).findAllContentTypes();
@@ -176,12 +224,28 @@ public class CatalogObjectServiceTest {
         storedObjectTags.add("objectTagA");
         storedObjectTags.add("objectTagB");
         storedObjectTags.add("objectTagB");
+        when(catalogObjectFacetIndex.getObjectTags()).thenReturn(Optional.empty());
         when(catalogObjectRepository.findAllObjectTags()).thenReturn(storedObjectTags);
         Set<String> returnedObjectTags = catalogObjectService.getObjectTags();
         verify(catalogObjectRepository, times(1)).findAllObjectTags();
         assertThat(storedObjectTags).isEqualTo(returnedObjectTags);
     }
 
+    @Test
+    public void testGetFacetsFromIndex() {
+        when(catalogObjectFacetIndex.getKinds()).thenReturn(Optional.of(ImmutableSortedSet.of("a/b", "d/f/g")));
+        when(catalogObjectFacetIndex.getContentTypes()).thenReturn(Optional.of(ImmutableSortedSet.of("text")));
+        when(catalogObjectFacetIndex.getObjectTags()).thenReturn(Optional.of(ImmutableSortedSet.of("objectTagA")));
+        catalogObjectService.kindSeparator = "/";
+
+        assertThat(catalogObjectService.getKinds()).containsExactly("a", "a/b", "d", "d/f", "d/f/g").inOrder();
+        assertThat(catalogObjectService.getContentTypes()).containsExactly("text");
+        assertThat(catalogObjectService.getObjectTags()).containsExactly("objectTagA");
+        verify(catalogObjectRepository, never()).findAllKinds();
+        verify(catalogObjectRepository, never()).findAllContentTypes();
+        verify(catalogObjectRepository, never()).findAllObjectTags();
+    }
+
     @Test
     public void testCreateCatalogObject() {
         BucketEntity bucketEntity = new BucketEntity("bucket", "toto");
@@ -192,11 +256,12 @@ public class CatalogObjectServiceTest {
         CatalogObjectRevisionEntity catalogObjectEntity = newCatalogObjectRevisionEntity(bucketEntity,
                                                                                          System.currentTimeMillis());
         when(catalogObjectRevisionRepository.save(any(CatalogObjectRevisionEntity.class))).thenReturn(catalogObjectEntity);
-        when(workflowInfoAdder.addGenericInformationJobNameToRawObjectIfWorkflow(any(),
-                                                                                 any(),
-                                                                                 any(),
-                                                                                 any())).thenReturn(new byte[] {});
-        when(workflowInfoAdder.addAttributeToRawObjectIfWorkflow(any(), any(), any(), any())).thenReturn(new byte[] {});
+        when(workflowInfoAdder.addJobLevelInformationToRawObjectIfWorkflow(any(),
+                                                                           any(),
+                                                                           any(),
+                                                                           any(),
+                                                                           any(),
+                                                                           any())).thenReturn(new byte[] {});
         List<Metadata> keyValues = ImmutableList.of(new Metadata("key", "value", null));
 
         CatalogObjectMetadata catalogObject = catalogObjectService.createCatalogObject("bucket",
@@ -220,6 +285,7 @@ public class CatalogObjectServiceTest {
         assertThat(catalogObject.getProjectName()).isEqualTo(PROJECT_NAME);
         assertThat(catalogObject.getMetadataList()).isNotEmpty();
         assertThat(catalogObject.getMetadataList()).hasSize(1);
+        verify(bucketRepository).addToObjectCount(bucketEntity.getId(), 1);
     }
 
     @Test(expected = WrongParametersException.class)
@@ -527,6 +593,8 @@ public class CatalogObjectServiceTest {
                                                                                                       dependency2)).thenReturn(revisionCommitInString);
         when(catalogObjectRevisionRepository.findCalledByCatalogObjectsFromKeyValueMetadata(sep.getConcatWithSeparator(BUCKET,
                                                                                                                        OBJECT))).thenReturn(Collections.singletonList(objectDependency1));
+        when(catalogObjectDependencyIndex.getDependsOn(BUCKET, OBJECT, commitTime)).thenReturn(Optional.empty());
+        when(catalogObjectDependencyIndex.getCalledBy(BUCKET, OBJECT)).thenReturn(Optional.empty());
 
         CatalogObjectDependencies catalogObjectDependencies = catalogObjectService.getObjectDependencies(BUCKET,
                                                                                                          OBJECT);
@@ -543,6 +611,77 @@ public class CatalogObjectServiceTest {
 
     }
 
+    @Test
+    public void testGetObjectDependenciesFromIndex() {
+        when(separatorUtility.getSplitBySeparator(anyString())).thenCallRealMethod();
+        SeparatorUtility sep = new SeparatorUtility();
+
+        long commitTime = 1L;
+        String dependencyName = "depName";
+        String dependency = sep.getConcatWithSeparator(BUCKET, dependencyName);
+        String caller = sep.getConcatWithSeparator(BUCKET, "caller");
+        String kind = "kind";
+
+        CatalogObjectRevisionEntity catalogObjectRevisionEntity = CatalogObjectRevisionEntity.builder()
+                                                                                             .commitTime(commitTime)
+                                                                                             .build();
+        CatalogObjectRevisionEntity objectDependency = CatalogObjectRevisionEntity.builder()
+                                                                                  .catalogObject(CatalogObjectEntity.builder()
+                                                                                                                    .bucket(new BucketEntity(BUCKET,
+                                                                                                                                             "owner"))
+                                                                                                                    .kind(kind)
+                                                                                                                    .kindLower(kind)
+                                                                                                                    .id(new CatalogObjectEntity.CatalogObjectEntityKey(2L,
+                                                                                                                                                                       dependencyName))
+                                                                                                                    .nameLower(dependencyName)
+                                                                                                                    .build())
+                                                                                  .build();
+        when(catalogObjectRevisionRepository.findDefaultCatalogObjectByNameInBucket(Collections.singletonList(BUCKET),
+                                                                                    OBJECT)).thenReturn(catalogObjectRevisionEntity);
+        when(catalogObjectRevisionRepository.findDefaultCatalogObjectByNameInBucket(Collections.singletonList(BUCKET),
+                                                                                    dependencyName)).thenReturn(objectDependency);
+        when(catalogObjectDependencyIndex.getDependsOn(BUCKET,
+                                                       OBJECT,
+                                                       commitTime)).thenReturn(Optional.of(Collections.singletonMap(dependency,
+                                                                                                                    WorkflowParser.LATEST_VERSION)));
+        when(catalogObjectDependencyIndex.getCalledBy(BUCKET,
+                                                      OBJECT)).thenReturn(Optional.of(Collections.singletonList(caller)));
+
+        CatalogObjectDependencies catalogObjectDependencies = catalogObjectService.getObjectDependencies(BUCKET,
+                                                                                                         OBJECT);
+        assertThat(catalogObjectDependencies.getDependsOnList()).containsExactly(new DependsOnCatalogObject(dependency,
+                                                                                                            kind,
+                                                                                                            String.valueOf(commitTime),
+                                                                                                            true));
+        assertThat(catalogObjectDependencies.getCalledByList()).containsExactly(caller);
+        verify(catalogObjectRevisionRepository,
+               never()).findDependsOnCatalogObjectNamesFromKeyValueMetadata(anyString(), anyString(), anyLong());
+        verify(catalogObjectRevisionRepository, never()).findCalledByCatalogObjectsFromKeyValueMetadata(anyString());
+    }
+
+    @Test
+    public void testGetCatalogObjectsKinds() {
+        when(separatorUtility.getSplitBySeparator(anyString())).thenCallRealMethod();
+        when(separatorUtility.getConcatWithSeparator(anyString(), anyString())).thenCallRealMethod();
+        SeparatorUtility sep = new SeparatorUtility();
+
+        when(catalogObjectRepository.findKindsByNameInBucket(BUCKET,
+                                                             Arrays.asList("existing",
+                                                                           "missing"))).thenReturn(Collections.singletonList(new Object[] { "existing",
+                                                                                                                                            "workflow" }));
+
+        Map<String, String> kinds = catalogObjectService.getCatalogObjectsKinds(Arrays.asList(sep.getConcatWithSeparator(BUCKET,
+                                                                                                                          "existing"),
+                                                                                              sep.getConcatWithSeparator(BUCKET,
+                                                                                                                          "missing"),
+                                                                                              sep.getConcatWithSeparator(BUCKET,
+                                                                                                                          "existing")));
+
+        assertThat(kinds).isEqualTo(Collections.singletonMap(sep.getConcatWithSeparator(BUCKET, "existing"),
+                                                             "workflow"));
+        verify(catalogObjectRepository, times(1)).findKindsByNameInBucket(anyString(), anyList());
+    }
+
     @Test
     public void testGetCatalogObjectMetadata() {
         long now = System.currentTimeMillis();
@@ -592,6 +731,38 @@ public class CatalogObjectServiceTest {
         return catalogObjectEntity;
     }
 
+    private byte[] createPackage(int numberOfObjects) throws IOException {
+        StringBuilder objects = new StringBuilder();
+        for (int i = 0; i < numberOfObjects; i++) {
+            objects.append(i == 0 ? "" : ",")
+                   .append("{\"name\":\"object_")
+                   .append(i)
+                   .append("\",\"file\":\"resources/catalog/object_")
+                   .append(i)
+                   .append(".xml\",\"metadata\":{\"kind\":\"")
+                   .append(OBJECT)
+                   .append("\",\"commitMessage\":\"\",\"contentType\":\"")
+                   .append(APPLICATION_XML)
+                   .append("\",\"projectName\":\"\",\"tags\":\"\"}}");
+        }
+        String metadata = "{\"metadata\":{\"name\":\"" + BUCKET + "\",\"slug\":\"" + BUCKET +
+                          "\",\"short_description\":\"\",\"author\":\"\",\"version\":\"\"}," +
+                          "\"catalog\":{\"bucket\":\"" + BUCKET + "\",\"userGroup\":\"\",\"objects\":[" +
+                          objects + "]}}";
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+            zipOutputStream.putNextEntry(new ZipEntry("METADATA.json"));
+            zipOutputStream.write(metadata.getBytes());
+            zipOutputStream.closeEntry();
+            for (int i = 0; i < numberOfObjects; i++) {
+                zipOutputStream.putNextEntry(new ZipEntry("resources/catalog/object_" + i + ".xml"));
+                zipOutputStream.write(("<object index=\"" + i + "\"/>").getBytes());
+                zipOutputStream.closeEntry();
+            }
+        }
+        return outputStream.toByteArray();
+    }
+
     private CatalogObjectRevisionEntity newCatalogObjectRevisionEntity(BucketEntity bucketEntity, long now) {
         CatalogObjectEntity catalogObjectEntity = CatalogObjectEntity.builder()
                                                                      .id(new CatalogObjectEntity.CatalogObjectEntityKey(1L,
@@ -708,4 +879,194 @@ public class CatalogObjectServiceTest {
         assertThat(catalogObjectRevisionEntity.getKeyValueMetadataList()).isNotEmpty();
         assertThat(catalogObjectRevisionEntity.getKeyValueMetadataList()).hasSize(1);
     }
+
+    @Test
+    public void testFindOrCreateContentWithNewRawObject() {
+        byte[] rawObject = "content".getBytes();
+        CatalogObjectContentEntity newContent = new CatalogObjectContentEntity(rawObject);
+        when(catalogObjectContentRepository.findIdByContentHash(CatalogObjectContentEntity.computeContentHash(rawObject))).thenReturn(null);
+        when(catalogObjectContentStore.findOrCreateContent(rawObject)).thenReturn(42L);
+        when(catalogObjectContentRepository.getOne(42L)).thenReturn(newContent);
+
+        CatalogObjectContentEntity content = catalogObjectService.findOrCreateContent(rawObject);
+
+        assertThat(content).isSameAs(newContent);
+        verify(catalogObjectContentStore, times(1)).findOrCreateContent(rawObject);
+        verify(catalogObjectContentRepository, times(1)).addToReferenceCount(42L, 1);
+    }
+
+    @Test
+    public void testFindOrCreateContentWithExistingRawObject() {
+        byte[] rawObject = "content".getBytes();
+        CatalogObjectContentEntity existingContent = new CatalogObjectContentEntity(rawObject);
+        existingContent.setId(42L);
+        when(catalogObjectContentRepository.findIdByContentHash(CatalogObjectContentEntity.computeContentHash(rawObject))).thenReturn(42L);
+        when(catalogObjectContentRepository.getOne(42L)).thenReturn(existingContent);
+
+        CatalogObjectContentEntity content = catalogObjectService.findOrCreateContent(rawObject);
+
+        assertThat(content).isSameAs(existingContent);
+        verify(catalogObjectContentRepository, times(1)).addToReferenceCount(42L, 1);
+        verify(catalogObjectContentStore, never()).findOrCreateContent(any(byte[].class));
+    }
+
+    @Test
+    public void testFindOrCreateContentCreatesContentDeletedConcurrently() {
+        byte[] rawObject = "content".getBytes();
+        CatalogObjectContentEntity newContent = new CatalogObjectContentEntity(rawObject);
+        when(catalogObjectContentRepository.findIdByContentHash(CatalogObjectContentEntity.computeContentHash(rawObject))).thenReturn(41L);
+        when(catalogObjectContentRepository.addToReferenceCount(41L, 1)).thenReturn(0);
+        when(catalogObjectContentStore.findOrCreateContent(rawObject)).thenReturn(42L);
+        when(catalogObjectContentRepository.getOne(42L)).thenReturn(newContent);
+
+        CatalogObjectContentEntity content = catalogObjectService.findOrCreateContent(rawObject);
+
+        assertThat(content).isSameAs(newContent);
+        verify(catalogObjectContentRepository, times(1)).addToReferenceCount(42L, 1);
+    }
+
+    @Test
+    public void testFindOrCreateContentReferencesContentCreatedConcurrently() {
+        byte[] rawObject = "content".getBytes();
+        CatalogObjectContentEntity existingContent = new CatalogObjectContentEntity(rawObject);
+        when(catalogObjectContentStore.findOrCreateContent(rawObject)).thenThrow(new DataIntegrityViolationException("duplicate content hash"))
+                                                                     .thenReturn(42L);
+        when(catalogObjectContentRepository.getOne(42L)).thenReturn(existingContent);
+
+        CatalogObjectContentEntity content = catalogObjectService.findOrCreateContent(rawObject);
+
+        assertThat(content).isSameAs(existingContent);
+        verify(catalogObjectContentStore, times(2)).findOrCreateContent(rawObject);
+        verify(catalogObjectContentRepository, times(1)).addToReferenceCount(42L, 1);
+    }
+
+    @Test(expected = DataIntegrityViolationException.class)
+    public void testFindOrCreateContentGivesUpAfterRepeatedConflicts() {
+        byte[] rawObject = "content".getBytes();
+        when(catalogObjectContentStore.findOrCreateContent(rawObject)).thenThrow(new DataIntegrityViolationException("duplicate content hash"));
+
+        catalogObjectService.findOrCreateContent(rawObject);
+    }
+
+    @Test
+    public void testFindOrCreateContentWithNullRawObject() {
+        assertThat(catalogObjectService.findOrCreateContent(null)).isNull();
+    }
+
+    @Test
+    public void testCreateCatalogObjectsFromPackageReadsTheArchiveOnceAndQueriesOncePerObject() throws IOException {
+        int numberOfObjects = 120;
+        BucketEntity bucketEntity = new BucketEntity(BUCKET, "toto");
+        bucketEntity.setId(1L);
+        when(objectNameValidator.isValid(anyString())).thenReturn(true);
+        when(kindAndContentTypeValidator.isValid(anyString())).thenReturn(true);
+        when(tagsValidator.isValid(anyString())).thenReturn(true);
+        when(bucketRepository.findOneByBucketName(BUCKET)).thenReturn(bucketEntity);
+        when(catalogObjectRevisionRepository.save(any(CatalogObjectRevisionEntity.class))).thenReturn(newCatalogObjectRevisionEntity(bucketEntity,
+                                                                                                                                    System.currentTimeMillis()));
+        doCallRealMethod().when(archiveManager).iterateZIP(any(byte[].class), any(Consumer.class));
+
+        List<CatalogObjectMetadata> catalogObjects = catalogObjectService.createCatalogObjectsFromPackage(BUCKET,
+                                                                                                          AuthenticatedUser.EMPTY,
+                                                                                                          PROJECT_NAME,
+                                                                                                          TAGS,
+                                                                                                          createPackage(numberOfObjects),
+                                                                                                          COMMIT_MESSAGE);
+
+        // the archive is read once and every object costs the same number of queries, whatever the package size
+        assertThat(catalogObjects).hasSize(numberOfObjects);
+        verify(archiveManager, times(1)).iterateZIP(any(byte[].class), any(Consumer.class));
+        verify(catalogObjectRepository,
+               times(numberOfObjects)).findOne(any(CatalogObjectEntity.CatalogObjectEntityKey.class));
+        verify(catalogObjectRevisionRepository,
+               times(numberOfObjects)).findDefaultCatalogObjectByNameInBucket(anyList(), anyString());
+        verify(catalogObjectRevisionRepository, times(numberOfObjects)).save(any(CatalogObjectRevisionEntity.class));
+        verify(bucketRepository, times(numberOfObjects + 1)).findOneByBucketName(BUCKET);
+        // the persistence context is flushed and cleared every 50 imported objects
+        verify(entityManager, times(numberOfObjects / 50)).flush();
+        verify(entityManager, times(numberOfObjects / 50)).clear();
+    }
+
+    @Test
+    public void testDeleteReleasesContentsAndDeletesOnlyTheReleasedOnes() {
+        BucketEntity bucketEntity = new BucketEntity(BUCKET, "toto");
+        bucketEntity.setId(1L);
+        when(bucketRepository.findOneByBucketName(BUCKET)).thenReturn(bucketEntity);
+        when(catalogObjectRevisionRepository.findDefaultCatalogObjectByNameInBucket(anyList(),
+                                                                                    anyString())).thenReturn(newCatalogObjectRevisionEntity(bucketEntity,
+                                                                                                                                            System.currentTimeMillis()));
+        when(catalogObjectContentRepository.findContentIdsOfCatalogObject(any(CatalogObjectEntity.CatalogObjectEntityKey.class))).thenReturn(Arrays.asList(1L,
+                                                                                                                                                           1L,
+                                                                                                                                                           2L));
+
+        catalogObjectService.delete(BUCKET, NAME);
+
+        verify(catalogObjectContentRepository).addToReferenceCount(1L, -2L);
+        verify(catalogObjectContentRepository).addToReferenceCount(2L, -1L);
+        verify(catalogObjectContentRepository).deleteUnreferencedContents(Arrays.asList(1L, 2L));
+    }
+
+    @Test
+    public void testDeleteDecrementsTheObjectCountOfTheBucket() {
+        BucketEntity bucketEntity = new BucketEntity(BUCKET, "toto");
+        bucketEntity.setId(1L);
+        when(bucketRepository.findOneByBucketName(BUCKET)).thenReturn(bucketEntity);
+        when(catalogObjectRevisionRepository.findDefaultCatalogObjectByNameInBucket(anyList(),
+                                                                                    anyString())).thenReturn(newCatalogObjectRevisionEntity(bucketEntity,
+                                                                                                                                            System.currentTimeMillis()));
+
+        catalogObjectService.delete(BUCKET, NAME);
+
+        verify(bucketRepository).addToObjectCount(1L, -1);
+    }
+
+    @Test
+    public void testDeleteOfMissingCatalogObjectKeepsTheObjectCountOfTheBucket() {
+        BucketEntity bucketEntity = new BucketEntity(BUCKET, "toto");
+        bucketEntity.setId(1L);
+        when(bucketRepository.findOneByBucketName(BUCKET)).thenReturn(bucketEntity);
+        when(catalogObjectRevisionRepository.findDefaultCatalogObjectByNameInBucket(anyList(),
+                                                                                    anyString())).thenReturn(newCatalogObjectRevisionEntity(bucketEntity,
+                                                                                                                                            System.currentTimeMillis()));
+        doThrow(new EmptyResultDataAccessException(1)).when(catalogObjectRepository)
+                                                      .delete(any(CatalogObjectEntity.CatalogObjectEntityKey.class));
+
+        try {
+            catalogObjectService.delete(BUCKET, NAME);
+            fail("Deleting a missing catalog object should fail");
+        } catch (CatalogObjectNotFoundException e) {
+            verify(bucketRepository, never()).addToObjectCount(anyLong(), anyInt());
+        }
+    }
+
+    @Test
+    public void testWriteCatalogObjectsAsZipArchiveLoadsRawObjectsByChunks() {
+        when(bucketRepository.findOneByBucketName(BUCKET)).thenReturn(new BucketEntity(BUCKET, "toto"));
+        ArchiveManagerHelper.ZipArchiveWriter zipArchiveWriter = mock(ArchiveManagerHelper.ZipArchiveWriter.class);
+        OutputStream outputStream = new ByteArrayOutputStream();
+        when(archiveManager.createZipArchiveWriter(outputStream)).thenReturn(zipArchiveWriter);
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            names.add("object" + i);
+        }
+
+        catalogObjectService.writeCatalogObjectsAsZipArchive(BUCKET, names, outputStream);
+
+        verify(catalogObjectRevisionRepository, times(3)).findDefaultCatalogObjectsWithContentByNameInBucket(anyString(),
+                                                                                                           anyList());
+        verify(zipArchiveWriter, times(3)).write(anyList());
+        verify(entityManager, times(3)).clear();
+        verify(zipArchiveWriter, times(1)).close();
+    }
+
+    @Test
+    public void testIsAnyCatalogObjectMissing() {
+        when(bucketRepository.findOneByBucketName(BUCKET)).thenReturn(new BucketEntity(BUCKET, "toto"));
+        List<String> names = Arrays.asList("object1", "object2");
+        when(catalogObjectRevisionRepository.countDefaultCatalogObjectsByNameInBucket(BUCKET, names)).thenReturn(2L,
+                                                                                                                 1L);
+
+        assertThat(catalogObjectService.isAnyCatalogObjectMissing(BUCKET, names)).isFalse();
+        assertThat(catalogObjectService.isAnyCatalogObjectMissing(BUCKET, names)).isTrue();
+    }
 }
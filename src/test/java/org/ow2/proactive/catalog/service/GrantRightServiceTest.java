@@ -26,6 +26,13 @@
 package org.ow2.proactive.catalog.service;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyCollection;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.ow2.proactive.catalog.util.AccessType.admin;
 import static org.ow2.proactive.catalog.util.AccessType.noAccess;
 import static org.ow2.proactive.catalog.util.AccessType.read;
@@ -33,6 +40,7 @@ import static org.ow2.proactive.catalog.util.AccessType.write;
 import static org.ow2.proactive.catalog.util.GrantHelper.USER_GRANTEE_TYPE;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -41,11 +49,21 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.ow2.proactive.catalog.dto.BucketGrantMetadata;
 import org.ow2.proactive.catalog.dto.BucketMetadata;
 import org.ow2.proactive.catalog.dto.CatalogObjectGrantMetadata;
 import org.ow2.proactive.catalog.dto.CatalogObjectMetadata;
+import org.ow2.proactive.catalog.repository.BucketRepository;
+import org.ow2.proactive.catalog.repository.entity.BucketEntity;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
+import org.ow2.proactive.catalog.service.model.AuthenticatedUser;
+import org.ow2.proactive.catalog.service.model.CatalogObjectAccessFilter;
+import org.ow2.proactive.catalog.service.model.UserCatalogObjectsAccess;
+import org.ow2.proactive.catalog.util.AccessTypeHelper;
+
+import com.google.common.collect.ImmutableSet;
 
 
 @RunWith(MockitoJUnitRunner.class)
@@ -60,6 +78,12 @@ public class GrantRightServiceTest {
     @Mock
     BucketGrantService bucketGrantService;
 
+    @Mock
+    BucketRepository bucketRepository;
+
+    @Spy
+    UserRightsCache userRightsCache = new UserRightsCache(100, 60);
+
     private final String bucketName = "test-bucket";
 
     private final String username = "user";
@@ -115,6 +139,85 @@ public class GrantRightServiceTest {
         assertEquals(1, metadataList.size());
     }
 
+    @Test
+    public void testUserRightsTableIsLoadedOnceUntilGrantsAreModified() {
+        AuthenticatedUser user = createUser();
+        when(bucketRepository.findOneByBucketName(bucketName)).thenReturn(new BucketEntity(bucketName,
+                                                                                           "GROUP:owners"));
+        when(bucketGrantService.getUserAllBucketsGrants(user)).thenReturn(Collections.singletonList(createBucketGrantMetadata(username,
+                                                                                                                              read.name(),
+                                                                                                                              bucketName)));
+        when(catalogObjectGrantService.getObjectsGrants(user)).thenReturn(Collections.emptyList());
+
+        assertEquals(read.name(), grantRightsService.getBucketRights(user, bucketName));
+        assertEquals(read.name(), grantRightsService.getBucketRights(user, bucketName));
+        verify(bucketGrantService, times(1)).getUserAllBucketsGrants(user);
+        verify(catalogObjectGrantService, times(1)).getObjectsGrants(user);
+
+        userRightsCache.invalidateAll();
+
+        assertEquals(read.name(), grantRightsService.getBucketRights(user, bucketName));
+        verify(bucketGrantService, times(2)).getUserAllBucketsGrants(user);
+    }
+
+    @Test
+    public void testCatalogObjectRightsGivenUserHasNoAccessBucketGrantAndPositiveObjectGrant() {
+        AuthenticatedUser user = createUser();
+        when(catalogObjectGrantService.getCatalogObject(bucketName,
+                                                        "object1")).thenReturn(new CatalogObjectRevisionEntity());
+        when(bucketGrantService.getUserAllBucketsGrants(user)).thenReturn(Collections.singletonList(createBucketGrantMetadata(username,
+                                                                                                                              noAccess.name(),
+                                                                                                                              bucketName)));
+        when(catalogObjectGrantService.getObjectsGrants(user)).thenReturn(Collections.singletonList(createObjectGrantMetadata(bucketName,
+                                                                                                                              "object1",
+                                                                                                                              write.name())));
+
+        assertEquals(write.name(), grantRightsService.getCatalogObjectRights(user, bucketName, "object1"));
+    }
+
+    @Test
+    public void testObjectAccessFilterGivenUserHasNoAccessBucketGrantAndPositiveObjectGrants() {
+        List<BucketGrantMetadata> bucketGrants = new LinkedList<>();
+        bucketGrants.add(createBucketGrantMetadata(username, noAccess.toString(), bucketName));
+        List<CatalogObjectGrantMetadata> objectGrants = new LinkedList<>();
+        objectGrants.add(createObjectGrantMetadata(bucketName, "object1", read.name()));
+
+        CatalogObjectAccessFilter accessFilter = GrantRightsService.getObjectAccessFilterInBucket(bucketGrants,
+                                                                                                 objectGrants);
+
+        assertEquals(CatalogObjectAccessFilter.restrictedTo(Collections.singleton("object1")), accessFilter);
+        assertTrue(accessFilter.isAccessible("object1"));
+        assertFalse(accessFilter.isAccessible("object2"));
+    }
+
+    @Test
+    public void testObjectAccessFilterGivenUserHasWriteBucketGrantAndNoAccessObjectGrants() {
+        List<BucketGrantMetadata> bucketGrants = new LinkedList<>();
+        bucketGrants.add(createBucketGrantMetadata(username, write.toString(), bucketName));
+        List<CatalogObjectGrantMetadata> objectGrants = new LinkedList<>();
+        objectGrants.add(createObjectGrantMetadata(bucketName, "object1", noAccess.name()));
+        objectGrants.add(createObjectGrantMetadata(bucketName, "object2", read.name()));
+
+        CatalogObjectAccessFilter accessFilter = GrantRightsService.getObjectAccessFilterInBucket(bucketGrants,
+                                                                                                 objectGrants);
+
+        assertEquals(CatalogObjectAccessFilter.excluding(Collections.singleton("object1")), accessFilter);
+        assertFalse(accessFilter.isAccessible("object1"));
+        assertTrue(accessFilter.isAccessible("object2"));
+        assertTrue(accessFilter.isAccessible("object3"));
+    }
+
+    @Test
+    public void testObjectAccessFilterGivenUserHasNoAccessBucketGrantAndNoObjectGrants() {
+        List<BucketGrantMetadata> bucketGrants = new LinkedList<>();
+        bucketGrants.add(createBucketGrantMetadata(username, noAccess.toString(), bucketName));
+
+        CatalogObjectAccessFilter accessFilter = GrantRightsService.getObjectAccessFilterInBucket(bucketGrants,
+                                                                                                 new LinkedList<>());
+
+        assertTrue(accessFilter.isNoneAccessible());
+    }
+
     @Test
     public void testGetTheNumberOfAccessibleObjectsInTheBucketWithReadGrantBucketAndNoObjectGrants() {
         BucketMetadata bucketRead = new BucketMetadata(bucketName, "admin-group", 5, "");
@@ -161,6 +264,90 @@ public class GrantRightServiceTest {
         assertEquals(2, numberOfObjectsInBucketNoAccess);
     }
 
+    @Test
+    public void testCatalogObjectsAccessOfCatalogAdminIsUnrestricted() {
+        AuthenticatedUser user = AuthenticatedUser.builder()
+                                                  .name(username)
+                                                  .groups(Collections.singletonList("users"))
+                                                  .catalogAdmin(true)
+                                                  .build();
+
+        assertEquals(UserCatalogObjectsAccess.UNRESTRICTED, grantRightsService.getCatalogObjectsAccess(user));
+    }
+
+    @Test
+    public void testCatalogObjectsAccessGivenUserHasNoAccessBucketGrantAndPositiveObjectGrant() {
+        AuthenticatedUser user = createUser();
+        when(bucketGrantService.getUserAllBucketsGrants(user)).thenReturn(Collections.singletonList(createBucketGrantMetadata(username,
+                                                                                                                              noAccess.name(),
+                                                                                                                              bucketName)));
+        when(catalogObjectGrantService.getObjectsGrants(user)).thenReturn(Collections.singletonList(createObjectGrantMetadata(bucketName,
+                                                                                                                              "object1",
+                                                                                                                              read.name())));
+        when(bucketRepository.findByBucketNameIn(anyCollection())).thenReturn(Collections.singletonList(new BucketEntity(bucketName,
+                                                                                                                         "GROUP:owners")));
+
+        UserCatalogObjectsAccess access = grantRightsService.getCatalogObjectsAccess(user);
+
+        assertFalse(access.isUnrestricted());
+        assertEquals(ImmutableSet.of(BucketService.DEFAULT_BUCKET_OWNER, "GROUP:users"), access.getAccessibleOwners());
+        CatalogObjectAccessFilter accessFilter = access.getGrantedBucketsAccessFilters().get(bucketName);
+        assertTrue(accessFilter.isAccessible("object1"));
+        assertFalse(accessFilter.isAccessible("object2"));
+    }
+
+    @Test
+    public void testCatalogObjectsAccessHidesObjectWithNoAccessGrantInPublicBucket() {
+        AuthenticatedUser user = createUser();
+        when(bucketGrantService.getUserAllBucketsGrants(user)).thenReturn(Collections.emptyList());
+        when(catalogObjectGrantService.getObjectsGrants(user)).thenReturn(Collections.singletonList(createObjectGrantMetadata("public-bucket",
+                                                                                                                              "object1",
+                                                                                                                              noAccess.name())));
+        when(bucketRepository.findByBucketNameIn(anyCollection())).thenReturn(Collections.singletonList(new BucketEntity("public-bucket",
+                                                                                                                         BucketService.DEFAULT_BUCKET_OWNER)));
+
+        CatalogObjectAccessFilter accessFilter = grantRightsService.getCatalogObjectsAccess(user)
+                                                                   .getGrantedBucketsAccessFilters()
+                                                                   .get("public-bucket");
+
+        assertFalse(accessFilter.isAccessible("object1"));
+        assertTrue(accessFilter.isAccessible("object2"));
+    }
+
+    @Test
+    public void testCatalogObjectsAccessMatchesCatalogObjectRights() {
+        AuthenticatedUser user = createUser();
+        when(catalogObjectGrantService.getCatalogObject(anyString(), anyString())).thenReturn(new CatalogObjectRevisionEntity());
+        when(bucketRepository.findOneByBucketName(bucketName)).thenReturn(new BucketEntity(bucketName, "GROUP:owners"));
+        when(bucketRepository.findByBucketNameIn(anyCollection())).thenReturn(Collections.singletonList(new BucketEntity(bucketName,
+                                                                                                                         "GROUP:owners")));
+        when(bucketGrantService.getUserAllBucketsGrants(user)).thenReturn(Collections.singletonList(createBucketGrantMetadata(username,
+                                                                                                                              read.name(),
+                                                                                                                              bucketName)));
+        when(catalogObjectGrantService.getObjectsGrants(user)).thenReturn(Arrays.asList(createObjectGrantMetadata(bucketName,
+                                                                                                                   "object1",
+                                                                                                                   noAccess.name()),
+                                                                                         createObjectGrantMetadata(bucketName,
+                                                                                                                   "object2",
+                                                                                                                   write.name())));
+
+        CatalogObjectAccessFilter accessFilter = grantRightsService.getCatalogObjectsAccess(user)
+                                                                   .getGrantedBucketsAccessFilters()
+                                                                   .get(bucketName);
+
+        for (String objectName : Arrays.asList("object1", "object2", "object3")) {
+            assertEquals(AccessTypeHelper.satisfy(grantRightsService.getCatalogObjectRights(user,
+                                                                                            bucketName,
+                                                                                            objectName),
+                                                  read),
+                         accessFilter.isAccessible(objectName));
+        }
+    }
+
+    private AuthenticatedUser createUser() {
+        return AuthenticatedUser.builder().name(username).groups(Collections.singletonList("users")).build();
+    }
+
     private BucketGrantMetadata createBucketGrantMetadata(String userName, String accessType, String bucketName) {
         return new BucketGrantMetadata(userName, "admin", username, accessType, 0, 1L, bucketName);
     }
@@ -26,6 +26,9 @@
 package org.ow2.proactive.catalog.service;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 import java.io.IOException;
 
@@ -35,7 +38,10 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import graphql.ExecutionResult;
+import graphql.GraphQL;
 import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
 
 
 /**
@@ -57,4 +63,34 @@ public class GraphqlServiceTest {
         assertThat(graphqlService.getGraphql()).isNotNull();
     }
 
+    @Test
+    public void testQueryWithinLimitsIsExecuted() throws Exception {
+        GraphQL graphql = graphqlService.buildGraphql(5, 100);
+
+        ExecutionResult result = graphql.execute("{ allCatalogObjects { totalCount } }");
+
+        assertThat(result.getErrors()).isEmpty();
+        verify(catalogObjectFetcher).get(any(DataFetchingEnvironment.class));
+    }
+
+    @Test
+    public void testQueryExceedingMaxComplexityIsRejected() throws Exception {
+        GraphQL graphql = graphqlService.buildGraphql(5, 100);
+
+        ExecutionResult result = graphql.execute("{ allCatalogObjects(pageInfo: {page: 0, size: 1000}) { totalCount } }");
+
+        assertThat(result.getErrors()).isNotEmpty();
+        verify(catalogObjectFetcher, never()).get(any(DataFetchingEnvironment.class));
+    }
+
+    @Test
+    public void testQueryExceedingMaxDepthIsRejected() throws Exception {
+        GraphQL graphql = graphqlService.buildGraphql(2, 100);
+
+        ExecutionResult result = graphql.execute("{ allCatalogObjects { edges { metadata { key } } } }");
+
+        assertThat(result.getErrors()).isNotEmpty();
+        verify(catalogObjectFetcher, never()).get(any(DataFetchingEnvironment.class));
+    }
+
 }
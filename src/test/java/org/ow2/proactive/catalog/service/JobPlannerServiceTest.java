@@ -0,0 +1,161 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ow2.proactive.catalog.dto.AssociatedObject;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+
+public class JobPlannerServiceTest {
+
+    private static final String PLANNED_OBJECTS_PATH = "/planned_jobs/buckets";
+
+    private final AtomicInteger plannedObjectsCalls = new AtomicInteger();
+
+    private final AtomicInteger plannedObjectCalls = new AtomicInteger();
+
+    private volatile long jobPlannerLatencyInMillis = 0;
+
+    private HttpServer jobPlannerStub;
+
+    private ExecutorService jobPlannerStubExecutor;
+
+    private JobPlannerService jobPlannerService;
+
+    @Before
+    public void setUp() throws IOException {
+        jobPlannerStub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        jobPlannerStub.createContext("/job-planner" + PLANNED_OBJECTS_PATH, this::handleJobPlannerRequest);
+        jobPlannerStubExecutor = Executors.newCachedThreadPool();
+        jobPlannerStub.setExecutor(jobPlannerStubExecutor);
+        jobPlannerStub.start();
+
+        jobPlannerService = new JobPlannerService("http://localhost:" + jobPlannerStub.getAddress().getPort() +
+                                                  "/job-planner",
+                                                  PLANNED_OBJECTS_PATH,
+                                                  PLANNED_OBJECTS_PATH + "/{bucketName}/{objectName}",
+                                                  "60");
+        jobPlannerService.init();
+    }
+
+    @After
+    public void tearDown() {
+        jobPlannerService.shutdown();
+        jobPlannerStub.stop(0);
+        jobPlannerStubExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testAssociationsAreReadFromTheSnapshotWhileItIsRefreshed() throws Exception {
+        assertThat(jobPlannerService.getAssociatedObjects("session")).isEmpty();
+        assertThat(plannedObjectsCalls.get()).isEqualTo(1);
+
+        jobPlannerLatencyInMillis = 2000;
+        Thread refresh = new Thread(jobPlannerService::refreshAssociatedObjects);
+        refresh.start();
+        while (plannedObjectsCalls.get() < 2) {
+            Thread.sleep(10);
+        }
+
+        long start = System.nanoTime();
+        assertThat(jobPlannerService.getAssociatedObjects("session")).isEmpty();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000L);
+
+        refresh.join();
+        assertThat(plannedObjectsCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testAssociationsAreNotRefreshedWhenNotRequested() {
+        jobPlannerService.getAssociatedObjects("session");
+        jobPlannerService.refreshAssociatedObjects();
+        assertThat(plannedObjectsCalls.get()).isEqualTo(2);
+
+        jobPlannerService.refreshAssociatedObjects();
+        assertThat(plannedObjectsCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testConcurrentRequestsOfTheSameObjectCallTheJobPlannerOnce() throws Exception {
+        jobPlannerLatencyInMillis = 300;
+        int numberOfRequests = 8;
+        ExecutorService executorService = Executors.newFixedThreadPool(numberOfRequests);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<AssociatedObject>> futures = new ArrayList<>();
+            for (int i = 0; i < numberOfRequests; i++) {
+                futures.add(executorService.submit(() -> {
+                    start.await();
+                    return jobPlannerService.getAssociatedObject("session", "bucket", "object");
+                }));
+            }
+            start.countDown();
+            for (Future<AssociatedObject> future : futures) {
+                assertThat(future.get(10, TimeUnit.SECONDS).getObjectName()).isEqualTo("object");
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        assertThat(plannedObjectCalls.get()).isEqualTo(1);
+    }
+
+    private void handleJobPlannerRequest(HttpExchange exchange) throws IOException {
+        boolean isPlannedObjectsRequest = exchange.getRequestURI().getPath().endsWith(PLANNED_OBJECTS_PATH);
+        (isPlannedObjectsRequest ? plannedObjectsCalls : plannedObjectCalls).incrementAndGet();
+        try {
+            Thread.sleep(jobPlannerLatencyInMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // object requests fail with a 404, which the service turns into an object without association
+        byte[] body = (isPlannedObjectsRequest ? "[]" : "not planned").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(isPlannedObjectsRequest ? 200 : 404, body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+}
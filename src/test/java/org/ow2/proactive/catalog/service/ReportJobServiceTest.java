@@ -0,0 +1,265 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ow2.proactive.catalog.dto.ReportJobMetadata;
+import org.ow2.proactive.catalog.repository.CatalogObjectRepository;
+import org.ow2.proactive.catalog.service.ReportJobService.ReportJobType;
+import org.ow2.proactive.catalog.service.exception.PDFGenerationException;
+import org.ow2.proactive.catalog.service.exception.ReportJobNotFinishedException;
+import org.ow2.proactive.catalog.service.exception.ReportJobNotFoundException;
+import org.ow2.proactive.catalog.service.exception.ReportJobRejectedException;
+
+
+/**
+ * @author ActiveEon Team
+ */
+public class ReportJobServiceTest {
+
+    private static final List<Object> PARAMETERS = Arrays.asList(Collections.singletonList("bucket"),
+                                                                 Optional.of("workflow"));
+
+    private CatalogObjectRepository catalogObjectRepository;
+
+    private CatalogObjectFacetIndex catalogObjectFacetIndex;
+
+    private ReportJobService reportJobService;
+
+    @Before
+    public void setUp() {
+        catalogObjectRepository = mock(CatalogObjectRepository.class);
+        catalogObjectFacetIndex = mock(CatalogObjectFacetIndex.class);
+        setCatalogState(10L, 2L);
+        reportJobService = new ReportJobService(catalogObjectRepository, catalogObjectFacetIndex, 1, 1, 60, 1);
+    }
+
+    @After
+    public void tearDown() {
+        reportJobService.shutdown();
+    }
+
+    @Test
+    public void testSubmitAndDownload() throws InterruptedException {
+        byte[] content = "report".getBytes();
+        ReportJobMetadata job = reportJobService.submitJob(ReportJobType.REPORT, "user", PARAMETERS, () -> content);
+
+        assertThat(waitForJob(ReportJobType.REPORT, "user", job.getJobId()).getStatus()).isEqualTo(ReportJobMetadata.Status.FINISHED);
+        assertThat(reportJobService.getJobContent(ReportJobType.REPORT, "user", job.getJobId())).isEqualTo(content);
+    }
+
+    @Test
+    public void testIdenticalSubmissionIsServedFromCache() throws InterruptedException {
+        AtomicInteger generations = new AtomicInteger();
+        Supplier<byte[]> generator = () -> {
+            generations.incrementAndGet();
+            return "report".getBytes();
+        };
+        ReportJobMetadata first = reportJobService.submitJob(ReportJobType.REPORT, "user", PARAMETERS, generator);
+        waitForJob(ReportJobType.REPORT, "user", first.getJobId());
+
+        ReportJobMetadata second = reportJobService.submitJob(ReportJobType.REPORT, "other", PARAMETERS, generator);
+
+        assertThat(second.getStatus()).isEqualTo(ReportJobMetadata.Status.FINISHED);
+        assertThat(generations.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSubmissionAfterCatalogChangeIsGeneratedAgain() throws InterruptedException {
+        AtomicInteger generations = new AtomicInteger();
+        Supplier<byte[]> generator = () -> ("report" + generations.incrementAndGet()).getBytes();
+        ReportJobMetadata first = reportJobService.submitJob(ReportJobType.REPORT, "user", PARAMETERS, generator);
+        waitForJob(ReportJobType.REPORT, "user", first.getJobId());
+
+        setCatalogState(10L, 1L);
+        ReportJobMetadata second = reportJobService.submitJob(ReportJobType.REPORT, "user", PARAMETERS, generator);
+        waitForJob(ReportJobType.REPORT, "user", second.getJobId());
+
+        assertThat(generations.get()).isEqualTo(2);
+        assertThat(reportJobService.getJobContent(ReportJobType.REPORT,
+                                                  "user",
+                                                  second.getJobId())).isEqualTo("report2".getBytes());
+    }
+
+    @Test
+    public void testSubmissionAfterMetadataUpdateIsGeneratedAgain() throws InterruptedException {
+        AtomicInteger generations = new AtomicInteger();
+        Supplier<byte[]> generator = () -> ("report" + generations.incrementAndGet()).getBytes();
+        ReportJobMetadata first = reportJobService.submitJob(ReportJobType.REPORT, "user", PARAMETERS, generator);
+        waitForJob(ReportJobType.REPORT, "user", first.getJobId());
+
+        // a kind or Content-Type update keeps the commit times and the number of objects
+        when(catalogObjectFacetIndex.getNumberOfUpdates()).thenReturn(1L);
+        ReportJobMetadata second = reportJobService.submitJob(ReportJobType.REPORT, "user", PARAMETERS, generator);
+        waitForJob(ReportJobType.REPORT, "user", second.getJobId());
+
+        assertThat(generations.get()).isEqualTo(2);
+        assertThat(reportJobService.getJobContent(ReportJobType.REPORT,
+                                                  "user",
+                                                  second.getJobId())).isEqualTo("report2".getBytes());
+    }
+
+    @Test(expected = ReportJobNotFinishedException.class)
+    public void testRunningJobCannotBeDownloaded() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        ReportJobMetadata job = reportJobService.submitJob(ReportJobType.CALL_GRAPH, null, PARAMETERS, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "graph".getBytes();
+        });
+        try {
+            assertThat(reportJobService.getJob(ReportJobType.CALL_GRAPH, null, job.getJobId())
+                                       .getStatus()).isEqualTo(ReportJobMetadata.Status.RUNNING);
+            reportJobService.getJobContent(ReportJobType.CALL_GRAPH, null, job.getJobId());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testFailedJob() throws InterruptedException {
+        ReportJobMetadata job = reportJobService.submitJob(ReportJobType.REPORT, "user", PARAMETERS, () -> {
+            throw new PDFGenerationException("broken");
+        });
+
+        ReportJobMetadata failed = waitForJob(ReportJobType.REPORT, "user", job.getJobId());
+
+        assertThat(failed.getStatus()).isEqualTo(ReportJobMetadata.Status.FAILED);
+        assertThat(failed.getError()).isEqualTo("broken");
+    }
+
+    @Test(expected = PDFGenerationException.class)
+    public void testFailedJobContentRethrowsTheFailure() throws InterruptedException {
+        ReportJobMetadata job = reportJobService.submitJob(ReportJobType.REPORT, "user", PARAMETERS, () -> {
+            throw new PDFGenerationException("broken");
+        });
+        waitForJob(ReportJobType.REPORT, "user", job.getJobId());
+
+        reportJobService.getJobContent(ReportJobType.REPORT, "user", job.getJobId());
+    }
+
+    @Test
+    public void testEvictedContentIsGeneratedAgain() throws InterruptedException {
+        AtomicInteger generations = new AtomicInteger();
+        // larger than the 1 MB cache, so never kept in it
+        Supplier<byte[]> generator = () -> {
+            generations.incrementAndGet();
+            return new byte[2 * 1024 * 1024];
+        };
+        ReportJobMetadata job = reportJobService.submitJob(ReportJobType.REPORT, "user", PARAMETERS, generator);
+        waitForJob(ReportJobType.REPORT, "user", job.getJobId());
+
+        byte[] content = reportJobService.getJobContent(ReportJobType.REPORT, "user", job.getJobId());
+
+        assertThat(content.length).isEqualTo(2 * 1024 * 1024);
+        assertThat(generations.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testSubmissionIsRejectedWhenTheQueueIsFull() {
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<byte[]> blockingGenerator = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "report".getBytes();
+        };
+        try {
+            // one job running on the single thread, one job waiting in the queue of size 1
+            reportJobService.submitJob(ReportJobType.REPORT, "user", Collections.singletonList("running"),
+                                       blockingGenerator);
+            reportJobService.submitJob(ReportJobType.REPORT, "user", Collections.singletonList("waiting"),
+                                       blockingGenerator);
+            // an identical submission shares the waiting generation instead of being rejected
+            reportJobService.submitJob(ReportJobType.REPORT, "other", Collections.singletonList("waiting"),
+                                       blockingGenerator);
+
+            reportJobService.submitJob(ReportJobType.REPORT, "user", Collections.singletonList("rejected"),
+                                       blockingGenerator);
+            fail("The submission should have been rejected");
+        } catch (ReportJobRejectedException e) {
+            // expected
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test(expected = ReportJobNotFoundException.class)
+    public void testJobOfAnotherUserIsNotFound() {
+        ReportJobMetadata job = reportJobService.submitJob(ReportJobType.REPORT,
+                                                           "user",
+                                                           PARAMETERS,
+                                                           () -> "report".getBytes());
+
+        reportJobService.getJob(ReportJobType.REPORT, "other", job.getJobId());
+    }
+
+    @Test(expected = ReportJobNotFoundException.class)
+    public void testJobOfAnotherTypeIsNotFound() {
+        ReportJobMetadata job = reportJobService.submitJob(ReportJobType.REPORT,
+                                                           "user",
+                                                           PARAMETERS,
+                                                           () -> "report".getBytes());
+
+        reportJobService.getJob(ReportJobType.CALL_GRAPH, "user", job.getJobId());
+    }
+
+    private void setCatalogState(Long maxLastCommitTime, Long numberOfObjects) {
+        when(catalogObjectRepository.findMaxLastCommitTimeAndCount()).thenReturn(Collections.singletonList(new Object[] { maxLastCommitTime,
+                                                                                                                         numberOfObjects }));
+    }
+
+    private ReportJobMetadata waitForJob(ReportJobType type, String owner, String jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        ReportJobMetadata job = reportJobService.getJob(type, owner, jobId);
+        while (job.getStatus() == ReportJobMetadata.Status.RUNNING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            job = reportJobService.getJob(type, owner, jobId);
+        }
+        return job;
+    }
+}
@@ -26,6 +26,7 @@
 package org.ow2.proactive.catalog.service;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -33,6 +34,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.ow2.proactive_grid_cloud_portal.scheduler.client.SchedulerRestClient;
 
 
 /**
@@ -60,4 +62,21 @@ public class SchedulerRestClientCreatorTest {
 
         assertThat(schedulerRestClientCreator.getNewClientInitializedWithSchedulerRestUrl()).isNotNull();
     }
+
+    @Test
+    public void testThatPooledRestClientIsNotNull() {
+        when(schedulerRestClientCreator.getSchedulerRestUrl()).thenReturn("http://testUrl");
+
+        assertThat(schedulerRestClientCreator.getNewPooledClientInitializedWithSchedulerRestUrl()).isNotNull();
+    }
+
+    @Test
+    public void testThatSharedRestClientIsCreatedOnce() {
+        when(schedulerRestClientCreator.getSchedulerRestUrl()).thenReturn("http://testUrl");
+
+        SchedulerRestClient client = schedulerRestClientCreator.getSharedClientInitializedWithSchedulerRestUrl();
+
+        assertThat(schedulerRestClientCreator.getSharedClientInitializedWithSchedulerRestUrl()).isSameAs(client);
+        verify(schedulerRestClientCreator, times(1)).getNewPooledClientInitializedWithSchedulerRestUrl();
+    }
 }
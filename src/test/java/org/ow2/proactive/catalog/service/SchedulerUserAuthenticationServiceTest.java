@@ -26,16 +26,28 @@
 package org.ow2.proactive.catalog.service;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.ow2.proactive.authentication.UserData;
@@ -52,7 +64,6 @@ import org.ow2.proactive_grid_cloud_portal.scheduler.client.SchedulerRestClient;
 @RunWith(MockitoJUnitRunner.class)
 public class SchedulerUserAuthenticationServiceTest {
 
-    @InjectMocks
     SchedulerUserAuthenticationService schedulerUserAuthenticationService;
 
     @Mock
@@ -71,7 +82,8 @@ public class SchedulerUserAuthenticationServiceTest {
         userData.setGroups(new HashSet<>(Arrays.asList("user", "technical")));
         when(schedulerRestInterfaceMock.getUserDataFromSessionId(any())).thenReturn(userData);
         when(schedulerRestClientMock.getScheduler()).thenReturn(schedulerRestInterfaceMock);
-        when(schedulerRestClientCreator.getNewClientInitializedWithSchedulerRestUrl()).thenReturn(schedulerRestClientMock);
+        when(schedulerRestClientCreator.getSharedClientInitializedWithSchedulerRestUrl()).thenReturn(schedulerRestClientMock);
+        schedulerUserAuthenticationService = new SchedulerUserAuthenticationService(schedulerRestClientCreator, 1, 5);
     }
 
     @Test(expected = NotAuthenticatedException.class)
@@ -100,4 +112,145 @@ public class SchedulerUserAuthenticationServiceTest {
         assertThat(authenticatedUser.getGroups()).containsExactly("user", "technical");
     }
 
+    @Test
+    public void testThatConcurrentValidationsOfTheSameSessionCallTheSchedulerOnce() throws Exception {
+        AtomicInteger schedulerCalls = new AtomicInteger();
+        UserData userData = new UserData();
+        userData.setUserName("testUser");
+        userData.setGroups(new HashSet<>(Arrays.asList("user")));
+        when(schedulerRestInterfaceMock.getUserDataFromSessionId("session")).thenAnswer(invocation -> {
+            schedulerCalls.incrementAndGet();
+            // slow scheduler, so that all the requests miss the cache at the same time
+            Thread.sleep(200);
+            return userData;
+        });
+
+        List<AuthenticatedUser> authenticatedUsers = authenticateConcurrently("session", 16);
+
+        assertThat(authenticatedUsers).hasSize(16);
+        for (AuthenticatedUser authenticatedUser : authenticatedUsers) {
+            assertThat(authenticatedUser.getName()).isEqualTo("testUser");
+        }
+        assertThat(schedulerCalls.get()).isEqualTo(1);
+
+        schedulerUserAuthenticationService.authenticateBySessionId("session");
+        assertThat(schedulerCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testThatInvalidSessionIsNotValidatedAgainByTheScheduler() throws Exception {
+        AtomicInteger schedulerCalls = new AtomicInteger();
+        when(schedulerRestInterfaceMock.getUserDataFromSessionId("invalid")).thenAnswer(invocation -> {
+            schedulerCalls.incrementAndGet();
+            Thread.sleep(200);
+            return null;
+        });
+
+        List<AuthenticatedUser> authenticatedUsers = authenticateConcurrently("invalid", 16);
+
+        assertThat(authenticatedUsers).isEmpty();
+        assertThat(schedulerCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testThatSchedulerFailureIsNotCachedAsInvalidSession() throws Exception {
+        UserData userData = new UserData();
+        userData.setUserName("testUser");
+        userData.setGroups(new HashSet<>(Arrays.asList("user")));
+        when(schedulerRestInterfaceMock.getUserDataFromSessionId("session")).thenThrow(new RuntimeException("timeout"))
+                                                                           .thenReturn(userData);
+
+        try {
+            schedulerUserAuthenticationService.authenticateBySessionId("session");
+            fail("The scheduler failure should not validate the session");
+        } catch (NotAuthenticatedException e) {
+            assertThat(e.getMessage()).contains("timeout");
+        }
+
+        AuthenticatedUser authenticatedUser = schedulerUserAuthenticationService.authenticateBySessionId("session");
+        assertThat(authenticatedUser.getName()).isEqualTo("testUser");
+        verify(schedulerRestInterfaceMock, times(2)).getUserDataFromSessionId("session");
+    }
+
+    @Test(expected = NotAuthenticatedException.class)
+    public void testThatRefreshFailsWhenTheSchedulerFails() throws Exception {
+        UserData oldUserData = new UserData();
+        oldUserData.setUserName("testUser");
+        when(schedulerRestInterfaceMock.getUserDataFromSessionId("session")).thenThrow(new RuntimeException("timeout"));
+
+        schedulerUserAuthenticationService.new UserDataLoader().reload("session", oldUserData);
+    }
+
+    @Test
+    public void testThatCachedSessionExpiresWhileTheSchedulerIsUnreachable() throws Exception {
+        AtomicLong nanoTime = new AtomicLong();
+        schedulerUserAuthenticationService = new SchedulerUserAuthenticationService(schedulerRestClientCreator,
+                                                                                    1,
+                                                                                    5,
+                                                                                    nanoTime::get,
+                                                                                    Runnable::run);
+        schedulerUserAuthenticationService.authenticateBySessionId("session");
+        when(schedulerRestInterfaceMock.getUserDataFromSessionId("session")).thenThrow(new RuntimeException("timeout"));
+
+        // the refresh fails, the cached user data is still used
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(40));
+        AuthenticatedUser authenticatedUser = schedulerUserAuthenticationService.authenticateBySessionId("session");
+        assertThat(authenticatedUser.getName()).isEqualTo("testUser");
+        verify(schedulerRestInterfaceMock, times(2)).getUserDataFromSessionId("session");
+
+        // one minute after the last successful validation, the session must be validated again
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        try {
+            schedulerUserAuthenticationService.authenticateBySessionId("session");
+            fail("The session should not be trusted after the timeout while the scheduler is unreachable");
+        } catch (NotAuthenticatedException e) {
+            assertThat(e.getMessage()).contains("timeout");
+        }
+    }
+
+    @Test
+    public void testThatRefreshRemovesUnknownSession() throws Exception {
+        UserData oldUserData = new UserData();
+        oldUserData.setUserName("testUser");
+        when(schedulerRestInterfaceMock.getUserDataFromSessionId("session")).thenReturn(null);
+
+        UserData userData = schedulerUserAuthenticationService.new UserDataLoader().reload("session", oldUserData);
+
+        assertThat(userData).isNull();
+        try {
+            schedulerUserAuthenticationService.authenticateBySessionId("session");
+            fail("The unknown session should be rejected");
+        } catch (NotAuthenticatedException e) {
+            assertThat(e.getMessage()).isEqualTo("SessionId is invalid");
+        }
+        verify(schedulerRestInterfaceMock, times(1)).getUserDataFromSessionId("session");
+    }
+
+    private List<AuthenticatedUser> authenticateConcurrently(String sessionId, int numberOfRequests)
+            throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(numberOfRequests);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<AuthenticatedUser>> futures = new ArrayList<>();
+            for (int i = 0; i < numberOfRequests; i++) {
+                futures.add(executorService.submit(() -> {
+                    start.await();
+                    return schedulerUserAuthenticationService.authenticateBySessionId(sessionId);
+                }));
+            }
+            start.countDown();
+            List<AuthenticatedUser> authenticatedUsers = new ArrayList<>();
+            for (Future<AuthenticatedUser> future : futures) {
+                try {
+                    authenticatedUsers.add(future.get(10, TimeUnit.SECONDS));
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause()).isInstanceOf(NotAuthenticatedException.class);
+                }
+            }
+            return authenticatedUsers;
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
 }
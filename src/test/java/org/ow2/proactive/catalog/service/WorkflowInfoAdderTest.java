@@ -103,4 +103,37 @@ public class WorkflowInfoAdderTest {
                                                                                          Mockito.any());
     }
 
+    @Test
+    public void testThatWorkflowParserKindTriggersOnePassXmlManipulation() {
+        genericInformationAdder.addJobLevelInformationToRawObjectIfWorkflow(new byte[] {},
+                                                                            SupportedParserKinds.WORKFLOW.toString() +
+                                                                                           "specific-workflow-kind",
+                                                                            Collections.emptyMap(),
+                                                                            "",
+                                                                            "project",
+                                                                            "tag");
+
+        verify(workflowXmlManipulator).replaceJobLevelInformation(Mockito.any(),
+                                                                  Mockito.any(),
+                                                                  Mockito.any(),
+                                                                  Mockito.any(),
+                                                                  Mockito.any());
+    }
+
+    @Test
+    public void testThatOtherKindNotTriggersOnePassXmlManipulation() {
+        genericInformationAdder.addJobLevelInformationToRawObjectIfWorkflow(new byte[] {},
+                                                                            SupportedParserKinds.PCW_RULE.toString(),
+                                                                            Collections.emptyMap(),
+                                                                            "",
+                                                                            "project",
+                                                                            "tag");
+
+        verify(workflowXmlManipulator, times(0)).replaceJobLevelInformation(Mockito.any(),
+                                                                            Mockito.any(),
+                                                                            Mockito.any(),
+                                                                            Mockito.any(),
+                                                                            Mockito.any());
+    }
+
 }
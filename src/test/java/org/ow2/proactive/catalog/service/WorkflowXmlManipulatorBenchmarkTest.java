@@ -0,0 +1,174 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import lombok.extern.log4j.Log4j2;
+
+
+/**
+ * Compares, on a large workflow, the single streaming pass applied when committing a workflow with the three DOM
+ * round-trips (parse, modify, serialize) it replaces.
+ *
+ * @author ActiveEon Team
+ * @since 18/10/2026
+ */
+@Log4j2
+public class WorkflowXmlManipulatorBenchmarkTest {
+
+    private static final int NUMBER_OF_TASKS = 2000;
+
+    private static final int WARMUP_ITERATIONS = 3;
+
+    private static final int MEASURED_ITERATIONS = 5;
+
+    private final WorkflowXmlManipulator workflowXmlManipulator = new WorkflowXmlManipulator();
+
+    @Ignore("Timing benchmark, run it manually")
+    @Test
+    public void benchmarkOnePassReplacementAgainstDomRoundTrips() throws Exception {
+        byte[] largeWorkflow = createLargeWorkflow(NUMBER_OF_TASKS);
+        Map<String, String> genericInfoMap = new HashMap<>();
+        genericInfoMap.put("bucketName", "benchmark-bucket");
+        genericInfoMap.put("group", "benchmark-group");
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            replaceWithDomRoundTrips(largeWorkflow, genericInfoMap);
+            replaceInOnePass(largeWorkflow, genericInfoMap);
+        }
+
+        long domStart = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            replaceWithDomRoundTrips(largeWorkflow, genericInfoMap);
+        }
+        long domDuration = System.nanoTime() - domStart;
+
+        byte[] onePassResult = null;
+        long onePassStart = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            onePassResult = replaceInOnePass(largeWorkflow, genericInfoMap);
+        }
+        long onePassDuration = System.nanoTime() - onePassStart;
+
+        log.info("Job level replacement of a workflow of {} KB with {} tasks: three DOM round-trips {} ms, one streaming pass {} ms",
+                 largeWorkflow.length / 1024,
+                 NUMBER_OF_TASKS,
+                 TimeUnit.NANOSECONDS.toMillis(domDuration / MEASURED_ITERATIONS),
+                 TimeUnit.NANOSECONDS.toMillis(onePassDuration / MEASURED_ITERATIONS));
+
+        String modifiedWorkflow = new String(onePassResult);
+        assertThat(modifiedWorkflow).contains("name=\"benchmark\"");
+        assertThat(modifiedWorkflow).contains("projectName=\"benchmark-project\"");
+        assertThat(modifiedWorkflow).contains("tags=\"tag1,tag2\"");
+        assertThat(modifiedWorkflow).contains("<info name=\"bucketName\" value=\"benchmark-bucket\"/>");
+        assertThat(modifiedWorkflow).contains("<task name=\"Task" + (NUMBER_OF_TASKS - 1) + "\">");
+    }
+
+    private byte[] replaceInOnePass(byte[] workflow, Map<String, String> genericInfoMap) {
+        return workflowXmlManipulator.replaceJobLevelInformation(workflow,
+                                                                 genericInfoMap,
+                                                                 "benchmark",
+                                                                 "benchmark-project",
+                                                                 "tag1,tag2");
+    }
+
+    private byte[] replaceWithDomRoundTrips(byte[] workflow, Map<String, String> genericInfoMap) throws Exception {
+        byte[] result = replaceJobAttributeWithDom(workflow, "name", "benchmark", genericInfoMap);
+        result = replaceJobAttributeWithDom(result, "projectName", "benchmark-project", null);
+        return replaceJobAttributeWithDom(result, "tags", "tag1,tag2", null);
+    }
+
+    private byte[] replaceJobAttributeWithDom(byte[] workflow, String attributeName, String attributeValue,
+            Map<String, String> genericInfoMap) throws Exception {
+        Document doc = DocumentBuilderFactory.newInstance()
+                                             .newDocumentBuilder()
+                                             .parse(new ByteArrayInputStream(workflow));
+        Element rootElement = doc.getDocumentElement();
+        rootElement.setAttribute(attributeName, attributeValue);
+        if (genericInfoMap != null) {
+            Element genericInfoElement = doc.createElement("genericInformation");
+            genericInfoMap.forEach((name, value) -> {
+                Element infoElement = doc.createElement("info");
+                infoElement.setAttribute("name", name);
+                infoElement.setAttribute("value", value);
+                genericInfoElement.appendChild(infoElement);
+            });
+            rootElement.insertBefore(genericInfoElement, rootElement.getElementsByTagName("taskFlow").item(0));
+        }
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        ByteArrayOutputStream answer = new ByteArrayOutputStream();
+        transformer.transform(new DOMSource(doc), new StreamResult(answer));
+        return answer.toByteArray();
+    }
+
+    private byte[] createLargeWorkflow(int numberOfTasks) {
+        StringBuilder workflow = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        workflow.append("<job xmlns=\"urn:proactive:jobdescriptor:3.8\" name=\"large\" priority=\"normal\">\n");
+        workflow.append("  <variables>\n");
+        for (int i = 0; i < 50; i++) {
+            workflow.append("    <variable name=\"var").append(i).append("\" value=\"value").append(i).append("\"/>\n");
+        }
+        workflow.append("  </variables>\n");
+        workflow.append("  <genericInformation>\n    <info name=\"old\" value=\"old\"/>\n  </genericInformation>\n");
+        workflow.append("  <taskFlow>\n");
+        for (int i = 0; i < numberOfTasks; i++) {
+            workflow.append("    <task name=\"Task").append(i).append("\">\n");
+            if (i > 0) {
+                workflow.append("      <depends>\n        <task ref=\"Task")
+                        .append(i - 1)
+                        .append("\"/>\n      </depends>\n");
+            }
+            workflow.append("      <scriptExecutable>\n        <script>\n          <code language=\"groovy\">\n");
+            workflow.append("            <![CDATA[\nprintln \"Task ")
+                    .append(i)
+                    .append(" \" + variables.get(\"var1\")\n]]>\n");
+            workflow.append("          </code>\n        </script>\n      </scriptExecutable>\n    </task>\n");
+        }
+        workflow.append("  </taskFlow>\n</job>");
+        return workflow.toString().getBytes();
+    }
+
+}
@@ -28,16 +28,24 @@ package org.ow2.proactive.catalog.service;
 import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.xml.parsers.DocumentBuilderFactory;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import com.google.common.io.ByteStreams;
 
 
 /**
@@ -374,6 +382,93 @@ public class WorkflowXmlManipulatorTest {
         assertThat(nullByteArray.length).isEqualTo(0);
     }
 
+    @Test
+    public void testThatJobLevelInformationIsReplacedInOnePass() {
+        String modifiedWorkflow = new String(workflowXmlManipulator.replaceJobLevelInformation(workflowWithGenericInfoAtJobAndTaskLevel_BeforeTaskFlow,
+                                                                                               this.getTwoSimpleEntries(),
+                                                                                               "newJobName",
+                                                                                               "newProjectName",
+                                                                                               "newTag1,newTag2"));
+
+        assertThat(modifiedWorkflow).contains("name=\"newJobName\"");
+        assertThat(modifiedWorkflow).contains("projectName=\"newProjectName\"");
+        assertThat(modifiedWorkflow).contains("tags=\"newTag1,newTag2\"");
+        assertThat(modifiedWorkflow).contains("<info name=\"firstTestKey\" value=\"firstTestValue\"/>");
+        assertThat(modifiedWorkflow).contains("<info name=\"secondTestKey\" value=\"secondTestValue\"/>");
+        assertThat(modifiedWorkflow).contains("<info name=\"insideTaskGenInfo\" value=\"TaskGenInfoValue\"/>");
+        assertThat(modifiedWorkflow).doesNotContain("value=\"value1\"");
+        assertThat(modifiedWorkflow).contains("Perform anomaly detection of an input image");
+        assertTrue("Unmodified python code should be found in " + modifiedWorkflow,
+                   pythonCodePattern.matcher(modifiedWorkflow).find());
+    }
+
+    @Test
+    public void testThatJobLevelInformationReplacementRemovesEmptyProjectNameAndTags() {
+        byte[] workflowWithProjectNameAndTags = workflowXmlManipulator.replaceJobLevelInformation(simpleWorkflowWithGenericInfo,
+                                                                                                  this.getTwoSimpleEntries(),
+                                                                                                  "newJobName",
+                                                                                                  "newProjectName",
+                                                                                                  "newTag");
+        String modifiedWorkflow = new String(workflowXmlManipulator.replaceJobLevelInformation(workflowWithProjectNameAndTags,
+                                                                                               this.getTwoSimpleEntries(),
+                                                                                               "newJobName",
+                                                                                               "",
+                                                                                               " "));
+
+        assertThat(modifiedWorkflow).contains("name=\"newJobName\"");
+        assertThat(modifiedWorkflow).doesNotContain("projectName");
+        assertThat(modifiedWorkflow).doesNotContain("tags");
+    }
+
+    @Test
+    public void testThatOnePassReplacementMatchesTheExpectedWorkflow() throws Exception {
+        Map<String, String> genericInfoMap = new LinkedHashMap<>();
+        genericInfoMap.put("firstTestKey", "firstTestValue");
+        genericInfoMap.put("secondTestKey", "secondTestValue");
+
+        byte[] onePassReplacement = workflowXmlManipulator.replaceJobLevelInformation(simpleWorkflowWithGenericInfo,
+                                                                                      genericInfoMap,
+                                                                                      "newJobName",
+                                                                                      "newProjectName",
+                                                                                      "newTag");
+
+        byte[] expectedWorkflow = ByteStreams.toByteArray(WorkflowXmlManipulatorTest.class.getResourceAsStream("/workflows/workflow-job-level-information-replaced.xml"));
+        assertTrue("Unexpected workflow " + new String(onePassReplacement),
+                   parseIgnoringFormatting(expectedWorkflow).isEqualNode(parseIgnoringFormatting(onePassReplacement)));
+    }
+
+    /**
+     * Parses a workflow into a DOM, without the whitespace between elements and around texts, so that two workflows
+     * can be compared whatever their indentation, attribute order and CDATA sections
+     */
+    private Element parseIgnoringFormatting(byte[] xmlWorkflow) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.setCoalescing(true);
+        factory.setIgnoringComments(true);
+        Element root = factory.newDocumentBuilder().parse(new ByteArrayInputStream(xmlWorkflow)).getDocumentElement();
+        removeFormatting(root);
+        return root;
+    }
+
+    private void removeFormatting(Node node) {
+        Node child = node.getFirstChild();
+        while (child != null) {
+            Node next = child.getNextSibling();
+            if (child.getNodeType() == Node.TEXT_NODE) {
+                String text = child.getNodeValue().trim();
+                if (text.isEmpty()) {
+                    node.removeChild(child);
+                } else {
+                    child.setNodeValue(text);
+                }
+            } else {
+                removeFormatting(child);
+            }
+            child = next;
+        }
+    }
+
     private Map<String, String> getTwoSimpleEntries() {
         Map<String, String> returnList = new HashMap<>();
 
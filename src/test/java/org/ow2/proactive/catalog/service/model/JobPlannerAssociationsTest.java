@@ -0,0 +1,85 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.catalog.service.model;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.ow2.proactive.catalog.dto.AssociationStatus.ALL;
+import static org.ow2.proactive.catalog.dto.AssociationStatus.UNPLANNED;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Optional;
+
+import org.junit.Test;
+import org.ow2.proactive.catalog.dto.AssociatedObject;
+import org.ow2.proactive.catalog.dto.AssociatedObjectsByBucket;
+import org.ow2.proactive.catalog.dto.AssociationStatus;
+
+
+public class JobPlannerAssociationsTest {
+
+    private final JobPlannerAssociations associations = new JobPlannerAssociations(Collections.singletonList(new AssociatedObjectsByBucket("bucket",
+                                                                                                                                        Arrays.asList(associatedObject("Planned",
+                                                                                                                                                                       AssociationStatus.PLANNED),
+                                                                                                                                                      associatedObject("deactivated",
+                                                                                                                                                                       AssociationStatus.DEACTIVATED),
+                                                                                                                                                      associatedObject("noStatus")))));
+
+    @Test
+    public void testFindAssociatedObject() {
+        assertThat(associations.containsBucket("bucket")).isTrue();
+        assertThat(associations.containsBucket("other")).isFalse();
+        assertThat(associations.findAssociatedObject("bucket", "Planned").isPresent()).isTrue();
+        assertThat(associations.findAssociatedObject("bucket", "planned").isPresent()).isFalse();
+        assertThat(associations.findAssociatedObjectIgnoreCase("bucket", "planned").get().getObjectName()).isEqualTo("Planned");
+        assertThat(associations.findAssociatedObject("other", "Planned").isPresent()).isFalse();
+    }
+
+    @Test
+    public void testMatchesAssociationStatus() {
+        Optional<AssociatedObject> planned = associations.findAssociatedObject("bucket", "Planned");
+        Optional<AssociatedObject> noStatus = associations.findAssociatedObject("bucket", "noStatus");
+        Optional<AssociatedObject> notAssociated = associations.findAssociatedObject("bucket", "unknown");
+
+        assertThat(JobPlannerAssociations.matchesAssociationStatus(planned, ALL)).isTrue();
+        assertThat(JobPlannerAssociations.matchesAssociationStatus(noStatus, ALL)).isFalse();
+        assertThat(JobPlannerAssociations.matchesAssociationStatus(notAssociated, ALL)).isFalse();
+
+        assertThat(JobPlannerAssociations.matchesAssociationStatus(planned, "planned")).isTrue();
+        assertThat(JobPlannerAssociations.matchesAssociationStatus(planned, "DEACTIVATED")).isFalse();
+        assertThat(JobPlannerAssociations.matchesAssociationStatus(associations.findAssociatedObject("bucket",
+                                                                                                     "deactivated"),
+                                                                   "DEACTIVATED")).isTrue();
+
+        assertThat(JobPlannerAssociations.matchesAssociationStatus(notAssociated, UNPLANNED)).isTrue();
+        assertThat(JobPlannerAssociations.matchesAssociationStatus(noStatus, UNPLANNED)).isFalse();
+    }
+
+    private static AssociatedObject associatedObject(String name, AssociationStatus... statuses) {
+        return new AssociatedObject(name, new HashSet<>(Arrays.asList(statuses)));
+    }
+}
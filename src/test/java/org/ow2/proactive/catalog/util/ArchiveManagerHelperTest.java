@@ -33,13 +33,17 @@ import static org.mockito.Mockito.when;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -47,6 +51,7 @@ import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.ow2.proactive.catalog.repository.entity.CatalogObjectContentEntity;
 import org.ow2.proactive.catalog.repository.entity.CatalogObjectEntity;
 import org.ow2.proactive.catalog.repository.entity.CatalogObjectEntity.CatalogObjectEntityKey;
 import org.ow2.proactive.catalog.repository.entity.CatalogObjectRevisionEntity;
@@ -95,7 +100,7 @@ public class ArchiveManagerHelperTest {
         CatalogObjectRevisionEntity revision = new CatalogObjectRevisionEntity();
         revision.setCatalogObject(object);
         object.addRevision(revision);
-        revision.setRawObject(fileContent);
+        revision.setContent(new CatalogObjectContentEntity(fileContent));
 
         return revision;
     }
@@ -148,6 +153,38 @@ public class ArchiveManagerHelperTest {
         assertEquals("workflow_1.xml", actualFiles.get(1).getFileNameWithExtension());
     }
 
+    @Test
+    public void testPackageZipArchiveWriterWritesSeveralChunks() throws IOException {
+        byte[] workflowByteArray0 = convertFromURIToByteArray(XML_FILE_0);
+        byte[] workflowByteArray1 = convertFromURIToByteArray(XML_FILE_1);
+        when(rawObjectResponseCreator.getNameWithFileExtension("workflow_0", "xml", null)).thenReturn("workflow_0.xml");
+        when(rawObjectResponseCreator.getNameWithFileExtension("workflow_1", "xml", null)).thenReturn("workflow_1.xml");
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ArchiveManagerHelper.ZipArchiveWriter zipArchiveWriter = archiveManager.createPackageZipArchiveWriter(outputStream,
+                                                                                                                   "bucket")) {
+            zipArchiveWriter.write(Collections.singletonList(getCatalogObjectRevisionEntity("workflow_0",
+                                                                                            workflowByteArray0,
+                                                                                            "xml")));
+            zipArchiveWriter.write(Collections.singletonList(getCatalogObjectRevisionEntity("workflow_1",
+                                                                                            workflowByteArray1,
+                                                                                            "xml")));
+        }
+
+        List<FileNameAndContent> actualFiles = archiveManager.extractZIP(outputStream.toByteArray());
+        assertEquals(2, actualFiles.size());
+        compare(workflowByteArray0, actualFiles.get(0).getContent());
+        compare(workflowByteArray1, actualFiles.get(1).getContent());
+
+        PackageMetadataJSONParser.PackageData packageData = ArchiveManagerHelper.extractMetadataObject("bucket",
+                                                                                                       outputStream.toByteArray());
+        assertEquals(2, packageData.getCatalog().getObjects().size());
+        assertEquals("resources/catalog/workflow_0.xml",
+                     packageData.getCatalog().getObjects().get(0).getFile());
+        assertEquals("resources/catalog/workflow_1.xml",
+                     packageData.getCatalog().getObjects().get(1).getFile());
+    }
+
     @Test
     public void testExtractZip() throws IOException {
         assertTrue(archiveManager.extractZIP(null).isEmpty());
@@ -168,6 +205,39 @@ public class ArchiveManagerHelperTest {
         compare(convertFromURIToByteArray(XML_FILE_0), files.get(1).getContent());
     }
 
+    @Test
+    public void testIterateZipGivesEntriesWithTheirPath() throws IOException {
+        byte[] archive = createArchive(3);
+        List<FileNameAndContent> files = new ArrayList<>();
+        archiveManager.iterateZIP(archive, files::add);
+
+        assertEquals(3, files.size());
+        assertEquals("resources/catalog/object_0.xml", files.get(0).getPath());
+        assertEquals("object_0", files.get(0).getName());
+        assertEquals("object_0.xml", files.get(0).getFileNameWithExtension());
+        assertEquals(new String(createEntryContent(2)), new String(files.get(2).getContent()));
+    }
+
+    private byte[] createArchive(int numberOfEntries) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+            for (int i = 0; i < numberOfEntries; i++) {
+                zipOutputStream.putNextEntry(new ZipEntry("resources/catalog/object_" + i + ".xml"));
+                zipOutputStream.write(createEntryContent(i));
+                zipOutputStream.closeEntry();
+            }
+        }
+        return outputStream.toByteArray();
+    }
+
+    private byte[] createEntryContent(int index) {
+        StringBuilder content = new StringBuilder("<object index=\"" + index + "\">\n");
+        for (int line = 0; line < 50; line++) {
+            content.append("  <line>").append(index).append('-').append(line).append("</line>\n");
+        }
+        return content.append("</object>").toString().getBytes();
+    }
+
     /**
      * Compares 2 files as byte arrays
      * @param expectedFile first file to compare
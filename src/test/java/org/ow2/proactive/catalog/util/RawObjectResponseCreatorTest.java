@@ -203,4 +203,55 @@ public class RawObjectResponseCreatorTest {
         assertThat(responseEntity.getHeaders().getContentType()).isNull();
     }
 
+    @Test
+    public void testCreateRawObjectResponseCacheHeaders() {
+        CatalogRawObject rawObject = newRawObject(1400343L);
+        ResponseEntity lastRevisionResponse = rawObjectResponseCreator.createRawObjectResponse(rawObject);
+        assertThat(lastRevisionResponse.getHeaders().getETag()).isEqualTo(rawObjectResponseCreator.getETag(rawObject));
+        assertThat(lastRevisionResponse.getHeaders().getLastModified()).isEqualTo(1400000L);
+        assertThat(lastRevisionResponse.getHeaders()
+                                       .getCacheControl()).isEqualTo(RawObjectResponseCreator.LAST_REVISION_CACHE_CONTROL);
+
+        ResponseEntity revisionResponse = rawObjectResponseCreator.createRawObjectResponse(rawObject, true);
+        assertThat(revisionResponse.getHeaders().getETag()).isEqualTo(rawObjectResponseCreator.getETag(rawObject));
+        assertThat(revisionResponse.getHeaders()
+                                   .getCacheControl()).isEqualTo(RawObjectResponseCreator.REVISION_CACHE_CONTROL);
+        assertThat(revisionResponse.getHeaders().getCacheControl()).contains("must-revalidate");
+    }
+
+    @Test
+    public void testETagChangesWithRevision() {
+        String eTag = rawObjectResponseCreator.getETag(newRawObject(1400343L));
+        assertThat(eTag).startsWith("\"");
+        assertThat(eTag).endsWith("\"");
+        assertThat(eTag).isEqualTo(rawObjectResponseCreator.getETag(newRawObject(1400343L)));
+        assertThat(eTag).isNotEqualTo(rawObjectResponseCreator.getETag(newRawObject(1400344L)));
+    }
+
+    @Test
+    public void testCreateNotModifiedResponse() {
+        CatalogRawObject rawObject = newRawObject(1400343L);
+        ResponseEntity responseEntity = rawObjectResponseCreator.createNotModifiedResponse(rawObject, true);
+        assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(responseEntity.getBody()).isNull();
+        assertThat(responseEntity.getHeaders().getETag()).isEqualTo(rawObjectResponseCreator.getETag(rawObject));
+        assertThat(responseEntity.getHeaders()
+                                 .getCacheControl()).isEqualTo(RawObjectResponseCreator.REVISION_CACHE_CONTROL);
+    }
+
+    private CatalogRawObject newRawObject(long commitTime) {
+        return new CatalogRawObject("bucket-name",
+                                    "name",
+                                    PROJECT_NAME,
+                                    TAGS,
+                                    "workflow/standard",
+                                    "application/xml",
+                                    commitTime,
+                                    "commit message",
+                                    "username",
+                                    Collections.emptyList(),
+                                    new byte[0],
+                                    "xml");
+    }
+
 }
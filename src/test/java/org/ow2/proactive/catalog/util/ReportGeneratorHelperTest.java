@@ -26,18 +26,33 @@
 package org.ow2.proactive.catalog.util;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.anySetOf;
 import static org.mockito.Matchers.anyString;
-import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -52,6 +67,8 @@ import org.ow2.proactive.catalog.service.CatalogObjectService;
 import org.ow2.proactive.catalog.util.parser.WorkflowParser;
 
 import be.quodlibet.boxable.BaseTable;
+import be.quodlibet.boxable.Cell;
+import be.quodlibet.boxable.utils.FontUtils;
 
 
 @RunWith(value = MockitoJUnitRunner.class)
@@ -157,10 +174,8 @@ public class ReportGeneratorHelperTest {
                                                                                  Collections.emptyList(),
                                                                                  "xml");
 
-        when(catalogObjectService.isDependsOnObjectExistInCatalog(eq(bucketName),
-                                                                  eq(objectName1),
-                                                                  anyString())).thenReturn(true);
-        when(catalogObjectService.getCatalogObjectMetadata(bucketName, objectName1)).thenReturn(catalogObjectMetadata2);
+        when(catalogObjectService.getCatalogObjectsKinds(Collections.singleton(separatorUtility.getConcatWithSeparator(bucketName,
+                                                                                                                         objectName2)))).thenReturn(Collections.emptyMap());
 
         List<CatalogObjectMetadata> catalogObjectMetadataList = Arrays.asList(catalogObjectMetadata1,
                                                                               catalogObjectMetadata2);
@@ -184,4 +199,170 @@ public class ReportGeneratorHelperTest {
 
     }
 
+    @Test
+    public void buildCatalogCallGraphResolvesCalledObjectsAtOnceTest() {
+
+        final String bucketName = "bucketName";
+        final String calledObject = separatorUtility.getConcatWithSeparator(bucketName, "called");
+        final String missingObject = separatorUtility.getConcatWithSeparator(bucketName, "missing");
+
+        List<CatalogObjectMetadata> catalogObjectMetadataList = Arrays.asList(callingObject(bucketName,
+                                                                                            "caller1",
+                                                                                            calledObject,
+                                                                                            missingObject),
+                                                                              callingObject(bucketName,
+                                                                                            "caller2",
+                                                                                            calledObject));
+        when(catalogObjectService.getCatalogObjectsKinds(anySetOf(String.class))).thenReturn(Collections.singletonMap(calledObject,
+                                                                                                                      "workflow"));
+
+        CallGraphHolder result = reportGeneratorHelper.buildCatalogCallGraph(catalogObjectMetadataList);
+
+        verify(catalogObjectService).getCatalogObjectsKinds(new HashSet<>(Arrays.asList(calledObject, missingObject)));
+        assertThat(result.nodeSet()
+                         .stream()
+                         .filter(GraphNode::isInCatalog)
+                         .map(GraphNode::getObjectName)
+                         .collect(Collectors.toList())).containsExactly("caller1", "called", "caller2");
+        assertThat(result.nodeSet()
+                         .stream()
+                         .filter(node -> node.getObjectName().equals("called"))
+                         .map(GraphNode::getObjectKind)
+                         .collect(Collectors.toList())).containsExactly("workflow");
+        assertThat(result.nodeSet()
+                         .stream()
+                         .filter(node -> !node.isInCatalog())
+                         .map(GraphNode::getObjectKind)
+                         .collect(Collectors.toList())).containsExactly("N/A");
+    }
+
+    private CatalogObjectMetadata callingObject(String bucketName, String objectName, String... dependsOn) {
+        return new CatalogObjectMetadata(bucketName,
+                                         objectName,
+                                         "projectName",
+                                         "tag",
+                                         "workflow",
+                                         "application/xml",
+                                         1400343L,
+                                         "commit message",
+                                         "username",
+                                         Arrays.stream(dependsOn)
+                                               .map(key -> new Metadata(key,
+                                                                        WorkflowParser.LATEST_VERSION,
+                                                                        WorkflowParser.ATTRIBUTE_DEPENDS_ON_LABEL))
+                                               .collect(Collectors.toList()),
+                                         "xml");
+    }
+
+    @Test
+    public void setFontToUseLoadsFontsPerDocumentTest() throws IOException {
+        PDDocument otherDocument = new PDDocument();
+        Cell<PDPage> cell;
+        Cell<PDPage> otherCell;
+        try {
+            reportGeneratorHelper.setFontToUse(document);
+            cell = reportGeneratorHelper.initializeTable(document, 10f, new PDPage()).createRow(10f).createCell(100,
+                                                                                                             "cell");
+            ReportGeneratorHelper.applyDocumentFonts(cell);
+        } finally {
+            reportGeneratorHelper.releaseFontToUse();
+        }
+        try {
+            reportGeneratorHelper.setFontToUse(otherDocument);
+            otherCell = reportGeneratorHelper.initializeTable(otherDocument, 10f, new PDPage())
+                                             .createRow(10f)
+                                             .createCell(100, "cell");
+            ReportGeneratorHelper.applyDocumentFonts(otherCell);
+        } finally {
+            reportGeneratorHelper.releaseFontToUse();
+        }
+
+        assertThat(cell.getFont()).isInstanceOf(PDType0Font.class);
+        assertThat(otherCell.getFont()).isInstanceOf(PDType0Font.class);
+        assertThat(cell.getFont()).isNotSameAs(otherCell.getFont());
+    }
+
+    @Test
+    public void documentFontsAreOnlyUsedByTheCurrentThreadTest() throws Exception {
+        ExecutorService otherThread = Executors.newSingleThreadExecutor();
+        try {
+            reportGeneratorHelper.setFontToUse(document);
+            PDFont font = ReportGeneratorHelper.getDocumentFont("font", PDType1Font.HELVETICA);
+
+            Future<PDFont> otherThreadFont = otherThread.submit(() -> {
+                return ReportGeneratorHelper.getDocumentFont("font", PDType1Font.HELVETICA);
+            });
+
+            assertThat(font).isInstanceOf(PDType0Font.class);
+            assertThat(otherThreadFont.get(5, TimeUnit.SECONDS)).isSameAs(PDType1Font.HELVETICA);
+        } finally {
+            reportGeneratorHelper.releaseFontToUse();
+            otherThread.shutdownNow();
+        }
+        PDFont releasedFont = ReportGeneratorHelper.getDocumentFont("font", PDType1Font.HELVETICA);
+        assertThat(releasedFont).isSameAs(PDType1Font.HELVETICA);
+    }
+
+    @Test
+    public void drawTableUsesTheDocumentFontsForBoldTextTest() throws IOException {
+        PDPage page = new PDPage();
+        document.addPage(page);
+        try {
+            reportGeneratorHelper.setFontToUse(document);
+            BaseTable table = reportGeneratorHelper.initializeTable(document, 10f, page);
+            ReportGeneratorHelper.applyDocumentFonts(table.createRow(10f).createCell(100, "<p><b>key</b> : value</p>"));
+
+            ReportGeneratorHelper.drawTable(table);
+        } finally {
+            reportGeneratorHelper.releaseFontToUse();
+        }
+
+        List<String> fontNames = new ArrayList<>();
+        for (COSName fontName : page.getResources().getFontNames()) {
+            fontNames.add(page.getResources().getFont(fontName).getName());
+        }
+        assertThat(fontNames).containsExactly("FreeSans", "FreeSansBold");
+        // the default fonts of boxable are only set while the table is drawn
+        assertThat(FontUtils.getDefaultfonts()).isEmpty();
+    }
+
+    @Test
+    public void loadClasspathFontReturnsNullForMissingFontTest() throws IOException {
+        assertThat(ReportGeneratorHelper.loadClasspathFont(document, "missing-font.ttf")).isNull();
+    }
+
+    @Test
+    public void loadClasspathFontIntoConcurrentDocumentsTest() throws Exception {
+        ExecutorService otherThreads = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<PDFont>> fonts = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                fonts.add(otherThreads.submit(() -> {
+                    try (PDDocument otherDocument = new PDDocument()) {
+                        PDFont font = ReportGeneratorHelper.loadClasspathFont(otherDocument, "fonts/FreeSans.ttf");
+                        PDPage page = new PDPage();
+                        otherDocument.addPage(page);
+                        try (PDPageContentStream contentStream = new PDPageContentStream(otherDocument, page)) {
+                            contentStream.beginText();
+                            contentStream.setFont(font, 10);
+                            contentStream.showText("font of " + Thread.currentThread().getName());
+                            contentStream.endText();
+                        }
+                        otherDocument.save(new ByteArrayOutputStream());
+                        return font;
+                    }
+                }));
+            }
+
+            // every document parses and embeds its own font
+            Set<PDFont> distinctFonts = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Future<PDFont> font : fonts) {
+                distinctFonts.add(font.get(30, TimeUnit.SECONDS));
+            }
+            assertThat(distinctFonts).hasSize(4);
+        } finally {
+            otherThreads.shutdownNow();
+        }
+    }
+
 }